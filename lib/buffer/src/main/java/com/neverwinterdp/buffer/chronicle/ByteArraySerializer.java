@@ -0,0 +1,21 @@
+package com.neverwinterdp.buffer.chronicle;
+
+import net.openhft.lang.io.Bytes;
+
+public class ByteArraySerializer implements ExcerptSerializer<byte[]> {
+  final static public ByteArraySerializer INSTANCE = new ByteArraySerializer();
+  
+  public byte[] toBytes(byte[] object) { return object; }
+
+  public byte[] fromBytes(byte[] data) { return data; }
+
+  public int sizeOf(byte[] object) { return object.length; }
+
+  public void write(byte[] object, Bytes out) { out.write(object); }
+
+  public byte[] read(Bytes in, int size) {
+    byte[] data = new byte[size];
+    in.readFully(data);
+    return data;
+  }
+}
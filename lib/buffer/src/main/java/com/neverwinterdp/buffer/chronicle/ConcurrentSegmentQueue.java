@@ -0,0 +1,220 @@
+package com.neverwinterdp.buffer.chronicle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.neverwinterdp.util.io.FileUtil;
+
+/**
+ * The multi segment queue for the concurrent producers and consumers. The producers put the records in a lock free
+ * {@link WriteRing} and a single writer thread drains the ring into the chronicle segments, so there is no lock on
+ * the write path and the chronicle appender keeps its single writer. The order of the records of a producer is kept.
+ * <p/>
+ * The consumers are the {@link SegmentQueueReader}, each reader tails the segments with its own chronicle tailer and
+ * commits its own position. A segment is deleted when all the readers commit past it, the segments are kept when
+ * there is no reader. The committed positions are not persisted, a reader of a reopened queue starts from the
+ * oldest segment.
+ * <p/>
+ * When the writer thread fails to append, the error is kept in the ring and rethrown by write, flush and close.
+ */
+public class ConcurrentSegmentQueue<T> {
+  final static public int DEFAULT_RING_CAPACITY = 64 * 1024;
+  
+  private String                                    storeDir;
+  private Serializer<T>                             serializer;
+  private long                                      maxSizePerSegment;
+  private int                                       segmentIndexTracker = 0;
+  private ConcurrentSkipListMap<Integer, Segment<T>> segments = new ConcurrentSkipListMap<>();
+  private List<SegmentQueueReader<T>>               readers  = new CopyOnWriteArrayList<>();
+  
+  private WriteRing                                 ring;
+  private WriterThread                              writerThread;
+  private volatile boolean                          closed = false;
+  
+  private Object                                    dataAvailable  = new Object();
+  private AtomicInteger                             waitingReaders = new AtomicInteger();
+
+  public ConcurrentSegmentQueue(String storeDir, long maxSizePerSegment) throws Exception {
+    this(storeDir, new JavaSerializer<T>(), maxSizePerSegment, DEFAULT_RING_CAPACITY) ;
+  }
+  
+  public ConcurrentSegmentQueue(String storeDir, Serializer<T> serializer, long maxSizePerSegment, int ringCapacity) throws Exception {
+    this.storeDir = storeDir ;
+    this.serializer = serializer ;
+    this.maxSizePerSegment = maxSizePerSegment ;
+    if(!FileUtil.exist(storeDir)) {
+      FileUtil.mkdirs(storeDir) ;
+    } else {
+      File[] fsegments = new File(storeDir).listFiles(new MultiSegmentQueue.SegmentFileFilter()) ;
+      for(File selSegment : fsegments) {
+        String fileName = selSegment.getName() ;
+        String numString = fileName.substring("segment-".length(), fileName.lastIndexOf('.')) ;
+        int segIndex = Integer.parseInt(numString) ;
+        Segment<T> segment = new Segment<T>(storeDir, serializer, segIndex, maxSizePerSegment) ;
+        segment.open();
+        segment.setComplete();
+        segments.put(segIndex, segment) ;
+        if(segmentIndexTracker <= segIndex) segmentIndexTracker = segIndex + 1 ;
+      }
+    }
+    ring = new WriteRing(ringCapacity);
+    writerThread = new WriterThread();
+    writerThread.start();
+  }
+  
+  public void writeObject(T object) throws Exception {
+    write(serializer.toBytes(object)) ;
+  }
+  
+  /**
+   * Put the data in the write ring, the data is appended to the current segment by the writer thread.
+   */
+  public void write(byte[] data) throws Exception {
+    if(closed) throw new IOException("The queue " + storeDir + " is closed");
+    checkWriterFailure();
+    ring.put(data);
+    writerThread.wakeup();
+  }
+  
+  /**
+   * Wait until the data that is written before the call is appended to the segments.
+   */
+  public void flush() throws IOException, InterruptedException {
+    long sequence = ring.getClaimedSequence();
+    int spin = 0;
+    while(writerThread.appended < sequence) {
+      checkWriterFailure();
+      if(!writerThread.isAlive()) throw new IllegalStateException("The writer thread of " + storeDir + " is terminated");
+      writerThread.wakeup();
+      WriteRing.backoff(spin++);
+    }
+  }
+  
+  synchronized public SegmentQueueReader<T> getReader(String name) {
+    int firstSegmentIndex = segments.isEmpty() ? 0 : segments.firstKey();
+    SegmentQueueReader<T> reader = new SegmentQueueReader<T>(name, this, serializer, firstSegmentIndex);
+    readers.add(reader);
+    return reader;
+  }
+  
+  public int getNumOfSegments() { return segments.size(); }
+  
+  Map.Entry<Integer, Segment<T>> ceilingSegment(int segmentIndex) { return segments.ceilingEntry(segmentIndex); }
+  
+  Integer nextSegmentIndex(int segmentIndex) { return segments.higherKey(segmentIndex); }
+  
+  void waitForData(long maxWait) throws InterruptedException {
+    waitingReaders.incrementAndGet();
+    try {
+      synchronized(dataAvailable) {
+        dataAvailable.wait(maxWait);
+      }
+    } finally {
+      waitingReaders.decrementAndGet();
+    }
+  }
+  
+  void notifyDataAvailable() {
+    if(waitingReaders.get() == 0) return;
+    synchronized(dataAvailable) {
+      dataAvailable.notifyAll();
+    }
+  }
+  
+  /**
+   * Delete the segments that all the readers commit past.
+   */
+  synchronized void cleanup() throws Exception {
+    if(readers.isEmpty()) return;
+    int minCommitSegmentIndex = Integer.MAX_VALUE;
+    for(SegmentQueueReader<T> reader : readers) {
+      minCommitSegmentIndex = Math.min(minCommitSegmentIndex, reader.getCommitSegmentIndex());
+    }
+    Map.Entry<Integer, Segment<T>> entry = null;
+    while((entry = segments.firstEntry()) != null && entry.getKey() < minCommitSegmentIndex) {
+      segments.remove(entry.getKey());
+      entry.getValue().delete();
+    }
+  }
+  
+  synchronized void remove(SegmentQueueReader<T> reader) {
+    readers.remove(reader);
+  }
+  
+  public void close() throws Exception {
+    closed = true;
+    writerThread.wakeup();
+    writerThread.join();
+    for(SegmentQueueReader<T> reader : readers) {
+      reader.close();
+    }
+    for(Segment<T> segment : segments.values()) {
+      segment.close();
+    }
+    checkWriterFailure();
+  }
+  
+  private void checkWriterFailure() throws IOException {
+    Throwable failure = ring.getFailure();
+    if(failure != null) throw new IOException("The writer thread of " + storeDir + " is failed", failure);
+  }
+  
+  public class WriterThread extends Thread {
+    private volatile boolean parked   = false;
+    private volatile long    appended = 0;
+    private Segment<T>       writing;
+    
+    WriterThread() {
+      setName("segment-queue-writer");
+      setDaemon(true);
+    }
+    
+    void wakeup() {
+      if(parked) LockSupport.unpark(this);
+    }
+    
+    public void run() {
+      try {
+        while(true) {
+          int count = 0;
+          byte[] data = null;
+          while((data = ring.poll()) != null) {
+            writingSegment().append(data);
+            count++;
+          }
+          if(count > 0) {
+            appended += count;
+            notifyDataAvailable();
+            continue;
+          }
+          if(closed && ring.getConsumedSequence() == ring.getClaimedSequence()) break;
+          parked = true;
+          if(ring.isEmpty()) LockSupport.parkNanos(1000000);
+          parked = false;
+        }
+        if(writing != null) writing.setComplete();
+      } catch(Throwable t) {
+        ring.fail(t);
+      }
+    }
+    
+    Segment<T> writingSegment() throws Exception {
+      if(writing != null && writing.isFull()) {
+        writing.setComplete();
+        writing = null;
+      }
+      if(writing == null) {
+        writing = new Segment<T>(storeDir, serializer, segmentIndexTracker++, maxSizePerSegment) ;
+        writing.open() ;
+        segments.put(writing.getSegmentIndex(), writing);
+      }
+      return writing ;
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package com.neverwinterdp.buffer.chronicle;
+
+import net.openhft.lang.io.Bytes;
+
+/**
+ * A {@link Serializer} that writes the object straight into the chronicle excerpt and reads it back from the excerpt,
+ * without the intermediate byte array of {@link #toBytes(Object)}. The excerpt has the same layout as the byte array
+ * record [int size][bytes], the bytes are the same as the bytes of {@link #toBytes(Object)}, so the records can be
+ * read either way.
+ */
+public interface ExcerptSerializer<T> extends Serializer<T> {
+  /**
+   * The number of the bytes that {@link #write(Object, Bytes)} writes.
+   */
+  public int sizeOf(T object) ;
+  
+  public void write(T object, Bytes out) ;
+  
+  public T read(Bytes in, int size) ;
+}
@@ -0,0 +1,95 @@
+package com.neverwinterdp.buffer.chronicle;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import net.openhft.lang.io.Bytes;
+
+/**
+ * The serializer for the message like records that have a string key and a byte array data, such as the
+ * com.neverwinterdp.message.Message of the storage. The record is written as [int key size][key utf-8][int data size][data],
+ * the size -1 is a null key or data. A subclass maps the record to the key and the data:
+ * <pre>
+ * new KeyDataSerializer&lt;Message&gt;() {
+ *   protected String getKey(Message m) { return m.getKey(); }
+ *   protected byte[] getData(Message m) { return m.getData(); }
+ *   protected Message create(String key, byte[] data) { return new Message(key, data); }
+ * }
+ * </pre>
+ */
+abstract public class KeyDataSerializer<T> implements ExcerptSerializer<T> {
+  abstract protected String getKey(T record) ;
+  
+  abstract protected byte[] getData(T record) ;
+  
+  abstract protected T create(String key, byte[] data) ;
+  
+  public byte[] toBytes(T record) {
+    String key  = getKey(record);
+    byte[] data = getData(record);
+    byte[] keyBytes = key == null ? null : key.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocate(8 + (keyBytes == null ? 0 : keyBytes.length) + (data == null ? 0 : data.length));
+    putBytes(buffer, keyBytes);
+    putBytes(buffer, data);
+    return buffer.array();
+  }
+
+  public T fromBytes(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    byte[] keyBytes = getBytes(buffer);
+    String key = keyBytes == null ? null : new String(keyBytes, StandardCharsets.UTF_8);
+    return create(key, getBytes(buffer));
+  }
+
+  public int sizeOf(T record) {
+    String key  = getKey(record);
+    byte[] data = getData(record);
+    return 8 + (key == null ? 0 : StringSerializer.utf8Size(key)) + (data == null ? 0 : data.length);
+  }
+
+  public void write(T record, Bytes out) {
+    String key  = getKey(record);
+    byte[] data = getData(record);
+    if(key == null) {
+      out.writeInt(-1);
+    } else {
+      out.writeInt(StringSerializer.utf8Size(key));
+      StringSerializer.writeUTF8(key, out);
+    }
+    if(data == null) {
+      out.writeInt(-1);
+    } else {
+      out.writeInt(data.length);
+      out.write(data);
+    }
+  }
+
+  public T read(Bytes in, int size) {
+    int keySize = in.readInt();
+    String key = keySize < 0 ? null : StringSerializer.readUTF8(in, keySize);
+    int dataSize = in.readInt();
+    byte[] data = null;
+    if(dataSize >= 0) {
+      data = new byte[dataSize];
+      in.readFully(data);
+    }
+    return create(key, data);
+  }
+  
+  static void putBytes(ByteBuffer buffer, byte[] bytes) {
+    if(bytes == null) {
+      buffer.putInt(-1);
+    } else {
+      buffer.putInt(bytes.length);
+      buffer.put(bytes);
+    }
+  }
+  
+  static byte[] getBytes(ByteBuffer buffer) {
+    int size = buffer.getInt();
+    if(size < 0) return null;
+    byte[] bytes = new byte[size];
+    buffer.get(bytes);
+    return bytes;
+  }
+}
@@ -21,6 +21,7 @@ public class Segment<T> {
   private int  segmentIndex ;
   private long maxSize = 8 * 1024;
   private long size =  0; 
+  private volatile boolean complete = false;
   
   public Segment(String storeDir, Serializer<T> serializer, int idx, long maxSize) {
     this.storeDir = storeDir ;
@@ -36,6 +37,14 @@ public class Segment<T> {
     return size > maxSize;
   }
   
+  /**
+   * The writer marks the segment complete after its last record, a reader that reaches the end of a complete
+   * segment moves to the next segment.
+   */
+  public boolean isComplete() { return complete; }
+  
+  public void setComplete() { complete = true; }
+  
   public boolean hasNext() throws Exception {
     return reader.nextIndex() ;
   }
@@ -48,13 +57,17 @@ public class Segment<T> {
   }
   
   public T nextObject() throws Exception {
+    if(serializer instanceof ExcerptSerializer) {
+      int len = reader.readInt() ;
+      return ((ExcerptSerializer<T>) serializer).read(reader, len) ;
+    }
     byte[] data =  next() ;
     T object = serializer.fromBytes(data) ;
     return object ;
   }
   
   synchronized public void append(byte[] data) throws Exception {
-    appender.startExcerpt();
+    appender.startExcerpt(4 + data.length);
     appender.writeInt(data.length);
     appender.write(data);
     appender.finish();
@@ -62,7 +75,20 @@ public class Segment<T> {
   }
   
   public void append(T object) throws Exception {
-    append(serializer.toBytes(object)) ;
+    if(serializer instanceof ExcerptSerializer) {
+      append(object, (ExcerptSerializer<T>) serializer) ;
+    } else {
+      append(serializer.toBytes(object)) ;
+    }
+  }
+  
+  synchronized void append(T object, ExcerptSerializer<T> excerptSerializer) throws Exception {
+    int len = excerptSerializer.sizeOf(object) ;
+    appender.startExcerpt(4 + len);
+    appender.writeInt(len);
+    excerptSerializer.write(object, appender);
+    appender.finish();
+    size++ ;
   }
   
   public void delete() throws Exception {
@@ -77,6 +103,14 @@ public class Segment<T> {
     reader = chronicle.createTailer() ;
   }
   
+  /**
+   * Create a tailer with its own read position, the tailers can read concurrently with the appender.
+   */
+  synchronized public ExcerptTailer createTailer() throws IOException {
+    if(chronicle == null) throw new IOException("The segment " + segmentIndex + " is not opened");
+    return chronicle.createTailer();
+  }
+  
   synchronized public void close() throws IOException {
     if(chronicle != null) {
       appender.close();
@@ -0,0 +1,120 @@
+package com.neverwinterdp.buffer.chronicle;
+
+import java.io.IOException;
+import java.util.Map;
+
+import net.openhft.chronicle.ExcerptTailer;
+
+/**
+ * Read the segments of a {@link ConcurrentSegmentQueue} with its own tailer and committed position. The position is
+ * the segment index and the index of the next record in the segment, a rollback moves the tailer back to the last
+ * committed position. A reader is used by one thread.
+ */
+public class SegmentQueueReader<T> {
+  private String                    name;
+  private ConcurrentSegmentQueue<T> queue;
+  private Serializer<T>             serializer;
+  private Segment<T>                segment;
+  private ExcerptTailer             tailer;
+  private int                       segmentIndex;
+  private long                      position;
+  private volatile int              commitSegmentIndex;
+  private long                      commitPosition;
+  
+  SegmentQueueReader(String name, ConcurrentSegmentQueue<T> queue, Serializer<T> serializer, int segmentIndex) {
+    this.name = name;
+    this.queue = queue;
+    this.serializer = serializer;
+    this.segmentIndex = segmentIndex;
+    this.commitSegmentIndex = segmentIndex;
+  }
+  
+  public String getName() { return name; }
+  
+  public int getCommitSegmentIndex() { return commitSegmentIndex; }
+  
+  public long getCommitPosition() { return commitPosition; }
+  
+  public T nextObject(long maxWait) throws Exception {
+    byte[] data = next(maxWait);
+    if(data == null) return null;
+    return serializer.fromBytes(data);
+  }
+  
+  /**
+   * @return the next record or null if there is no record after the max wait time
+   */
+  public byte[] next(long maxWait) throws Exception {
+    long stopTime = System.currentTimeMillis() + maxWait;
+    while(true) {
+      byte[] data = tryNext();
+      if(data != null) return data;
+      long waitTime = stopTime - System.currentTimeMillis();
+      if(waitTime <= 0) return null;
+      queue.waitForData(Math.min(waitTime, 100));
+    }
+  }
+  
+  byte[] tryNext() throws IOException {
+    while(true) {
+      if(tailer == null && !openTailer()) return null;
+      //the segment is complete before the last check, no record can be appended after
+      boolean complete = segment.isComplete();
+      if(tailer.nextIndex()) {
+        int len = tailer.readInt() ;
+        byte[] data =  new byte[len] ;
+        tailer.read(data) ;
+        tailer.finish();
+        position++;
+        return data;
+      }
+      if(!complete) return null;
+      Integer nextSegmentIndex = queue.nextSegmentIndex(segmentIndex);
+      if(nextSegmentIndex == null) return null;
+      closeTailer();
+      segmentIndex = nextSegmentIndex;
+      position = 0;
+    }
+  }
+  
+  boolean openTailer() throws IOException {
+    Map.Entry<Integer, Segment<T>> entry = queue.ceilingSegment(segmentIndex);
+    if(entry == null) return false;
+    if(entry.getKey() != segmentIndex) {
+      segmentIndex = entry.getKey();
+      position = 0;
+    }
+    segment = entry.getValue();
+    tailer  = segment.createTailer();
+    if(position == 0) tailer.toStart();
+    else tailer.index(position - 1);
+    return true;
+  }
+  
+  void closeTailer() {
+    if(tailer == null) return;
+    tailer.close();
+    tailer  = null;
+    segment = null;
+  }
+  
+  /**
+   * Commit the current position, the segments that all the readers commit past are deleted.
+   */
+  public void commit() throws Exception {
+    commitPosition     = position;
+    commitSegmentIndex = segmentIndex;
+    queue.cleanup();
+  }
+  
+  public void rollback() {
+    closeTailer();
+    segmentIndex = commitSegmentIndex;
+    position     = commitPosition;
+  }
+  
+  public void close() {
+    closeTailer();
+    queue.remove(this);
+  }
+}
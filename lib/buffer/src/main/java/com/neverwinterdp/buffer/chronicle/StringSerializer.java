@@ -0,0 +1,99 @@
+package com.neverwinterdp.buffer.chronicle;
+
+import java.nio.charset.StandardCharsets;
+
+import net.openhft.lang.io.Bytes;
+
+/**
+ * Write the string in UTF-8 straight into the excerpt, the chars are encoded one by one so there is no byte array
+ * for the encoded string. The encoding is the same as {@link String#getBytes(java.nio.charset.Charset)}, a lone
+ * surrogate is encoded as '?'.
+ */
+public class StringSerializer implements ExcerptSerializer<String> {
+  final static public StringSerializer INSTANCE = new StringSerializer();
+  
+  public byte[] toBytes(String object) { return object.getBytes(StandardCharsets.UTF_8); }
+
+  public String fromBytes(byte[] data) { return new String(data, StandardCharsets.UTF_8); }
+
+  public int sizeOf(String object) { return utf8Size(object); }
+
+  public void write(String object, Bytes out) { writeUTF8(object, out); }
+
+  public String read(Bytes in, int size) { return readUTF8(in, size); }
+  
+  static public int utf8Size(String text) {
+    int size = 0;
+    int length = text.length();
+    for(int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      if(c < 0x80) {
+        size += 1;
+      } else if(c < 0x800) {
+        size += 2;
+      } else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+        size += 4;
+        i++;
+      } else if(Character.isSurrogate(c)) {
+        size += 1;
+      } else {
+        size += 3;
+      }
+    }
+    return size;
+  }
+  
+  static public void writeUTF8(String text, Bytes out) {
+    int length = text.length();
+    for(int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      if(c < 0x80) {
+        out.writeByte(c);
+      } else if(c < 0x800) {
+        out.writeByte(0xC0 | (c >> 6));
+        out.writeByte(0x80 | (c & 0x3F));
+      } else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, text.charAt(++i));
+        out.writeByte(0xF0 | (codePoint >> 18));
+        out.writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+        out.writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+        out.writeByte(0x80 | (codePoint & 0x3F));
+      } else if(Character.isSurrogate(c)) {
+        out.writeByte('?');
+      } else {
+        out.writeByte(0xE0 | (c >> 12));
+        out.writeByte(0x80 | ((c >> 6) & 0x3F));
+        out.writeByte(0x80 | (c & 0x3F));
+      }
+    }
+  }
+  
+  /**
+   * Decode the UTF-8 bytes that are written by {@link #writeUTF8(String, Bytes)}, the string has at most as many
+   * chars as the number of the bytes.
+   */
+  static public String readUTF8(Bytes in, int size) {
+    char[] chars = new char[size];
+    int count = 0;
+    int read = 0;
+    while(read < size) {
+      int b = in.readByte() & 0xFF;
+      read++;
+      if(b < 0x80) {
+        chars[count++] = (char) b;
+      } else if(b < 0xE0) {
+        chars[count++] = (char) (((b & 0x1F) << 6) | (in.readByte() & 0x3F));
+        read += 1;
+      } else if(b < 0xF0) {
+        chars[count++] = (char) (((b & 0x0F) << 12) | ((in.readByte() & 0x3F) << 6) | (in.readByte() & 0x3F));
+        read += 2;
+      } else {
+        int codePoint = ((b & 0x07) << 18) | ((in.readByte() & 0x3F) << 12) | ((in.readByte() & 0x3F) << 6) | (in.readByte() & 0x3F);
+        chars[count++] = Character.highSurrogate(codePoint);
+        chars[count++] = Character.lowSurrogate(codePoint);
+        read += 3;
+      }
+    }
+    return new String(chars, 0, count);
+  }
+}
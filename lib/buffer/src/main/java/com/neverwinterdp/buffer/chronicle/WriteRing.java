@@ -0,0 +1,84 @@
+package com.neverwinterdp.buffer.chronicle;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded ring for the multiple producers and a single consumer. A producer claims a slot with an increment of
+ * the tail sequence and publishes its data in the slot, the consumer takes the slots in the sequence order and frees
+ * them. There is no lock, a producer waits only when the ring is full and the consumer waits only for the slot
+ * at the head to be published. A consumer that fails marks the ring as failed, so the producers that wait for a free
+ * slot give up instead of waiting forever.
+ */
+public class WriteRing {
+  private final AtomicReferenceArray<byte[]> slots;
+  private final int                          mask;
+  private final AtomicLong                   tail = new AtomicLong();
+  private volatile long                      head = 0;
+  private volatile Throwable                 failure;
+
+  public WriteRing(int capacity) {
+    if(Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("The capacity " + capacity + " is not a power of 2");
+    }
+    slots = new AtomicReferenceArray<>(capacity);
+    mask  = capacity - 1;
+  }
+  
+  public int getCapacity() { return slots.length(); }
+  
+  /**
+   * The number of the slots that are claimed by the producers.
+   */
+  public long getClaimedSequence() { return tail.get(); }
+  
+  /**
+   * The number of the slots that are taken by the consumer.
+   */
+  public long getConsumedSequence() { return head; }
+  
+  /**
+   * The error of the consumer or null if the consumer is not failed.
+   */
+  public Throwable getFailure() { return failure; }
+  
+  /**
+   * Mark the ring as failed, called by the consumer when it cannot take the data anymore.
+   */
+  public void fail(Throwable failure) { this.failure = failure; }
+  
+  public long put(byte[] data) throws IOException {
+    long seq = tail.getAndIncrement();
+    int spin = 0;
+    while(seq - head >= slots.length()) {
+      if(failure != null) throw new IOException("The consumer of the ring is failed", failure);
+      backoff(spin++);
+    }
+    slots.set((int)(seq & mask), data);
+    return seq;
+  }
+  
+  /**
+   * Take the data at the head, called by the consumer thread only.
+   * 
+   * @return the data or null if the head slot is not published yet
+   */
+  public byte[] poll() {
+    int idx = (int)(head & mask);
+    byte[] data = slots.get(idx);
+    if(data == null) return null;
+    slots.set(idx, null);
+    head = head + 1;
+    return data;
+  }
+  
+  public boolean isEmpty() { return slots.get((int)(head & mask)) == null; }
+  
+  static void backoff(int spin) {
+    if(spin < 64) return;
+    else if(spin < 128) Thread.yield();
+    else LockSupport.parkNanos(1000);
+  }
+}
@@ -0,0 +1,240 @@
+package com.neverwinterdp.buffer.chronicle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.neverwinterdp.util.io.FileUtil;
+
+public class ConcurrentSegmentQueueUnitTest {
+  final static String QUEUE_DIR = "build/concurrent-queue";
+  
+  @Before
+  public void setup() throws Exception {
+    FileUtil.removeIfExist(QUEUE_DIR, false);
+  }
+  
+  @Test
+  public void testConcurrentReadWrite() throws Exception {
+    final int NUM_OF_PRODUCERS = 4;
+    final int NUM_OF_RECORDS_PER_PRODUCER = 50000;
+    final ConcurrentSegmentQueue<byte[]> queue = 
+      new ConcurrentSegmentQueue<byte[]>(QUEUE_DIR, new JavaSerializer<byte[]>(), 10000, 1024);
+    
+    ReaderRunner[] readers = new ReaderRunner[2];
+    ExecutorService readerService = Executors.newFixedThreadPool(readers.length);
+    for(int i = 0; i < readers.length; i++) {
+      readers[i] = new ReaderRunner(queue.getReader("reader-" + i), NUM_OF_PRODUCERS, NUM_OF_RECORDS_PER_PRODUCER);
+      readerService.submit(readers[i]);
+    }
+    readerService.shutdown();
+    
+    ExecutorService producerService = Executors.newFixedThreadPool(NUM_OF_PRODUCERS);
+    for(int i = 0; i < NUM_OF_PRODUCERS; i++) {
+      final int producerId = i;
+      producerService.submit(new Runnable() {
+        public void run() {
+          try {
+            for(int j = 0; j < NUM_OF_RECORDS_PER_PRODUCER; j++) {
+              queue.write(record(producerId, j, 128));
+            }
+          } catch(Exception e) {
+            e.printStackTrace();
+          }
+        }
+      });
+    }
+    producerService.shutdown();
+    producerService.awaitTermination(60, TimeUnit.SECONDS);
+    queue.flush();
+    Assert.assertTrue(readerService.awaitTermination(60, TimeUnit.SECONDS));
+    for(int i = 0; i < readers.length; i++) {
+      Assert.assertNull(readers[i].error, readers[i].error);
+      Assert.assertEquals(NUM_OF_PRODUCERS * NUM_OF_RECORDS_PER_PRODUCER, readers[i].count);
+    }
+    //all the readers commit past the segments, only the last segment is kept
+    Assert.assertEquals(1, queue.getNumOfSegments());
+    queue.close();
+  }
+  
+  @Test
+  public void testReopen() throws Exception {
+    ConcurrentSegmentQueue<byte[]> queue = new ConcurrentSegmentQueue<byte[]>(QUEUE_DIR, new JavaSerializer<byte[]>(), 1000, 1024);
+    for(int i = 0; i < 5000; i++) {
+      queue.write(record(0, i, 32));
+    }
+    queue.flush();
+    SegmentQueueReader<byte[]> reader = queue.getReader("reader");
+    for(int i = 0; i < 2500; i++) {
+      Assert.assertEquals(i, ByteBuffer.wrap(reader.next(1000)).getInt(4));
+    }
+    reader.commit();
+    queue.close();
+    
+    queue = new ConcurrentSegmentQueue<byte[]>(QUEUE_DIR, new JavaSerializer<byte[]>(), 1000, 1024);
+    for(int i = 5000; i < 6000; i++) {
+      queue.write(record(0, i, 32));
+    }
+    queue.flush();
+    //the committed position is not persisted, the reader starts from the oldest segment that is not deleted
+    reader = queue.getReader("reader");
+    byte[] data = reader.next(1000);
+    int first = ByteBuffer.wrap(data).getInt(4);
+    Assert.assertTrue(first > 0 && first <= 2500);
+    int count = 1;
+    while((data = reader.next(100)) != null) {
+      Assert.assertEquals(first + count, ByteBuffer.wrap(data).getInt(4));
+      count++;
+    }
+    Assert.assertEquals(6000, first + count);
+    queue.close();
+  }
+  
+  @Test(timeout = 30000)
+  public void testWriterFailure() throws Exception {
+    ConcurrentSegmentQueue<byte[]> queue = new ConcurrentSegmentQueue<byte[]>(QUEUE_DIR, new JavaSerializer<byte[]>(), 1000, 16);
+    //the writer thread cannot create a segment in a store dir that is a file
+    FileUtil.removeIfExist(QUEUE_DIR, false);
+    new File(QUEUE_DIR).createNewFile();
+    //the producer gives up when the ring is full instead of waiting for the failed writer
+    IOException error = null;
+    try {
+      for(int i = 0; i < 1000; i++) queue.write(record(0, i, 32));
+    } catch(IOException e) {
+      error = e;
+    }
+    Assert.assertNotNull(error);
+    try {
+      queue.flush();
+      Assert.fail("flush should rethrow the writer failure");
+    } catch(IOException e) {
+    }
+    try {
+      queue.close();
+      Assert.fail("close should rethrow the writer failure");
+    } catch(IOException e) {
+    }
+    new File(QUEUE_DIR).delete();
+  }
+  
+  @Test
+  public void testPerformance() throws Exception {
+    int NUM_OF_PRODUCERS = 4;
+    int NUM_OF_RECORDS_PER_PRODUCER = 250000;
+    byte[] data = new byte[256];
+    for(int round = 0; round < 2; round++) {
+      FileUtil.removeIfExist(QUEUE_DIR, false);
+      final MultiSegmentQueue<byte[]> lockQueue = new MultiSegmentQueue<byte[]>(QUEUE_DIR, 128 * 1024);
+      long duration = produce(NUM_OF_PRODUCERS, NUM_OF_RECORDS_PER_PRODUCER, data, new Writer() {
+        public void write(byte[] data) throws Exception { lockQueue.write(data); }
+      });
+      lockQueue.close();
+      report("MultiSegmentQueue              ", NUM_OF_PRODUCERS * NUM_OF_RECORDS_PER_PRODUCER, duration);
+      
+      FileUtil.removeIfExist(QUEUE_DIR, false);
+      final ConcurrentSegmentQueue<byte[]> queue = new ConcurrentSegmentQueue<byte[]>(QUEUE_DIR, 128 * 1024);
+      long start = System.nanoTime();
+      duration = produce(NUM_OF_PRODUCERS, NUM_OF_RECORDS_PER_PRODUCER, data, new Writer() {
+        public void write(byte[] data) throws Exception { queue.write(data); }
+      });
+      report("ConcurrentSegmentQueue producer", NUM_OF_PRODUCERS * NUM_OF_RECORDS_PER_PRODUCER, duration);
+      queue.flush();
+      duration = System.nanoTime() - start;
+      queue.close();
+      report("ConcurrentSegmentQueue appended", NUM_OF_PRODUCERS * NUM_OF_RECORDS_PER_PRODUCER, duration);
+    }
+  }
+  
+  long produce(int numOfProducers, final int numOfRecords, final byte[] data, final Writer writer) throws Exception {
+    long start = System.nanoTime();
+    ExecutorService producerService = Executors.newFixedThreadPool(numOfProducers);
+    for(int i = 0; i < numOfProducers; i++) {
+      producerService.submit(new Runnable() {
+        public void run() {
+          try {
+            for(int j = 0; j < numOfRecords; j++) writer.write(data);
+          } catch(Exception e) {
+            e.printStackTrace();
+          }
+        }
+      });
+    }
+    producerService.shutdown();
+    producerService.awaitTermination(5, TimeUnit.MINUTES);
+    return System.nanoTime() - start;
+  }
+  
+  void report(String label, int numOfRecords, long duration) {
+    System.out.println(label + " records/sec = " + (long)(numOfRecords * 1000000000d / duration));
+  }
+  
+  static byte[] record(int producerId, int seq, int size) {
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.putInt(producerId);
+    buffer.putInt(seq);
+    return buffer.array();
+  }
+  
+  static interface Writer {
+    public void write(byte[] data) throws Exception;
+  }
+  
+  static public class ReaderRunner implements Runnable {
+    SegmentQueueReader<byte[]> reader;
+    int    numOfRecordsPerProducer;
+    int[]  nextSeq;
+    int[]  commitNextSeq;
+    int    count;
+    String error;
+    
+    ReaderRunner(SegmentQueueReader<byte[]> reader, int numOfProducers, int numOfRecordsPerProducer) {
+      this.reader = reader;
+      this.numOfRecordsPerProducer = numOfRecordsPerProducer;
+      nextSeq       = new int[numOfProducers];
+      commitNextSeq = new int[numOfProducers];
+    }
+    
+    public void run() {
+      try {
+        Random rand = new Random();
+        int total = nextSeq.length * numOfRecordsPerProducer;
+        int uncommit = 0;
+        byte[] data = null;
+        while(count < total && (data = reader.next(5000)) != null) {
+          ByteBuffer buffer = ByteBuffer.wrap(data);
+          int producerId = buffer.getInt(), seq = buffer.getInt();
+          if(seq != nextSeq[producerId]) {
+            error = "producer " + producerId + ", expect " + nextSeq[producerId] + " but was " + seq;
+            return;
+          }
+          nextSeq[producerId]++;
+          uncommit++;
+          if(uncommit == 1000) {
+            if(rand.nextInt(4) == 0) {
+              reader.rollback();
+              System.arraycopy(commitNextSeq, 0, nextSeq, 0, nextSeq.length);
+            } else {
+              reader.commit();
+              System.arraycopy(nextSeq, 0, commitNextSeq, 0, nextSeq.length);
+              count += uncommit;
+            }
+            uncommit = 0;
+          }
+        }
+        reader.commit();
+        count += uncommit;
+      } catch(Exception e) {
+        e.printStackTrace();
+        error = e.getMessage();
+      }
+    }
+  }
+}
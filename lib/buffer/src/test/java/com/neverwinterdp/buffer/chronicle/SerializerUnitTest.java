@@ -0,0 +1,135 @@
+package com.neverwinterdp.buffer.chronicle;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.neverwinterdp.util.io.FileUtil;
+
+public class SerializerUnitTest {
+  final static String SEGMENT_DIR = "build/segment";
+  
+  @Before
+  public void setup() throws Exception {
+    FileUtil.removeIfExist(SEGMENT_DIR, false);
+  }
+  
+  @Test
+  public void testString() throws Exception {
+    String[] texts = { "", "ascii text", "caf\u00e9 \u00fcber", "\u65e5\u672c\u8a9e", "emoji \ud83d\ude00 end", "lone \ud83d surrogate" };
+    Segment<String> segment = new Segment<String>(SEGMENT_DIR, StringSerializer.INSTANCE, 0, 10000) ;
+    segment.open();
+    for(String text : texts) {
+      Assert.assertEquals(text.getBytes(StandardCharsets.UTF_8).length, StringSerializer.INSTANCE.sizeOf(text));
+      segment.append(text);
+    }
+    segment.close();
+    
+    segment.open();
+    for(String text : texts) {
+      Assert.assertTrue(segment.hasNext());
+      String expect = new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+      Assert.assertEquals(expect, segment.nextObject());
+    }
+    Assert.assertFalse(segment.hasNext());
+    segment.close();
+    
+    //the excerpt has the same bytes as toBytes
+    segment.open();
+    for(String text : texts) {
+      segment.hasNext();
+      Assert.assertArrayEquals(StringSerializer.INSTANCE.toBytes(text), segment.next());
+    }
+    segment.close();
+  }
+  
+  @Test
+  public void testKeyData() throws Exception {
+    Record[] records = { new Record("key-1", new byte[] { 1, 2, 3 }), new Record(null, new byte[0]), new Record("\u00e9", null) };
+    Segment<Record> segment = new Segment<Record>(SEGMENT_DIR, new RecordSerializer(), 0, 10000) ;
+    segment.open();
+    for(Record record : records) segment.append(record);
+    segment.close();
+    
+    segment.open();
+    RecordSerializer serializer = new RecordSerializer();
+    for(Record record : records) {
+      segment.hasNext();
+      Record read = segment.nextObject();
+      Assert.assertEquals(record.key, read.key);
+      Assert.assertTrue(Arrays.equals(record.data, read.data));
+      Record fromBytes = serializer.fromBytes(serializer.toBytes(record));
+      Assert.assertEquals(record.key, fromBytes.key);
+      Assert.assertTrue(Arrays.equals(record.data, fromBytes.data));
+    }
+    segment.close();
+  }
+  
+  @Test
+  public void testPerformance() throws Exception {
+    int NUM_OF_RECORDS = 500000;
+    byte[] data = new byte[256];
+    String text = "This is a test, This is a test, This is a test, This is a test, This is a test";
+    Record record = new Record("key-1234567890", data);
+    for(int round = 0; round < 2; round++) {
+      System.out.println("Round " + round);
+      run("byte[] java  ", new JavaSerializer<byte[]>(), data, NUM_OF_RECORDS);
+      run("byte[] binary", ByteArraySerializer.INSTANCE, data, NUM_OF_RECORDS);
+      run("String java  ", new JavaSerializer<String>(), text, NUM_OF_RECORDS);
+      run("String binary", StringSerializer.INSTANCE, text, NUM_OF_RECORDS);
+      run("Record java  ", new JavaSerializer<Record>(), record, NUM_OF_RECORDS);
+      run("Record binary", new RecordSerializer(), record, NUM_OF_RECORDS);
+    }
+  }
+  
+  <T> void run(String label, Serializer<T> serializer, T object, int numOfRecords) throws Exception {
+    FileUtil.removeIfExist(SEGMENT_DIR, false);
+    Segment<T> segment = new Segment<T>(SEGMENT_DIR, serializer, 0, numOfRecords) ;
+    segment.open();
+    long start = System.nanoTime();
+    for(int i = 0; i < numOfRecords; i++) {
+      segment.append(object);
+    }
+    long writeTime = System.nanoTime() - start;
+    segment.close();
+    
+    segment.open();
+    start = System.nanoTime();
+    int count = 0;
+    while(segment.hasNext()) {
+      segment.nextObject();
+      count++;
+    }
+    long readTime = System.nanoTime() - start;
+    segment.close();
+    Assert.assertEquals(numOfRecords, count);
+    System.out.println(
+      label + " write records/sec = " + (long)(numOfRecords * 1000000000d / writeTime) + 
+      ", read records/sec = " + (long)(numOfRecords * 1000000000d / readTime)
+    );
+  }
+  
+  static public class Record implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    String key;
+    byte[] data;
+    
+    public Record(String key, byte[] data) {
+      this.key  = key;
+      this.data = data;
+    }
+  }
+  
+  static public class RecordSerializer extends KeyDataSerializer<Record> {
+    protected String getKey(Record record) { return record.key; }
+
+    protected byte[] getData(Record record) { return record.data; }
+
+    protected Record create(String key, byte[] data) { return new Record(key, data); }
+  }
+}
@@ -0,0 +1,73 @@
+package com.neverwinterdp.yara;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+import com.neverwinterdp.yara.sketch.HyperLogLog;
+
+/**
+ * A metric which estimates the number of the distinct values, such as the unique visitors, in a constant memory.
+ * <p/>
+ * The values are offered to a {@link HyperLogLog}, the cardinalities of the different servers are combined with the
+ * union of their HyperLogLogs, a value that is seen by several servers is counted once.
+ */
+public class Cardinality implements Serializable {
+  private String      name;
+  private HyperLogLog hyperLogLog;
+
+  public Cardinality() {
+    this(null);
+  }
+
+  public Cardinality(String name) {
+    this(name, new HyperLogLog());
+  }
+
+  public Cardinality(String name, HyperLogLog hyperLogLog) {
+    this.name        = name;
+    this.hyperLogLog = hyperLogLog;
+  }
+
+  public String getName() { return this.name; }
+
+  synchronized public void offer(String value) { hyperLogLog.offer(value); }
+
+  synchronized public void offer(long value) { hyperLogLog.offer(value); }
+
+  /**
+   * @return the estimated number of the distinct values
+   */
+  synchronized public long getCount() { return hyperLogLog.cardinality(); }
+
+  public double getStandardError() { return hyperLogLog.getStandardError(); }
+
+  /**
+   * @return a copy of the HyperLogLog of this cardinality
+   */
+  synchronized public HyperLogLog getHyperLogLog() {
+    HyperLogLog copy = new HyperLogLog(hyperLogLog.getPrecision());
+    copy.merge(hyperLogLog);
+    return copy;
+  }
+
+  static public Cardinality unionOf(Cardinality c1, Cardinality c2) {
+    HyperLogLog hyperLogLog = HyperLogLog.unionOf(c1.getHyperLogLog(), c2.getHyperLogLog());
+    return new Cardinality(c1.getName(), hyperLogLog);
+  }
+
+  static public Cardinality combine(Cardinality ... cardinality) {
+    if(cardinality.length == 0) return new Cardinality();
+    else if(cardinality.length == 1) return cardinality[0];
+    Cardinality combine = Cardinality.unionOf(cardinality[0], cardinality[1]);
+    for(int i = 2; i < cardinality.length; i++) {
+      combine = Cardinality.unionOf(combine, cardinality[i]);
+    }
+    return combine;
+  }
+
+  static public Cardinality combine(Collection<Cardinality> cardinalities) {
+    Cardinality[] array = new Cardinality[cardinalities.size()];
+    cardinalities.toArray(array);
+    return Cardinality.combine(array);
+  }
+}
@@ -1,5 +1,6 @@
 package com.neverwinterdp.yara;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -7,6 +8,10 @@ import java.util.concurrent.atomic.AtomicLong;
 /**
  * A meter metric which measures mean throughput and one-, five-, and fifteen-minute
  * exponentially-weighted moving average throughputs.
+ * <p/>
+ * The striped meter marks the events of a thread in one of several meters, so the threads that mark the same 
+ * meter do not contend on one monitor. The count and the rates are the sum of the stripes, the same as the union
+ * of the meters. A striped meter is serialized as the union of its stripes.
  *
  * @see EWMA
  */
@@ -20,6 +25,8 @@ public class EWMAMeter implements Serializable {
   private final AtomicLong  count ;
   private final long        startTime;
   private final AtomicLong  lastTick;
+  
+  transient private EWMAMeter[] stripes ;
 
   /**
    * Creates a new {@link EWMAMeter}.
@@ -36,6 +43,20 @@ public class EWMAMeter implements Serializable {
     m15Rate       = EWMA.fifteenMinuteEWMA();
   }
   
+  /**
+   * Creates a new striped {@link EWMAMeter}.
+   *
+   * @param numOfStripes the number of stripes, rounded up to a power of two. The number of the available
+   *        processors is used when it is not positive
+   */
+  public EWMAMeter(int numOfStripes) {
+    this() ;
+    stripes = new EWMAMeter[Stripes.size(numOfStripes)] ;
+    for(int i = 0; i < stripes.length; i++) {
+      stripes[i] = new EWMAMeter() ;
+    }
+  }
+  
   public EWMAMeter(AtomicLong  count, long startTime, AtomicLong lastTick,
                EWMA m1Rate, EWMA m5Rate, EWMA m15Rate) {
     this.count     = count ;
@@ -72,12 +93,17 @@ public class EWMAMeter implements Serializable {
    *
    * @param n the number of events
    */
-  synchronized public long mark(long timestampTick, long n) {
-    tickIfNecessary(timestampTick);
-    count.addAndGet(n);
-    m1Rate.update(n);
-    m5Rate.update(n);
-    m15Rate.update(n);
+  public long mark(long timestampTick, long n) {
+    if(stripes != null) {
+      return stripes[Stripes.index(stripes.length)].mark(timestampTick, n);
+    }
+    synchronized(this) {
+      tickIfNecessary(timestampTick);
+      count.addAndGet(n);
+      m1Rate.update(n);
+      m5Rate.update(n);
+      m15Rate.update(n);
+    }
     return timestampTick ;
   }
 
@@ -100,15 +126,28 @@ public class EWMAMeter implements Serializable {
 
   
   public long getCount() {
-    return count.longValue();
+    if(stripes == null) return count.longValue();
+    long sum = 0;
+    for(int i = 0; i < stripes.length; i++) sum += stripes[i].getCount();
+    return sum;
   }
   
   public double getFifteenMinuteRate() {
+    if(stripes != null) {
+      double sum = 0;
+      for(int i = 0; i < stripes.length; i++) sum += stripes[i].getFifteenMinuteRate();
+      return sum;
+    }
     tickIfNecessary(Clock.defaultClock().getTick());
     return m15Rate.getRate(TimeUnit.SECONDS);
   }
 
   public double getFiveMinuteRate() {
+    if(stripes != null) {
+      double sum = 0;
+      for(int i = 0; i < stripes.length; i++) sum += stripes[i].getFiveMinuteRate();
+      return sum;
+    }
     tickIfNecessary(Clock.defaultClock().getTick());
     return m5Rate.getRate(TimeUnit.SECONDS);
   }
@@ -123,11 +162,41 @@ public class EWMAMeter implements Serializable {
   }
 
   public double getOneMinuteRate() {
+    if(stripes != null) {
+      double sum = 0;
+      for(int i = 0; i < stripes.length; i++) sum += stripes[i].getOneMinuteRate();
+      return sum;
+    }
     tickIfNecessary(Clock.defaultClock().getTick());
     return m1Rate.getRate(TimeUnit.SECONDS);
   }
   
+  boolean isStriped() { return stripes != null ; }
+  
+  /**
+   * Merge the stripes into a non striped meter.
+   * @return this meter if it is not striped
+   */
+  EWMAMeter merge() {
+    if(stripes == null) return this;
+    long now = Clock.defaultClock().getTick();
+    EWMAMeter merge = 
+      new EWMAMeter(new AtomicLong(), startTime, new AtomicLong(now), EWMA.oneMinuteEWMA(), EWMA.fiveMinuteEWMA(), EWMA.fifteenMinuteEWMA());
+    for(int i = 0; i < stripes.length; i++) {
+      //bring the idle stripes to the same tick before the rates are added
+      stripes[i].tickIfNecessary(now);
+      merge = unionOf(merge, stripes[i]);
+    }
+    return merge;
+  }
+  
+  private Object writeReplace() throws ObjectStreamException {
+    return merge() ;
+  }
+  
   static public EWMAMeter unionOf(EWMAMeter m1, EWMAMeter m2) {
+    m1 = m1.merge();
+    m2 = m2.merge();
     AtomicLong  count         = new AtomicLong(m1.count.longValue() + m2.count.longValue());
     long        startTime     = m1.startTime < m2.startTime ? m1.startTime : m2.startTime;
     AtomicLong  lastTick = 
@@ -1,12 +1,23 @@
 package com.neverwinterdp.yara;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.concurrent.atomic.AtomicLong;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.neverwinterdp.yara.quantile.IQuantileEstimator;
 import com.neverwinterdp.yara.quantile.QDigest;
 
 /**
  * A metric which calculates the distribution of a value.
+ * <p/>
+ * The distribution is estimated by a {@link QDigest} by default. Any other {@link IQuantileEstimator} can be
+ * plugged in, such as the fixed memory {@link com.neverwinterdp.yara.quantile.LogLinearDigest}. The histograms
+ * that are combined must use the same estimator with the same configuration.
+ * <p/>
+ * The striped histogram records the values of a thread into one of several digests, so the threads that update
+ * the same histogram do not contend on one digest. The stripes are merged on read, and the merged histogram is
+ * kept until a new value is recorded. A striped histogram is serialized as its merged histogram.
  *
  * @see <a href="http://www.johndcook.com/standard_deviation.html">Accurately computing running
  *      variance</a>
@@ -14,22 +25,55 @@ import com.neverwinterdp.yara.quantile.QDigest;
 public class Histogram  implements Serializable {
   static double COMPRESSION_FACTOR = 150d ;
 
-  private final QDigest qdigest;
+  private final IQuantileEstimator estimator;
   private final AtomicLong count;
 
+  transient private Stripe[]  stripes ;
+  transient private Histogram merged ;
+
   /**
    * Creates a new {@link Histogram} with the given reservoir.
    *
    * @param reservoir the reservoir to create a histogram from
    */
   public Histogram() {
-    this.qdigest = new QDigest(COMPRESSION_FACTOR);
+    this(new QDigest(COMPRESSION_FACTOR));
+  }
+  
+  /**
+   * Creates a new {@link Histogram} with the given estimator.
+   *
+   * @param estimator an empty estimator
+   */
+  public Histogram(IQuantileEstimator estimator) {
+    this.estimator = estimator;
     this.count = new AtomicLong() ;
   }
   
-  public Histogram(QDigest qdigest, AtomicLong count) {
-    this.qdigest = qdigest;
-    this.count   = count ;
+  /**
+   * Creates a new striped {@link Histogram}.
+   *
+   * @param numOfStripes the number of stripes, rounded up to a power of two. The number of the available
+   *        processors is used when it is not positive
+   */
+  public Histogram(int numOfStripes) {
+    this(new QDigest(COMPRESSION_FACTOR), numOfStripes);
+  }
+  
+  /**
+   * Creates a new striped {@link Histogram}, each stripe has an estimator created by the given estimator.
+   */
+  public Histogram(IQuantileEstimator estimator, int numOfStripes) {
+    this(estimator);
+    stripes = new Stripe[Stripes.size(numOfStripes)];
+    for(int i = 0; i < stripes.length; i++) {
+      stripes[i] = new Stripe(estimator.create());
+    }
+  }
+  
+  public Histogram(IQuantileEstimator estimator, AtomicLong count) {
+    this.estimator = estimator;
+    this.count     = count ;
   }
 
   /**
@@ -47,33 +91,97 @@ public class Histogram  implements Serializable {
    * @param value the length of the value
    */
   public void update(long value) {
+    if(stripes != null) {
+      stripes[Stripes.index(stripes.length)].update(value);
+      return;
+    }
     count.incrementAndGet() ;
-    qdigest.offer(value);
+    estimator.offer(value);
   }
 
   /**
    * Returns the number of values recorded.
    * @return the number of values recorded
    */
-  public long getCount() { return count.longValue() ; }
+  public long getCount() { 
+    if(stripes == null) return count.longValue() ; 
+    long sum = 0 ;
+    for(int i = 0; i < stripes.length; i++) sum += stripes[i].count ;
+    return sum ;
+  }
+  
+  public long getMin() { return getQuantileEstimator().getQuantile(0) ; }
+  
+  public long getMax() { return getQuantileEstimator().getQuantile(1.0) ; }
+  
+  public double getMean() { return getQuantileEstimator().getMean() ; }
   
-  public long getMin() { return qdigest.getQuantile(0) ; }
+  public double getStdDev() { return getQuantileEstimator().getStdDev() ; }
   
-  public long getMax() { return qdigest.getQuantile(1.0) ; }
+  public long getQuantile(double percent) { return getQuantileEstimator().getQuantile(percent) ; }
+  
+  /**
+   * @return the qdigest of the histogram or null if the histogram uses another estimator
+   */
+  public QDigest getQDigest() { 
+    IQuantileEstimator estimator = getQuantileEstimator() ;
+    if(estimator instanceof QDigest) return (QDigest) estimator ;
+    return null ;
+  }
   
-  public double getMean() { return qdigest.getMean() ; }
+  @JsonIgnore
+  public IQuantileEstimator getQuantileEstimator() { return merge().estimator ; }
   
-  public double getStdDev() { return qdigest.getStdDev() ; }
+  boolean isStriped() { return stripes != null ; }
   
-  public long getQuantile(double percent) { return qdigest.getQuantile(percent) ; }
+  /**
+   * Merge the stripes into a non striped histogram. The merged histogram is reused until a new value is recorded.
+   * @return this histogram if it is not striped
+   */
+  Histogram merge() {
+    if(stripes == null) return this ;
+    Histogram snapshot = merged ;
+    if(snapshot != null && snapshot.count.longValue() == getCount()) return snapshot ;
+    IQuantileEstimator mergeEstimator = estimator.create() ;
+    long mergeCount = 0 ;
+    for(int i = 0; i < stripes.length; i++) {
+      Stripe stripe = stripes[i] ;
+      synchronized(stripe) {
+        if(stripe.count == 0) continue ;
+        mergeEstimator = mergeEstimator.unionWith(stripe.estimator) ;
+        mergeCount += stripe.count ;
+      }
+    }
+    snapshot = new Histogram(mergeEstimator, new AtomicLong(mergeCount)) ;
+    merged = snapshot ;
+    return snapshot ;
+  }
   
-  public QDigest getQDigest() { return this.qdigest ; }
+  private Object writeReplace() throws ObjectStreamException {
+    return merge() ;
+  }
   
   static public Histogram unionOf(Histogram h1, Histogram h2) {
-    QDigest qdigest = QDigest.unionOf(h1.qdigest, h2.qdigest) ;
+    h1 = h1.merge() ;
+    h2 = h2.merge() ;
+    IQuantileEstimator estimator = h1.estimator.unionWith(h2.estimator) ;
     AtomicLong count = new AtomicLong() ;
     count.addAndGet(h1.count.longValue()) ;
     count.addAndGet(h2.count.longValue()) ;
-    return new Histogram(qdigest, count) ;
+    return new Histogram(estimator, count) ;
+  }
+  
+  static class Stripe {
+    private final IQuantileEstimator estimator ;
+    private volatile long count ;
+    
+    Stripe(IQuantileEstimator estimator) {
+      this.estimator = estimator ;
+    }
+    
+    synchronized void update(long value) {
+      count++ ;
+      estimator.offer(value);
+    }
   }
 }
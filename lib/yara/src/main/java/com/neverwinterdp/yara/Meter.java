@@ -17,6 +17,15 @@ public class Meter implements Serializable {
     this.unit = unit;
   }
   
+  /**
+   * Creates a striped meter, the events of a thread are marked in one of the stripes of the meter.
+   */
+  public Meter(String name, String unit, int numOfStripes) {
+    this.name = name ;
+    this.unit = unit;
+    this.ewmaMeter = new EWMAMeter(numOfStripes);
+  }
+  
   public Meter(String name, EWMAMeter meter, String unit) {
     this.name = name ;
     this.ewmaMeter = meter;
@@ -6,13 +6,19 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import com.neverwinterdp.yara.quantile.IQuantileEstimator;
+
 public class MetricRegistry implements Serializable {
   transient private MetricPluginManager pluginManager = new MetricPluginManager() ;;
   
   private String name ;
-  private ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
-  private ConcurrentMap<String, Timer>   timers   = new ConcurrentHashMap<>();
-  private ConcurrentMap<String, Meter>   meters   = new ConcurrentHashMap<>();
+  transient private boolean stripedRecording = false;
+  transient private IQuantileEstimator histogramEstimator ;
+  private ConcurrentMap<String, Counter>     counters      = new ConcurrentHashMap<>();
+  private ConcurrentMap<String, Timer>       timers        = new ConcurrentHashMap<>();
+  private ConcurrentMap<String, Meter>       meters        = new ConcurrentHashMap<>();
+  private ConcurrentMap<String, Cardinality> cardinalities = new ConcurrentHashMap<>();
+  private ConcurrentMap<String, TopK>        topKs         = new ConcurrentHashMap<>();
 
   public MetricRegistry() { 
   }
@@ -24,6 +30,19 @@ public class MetricRegistry implements Serializable {
   
   public String getName() { return this.name ; }
   
+  /**
+   * Create the timers and the meters in the striped mode, so the threads that record the same metric do not 
+   * contend on it. The striped metrics cost more memory and merge their stripes on read. The metrics that are
+   * already created are not changed.
+   */
+  public void setStripedRecording(boolean b) { this.stripedRecording = b; }
+  
+  /**
+   * The timers that are created after this call estimate their distribution with an estimator created by the 
+   * given estimator, the default is the {@link com.neverwinterdp.yara.quantile.QDigest}.
+   */
+  public void setHistogramEstimator(IQuantileEstimator estimator) { this.histogramEstimator = estimator; }
+  
   public MetricPluginManager getPluginManager() { return this.pluginManager ; }
   
   public Map<String, Counter> getCounters() { return this.counters ; }
@@ -53,13 +72,24 @@ public class MetricRegistry implements Serializable {
     synchronized(timers) {
       timer = timers.get(name) ;
       if(timer != null) return timer ;
-      timer = new Timer(name) ;
+      timer = newTimer(name) ;
       timer.setMetricPlugin(pluginManager);
       timers.put(name, timer) ;
     }
     return timer ;
   }
   
+  private Timer newTimer(String name) {
+    if(histogramEstimator == null) {
+      if(stripedRecording) return new Timer(name, 0) ;
+      return new Timer(name) ;
+    }
+    if(stripedRecording) {
+      return new Timer(name, new Histogram(histogramEstimator.create(), 0), new EWMAMeter(0)) ;
+    }
+    return new Timer(name, new Histogram(histogramEstimator.create()), new EWMAMeter()) ;
+  }
+  
   public Timer timer(String ... name) {
     return getTimer(name(name)) ;
   }
@@ -72,7 +102,8 @@ public class MetricRegistry implements Serializable {
     synchronized(meters) {
       meter = meters.get(name) ;
       if(meter != null) return meter ;
-      meter = new Meter(name, unit) ;
+      if(stripedRecording) meter = new Meter(name, unit, 0) ;
+      else meter = new Meter(name, unit) ;
       meter.setMetricPlugin(pluginManager);
       meters.put(name, meter) ;
     }
@@ -83,6 +114,42 @@ public class MetricRegistry implements Serializable {
     return getMeter(name(name), "call") ;
   }
   
+  public Map<String, Cardinality> getCardinalities() { return this.cardinalities ; }
+  
+  public Cardinality getCardinality(String name) {
+    Cardinality cardinality = cardinalities.get(name) ;
+    if(cardinality != null) return cardinality ;
+    synchronized(cardinalities) {
+      cardinality = cardinalities.get(name) ;
+      if(cardinality != null) return cardinality ;
+      cardinality = new Cardinality(name) ;
+      cardinalities.put(name, cardinality) ;
+    }
+    return cardinality ;
+  }
+  
+  public Cardinality cardinality(String ... name) {
+    return getCardinality(name(name)) ;
+  }
+  
+  public Map<String, TopK> getTopKs() { return this.topKs ; }
+  
+  public TopK getTopK(String name) {
+    TopK topK = topKs.get(name) ;
+    if(topK != null) return topK ;
+    synchronized(topKs) {
+      topK = topKs.get(name) ;
+      if(topK != null) return topK ;
+      topK = new TopK(name) ;
+      topKs.put(name, topK) ;
+    }
+    return topK ;
+  }
+  
+  public TopK topK(String ... name) {
+    return getTopK(name(name)) ;
+  }
+  
   public int remove(String nameExp) {
     return 0 ;
   }
@@ -0,0 +1,19 @@
+package com.neverwinterdp.yara;
+
+/**
+ * Select the stripe of the striped metrics. The number of stripes is a power of two so the stripe of a thread
+ * is its id masked by the number of stripes. The thread ids are allocated sequentially, so the threads of an
+ * executor pool spread evenly over the stripes and a thread always records into the same stripe.
+ */
+final class Stripes {
+  static int size(int numOfStripes) {
+    if(numOfStripes <= 0) numOfStripes = Runtime.getRuntime().availableProcessors() ;
+    int size = 1 ;
+    while(size < numOfStripes && size < 64) size = size << 1 ;
+    return size ;
+  }
+
+  static int index(int size) {
+    return (int) (Thread.currentThread().getId() & (size - 1)) ;
+  }
+}
@@ -22,6 +22,19 @@ public class Timer implements Serializable {
     this.name = name ;
   }
   
+  /**
+   * Creates a striped timer. The histogram and the meter of a striped timer record the durations of a thread 
+   * in one of their stripes, so the threads that time the same operation do not serialize on the timer.
+   *
+   * @param name         the timer name
+   * @param numOfStripes the number of stripes, the number of the available processors is used when it is not positive
+   */
+  public Timer(String name, int numOfStripes) {
+    this.name = name ;
+    this.histogram = new Histogram(numOfStripes);
+    this.eWMAMeter = new EWMAMeter(numOfStripes);
+  }
+  
   public Timer(String name, Histogram histogram, EWMAMeter eWMAMeter) {
     this.name = name ;
     this.histogram = histogram;
@@ -58,16 +71,21 @@ public class Timer implements Serializable {
     return update(Clock.defaultClock().getTick(), duration);
   }
   
-  synchronized public long update(long timestampTick, long duration) {
-    if (duration >= 0) {
+  public long update(long timestampTick, long duration) {
+    if (duration < 0) return -1;
+    if(histogram.isStriped()) {
       histogram.update(duration);
-      timestampTick = eWMAMeter.mark(timestampTick, 1l);
-      if(metricPlugin != null) {
-        metricPlugin.onTimerUpdate(name, timestampTick, duration);
+    } else {
+      //the qdigest of a non striped histogram is not safe for the concurrent updates
+      synchronized(this) {
+        histogram.update(duration);
       }
-      return timestampTick ;
     }
-    return -1;
+    timestampTick = eWMAMeter.mark(timestampTick, 1l);
+    if(metricPlugin != null) {
+      metricPlugin.onTimerUpdate(name, timestampTick, duration);
+    }
+    return timestampTick ;
   }
 
   /**
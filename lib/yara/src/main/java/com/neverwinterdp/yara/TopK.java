@@ -0,0 +1,102 @@
+package com.neverwinterdp.yara;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+
+import com.neverwinterdp.yara.sketch.CountMinSketch;
+import com.neverwinterdp.yara.sketch.SpaceSaving;
+
+/**
+ * A metric which finds the most frequent items, such as the top urls, in a constant memory.
+ * <p/>
+ * The items are monitored by a {@link SpaceSaving} and counted by a {@link CountMinSketch}. Both give an upper
+ * bound of the count of an item, the count of an item is the min of the 2 bounds, the Count-Min sketch also
+ * estimates the count of an item that is not in the top items. The top items of the different servers are
+ * combined with the union of their sketches.
+ */
+public class TopK implements Serializable {
+  private String         name;
+  private SpaceSaving    spaceSaving;
+  private CountMinSketch countMinSketch;
+
+  public TopK() {
+    this(null);
+  }
+
+  public TopK(String name) {
+    this(name, new SpaceSaving(), new CountMinSketch());
+  }
+
+  public TopK(String name, SpaceSaving spaceSaving, CountMinSketch countMinSketch) {
+    this.name           = name;
+    this.spaceSaving    = spaceSaving;
+    this.countMinSketch = countMinSketch;
+  }
+
+  public String getName() { return this.name; }
+
+  public void offer(String item) { offer(item, 1l); }
+
+  synchronized public void offer(String item, long count) {
+    spaceSaving.offer(item, count);
+    countMinSketch.add(item, count);
+  }
+
+  /**
+   * @return the sum of the counts of all the items
+   */
+  synchronized public long getCount() { return countMinSketch.getSize(); }
+
+  /**
+   * @return the estimated count of the item
+   */
+  synchronized public long getCount(String item) {
+    long count = countMinSketch.estimateCount(item);
+    long monitoredCount = spaceSaving.getCount(item);
+    if(monitoredCount > 0 && monitoredCount < count) return monitoredCount;
+    return count;
+  }
+
+  synchronized public List<SpaceSaving.Counter> getTopK(int k) { return spaceSaving.getTopK(k); }
+
+  public int getCapacity() { return spaceSaving.getCapacity(); }
+
+  /**
+   * @return a copy of the Space-Saving of this metric
+   */
+  synchronized public SpaceSaving getSpaceSaving() {
+    return new SpaceSaving(spaceSaving.getCapacity(), spaceSaving.getCounters());
+  }
+
+  /**
+   * @return a copy of the Count-Min sketch of this metric
+   */
+  synchronized public CountMinSketch getCountMinSketch() {
+    CountMinSketch copy = new CountMinSketch(countMinSketch.getDepth(), countMinSketch.getWidth());
+    copy.merge(countMinSketch);
+    return copy;
+  }
+
+  static public TopK unionOf(TopK topK1, TopK topK2) {
+    SpaceSaving spaceSaving = SpaceSaving.unionOf(topK1.getSpaceSaving(), topK2.getSpaceSaving());
+    CountMinSketch countMinSketch = CountMinSketch.unionOf(topK1.getCountMinSketch(), topK2.getCountMinSketch());
+    return new TopK(topK1.getName(), spaceSaving, countMinSketch);
+  }
+
+  static public TopK combine(TopK ... topK) {
+    if(topK.length == 0) return new TopK();
+    else if(topK.length == 1) return topK[0];
+    TopK combine = TopK.unionOf(topK[0], topK[1]);
+    for(int i = 2; i < topK.length; i++) {
+      combine = TopK.unionOf(combine, topK[i]);
+    }
+    return combine;
+  }
+
+  static public TopK combine(Collection<TopK> topKs) {
+    TopK[] array = new TopK[topKs.size()];
+    topKs.toArray(array);
+    return TopK.combine(array);
+  }
+}
@@ -0,0 +1,33 @@
+package com.neverwinterdp.yara.cluster;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.neverwinterdp.yara.Cardinality;
+
+public class ClusterCardinality {
+  private boolean modified = false;
+  private Cardinality cardinality = new Cardinality() ;
+  private Map<String, Cardinality> cardinalities = new ConcurrentHashMap<String, Cardinality>() ;
+  
+  /**
+   * @return the union of the cardinalities of the servers, a value that is seen by several servers is counted once
+   */
+  public Cardinality getCardinality() { 
+    updateIfModified() ;
+    return this.cardinality ; 
+  }
+  
+  public void update(String name, Cardinality cardinality) {
+    cardinalities.put(name, cardinality) ;
+    modified = true ;
+  }
+  
+  public Map<String, Cardinality> getCardinalities() { return this.cardinalities ; }
+  
+  private void updateIfModified() {
+    if(!modified) return ;
+    this.cardinality = Cardinality.combine(cardinalities.values()) ;
+    modified = false ;
+  }
+}
@@ -4,13 +4,17 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import com.neverwinterdp.yara.Cardinality;
 import com.neverwinterdp.yara.Counter;
 import com.neverwinterdp.yara.MetricRegistry;
 import com.neverwinterdp.yara.Timer;
+import com.neverwinterdp.yara.TopK;
 
 public class ClusterMetricRegistry {
   private Map<String, ClusterCounter> clusterCounters = new ConcurrentHashMap<String, ClusterCounter>() ;
   private Map<String, ClusterTimer>   clusterTimers   = new ConcurrentHashMap<String, ClusterTimer>() ;
+  private Map<String, ClusterCardinality> clusterCardinalities = new ConcurrentHashMap<String, ClusterCardinality>() ;
+  private Map<String, ClusterTopK>        clusterTopKs         = new ConcurrentHashMap<String, ClusterTopK>() ;
 
   public ClusterCounter getCounter(String name) { return clusterCounters.get(name) ; }
   
@@ -20,6 +24,14 @@ public class ClusterMetricRegistry {
   
   public Map<String, ClusterTimer> getTimers() { return clusterTimers ; }
   
+  public ClusterCardinality getCardinality(String name) { return clusterCardinalities.get(name) ; }
+  
+  public Map<String, ClusterCardinality> getCardinalities() { return clusterCardinalities ; }
+  
+  public ClusterTopK getTopK(String name) { return clusterTopKs.get(name) ; }
+  
+  public Map<String, ClusterTopK> getTopKs() { return clusterTopKs ; }
+  
   synchronized public void update(MetricRegistry registry) {
     Map<String, Counter> counters = registry.getCounters() ;
     Iterator<Map.Entry<String, Counter>> counterItr = counters.entrySet().iterator() ;
@@ -43,6 +55,26 @@ public class ClusterMetricRegistry {
       }
       clusterTimer.update(registry.getName(), entry.getValue());
     }
+    
+    for(Map.Entry<String, Cardinality> entry : registry.getCardinalities().entrySet()) {
+      String key = entry.getKey() ;
+      ClusterCardinality clusterCardinality = clusterCardinalities.get(key) ;
+      if(clusterCardinality == null) {
+        clusterCardinality = new ClusterCardinality() ;
+        clusterCardinalities.put(key, clusterCardinality) ;
+      }
+      clusterCardinality.update(registry.getName(), entry.getValue());
+    }
+    
+    for(Map.Entry<String, TopK> entry : registry.getTopKs().entrySet()) {
+      String key = entry.getKey() ;
+      ClusterTopK clusterTopK = clusterTopKs.get(key) ;
+      if(clusterTopK == null) {
+        clusterTopK = new ClusterTopK() ;
+        clusterTopKs.put(key, clusterTopK) ;
+      }
+      clusterTopK.update(registry.getName(), entry.getValue());
+    }
   }
   
   public ClusterCounter counter(String name) {
@@ -0,0 +1,33 @@
+package com.neverwinterdp.yara.cluster;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.neverwinterdp.yara.TopK;
+
+public class ClusterTopK {
+  private boolean modified = false;
+  private TopK topK = new TopK() ;
+  private Map<String, TopK> topKs = new ConcurrentHashMap<String, TopK>() ;
+  
+  /**
+   * @return the union of the top k of the servers
+   */
+  public TopK getTopK() { 
+    updateIfModified() ;
+    return this.topK ; 
+  }
+  
+  public void update(String name, TopK topK) {
+    topKs.put(name, topK) ;
+    modified = true ;
+  }
+  
+  public Map<String, TopK> getTopKs() { return this.topKs ; }
+  
+  private void updateIfModified() {
+    if(!modified) return ;
+    this.topK = TopK.combine(topKs.values()) ;
+    modified = false ;
+  }
+}
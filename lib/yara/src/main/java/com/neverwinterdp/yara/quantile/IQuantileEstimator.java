@@ -3,4 +3,16 @@ package com.neverwinterdp.yara.quantile;
 public interface IQuantileEstimator {
     void offer(long value);
     long getQuantile(double q);
+    double getMean();
+    double getStdDev();
+    
+    /**
+     * @return an empty estimator with the same configuration
+     */
+    IQuantileEstimator create();
+    
+    /**
+     * @return a new estimator that holds the values of this and the other estimator
+     */
+    IQuantileEstimator unionWith(IQuantileEstimator other);
 }
@@ -0,0 +1,186 @@
+package com.neverwinterdp.yara.quantile;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * A fixed memory histogram in the style of the HdrHistogram. The values are counted in a log-linear bucket
+ * array: the values smaller than 2^(precision + 1) have their own bucket, the larger values are counted in
+ * 2^precision linear sub buckets per power of two, so the relative error of a quantile is at most
+ * 1/2^(precision + 1). The array is allocated once, recording a value is a few bit operations and an array
+ * increment, there is no allocation and no compression.
+ * <p/>
+ * The values larger than the highest trackable value are counted in the last bucket, the min and the max are
+ * kept exact. The digest is not thread safe, the same as the other estimators the caller serializes the offers.
+ */
+public class LogLinearDigest implements IQuantileEstimator, Serializable {
+  final static public int  DEFAULT_PRECISION     = 6;
+  final static public long DEFAULT_HIGHEST_VALUE = 1l << 43; //about 2.4 hours in nano second
+
+  private int     precision;
+  private long    highestValue;
+  private int     maxShift;
+
+  transient private long[] counts;
+  private long    count;
+  private long    min = Long.MAX_VALUE;
+  private long    max = Long.MIN_VALUE;
+  private long    sum;
+  private double  sumOfSquares;
+
+  public LogLinearDigest() {
+    this(DEFAULT_PRECISION, DEFAULT_HIGHEST_VALUE);
+  }
+
+  /**
+   * @param precision    the number of the significant bits of the recorded values, from 1 to 16
+   * @param highestValue the highest value that is tracked with the precision
+   */
+  public LogLinearDigest(int precision, long highestValue) {
+    if(precision < 1 || precision > 16) {
+      throw new IllegalArgumentException("The precision must be between 1 and 16, precision = " + precision);
+    }
+    if(highestValue < 2) {
+      throw new IllegalArgumentException("The highest value must be greater than 1, highest value = " + highestValue);
+    }
+    this.precision = precision;
+    this.highestValue = highestValue;
+    int exponent = 63 - Long.numberOfLeadingZeros(highestValue);
+    this.maxShift = exponent > precision ? exponent - precision : 0;
+    this.counts = new long[(maxShift + 2) << precision];
+  }
+
+  public int getPrecision() { return precision; }
+
+  public long getHighestValue() { return highestValue; }
+
+  public long getCount() { return count; }
+
+  public long getMin() { return count == 0 ? 0 : min; }
+
+  public long getMax() { return count == 0 ? 0 : max; }
+
+  @Override
+  public void offer(long value) {
+    if(value < 0) throw new IllegalArgumentException("Cannot record a negative value " + value);
+    counts[index(value)]++;
+    count++;
+    if(value < min) min = value;
+    if(value > max) max = value;
+    sum += value;
+    sumOfSquares += (double)value * value;
+  }
+
+  @Override
+  public long getQuantile(double q) {
+    if(count == 0) return 0;
+    if(q <= 0) return min;
+    if(q >= 1) return max;
+    long rank = (long) Math.ceil(q * count);
+    if(rank < 1) rank = 1;
+    long s = 0;
+    for(int i = 0; i < counts.length; i++) {
+      s += counts[i];
+      if(s >= rank) {
+        long value = value(i);
+        if(value < min) return min;
+        if(value > max) return max;
+        return value;
+      }
+    }
+    return max;
+  }
+
+  @Override
+  public double getMean() {
+    if(count == 0) return 0;
+    return (double) sum / count;
+  }
+
+  @Override
+  public double getStdDev() {
+    if(count <= 1) return 0;
+    double mean = getMean();
+    double variance = sumOfSquares / count - mean * mean;
+    return variance > 0 ? Math.sqrt(variance) : 0;
+  }
+
+  @Override
+  public LogLinearDigest create() { return new LogLinearDigest(precision, highestValue); }
+
+  @Override
+  public LogLinearDigest unionWith(IQuantileEstimator other) {
+    if(!(other instanceof LogLinearDigest)) {
+      throw new IllegalArgumentException("Cannot union a LogLinearDigest with " + other.getClass().getSimpleName());
+    }
+    return unionOf(this, (LogLinearDigest) other);
+  }
+
+  /**
+   * The bucket index of a value. The index of a value smaller than 2^(precision + 1) is the value itself, a
+   * larger value keeps its precision + 1 highest bits, shifted by the number of the dropped bits.
+   */
+  int index(long value) {
+    if(value < (2l << precision)) return (int) value;
+    int shift = 63 - Long.numberOfLeadingZeros(value) - precision;
+    if(shift > maxShift) return counts.length - 1;
+    return (shift << precision) + (int) (value >>> shift);
+  }
+
+  /**
+   * The value that is reported for a bucket, the middle of the bucket range.
+   */
+  long value(int index) {
+    if(index < (2 << precision)) return index;
+    int shift = (index >>> precision) - 1;
+    long lower = ((long)(index - (shift << precision))) << shift;
+    return lower + ((1l << shift) - 1) / 2;
+  }
+
+  static public LogLinearDigest unionOf(LogLinearDigest a, LogLinearDigest b) {
+    if(a.precision != b.precision || a.highestValue != b.highestValue) {
+      throw new IllegalArgumentException(
+        "The precision and the highest value must be the same: " +
+        "left is " + a.precision + "/" + a.highestValue + ", right is " + b.precision + "/" + b.highestValue);
+    }
+    LogLinearDigest res = a.create();
+    for(int i = 0; i < res.counts.length; i++) {
+      res.counts[i] = a.counts[i] + b.counts[i];
+    }
+    res.count = a.count + b.count;
+    res.min = Math.min(a.min, b.min);
+    res.max = Math.max(a.max, b.max);
+    res.sum = a.sum + b.sum;
+    res.sumOfSquares = a.sumOfSquares + b.sumOfSquares;
+    return res;
+  }
+
+  /**
+   * Write the non empty buckets only, most of the buckets of a timer are empty.
+   */
+  private void writeObject(ObjectOutputStream s) throws IOException {
+    s.defaultWriteObject();
+    int nonEmpty = 0;
+    for(int i = 0; i < counts.length; i++) {
+      if(counts[i] != 0) nonEmpty++;
+    }
+    s.writeInt(nonEmpty);
+    for(int i = 0; i < counts.length; i++) {
+      if(counts[i] == 0) continue;
+      s.writeInt(i);
+      s.writeLong(counts[i]);
+    }
+  }
+
+  private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
+    s.defaultReadObject();
+    counts = new long[(maxShift + 2) << precision];
+    int nonEmpty = s.readInt();
+    for(int i = 0; i < nonEmpty; i++) {
+      int index = s.readInt();
+      counts[index] = s.readLong();
+    }
+  }
+}
@@ -231,6 +231,17 @@ public class QDigest implements IQuantileEstimator, Serializable {
   }
 
   public void optimize() { compressFully(); }
+
+  @Override
+  public QDigest create() { return new QDigest(compressionFactor); }
+
+  @Override
+  public QDigest unionWith(IQuantileEstimator other) {
+    if(!(other instanceof QDigest)) {
+      throw new IllegalArgumentException("Cannot union a QDigest with " + other.getClass().getSimpleName());
+    }
+    return unionOf(this, (QDigest) other);
+  }
   
   /**
    * Restore P2 at node and upward the spine. Note that P2 can vanish
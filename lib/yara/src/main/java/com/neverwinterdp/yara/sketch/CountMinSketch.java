@@ -0,0 +1,128 @@
+package com.neverwinterdp.yara.sketch;
+
+import java.io.Serializable;
+
+/**
+ * Count-Min sketch datastructure.
+ * <p/>
+ * Estimates the count of any item with depth rows of width counters. An item is counted in one counter of every
+ * row and the estimate is the min of its counters, so the estimate is never below the count and it is above the
+ * count by at most e/width * size with the probability 1 - e^-depth. The counters of a row are selected with the
+ * double hashing of one 64 bits hash.
+ * <p/>
+ * Two Count-Min sketches with the same depth and width can be joined
+ * (see {@link #unionOf(CountMinSketch, CountMinSketch)}), the counters are added.
+ * <p/>
+ * Source:
+ * G.Cormode, S.Muthukrishnan
+ * An Improved Data Stream Summary: The Count-Min Sketch and its Applications
+ * http://dimacs.rutgers.edu/~graham/pubs/papers/cm-full.pdf
+ */
+public class CountMinSketch implements Serializable {
+  final static public int DEFAULT_DEPTH = 4;
+  final static public int DEFAULT_WIDTH = 512;
+
+  private int    depth;
+  private int    width;
+  private long   size;
+  private long[] table;
+
+  public CountMinSketch() {
+    this(DEFAULT_DEPTH, DEFAULT_WIDTH);
+  }
+
+  public CountMinSketch(int depth, int width) {
+    if(depth < 1 || width < 1) throw new IllegalArgumentException("The depth and the width should be at least 1");
+    this.depth = depth;
+    this.width = width;
+    this.table = new long[depth * width];
+  }
+
+  /**
+   * @param epsilon    the max error relative to the size
+   * @param confidence the probability that the error is below epsilon * size
+   */
+  static public CountMinSketch create(double epsilon, double confidence) {
+    int width = (int) Math.ceil(Math.E / epsilon);
+    int depth = (int) Math.ceil(Math.log(1d / (1d - confidence)));
+    return new CountMinSketch(depth, width);
+  }
+
+  public int getDepth() { return depth; }
+  public void setDepth(int depth) { this.depth = depth; }
+
+  public int getWidth() { return width; }
+  public void setWidth(int width) { this.width = width; }
+
+  /**
+   * @return the sum of the counts of all the items
+   */
+  public long getSize() { return size; }
+  public void setSize(long size) { this.size = size; }
+
+  public long[] getTable() { return table; }
+  public void   setTable(long[] table) { this.table = table; }
+
+  public double getRelativeError() { return Math.E / width; }
+
+  public double getConfidence() { return 1d - Math.exp(-depth); }
+
+  public void add(String item, long count) {
+    addHash(Hashing.hash64(item), count);
+  }
+
+  public void add(long item, long count) {
+    addHash(Hashing.hash64(item), count);
+  }
+
+  public void addHash(long hash, long count) {
+    int h1 = (int) hash, h2 = (int) (hash >>> 32);
+    for(int i = 0; i < depth; i++) {
+      table[i * width + index(h1, h2, i)] += count;
+    }
+    size += count;
+  }
+
+  public long estimateCount(String item) {
+    return estimateCountHash(Hashing.hash64(item));
+  }
+
+  public long estimateCount(long item) {
+    return estimateCountHash(Hashing.hash64(item));
+  }
+
+  public long estimateCountHash(long hash) {
+    int h1 = (int) hash, h2 = (int) (hash >>> 32);
+    long min = Long.MAX_VALUE;
+    for(int i = 0; i < depth; i++) {
+      long count = table[i * width + index(h1, h2, i)];
+      if(count < min) min = count;
+    }
+    return min;
+  }
+
+  /**
+   * Add the counters of the other Count-Min sketch to this sketch.
+   */
+  public void merge(CountMinSketch other) {
+    if(other.depth != depth || other.width != width) {
+      throw new IllegalArgumentException("Cannot merge the sketches of the different depth or width");
+    }
+    for(int i = 0; i < table.length; i++) {
+      table[i] += other.table[i];
+    }
+    size += other.size;
+  }
+
+  public static CountMinSketch unionOf(CountMinSketch a, CountMinSketch b) {
+    CountMinSketch union = new CountMinSketch(a.depth, a.width);
+    union.merge(a);
+    union.merge(b);
+    return union;
+  }
+
+  private int index(int h1, int h2, int row) {
+    int combined = h1 + row * h2;
+    return (combined & Integer.MAX_VALUE) % width;
+  }
+}
@@ -0,0 +1,51 @@
+package com.neverwinterdp.yara.sketch;
+
+/**
+ * The 64 bits hash functions of the sketches. The string hash is the MurmurHash64A of the UTF-16 chars, it is
+ * computed on the chars directly, without encoding the string to bytes. The long hash is the finalizer of the
+ * MurmurHash3. The hashes must be the same on every node, so the sketches that are built on different nodes can
+ * be merged.
+ */
+public class Hashing {
+  final static long M    = 0xc6a4a7935bd1e995L;
+  final static int  R    = 47;
+  final static long SEED = 0x9747b28cL;
+
+  static public long hash64(CharSequence value) {
+    int length = value.length();
+    long h = SEED ^ (length * 2 * M);
+    int i = 0;
+    for(; i + 4 <= length; i += 4) {
+      long k =
+        value.charAt(i) | ((long)value.charAt(i + 1) << 16) |
+        ((long)value.charAt(i + 2) << 32) | ((long)value.charAt(i + 3) << 48);
+      k *= M;
+      k ^= k >>> R;
+      k *= M;
+      h ^= k;
+      h *= M;
+    }
+    if(i < length) {
+      long k = 0;
+      for(int j = 0; i + j < length; j++) {
+        k |= (long)value.charAt(i + j) << (16 * j);
+      }
+      h ^= k;
+      h *= M;
+    }
+    h ^= h >>> R;
+    h *= M;
+    h ^= h >>> R;
+    return h;
+  }
+
+  static public long hash64(long value) {
+    long h = value;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
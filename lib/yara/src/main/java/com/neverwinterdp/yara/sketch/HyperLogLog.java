@@ -0,0 +1,116 @@
+package com.neverwinterdp.yara.sketch;
+
+import java.io.Serializable;
+
+/**
+ * HyperLogLog datastructure.
+ * <p/>
+ * Estimates the number of the distinct values with 2^precision registers of one byte. The relative standard error
+ * is 1.04/sqrt(2^precision), about 1.6% with the default precision 12 and 4KB of registers. The small cardinalities
+ * are estimated with the linear counting of the empty registers. The values are hashed with a 64 bits hash, so there
+ * is no large range correction.
+ * <p/>
+ * Two HyperLogLogs with the same precision can be joined (see {@link #unionOf(HyperLogLog, HyperLogLog)}), the
+ * union estimates the distinct values of both, a value that is offered to both is counted once.
+ * <p/>
+ * Source:
+ * P.Flajolet, E.Fusy, O.Gandouet, F.Meunier
+ * HyperLogLog: the analysis of a near-optimal cardinality estimation algorithm
+ * http://algo.inria.fr/flajolet/Publications/FlFuGaMe07.pdf
+ */
+public class HyperLogLog implements Serializable {
+  final static public int DEFAULT_PRECISION = 12;
+  final static public int MIN_PRECISION     = 4;
+  final static public int MAX_PRECISION     = 18;
+
+  private int    precision;
+  private byte[] registers;
+
+  public HyperLogLog() {
+    this(DEFAULT_PRECISION);
+  }
+
+  public HyperLogLog(int precision) {
+    if(precision < MIN_PRECISION || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException("The precision should be in " + MIN_PRECISION + " .. " + MAX_PRECISION);
+    }
+    this.precision = precision;
+    this.registers = new byte[1 << precision];
+  }
+
+  public int getPrecision() { return precision; }
+  public void setPrecision(int precision) { this.precision = precision; }
+
+  public byte[] getRegisters() { return registers; }
+  public void   setRegisters(byte[] registers) { this.registers = registers; }
+
+  public double getStandardError() { return 1.04d / Math.sqrt(registers.length); }
+
+  public void offer(String value) {
+    offerHash(Hashing.hash64(value));
+  }
+
+  public void offer(long value) {
+    offerHash(Hashing.hash64(value));
+  }
+
+  /**
+   * The first precision bits of the hash select the register, the register keeps the max position of the first
+   * 1 bit in the rest of the hash.
+   */
+  public void offerHash(long hash) {
+    int index = (int) (hash >>> (64 - precision));
+    long w = (hash << precision) | (1L << (precision - 1));
+    byte rank = (byte) (Long.numberOfLeadingZeros(w) + 1);
+    if(rank > registers[index]) registers[index] = rank;
+  }
+
+  public long cardinality() {
+    int m = registers.length;
+    double sum = 0d;
+    int zeros = 0;
+    for(int i = 0; i < m; i++) {
+      sum += 1d / (1L << registers[i]);
+      if(registers[i] == 0) zeros++;
+    }
+    double estimate = alpha(m) * m * m / sum;
+    if(estimate <= 2.5d * m && zeros > 0) {
+      estimate = m * Math.log((double) m / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  public boolean isEmpty() {
+    for(int i = 0; i < registers.length; i++) {
+      if(registers[i] != 0) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Add the values of the other HyperLogLog to this HyperLogLog.
+   */
+  public void merge(HyperLogLog other) {
+    if(other.precision != precision) {
+      throw new IllegalArgumentException("Cannot merge the precision " + other.precision + " into " + precision);
+    }
+    byte[] otherRegisters = other.registers;
+    for(int i = 0; i < registers.length; i++) {
+      if(otherRegisters[i] > registers[i]) registers[i] = otherRegisters[i];
+    }
+  }
+
+  public static HyperLogLog unionOf(HyperLogLog a, HyperLogLog b) {
+    HyperLogLog union = new HyperLogLog(a.precision);
+    union.merge(a);
+    union.merge(b);
+    return union;
+  }
+
+  static double alpha(int m) {
+    if(m == 16) return 0.673d;
+    if(m == 32) return 0.697d;
+    if(m == 64) return 0.709d;
+    return 0.7213d / (1d + 1.079d / m);
+  }
+}
@@ -0,0 +1,247 @@
+package com.neverwinterdp.yara.sketch;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving datastructure.
+ * <p/>
+ * Answers approximate top-k queries with a fixed number of counters. An item that is not monitored replaces the
+ * item with the min count, the new item takes the min count as its error, so the count of an item is over
+ * estimated by at most its error and the min count is at most N/capacity after N offers. Any item with a frequency
+ * above N/capacity is monitored.
+ * <p/>
+ * The counters are kept in a min heap with the heap position of every item, an offer is O(log(capacity)).
+ * <p/>
+ * Two Space-Savings can be joined (see {@link #unionOf(SpaceSaving, SpaceSaving)}), an item that is missing from
+ * a full summary is given the min count of that summary, as in the merge of the mergeable summaries.
+ * <p/>
+ * Source:
+ * A.Metwally, D.Agrawal, A.El Abbadi
+ * Efficient Computation of Frequent and Top-k Elements in Data Streams
+ * http://www.cs.ucsb.edu/research/tech_reports/reports/2005-23.pdf
+ * <p/>
+ * P.Agarwal, G.Cormode, Z.Huang, J.Phillips, Z.Wei, K.Yi
+ * Mergeable Summaries
+ * http://www.cs.utah.edu/~jeffp/papers/merge-summ.pdf
+ */
+public class SpaceSaving implements Serializable {
+  final static public int DEFAULT_CAPACITY = 100;
+
+  final static Comparator<Counter> COUNT_DESC_COMPARATOR = new Comparator<Counter>() {
+    @Override
+    public int compare(Counter c1, Counter c2) {
+      if(c1.count > c2.count) return -1;
+      if(c1.count < c2.count) return 1;
+      return c1.item.compareTo(c2.item);
+    }
+  };
+
+  private int                  capacity;
+  private int                  size;
+  private String[]             items;
+  private long[]               counts;
+  private long[]               errors;
+  private Map<String, Integer> positions = new HashMap<>();
+
+  public SpaceSaving() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public SpaceSaving(int capacity) {
+    if(capacity < 1) throw new IllegalArgumentException("The capacity should be at least 1");
+    this.capacity = capacity;
+    this.items    = new String[capacity];
+    this.counts   = new long[capacity];
+    this.errors   = new long[capacity];
+  }
+
+  /**
+   * Restore a Space-Saving from its counters, such as the counters of a snapshot.
+   */
+  public SpaceSaving(int capacity, List<Counter> counters) {
+    this(capacity);
+    for(int i = 0; i < counters.size() && i < capacity; i++) {
+      Counter counter = counters.get(i);
+      set(size, counter.item, counter.count, counter.error);
+      size++;
+      siftUp(size - 1);
+    }
+  }
+
+  public int getCapacity() { return capacity; }
+
+  public int size() { return size; }
+
+  public boolean isFull() { return size == capacity; }
+
+  /**
+   * @return the min count of the monitored items, the count of an item that is not monitored is at most the min count
+   */
+  public long getMinCount() { return isFull() ? counts[0] : 0; }
+
+  public void offer(String item) {
+    offer(item, 1);
+  }
+
+  public void offer(String item, long increment) {
+    Integer pos = positions.get(item);
+    if(pos != null) {
+      counts[pos] += increment;
+      siftDown(pos);
+    } else if(size < capacity) {
+      set(size, item, increment, 0);
+      size++;
+      siftUp(size - 1);
+    } else {
+      long minCount = counts[0];
+      positions.remove(items[0]);
+      set(0, item, minCount + increment, minCount);
+      siftDown(0);
+    }
+  }
+
+  /**
+   * @return the estimated count of the item, 0 if the item is not monitored
+   */
+  public long getCount(String item) {
+    Integer pos = positions.get(item);
+    return pos != null ? counts[pos] : 0;
+  }
+
+  /**
+   * @return the monitored items ordered by the count, from the most frequent
+   */
+  public List<Counter> getCounters() {
+    List<Counter> holder = new ArrayList<>(size);
+    for(int i = 0; i < size; i++) {
+      holder.add(new Counter(items[i], counts[i], errors[i]));
+    }
+    Collections.sort(holder, COUNT_DESC_COMPARATOR);
+    return holder;
+  }
+
+  public List<Counter> getTopK(int k) {
+    List<Counter> counters = getCounters();
+    if(counters.size() <= k) return counters;
+    return new ArrayList<>(counters.subList(0, k));
+  }
+
+  /**
+   * Add the counters of the other Space-Saving to this Space-Saving, the top capacity counters of the combined
+   * counters are kept.
+   */
+  public void merge(SpaceSaving other) {
+    long minCount = getMinCount();
+    long otherMinCount = other.getMinCount();
+    Map<String, Counter> combined = new HashMap<>();
+    for(int i = 0; i < size; i++) {
+      Integer otherPos = other.positions.get(items[i]);
+      long count = counts[i], error = errors[i];
+      if(otherPos != null) {
+        count += other.counts[otherPos];
+        error += other.errors[otherPos];
+      } else {
+        count += otherMinCount;
+        error += otherMinCount;
+      }
+      combined.put(items[i], new Counter(items[i], count, error));
+    }
+    for(int i = 0; i < other.size; i++) {
+      if(combined.containsKey(other.items[i])) continue;
+      long count = other.counts[i] + minCount, error = other.errors[i] + minCount;
+      combined.put(other.items[i], new Counter(other.items[i], count, error));
+    }
+    List<Counter> holder = new ArrayList<>(combined.values());
+    Collections.sort(holder, COUNT_DESC_COMPARATOR);
+    clear();
+    for(int i = 0; i < holder.size() && i < capacity; i++) {
+      Counter counter = holder.get(i);
+      set(size, counter.item, counter.count, counter.error);
+      size++;
+      siftUp(size - 1);
+    }
+  }
+
+  public void clear() {
+    for(int i = 0; i < size; i++) items[i] = null;
+    size = 0;
+    positions.clear();
+  }
+
+  public static SpaceSaving unionOf(SpaceSaving a, SpaceSaving b) {
+    SpaceSaving union = new SpaceSaving(Math.max(a.capacity, b.capacity));
+    union.merge(a);
+    union.merge(b);
+    return union;
+  }
+
+  private void set(int pos, String item, long count, long error) {
+    items[pos]  = item;
+    counts[pos] = count;
+    errors[pos] = error;
+    positions.put(item, pos);
+  }
+
+  private void swap(int i, int j) {
+    String item = items[i];
+    long count = counts[i], error = errors[i];
+    set(i, items[j], counts[j], errors[j]);
+    set(j, item, count, error);
+  }
+
+  private void siftUp(int pos) {
+    while(pos > 0) {
+      int parent = (pos - 1) / 2;
+      if(counts[parent] <= counts[pos]) return;
+      swap(pos, parent);
+      pos = parent;
+    }
+  }
+
+  private void siftDown(int pos) {
+    while(true) {
+      int left = 2 * pos + 1;
+      if(left >= size) return;
+      int min = left;
+      if(left + 1 < size && counts[left + 1] < counts[left]) min = left + 1;
+      if(counts[pos] <= counts[min]) return;
+      swap(pos, min);
+      pos = min;
+    }
+  }
+
+  static public class Counter implements Serializable {
+    private String item;
+    private long   count;
+    private long   error;
+
+    public Counter() { }
+
+    public Counter(String item, long count, long error) {
+      this.item  = item;
+      this.count = count;
+      this.error = error;
+    }
+
+    public String getItem() { return item; }
+    public void   setItem(String item) { this.item = item; }
+
+    /**
+     * @return the estimated count, an upper bound of the count of the item
+     */
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    /**
+     * @return the max over estimation of the count, the count - error is a lower bound of the count of the item
+     */
+    public long getError() { return error; }
+    public void setError(long error) { this.error = error; }
+  }
+}
@@ -0,0 +1,67 @@
+package com.neverwinterdp.yara.snapshot;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.neverwinterdp.util.text.DateUtil;
+import com.neverwinterdp.yara.Cardinality;
+import com.neverwinterdp.yara.sketch.HyperLogLog;
+
+/**
+ * The snapshot of a cardinality keeps the registers of the HyperLogLog, so the snapshots of the different servers
+ * can be combined into the cardinality of the cluster.
+ */
+public class CardinalitySnapshot implements Serializable {
+  @JsonFormat(shape=JsonFormat.Shape.STRING, pattern="dd/MM/yyyy HH:mm:ss")
+  private Date   timestamp;
+  private String serverName = "NA";
+  private String name;
+  private long   count;
+  private int    precision;
+  private byte[] registers;
+
+  public CardinalitySnapshot() {
+  }
+
+  public CardinalitySnapshot(String serverName, Cardinality cardinality) {
+    this(serverName, cardinality.getName(), cardinality.getHyperLogLog());
+  }
+
+  public CardinalitySnapshot(String serverName, String name, HyperLogLog hyperLogLog) {
+    timestamp = new Date();
+    this.serverName = serverName;
+    this.name       = name;
+    this.count      = hyperLogLog.cardinality();
+    this.precision  = hyperLogLog.getPrecision();
+    this.registers  = hyperLogLog.getRegisters();
+  }
+
+  public String uniqueId() {
+    return "host=" + serverName + ", name=" + name + ",timestamp=" + DateUtil.asCompactDateTimeId(timestamp);
+  }
+
+  public Date getTimestamp() { return timestamp; }
+  public void setTimestamp(Date timestamp) { this.timestamp = timestamp; }
+
+  public String getServerName() { return serverName; }
+  public void setServerName(String serverName) { this.serverName = serverName; }
+
+  public String getName() { return name; }
+  public void setName(String name) { this.name = name; }
+
+  public long getCount() { return count; }
+  public void setCount(long count) { this.count = count; }
+
+  public int getPrecision() { return precision; }
+  public void setPrecision(int precision) { this.precision = precision; }
+
+  public byte[] getRegisters() { return registers; }
+  public void   setRegisters(byte[] registers) { this.registers = registers; }
+
+  public HyperLogLog toHyperLogLog() {
+    HyperLogLog hyperLogLog = new HyperLogLog(precision);
+    hyperLogLog.setRegisters(registers.clone());
+    return hyperLogLog;
+  }
+}
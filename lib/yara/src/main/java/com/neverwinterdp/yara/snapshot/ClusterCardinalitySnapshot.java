@@ -0,0 +1,58 @@
+package com.neverwinterdp.yara.snapshot;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.neverwinterdp.yara.Cardinality;
+import com.neverwinterdp.yara.cluster.ClusterCardinality;
+import com.neverwinterdp.yara.sketch.HyperLogLog;
+
+/**
+ * The cardinality of the cluster is the union of the HyperLogLogs of the server snapshots, it is not the sum of 
+ * the server counts.
+ */
+public class ClusterCardinalitySnapshot implements Serializable {
+  private String name ;
+  private CardinalitySnapshot cardinality ;
+  private Map<String, CardinalitySnapshot> cardinalities = new HashMap<String, CardinalitySnapshot>() ;
+
+  public ClusterCardinalitySnapshot() { }
+  
+  public ClusterCardinalitySnapshot(String key, ClusterCardinality clusterCardinality) {
+    this.name = key ;
+    cardinality = new CardinalitySnapshot("cluster", clusterCardinality.getCardinality()) ;
+    for(Map.Entry<String, Cardinality> entry : clusterCardinality.getCardinalities().entrySet()) {
+      cardinalities.put(entry.getKey(), new CardinalitySnapshot(entry.getKey(), entry.getValue())) ;
+    }
+  }
+  
+  public ClusterCardinalitySnapshot(String name) { 
+    this.name = name; 
+  }
+  
+  public String getName() { return name; }
+  public void setName(String name) { this.name = name; }
+
+  public CardinalitySnapshot getCardinality() { return cardinality; }
+  public void setCardinality(CardinalitySnapshot cardinality) { this.cardinality = cardinality; }
+
+  public Map<String, CardinalitySnapshot> getCardinalities() { return cardinalities; }
+  public void setCardinalities(Map<String, CardinalitySnapshot> cardinalities) { this.cardinalities = cardinalities; }
+
+  public long getCount() { return cardinality != null ? cardinality.getCount() : 0; }
+  
+  public void add(CardinalitySnapshot snapshot) {
+    if(!name.equals(snapshot.getName())) {
+      throw new RuntimeException("expect name " + name) ;
+    }
+    cardinalities.put(snapshot.getServerName(), snapshot);
+    //the union is computed from the last snapshot of every server
+    HyperLogLog union = null ;
+    for(CardinalitySnapshot sel : cardinalities.values()) {
+      if(union == null) union = sel.toHyperLogLog() ;
+      else union.merge(sel.toHyperLogLog());
+    }
+    cardinality = new CardinalitySnapshot("cluster", name, union) ;
+  }
+}
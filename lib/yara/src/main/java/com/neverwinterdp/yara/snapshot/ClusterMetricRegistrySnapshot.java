@@ -7,15 +7,20 @@ import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
 import com.neverwinterdp.util.text.TabularFormater;
+import com.neverwinterdp.yara.cluster.ClusterCardinality;
 import com.neverwinterdp.yara.cluster.ClusterCounter;
 import com.neverwinterdp.yara.cluster.ClusterMetricRegistry;
 import com.neverwinterdp.yara.cluster.ClusterTimer;
+import com.neverwinterdp.yara.cluster.ClusterTopK;
+import com.neverwinterdp.yara.sketch.SpaceSaving;
 
 public class ClusterMetricRegistrySnapshot implements Serializable {
   private String clusterName; 
   private Map<String, ClusterCounterSnapshot> counters = new TreeMap<String,  ClusterCounterSnapshot>();
   private Map<String, ClusterTimerSnapshot>   timers   = new TreeMap<String,  ClusterTimerSnapshot>();
   private Map<String, ClusterMetterSnapshot>  metters   = new TreeMap<String, ClusterMetterSnapshot>();
+  private Map<String, ClusterCardinalitySnapshot> cardinalities = new TreeMap<String, ClusterCardinalitySnapshot>();
+  private Map<String, ClusterTopKSnapshot>        topKs         = new TreeMap<String, ClusterTopKSnapshot>();
   
   public ClusterMetricRegistrySnapshot() { }
   
@@ -33,6 +38,14 @@ public class ClusterMetricRegistrySnapshot implements Serializable {
     for(Map.Entry<String, ClusterTimer> entry : registry.getTimers().entrySet()) {
       timers.put(entry.getKey(), new ClusterTimerSnapshot(entry.getValue(), timeUnit)) ;
     }
+    
+    for(Map.Entry<String, ClusterCardinality> entry : registry.getCardinalities().entrySet()) {
+      cardinalities.put(entry.getKey(), new ClusterCardinalitySnapshot(entry.getKey(), entry.getValue())) ;
+    }
+    
+    for(Map.Entry<String, ClusterTopK> entry : registry.getTopKs().entrySet()) {
+      topKs.put(entry.getKey(), new ClusterTopKSnapshot(entry.getKey(), entry.getValue())) ;
+    }
   }
   
   public ClusterMetricRegistrySnapshot(String name) {
@@ -55,6 +68,14 @@ public class ClusterMetricRegistrySnapshot implements Serializable {
   public void setMetters(Map<String, ClusterMetterSnapshot> metters) {
     this.metters = metters;
   }
+
+  public Map<String, ClusterCardinalitySnapshot> getCardinalities() { return cardinalities; }
+  public void setCardinalities(Map<String, ClusterCardinalitySnapshot> cardinalities) { 
+    this.cardinalities = cardinalities; 
+  }
+
+  public Map<String, ClusterTopKSnapshot> getTopKs() { return topKs; }
+  public void setTopKs(Map<String, ClusterTopKSnapshot> topKs) { this.topKs = topKs; }
   
   public void add(MetricRegistrySnapshot snapshot) {
     for(Map.Entry<String, CounterSnapshot> sel : snapshot.getCounters().entrySet()) {
@@ -86,6 +107,26 @@ public class ClusterMetricRegistrySnapshot implements Serializable {
       }
       clusterMetter.add(sel.getValue());
     }
+    
+    for(Map.Entry<String, CardinalitySnapshot> sel : snapshot.getCardinalities().entrySet()) {
+      String name = sel.getKey() ;
+      ClusterCardinalitySnapshot clusterCardinality = cardinalities.get(name) ;
+      if(clusterCardinality == null) {
+        clusterCardinality = new ClusterCardinalitySnapshot(name) ;
+        cardinalities.put(name, clusterCardinality);
+      }
+      clusterCardinality.add(sel.getValue());
+    }
+    
+    for(Map.Entry<String, TopKSnapshot> sel : snapshot.getTopKs().entrySet()) {
+      String name = sel.getKey() ;
+      ClusterTopKSnapshot clusterTopK = topKs.get(name) ;
+      if(clusterTopK == null) {
+        clusterTopK = new ClusterTopKSnapshot(name) ;
+        topKs.put(name, clusterTopK);
+      }
+      clusterTopK.add(sel.getValue());
+    }
   }
   
   public String getFormattedReport() {
@@ -93,6 +134,8 @@ public class ClusterMetricRegistrySnapshot implements Serializable {
     b.append(getFormattedCounterReport()).append("\n\n");
     b.append(getFormattedTimerReport()).append("\n\n");
     b.append(getFormattedMetterReport()).append("\n\n");
+    if(cardinalities.size() > 0) b.append(getFormattedCardinalityReport()).append("\n\n");
+    if(topKs.size() > 0) b.append(getFormattedTopKReport()).append("\n\n");
     return b.toString() ;
   }
   
@@ -179,4 +222,32 @@ public class ClusterMetricRegistrySnapshot implements Serializable {
     }
     return ft.getFormattedText() ;
   }
+  
+  public String getFormattedCardinalityReport() {
+    String[] header = {"Name", "Count"} ;
+    TabularFormater ft = new TabularFormater(header) ;
+    ft.setTitle("Cardinality Report");
+    for(ClusterCardinalitySnapshot sel : cardinalities.values()) {
+      ft.addRow(sel.getName(), "");
+      for(Map.Entry<String, CardinalitySnapshot> entry : sel.getCardinalities().entrySet()) {
+        ft.addRow("  " + entry.getKey(), entry.getValue().getCount());
+      }
+      ft.addRow("  Union", sel.getCount());
+    }
+    return ft.getFormattedText() ;
+  }
+  
+  public String getFormattedTopKReport() {
+    String[] header = {"Name", "Count", "Error"} ;
+    TabularFormater ft = new TabularFormater(header) ;
+    ft.setTitle("Top K Report");
+    for(ClusterTopKSnapshot sel : topKs.values()) {
+      if(sel.getTopK() == null) continue;
+      ft.addRow(sel.getName(), sel.getTopK().getCount(), "");
+      for(SpaceSaving.Counter counter : sel.getTopK().getTopK(10)) {
+        ft.addRow("  " + counter.getItem(), counter.getCount(), counter.getError());
+      }
+    }
+    return ft.getFormattedText() ;
+  }
 }
@@ -0,0 +1,57 @@
+package com.neverwinterdp.yara.snapshot;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.neverwinterdp.yara.TopK;
+import com.neverwinterdp.yara.cluster.ClusterTopK;
+import com.neverwinterdp.yara.sketch.SpaceSaving;
+
+/**
+ * The top k of the cluster is the union of the Space-Savings of the server snapshots.
+ */
+public class ClusterTopKSnapshot implements Serializable {
+  private String name ;
+  private TopKSnapshot topK ;
+  private Map<String, TopKSnapshot> topKs = new HashMap<String, TopKSnapshot>() ;
+
+  public ClusterTopKSnapshot() { }
+  
+  public ClusterTopKSnapshot(String key, ClusterTopK clusterTopK) {
+    this.name = key ;
+    topK = new TopKSnapshot("cluster", clusterTopK.getTopK()) ;
+    for(Map.Entry<String, TopK> entry : clusterTopK.getTopKs().entrySet()) {
+      topKs.put(entry.getKey(), new TopKSnapshot(entry.getKey(), entry.getValue())) ;
+    }
+  }
+  
+  public ClusterTopKSnapshot(String name) { 
+    this.name = name; 
+  }
+  
+  public String getName() { return name; }
+  public void setName(String name) { this.name = name; }
+
+  public TopKSnapshot getTopK() { return topK; }
+  public void setTopK(TopKSnapshot topK) { this.topK = topK; }
+
+  public Map<String, TopKSnapshot> getTopKs() { return topKs; }
+  public void setTopKs(Map<String, TopKSnapshot> topKs) { this.topKs = topKs; }
+
+  public void add(TopKSnapshot snapshot) {
+    if(!name.equals(snapshot.getName())) {
+      throw new RuntimeException("expect name " + name) ;
+    }
+    topKs.put(snapshot.getServerName(), snapshot);
+    //the union is computed from the last snapshot of every server
+    SpaceSaving union = null ;
+    long count = 0 ;
+    for(TopKSnapshot sel : topKs.values()) {
+      if(union == null) union = sel.toSpaceSaving() ;
+      else union = SpaceSaving.unionOf(union, sel.toSpaceSaving()) ;
+      count += sel.getCount() ;
+    }
+    topK = new TopKSnapshot("cluster", name, count, union) ;
+  }
+}
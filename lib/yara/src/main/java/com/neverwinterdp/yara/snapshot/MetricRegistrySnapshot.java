@@ -9,16 +9,21 @@ import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 
 import com.neverwinterdp.util.text.TabularFormater;
+import com.neverwinterdp.yara.Cardinality;
 import com.neverwinterdp.yara.Counter;
 import com.neverwinterdp.yara.Meter;
 import com.neverwinterdp.yara.MetricRegistry;
 import com.neverwinterdp.yara.Timer;
+import com.neverwinterdp.yara.TopK;
+import com.neverwinterdp.yara.sketch.SpaceSaving;
 
 public class MetricRegistrySnapshot implements Serializable {
   private String serverName ;
   private TreeMap<String, CounterSnapshot> counters = new TreeMap<>() ;
   private TreeMap<String, TimerSnapshot>   timers   = new TreeMap<>() ;
   private TreeMap<String, MetterSnapshot>   metters   = new TreeMap<>() ;
+  private TreeMap<String, CardinalitySnapshot> cardinalities = new TreeMap<>() ;
+  private TreeMap<String, TopKSnapshot>        topKs         = new TreeMap<>() ;
 
   public MetricRegistrySnapshot() {}
   
@@ -39,6 +44,14 @@ public class MetricRegistrySnapshot implements Serializable {
     for(Map.Entry<String, Meter> entry : registry.getMeters().entrySet()) {
       metters.put(entry.getKey(), new MetterSnapshot(serverName, entry.getValue())) ;
     }
+    
+    for(Map.Entry<String, Cardinality> entry : registry.getCardinalities().entrySet()) {
+      cardinalities.put(entry.getKey(), new CardinalitySnapshot(serverName, entry.getValue())) ;
+    }
+    
+    for(Map.Entry<String, TopK> entry : registry.getTopKs().entrySet()) {
+      topKs.put(entry.getKey(), new TopKSnapshot(serverName, entry.getValue())) ;
+    }
   }
   
   public String getServerName() { return serverName; }
@@ -52,6 +65,12 @@ public class MetricRegistrySnapshot implements Serializable {
 
   public TreeMap<String, MetterSnapshot> getMetters() { return metters; }
   public void setMetters(TreeMap<String, MetterSnapshot> metters)  { this.metters = metters; }
+
+  public TreeMap<String, CardinalitySnapshot> getCardinalities() { return cardinalities; }
+  public void setCardinalities(TreeMap<String, CardinalitySnapshot> cardinalities) { this.cardinalities = cardinalities; }
+
+  public TreeMap<String, TopKSnapshot> getTopKs() { return topKs; }
+  public void setTopKs(TreeMap<String, TopKSnapshot> topKs) { this.topKs = topKs; }
   
   static public String getFormattedText(List<MetricRegistrySnapshot> snapshots) {
     return new MetricRegistrySnapshotFormater(snapshots).getFormattedText();
@@ -61,6 +80,8 @@ public class MetricRegistrySnapshot implements Serializable {
     private TreeSet<String> counterKeys = new TreeSet<String>();
     private TreeSet<String> timerKeys   = new TreeSet<String>();
     private TreeSet<String> metricKeys  = new TreeSet<String>();
+    private TreeSet<String> cardinalityKeys = new TreeSet<String>();
+    private TreeSet<String> topKKeys        = new TreeSet<String>();
     private List<MetricRegistrySnapshot> snapshots ;
     
     public MetricRegistrySnapshotFormater(List<MetricRegistrySnapshot> list) {
@@ -70,6 +91,8 @@ public class MetricRegistrySnapshot implements Serializable {
         counterKeys.addAll(snapshot.getCounters().keySet()) ;
         timerKeys.addAll(snapshot.getTimers().keySet()) ;
         metricKeys.addAll(snapshot.getMetters().keySet()) ;
+        cardinalityKeys.addAll(snapshot.getCardinalities().keySet()) ;
+        topKKeys.addAll(snapshot.getTopKs().keySet()) ;
       }
     }
     
@@ -78,6 +101,8 @@ public class MetricRegistrySnapshot implements Serializable {
       b.append(getFormattedCounter()).append("\n\n");
       b.append(getFormattedTimer()).append("\n\n");
       b.append(getFormattedMeter());
+      if(cardinalityKeys.size() > 0) b.append("\n\n").append(getFormattedCardinality());
+      if(topKKeys.size() > 0) b.append("\n\n").append(getFormattedTopK());
       return b.toString();
     }
     
@@ -163,5 +188,43 @@ public class MetricRegistrySnapshot implements Serializable {
       }
       return meterFt.getFormattedText();
     }
+    
+    /**
+     * The total of a cardinality is the union of the servers, a value that is seen by several servers is counted once.
+     */
+    public String getFormattedCardinality() {
+      TabularFormater cardinalityFt = new TabularFormater("Name", "Count") ;
+      cardinalityFt.setTitle("Cardinality");
+      for(String key : cardinalityKeys) {
+        cardinalityFt.addRow(key, "");
+        ClusterCardinalitySnapshot total = new ClusterCardinalitySnapshot(key);
+        for(MetricRegistrySnapshot sel : snapshots) {
+          CardinalitySnapshot cardinality = sel.getCardinalities().get(key);
+          if(cardinality != null) {
+            cardinalityFt.addRow(" - " + cardinality.getServerName(), cardinality.getCount());
+            total.add(cardinality);
+          }
+        }
+        cardinalityFt.addRow(" - Total ", total.getCount());
+      }
+      return cardinalityFt.getFormattedText();
+    }
+    
+    public String getFormattedTopK() {
+      TabularFormater topKFt = new TabularFormater("Name", "Count", "Error") ;
+      topKFt.setTitle("Top K");
+      for(String key : topKKeys) {
+        ClusterTopKSnapshot total = new ClusterTopKSnapshot(key);
+        for(MetricRegistrySnapshot sel : snapshots) {
+          TopKSnapshot topK = sel.getTopKs().get(key);
+          if(topK != null) total.add(topK);
+        }
+        topKFt.addRow(key, total.getTopK().getCount(), "");
+        for(SpaceSaving.Counter counter : total.getTopK().getTopK(10)) {
+          topKFt.addRow(" - " + counter.getItem(), counter.getCount(), counter.getError());
+        }
+      }
+      return topKFt.getFormattedText();
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.neverwinterdp.yara.snapshot;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.neverwinterdp.util.text.DateUtil;
+import com.neverwinterdp.yara.TopK;
+import com.neverwinterdp.yara.sketch.SpaceSaving;
+
+/**
+ * The snapshot of a top k keeps all the monitored counters of the Space-Saving, so the snapshots of the different
+ * servers can be combined into the top k of the cluster. The Count-Min sketch is not in the snapshot.
+ */
+public class TopKSnapshot implements Serializable {
+  @JsonFormat(shape=JsonFormat.Shape.STRING, pattern="dd/MM/yyyy HH:mm:ss")
+  private Date   timestamp;
+  private String serverName = "NA";
+  private String name;
+  private long   count;
+  private int    capacity;
+  private List<SpaceSaving.Counter> counters = new ArrayList<>();
+
+  public TopKSnapshot() {
+  }
+
+  public TopKSnapshot(String serverName, TopK topK) {
+    this(serverName, topK.getName(), topK.getCount(), topK.getSpaceSaving());
+  }
+
+  public TopKSnapshot(String serverName, String name, long count, SpaceSaving spaceSaving) {
+    timestamp = new Date();
+    this.serverName = serverName;
+    this.name       = name;
+    this.count      = count;
+    this.capacity   = spaceSaving.getCapacity();
+    this.counters   = spaceSaving.getCounters();
+  }
+
+  public String uniqueId() {
+    return "host=" + serverName + ", name=" + name + ",timestamp=" + DateUtil.asCompactDateTimeId(timestamp);
+  }
+
+  public Date getTimestamp() { return timestamp; }
+  public void setTimestamp(Date timestamp) { this.timestamp = timestamp; }
+
+  public String getServerName() { return serverName; }
+  public void setServerName(String serverName) { this.serverName = serverName; }
+
+  public String getName() { return name; }
+  public void setName(String name) { this.name = name; }
+
+  /**
+   * @return the sum of the counts of all the items
+   */
+  public long getCount() { return count; }
+  public void setCount(long count) { this.count = count; }
+
+  public int getCapacity() { return capacity; }
+  public void setCapacity(int capacity) { this.capacity = capacity; }
+
+  /**
+   * @return the monitored items ordered by the count, from the most frequent
+   */
+  public List<SpaceSaving.Counter> getCounters() { return counters; }
+  public void setCounters(List<SpaceSaving.Counter> counters) { this.counters = counters; }
+
+  public List<SpaceSaving.Counter> getTopK(int k) {
+    if(counters.size() <= k) return counters;
+    return counters.subList(0, k);
+  }
+
+  public SpaceSaving toSpaceSaving() { return new SpaceSaving(capacity, counters); }
+}
@@ -3,6 +3,7 @@ package com.neverwinterdp.yara;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.codahale.metrics.Snapshot;
@@ -74,6 +75,50 @@ public class TimerUnitTest {
     printer.flush();
   }
   
+  @Test
+  public void testStripedUpdate() throws Exception {
+    int NUM_OF_THREADS = 8, NUM_OF_UPDATES = 200000;
+    for(int round = 0; round < 2; round++) {
+      Timer timer = new Timer("timer") ;
+      long syncTime = runConcurrentUpdate(timer, NUM_OF_THREADS, NUM_OF_UPDATES) ;
+      Timer stripedTimer = new Timer("timer", 0) ;
+      long stripedTime = runConcurrentUpdate(stripedTimer, NUM_OF_THREADS, NUM_OF_UPDATES) ;
+      System.out.println(
+        "Update " + NUM_OF_THREADS + " x " + NUM_OF_UPDATES + ", synchronized in " + syncTime + "ms, striped in " + stripedTime + "ms");
+      
+      long expectCount = NUM_OF_THREADS * NUM_OF_UPDATES ;
+      Assert.assertEquals(expectCount, stripedTimer.getCount());
+      Assert.assertEquals(timer.getHistogram().getMax(), stripedTimer.getHistogram().getMax());
+      
+      Timer serialization = (Timer)IOUtil.deserialize(IOUtil.serialize(stripedTimer)) ;
+      Assert.assertEquals(expectCount, serialization.getCount());
+      Assert.assertEquals(2 * expectCount, Timer.unionOf(stripedTimer, timer).getCount());
+      
+      TimerPrinter printer = new TimerPrinter() ;
+      printer.print("Synchronized", timer);
+      printer.print("Striped", stripedTimer);
+      printer.print("Striped Serialization", serialization);
+      printer.flush();
+    }
+  }
+  
+  long runConcurrentUpdate(final Timer timer, int numOfThreads, final int numOfUpdates) throws Exception {
+    Thread[] thread = new Thread[numOfThreads] ;
+    for(int i = 0; i < thread.length; i++) {
+      thread[i] = new Thread() {
+        public void run() {
+          for(int j = 0; j < numOfUpdates; j++) {
+            timer.update(j % 1000, TimeUnit.MICROSECONDS);
+          }
+        }
+      };
+    }
+    long start = System.currentTimeMillis() ;
+    for(int i = 0; i < thread.length; i++) thread[i].start();
+    for(int i = 0; i < thread.length; i++) thread[i].join();
+    return System.currentTimeMillis() - start ;
+  }
+  
   static public class TimerPrinter extends MetricPrinter.TimerPrinter {
     public void print(String name, com.codahale.metrics.Timer timer) {
       Snapshot snapshot = timer.getSnapshot() ;
@@ -4,9 +4,12 @@ import java.io.IOException;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.neverwinterdp.yara.MetricRegistry;
+import com.neverwinterdp.yara.snapshot.ClusterMetricRegistrySnapshot;
+import com.neverwinterdp.yara.snapshot.MetricRegistrySnapshot;
 
 public class ClusterMetricRegistryUnitTest {
   @Test
@@ -31,4 +34,34 @@ public class ClusterMetricRegistryUnitTest {
     ClusterMetricPrinter printer = new ClusterMetricPrinter() ;
     printer.print(registry);
   }
+  
+  @Test
+  public void testSketches() throws IOException {
+    MetricRegistry server1 = new MetricRegistry("server1") ;
+    MetricRegistry server2 = new MetricRegistry("server2") ;
+    //the visitors 5000 - 9999 visit both servers
+    for(int i = 0; i < 10000; i++) {
+      server1.cardinality("web", "unique-visitor").offer("visitor-" + i);
+      server2.cardinality("web", "unique-visitor").offer("visitor-" + (i + 5000));
+      server1.topK("web", "top-page").offer("page-" + (i % 10), 10 - (i % 10));
+      server2.topK("web", "top-page").offer("page-" + (i % 20));
+    }
+    ClusterMetricRegistry registry = new ClusterMetricRegistry() ;
+    registry.update(server1);
+    registry.update(server2);
+    
+    long uniqueVisitors = registry.getCardinality("web:unique-visitor").getCardinality().getCount() ;
+    Assert.assertTrue(Math.abs(uniqueVisitors - 15000) < 15000 * 0.05);
+    Assert.assertEquals("page-0", registry.getTopK("web:top-page").getTopK().getTopK(1).get(0).getItem());
+    Assert.assertEquals(65000, registry.getTopK("web:top-page").getTopK().getCount());
+    
+    //a server that reports again is not counted twice
+    ClusterMetricRegistrySnapshot snapshot = new ClusterMetricRegistrySnapshot("cluster") ;
+    snapshot.add(new MetricRegistrySnapshot("server1", server1));
+    snapshot.add(new MetricRegistrySnapshot("server2", server2));
+    snapshot.add(new MetricRegistrySnapshot("server2", server2));
+    Assert.assertEquals(uniqueVisitors, snapshot.getCardinalities().get("web:unique-visitor").getCount());
+    Assert.assertEquals(65000, snapshot.getTopKs().get("web:top-page").getTopK().getCount());
+    System.out.println(snapshot.getFormattedReport());
+  }
 }
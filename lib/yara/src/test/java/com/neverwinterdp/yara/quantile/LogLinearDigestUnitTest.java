@@ -0,0 +1,91 @@
+package com.neverwinterdp.yara.quantile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.neverwinterdp.util.io.IOUtil;
+import com.neverwinterdp.yara.EWMAMeter;
+import com.neverwinterdp.yara.Histogram;
+import com.neverwinterdp.yara.Timer;
+import com.neverwinterdp.yara.snapshot.TimerSnapshot;
+
+public class LogLinearDigestUnitTest {
+  static double[] QUANTILES = { 0.01, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999 };
+
+  @Test
+  public void testAccuracy() {
+    LogLinearDigest digest = new LogLinearDigest();
+    Random rand = new Random(0);
+    long[] values = new long[100000];
+    for(int i = 0; i < values.length; i++) {
+      //latency like values, from 1 micro second to a few seconds
+      values[i] = (long) Math.exp(7 + rand.nextGaussian() * 2.5);
+      digest.offer(values[i]);
+    }
+    Arrays.sort(values);
+    assertEquals(values.length, digest.getCount());
+    assertEquals(values[0], digest.getQuantile(0));
+    assertEquals(values[values.length - 1], digest.getQuantile(1));
+    double maxError = 1d / (1 << (LogLinearDigest.DEFAULT_PRECISION + 1));
+    for(double q : QUANTILES) {
+      long expect = values[(int) Math.ceil(q * values.length) - 1];
+      long value = digest.getQuantile(q);
+      assertTrue("q = " + q + ", expect " + expect + ", value " + value, Math.abs(value - expect) <= expect * maxError + 1);
+    }
+  }
+
+  @Test
+  public void testBucketIndex() {
+    LogLinearDigest digest = new LogLinearDigest(4, 1l << 20);
+    for(long value = 0; value < (1l << 20); value++) {
+      int index = digest.index(value);
+      long bucketValue = digest.value(index);
+      assertTrue(Math.abs(bucketValue - value) <= value / 32 + 1);
+    }
+    //values above the highest value are counted in the last bucket
+    assertEquals(digest.index(Long.MAX_VALUE), digest.index(Long.MAX_VALUE / 2));
+  }
+
+  @Test
+  public void testUnionAndSerialization() throws Exception {
+    LogLinearDigest digest1 = new LogLinearDigest();
+    LogLinearDigest digest2 = new LogLinearDigest();
+    LogLinearDigest all = new LogLinearDigest();
+    Random rand = new Random(0);
+    for(int i = 0; i < 10000; i++) {
+      long value = rand.nextInt(1000000);
+      if(i % 2 == 0) digest1.offer(value);
+      else digest2.offer(value);
+      all.offer(value);
+    }
+    LogLinearDigest union = LogLinearDigest.unionOf(digest1, digest2);
+    LogLinearDigest clone = (LogLinearDigest) IOUtil.deserialize(IOUtil.serialize(union));
+    for(double q : QUANTILES) {
+      assertEquals(all.getQuantile(q), union.getQuantile(q));
+      assertEquals(all.getQuantile(q), clone.getQuantile(q));
+    }
+    assertEquals(all.getMean(), clone.getMean(), 0.0001);
+  }
+
+  @Test
+  public void testTimer() throws Exception {
+    Timer timer1 = new Timer("timer", new Histogram(new LogLinearDigest()), new EWMAMeter());
+    Timer timer2 = new Timer("timer", new Histogram(new LogLinearDigest(), 0), new EWMAMeter(0));
+    for(int i = 1; i <= 1000; i++) {
+      timer1.update(i, TimeUnit.MICROSECONDS);
+      timer2.update(i + 1000, TimeUnit.MICROSECONDS);
+    }
+    Timer timer = Timer.unionOf(timer1, (Timer) IOUtil.deserialize(IOUtil.serialize(timer2)));
+    assertEquals(2000, timer.getCount());
+    TimerSnapshot snapshot = new TimerSnapshot(timer, TimeUnit.MICROSECONDS);
+    assertEquals(1, snapshot.getMin());
+    assertEquals(2000, snapshot.getMax());
+    assertTrue(Math.abs(snapshot.getP50() - 1000) <= 1000 / 64);
+  }
+}
@@ -0,0 +1,68 @@
+package com.neverwinterdp.yara.quantile;
+
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.neverwinterdp.util.text.TabularFormater;
+
+/**
+ * Compare the record cost and the quantile accuracy of the QDigest, the TDigest and the LogLinearDigest for a
+ * latency like distribution. The QDigest uses the compression factor of the yara histogram.
+ */
+public class QuantileEstimatorPerformanceTest {
+  static int      NUM_OF_VALUES = 1000000;
+  static double[] QUANTILES     = { 0.5, 0.75, 0.9, 0.95, 0.99, 0.999 };
+
+  @Test
+  public void testEstimators() {
+    Random rand = new Random(0);
+    long[] values = new long[NUM_OF_VALUES];
+    for(int i = 0; i < values.length; i++) {
+      values[i] = (long) Math.exp(10 + rand.nextGaussian() * 1.5);
+    }
+    long[] sorted = Arrays.copyOf(values, values.length);
+    Arrays.sort(sorted);
+
+    for(int round = 0; round < 2; round++) {
+      QDigest qdigest = new QDigest(150d);
+      long qdigestTime = record(qdigest, values);
+      final TDigest tdigest = new TDigest(100d, new Random(0));
+      long tdigestTime = System.nanoTime();
+      for(int i = 0; i < values.length; i++) tdigest.add(values[i]);
+      tdigestTime = System.nanoTime() - tdigestTime;
+      LogLinearDigest logLinear = new LogLinearDigest();
+      long logLinearTime = record(logLinear, values);
+
+      System.out.println("Record " + NUM_OF_VALUES + " values, round " + (round + 1));
+      System.out.println("  QDigest         " + (qdigestTime / NUM_OF_VALUES) + "ns/value");
+      System.out.println("  TDigest         " + (tdigestTime / NUM_OF_VALUES) + "ns/value");
+      System.out.println("  LogLinearDigest " + (logLinearTime / NUM_OF_VALUES) + "ns/value");
+
+      TabularFormater tformater = new TabularFormater("Quantile", "Expect", "QDigest", "TDigest", "LogLinearDigest");
+      DecimalFormat pFormater = new DecimalFormat("#.00%");
+      for(double q : QUANTILES) {
+        long expect = sorted[(int) Math.ceil(q * sorted.length) - 1];
+        tformater.addRow(
+          q, expect,
+          qdigest.getQuantile(q) + " (" + pFormater.format(error(expect, qdigest.getQuantile(q))) + ")",
+          (long)tdigest.quantile(q) + " (" + pFormater.format(error(expect, (long)tdigest.quantile(q))) + ")",
+          logLinear.getQuantile(q) + " (" + pFormater.format(error(expect, logLinear.getQuantile(q))) + ")"
+        );
+      }
+      System.out.println(tformater.getFormatText());
+    }
+  }
+
+  long record(IQuantileEstimator estimator, long[] values) {
+    long start = System.nanoTime();
+    for(int i = 0; i < values.length; i++) estimator.offer(values[i]);
+    return System.nanoTime() - start;
+  }
+
+  double error(long expect, long value) {
+    return Math.abs(value - expect) / (double) expect;
+  }
+}
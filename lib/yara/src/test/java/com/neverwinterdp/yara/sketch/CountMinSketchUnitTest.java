@@ -0,0 +1,51 @@
+package com.neverwinterdp.yara.sketch;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.neverwinterdp.util.io.IOUtil;
+
+public class CountMinSketchUnitTest {
+  @Test
+  public void testEstimateCount() {
+    CountMinSketch sketch = CountMinSketch.create(0.001, 0.99);
+    long[] exact = new long[10000];
+    Random rand = new Random(1);
+    for(int i = 0; i < 200000; i++) {
+      //a skewed distribution, the low items are the most frequent
+      int item = (int)(Math.abs(rand.nextGaussian()) * 1000) % exact.length;
+      exact[item]++;
+      sketch.add("item-" + item, 1);
+    }
+    Assert.assertEquals(200000, sketch.getSize());
+    long maxError = (long)(sketch.getRelativeError() * sketch.getSize());
+    int outOfBound = 0;
+    for(int i = 0; i < exact.length; i++) {
+      long estimate = sketch.estimateCount("item-" + i);
+      //the Count-Min sketch never under estimates
+      Assert.assertTrue(estimate >= exact[i]);
+      if(estimate - exact[i] > maxError) outOfBound++;
+    }
+    Assert.assertTrue(outOfBound <= (1d - sketch.getConfidence()) * exact.length);
+  }
+
+  @Test
+  public void testUnion() throws Exception {
+    CountMinSketch a = new CountMinSketch();
+    CountMinSketch b = new CountMinSketch();
+    for(int i = 0; i < 1000; i++) {
+      a.add(i % 10, 1);
+      b.add(i % 20, 2);
+    }
+    CountMinSketch union = CountMinSketch.unionOf(a, b);
+    Assert.assertEquals(3000, union.getSize());
+    Assert.assertTrue(union.estimateCount(5) >= 100 + 100);
+    Assert.assertTrue(union.estimateCount(15) >= 100);
+
+    CountMinSketch copy = (CountMinSketch) IOUtil.deserialize(IOUtil.serialize(union));
+    Assert.assertEquals(union.estimateCount(5), copy.estimateCount(5));
+    Assert.assertEquals(union.getSize(), copy.getSize());
+  }
+}
@@ -0,0 +1,38 @@
+package com.neverwinterdp.yara.sketch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.neverwinterdp.util.io.IOUtil;
+
+public class HyperLogLogUnitTest {
+  @Test
+  public void testCardinality() {
+    int[] cardinalities = { 10, 1000, 100000, 1000000 };
+    for(int cardinality : cardinalities) {
+      HyperLogLog hll = new HyperLogLog();
+      for(int i = 0; i < cardinality; i++) {
+        hll.offer("visitor-" + i);
+        //the duplicated values are counted once
+        hll.offer("visitor-" + i);
+      }
+      double error = Math.abs(hll.cardinality() - cardinality) / (double) cardinality;
+      System.out.println("cardinality = " + cardinality + ", estimate = " + hll.cardinality() + ", error = " + error);
+      Assert.assertTrue(error < 3 * hll.getStandardError());
+    }
+  }
+
+  @Test
+  public void testUnion() throws Exception {
+    HyperLogLog a = new HyperLogLog();
+    HyperLogLog b = new HyperLogLog();
+    for(int i = 0; i < 60000; i++) a.offer(i);
+    for(int i = 40000; i < 100000; i++) b.offer(i);
+    HyperLogLog union = HyperLogLog.unionOf(a, b);
+    double error = Math.abs(union.cardinality() - 100000) / 100000d;
+    Assert.assertTrue(error < 3 * union.getStandardError());
+
+    HyperLogLog copy = (HyperLogLog) IOUtil.deserialize(IOUtil.serialize(union));
+    Assert.assertEquals(union.cardinality(), copy.cardinality());
+  }
+}
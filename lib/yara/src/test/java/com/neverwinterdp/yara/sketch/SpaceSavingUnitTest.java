@@ -0,0 +1,48 @@
+package com.neverwinterdp.yara.sketch;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpaceSavingUnitTest {
+  @Test
+  public void testTopK() {
+    SpaceSaving topK = new SpaceSaving(50);
+    offer(topK, new Random(0), 100000);
+    List<SpaceSaving.Counter> counters = topK.getTopK(3);
+    Assert.assertEquals("/page-0", counters.get(0).getItem());
+    Assert.assertEquals("/page-1", counters.get(1).getItem());
+    Assert.assertEquals("/page-2", counters.get(2).getItem());
+    for(SpaceSaving.Counter counter : counters) {
+      Assert.assertTrue(counter.getError() <= topK.getMinCount());
+    }
+  }
+
+  @Test
+  public void testUnion() {
+    SpaceSaving a = new SpaceSaving(50);
+    SpaceSaving b = new SpaceSaving(50);
+    offer(a, new Random(1), 50000);
+    offer(b, new Random(2), 50000);
+    SpaceSaving union = SpaceSaving.unionOf(a, b);
+    Assert.assertEquals(50, union.size());
+    List<SpaceSaving.Counter> counters = union.getTopK(3);
+    Assert.assertEquals("/page-0", counters.get(0).getItem());
+    Assert.assertEquals("/page-1", counters.get(1).getItem());
+    Assert.assertEquals("/page-2", counters.get(2).getItem());
+    //the items that are monitored by both summaries have the sum of the counts
+    Assert.assertEquals(a.getCount("/page-0") + b.getCount("/page-0"), counters.get(0).getCount());
+  }
+
+  /**
+   * Offer the pages with a zipf like distribution, the page i is about 1/(i + 1) as frequent as the page 0.
+   */
+  void offer(SpaceSaving topK, Random random, int count) {
+    for(int i = 0; i < count; i++) {
+      int page = (int) (Math.pow(1000, random.nextDouble())) - 1;
+      topK.offer("/page-" + page);
+    }
+  }
+}
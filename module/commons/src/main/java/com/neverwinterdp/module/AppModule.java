@@ -6,6 +6,7 @@ import com.google.inject.name.Names;
 import com.neverwinterdp.os.RuntimeEnv;
 import com.neverwinterdp.util.log.LoggerFactory;
 import com.neverwinterdp.yara.MetricRegistry;
+import com.neverwinterdp.yara.quantile.LogLinearDigest;
 
 public class AppModule extends ServiceModule {
   private String hostname;
@@ -29,6 +30,10 @@ public class AppModule extends ServiceModule {
     bind(RuntimeEnv.class).toInstance(runtimeEnv);
     
     MetricRegistry metricRegistry = new MetricRegistry(vmName) ;
+    metricRegistry.setStripedRecording("true".equals(properties.get("metric.striped-recording")));
+    if("log-linear".equals(properties.get("metric.histogram-estimator"))) {
+      metricRegistry.setHistogramEstimator(new LogLinearDigest());
+    }
     bind(MetricRegistry.class).toInstance(metricRegistry);
     
     LoggerFactory loggerFactory = new LoggerFactory() ;
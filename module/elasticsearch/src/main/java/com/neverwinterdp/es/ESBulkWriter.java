@@ -0,0 +1,110 @@
+package com.neverwinterdp.es;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+
+/**
+ * Index the documents in bulk requests that are bounded by a number of documents and a number of bytes. A full 
+ * bulk is executed asynchronously, at most maxInFlightBulks bulks are executed at the same time and add waits for
+ * a free slot when the limit is reached. The documents are indexed from their json source as is.
+ * <p/>
+ * The writer is not thread safe, it is used by a single stream writer. The failure of an asynchronous bulk is 
+ * reported by the next flush or add.
+ */
+public class ESBulkWriter {
+  private ESClient  esclient;
+  private String    index;
+  private String    type;
+  private int       maxBulkActions;
+  private long      maxBulkBytes;
+  private int       maxInFlightBulks;
+  private Semaphore inFlightBulks;
+
+  private BulkRequestBuilder currentBulk;
+  private long               currentBulkBytes;
+  private volatile String    failure;
+
+  public ESBulkWriter(ESClient esclient, String index, String type, int maxBulkActions, long maxBulkBytes, int maxInFlightBulks) {
+    this.esclient         = esclient;
+    this.index            = index;
+    this.type             = type;
+    this.maxBulkActions   = maxBulkActions;
+    this.maxBulkBytes     = maxBulkBytes;
+    this.maxInFlightBulks = maxInFlightBulks;
+    this.inFlightBulks    = new Semaphore(maxInFlightBulks);
+  }
+
+  public int getBufferedActions() { return currentBulk == null ? 0 : currentBulk.numberOfActions(); }
+
+  public void add(String id, byte[] source) throws ElasticsearchException, InterruptedException {
+    checkFailure();
+    if(currentBulk == null) currentBulk = esclient.client.prepareBulk();
+    currentBulk.add(esclient.client.prepareIndex(index, type, id).setSource(source));
+    currentBulkBytes += source.length;
+    if(currentBulk.numberOfActions() >= maxBulkActions || currentBulkBytes >= maxBulkBytes) {
+      executeCurrentBulk();
+    }
+  }
+
+  /**
+   * Execute the buffered documents and wait for all the bulks in flight.
+   * @throws ElasticsearchException if a bulk fails or the bulks do not complete within the timeout
+   */
+  public void flush(long timeout) throws ElasticsearchException, InterruptedException {
+    executeCurrentBulk();
+    waitForBulks(timeout);
+    checkFailure();
+  }
+
+  /**
+   * Drop the buffered documents and forget the failures once the bulks in flight complete. The documents of the 
+   * bulks that are already executed stay in the index.
+   */
+  public void discard(long timeout) throws InterruptedException {
+    currentBulk = null;
+    currentBulkBytes = 0;
+    waitForBulks(timeout);
+    failure = null;
+  }
+
+  void executeCurrentBulk() throws InterruptedException {
+    if(currentBulk == null || currentBulk.numberOfActions() == 0) return;
+    BulkRequestBuilder bulk = currentBulk;
+    currentBulk = null;
+    currentBulkBytes = 0;
+    inFlightBulks.acquire();
+    ActionListener<BulkResponse> listener = new ActionListener<BulkResponse>() {
+      @Override
+      public void onResponse(BulkResponse response) {
+        if(response.hasFailures()) failure = response.buildFailureMessage();
+        inFlightBulks.release();
+      }
+
+      @Override
+      public void onFailure(Throwable error) {
+        failure = error.getMessage() == null ? error.toString() : error.getMessage();
+        inFlightBulks.release();
+      }
+    };
+    bulk.execute(listener);
+  }
+
+  void waitForBulks(long timeout) throws ElasticsearchException, InterruptedException {
+    if(!inFlightBulks.tryAcquire(maxInFlightBulks, timeout, TimeUnit.MILLISECONDS)) {
+      throw new ElasticsearchException("The bulks do not complete in " + timeout + "ms");
+    }
+    inFlightBulks.release(maxInFlightBulks);
+  }
+
+  void checkFailure() throws ElasticsearchException {
+    String message = failure;
+    if(message != null) {
+      throw new ElasticsearchException("The bulk operation has been failed!\n" + message);
+    }
+  }
+}
@@ -83,6 +83,10 @@ public class ESObjectClient<T> {
     }
   }
 
+  public ESBulkWriter newBulkWriter(int maxBulkActions, long maxBulkBytes, int maxInFlightBulks) {
+    return new ESBulkWriter(esclient, index, mappingType.getSimpleName(), maxBulkActions, maxBulkBytes, maxInFlightBulks);
+  }
+
   public void put(Map<String, T> records) throws ElasticsearchException {
     BulkRequestBuilder bulkRequest = esclient.client.prepareBulk();
     for (Map.Entry<String, T> entry : records.entrySet()) {
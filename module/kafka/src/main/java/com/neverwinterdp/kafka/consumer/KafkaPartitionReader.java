@@ -6,6 +6,9 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import com.neverwinterdp.kafka.KafkaTool;
 import com.neverwinterdp.util.JSONSerializer;
@@ -30,13 +33,25 @@ import kafka.message.MessageAndOffset;
 
 public class KafkaPartitionReader {
   final static public int DEFAULT_FETCH_SIZE = 512 * 1024;
+  
+  final static ExecutorService COMMIT_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "kafka-partition-reader-commit");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+  
   private String   name;
   private KafkaTool kafkaClient ;
   private String topic ;
-  private PartitionMetadata partitionMetadata;
+  //refreshed by the reader thread on reconnect and read by the commit thread
+  private volatile PartitionMetadata partitionMetadata;
   private int fetchSize = DEFAULT_FETCH_SIZE;
   private SimpleConsumer consumer;
   private long currentOffset;
+  private long commitOffset;
+  private AsyncCommitter asyncCommitter = new AsyncCommitter();
   
   private List<MessageAndOffset>     currentMessageSet;
   private Iterator<MessageAndOffset> currentMessageSetIterator;
@@ -48,6 +63,7 @@ public class KafkaPartitionReader {
     this.partitionMetadata = pMetadata;
     reconnect() ;
     currentOffset = getLastCommitOffset();
+    commitOffset  = currentOffset;
   }
   
   public int getPartition() { return partitionMetadata.partitionId(); }
@@ -87,18 +103,52 @@ public class KafkaPartitionReader {
   }
   
   public void commit() throws Exception {
-    CommitOperation commitOp = new CommitOperation(currentOffset, (short) 0) ;
+    commit(currentOffset);
+  }
+  
+  /**
+   * Commit an offset that is captured before, the reader can read ahead of the committed offset.
+   */
+  public void commit(long offset) throws Exception {
+    asyncCommitter.await();
+    CommitOperation commitOp = new CommitOperation(offset, (short) 0) ;
     execute(commitOp, 5, 5000);
+    commitOffset = offset;
+  }
+  
+  /**
+   * Commit an offset that is captured before without waiting for the broker. The offsets are committed in order on
+   * a separate connection and the offsets that are requested while a commit is in flight are coalesced, only the
+   * last one is sent. An error of an asynchronous commit is thrown by the next commit call or by close.
+   */
+  public void commitAsync(long offset) throws Exception {
+    asyncCommitter.commit(offset);
+    commitOffset = offset;
   }
   
+  /**
+   * Wait for the asynchronous commits to reach the broker.
+   */
+  public void awaitCommit() throws Exception {
+    asyncCommitter.await();
+  }
+  
+  /**
+   * Go back to the last committed offset of the reader, the offset is known locally so there is no broker round trip.
+   */
   public void rollback() throws Exception  {
-    currentOffset = getLastCommitOffset();
+    currentOffset = commitOffset;
     currentMessageSet = null ;
     currentMessageSetIterator = null;
   }
   
   public void close() throws Exception {
-    consumer.close();
+    try {
+      asyncCommitter.await();
+    } finally {
+      asyncCommitter.close();
+      consumer.close();
+    }
   }
   
   public byte[] next(long maxWait) throws Exception {
@@ -126,11 +176,49 @@ public class KafkaPartitionReader {
     return null;
   }
   
+  /**
+   * Drain up to maxRead messages from the current fetched message set. A new fetch request is issued
+   * only when the current message set is exhausted, so the whole batch cost at most one broker round trip
+   */
+  public List<MessageAndOffset> nextMessageAndOffset(int maxRead, long maxWait) throws Exception {
+    if(currentMessageSetIterator == null || !currentMessageSetIterator.hasNext()) {
+      nextMessageSet(maxWait);
+    }
+    List<MessageAndOffset> holder = new ArrayList<>();
+    while(holder.size() < maxRead && currentMessageSetIterator.hasNext()) {
+      MessageAndOffset sel = currentMessageSetIterator.next();
+      currentOffset = sel.nextOffset();
+      holder.add(sel);
+    }
+    return holder;
+  }
+  
+  public List<byte[]> next(int maxRead, long maxWait) throws Exception {
+    List<MessageAndOffset> holder = nextMessageAndOffset(maxRead, maxWait);
+    List<byte[]> records = new ArrayList<>(holder.size());
+    for(int i = 0; i < holder.size(); i++) {
+      ByteBuffer payload = holder.get(i).message().payload();
+      byte[] bytes = new byte[payload.limit()];
+      payload.get(bytes);
+      records.add(bytes);
+    }
+    return records;
+  }
+  
   public <T> T nextAs(Class<T> type, long maxWait) throws Exception {
     byte[] data = next(maxWait);
     if(data == null) return null;
     return JSONSerializer.INSTANCE.fromBytes(data, type);
   }
+  
+  public <T> List<T> nextAs(Class<T> type, int maxRead, long maxWait) throws Exception {
+    List<byte[]> records = next(maxRead, maxWait);
+    List<T> holder = new ArrayList<>(records.size());
+    for(int i = 0; i < records.size(); i++) {
+      holder.add(JSONSerializer.INSTANCE.fromBytes(records.get(i), type));
+    }
+    return holder;
+  }
 
   public List<Message> fetch(int fetchSize, int maxRead, long maxWait) throws Exception {
     return fetch(fetchSize, maxRead, maxWait, 5) ;
@@ -188,10 +276,16 @@ public class KafkaPartitionReader {
   }
   
   class CommitOperation implements Operation<Short> {
+    SimpleConsumer commitConsumer;
     long offset;
     short errorCode;
     
     public CommitOperation(long offset, short errorCode) {
+      this(consumer, offset, errorCode);
+    }
+    
+    public CommitOperation(SimpleConsumer commitConsumer, long offset, short errorCode) {
+      this.commitConsumer = commitConsumer;
       this.offset = offset;
       this.errorCode = errorCode;
     }
@@ -205,11 +299,116 @@ public class KafkaPartitionReader {
       Map<TopicAndPartition, OffsetAndMetadata> mapForCommitOffset = new HashMap<TopicAndPartition, OffsetAndMetadata>();
       mapForCommitOffset.put(tp, offsetAndMeta);
       OffsetCommitRequest offsetCommitReq = new OffsetCommitRequest(name, mapForCommitOffset, correlationId, name, versionID);
-      OffsetCommitResponse offsetCommitResp = consumer.commitOffsets(offsetCommitReq);
+      OffsetCommitResponse offsetCommitResp = commitConsumer.commitOffsets(offsetCommitReq);
       return (Short) offsetCommitResp.errors().get(tp);
     }
   }
 
+  /**
+   * Commit the offsets on its own connection, so a commit does not wait behind a long poll fetch of the reader. At
+   * most one commit task per reader runs on the commit executor, the task sends the last requested offset until the
+   * committed offset catches up.
+   */
+  class AsyncCommitter implements Runnable {
+    private SimpleConsumer commitConsumer;
+    private long           requestOffset   = -1;
+    private long           committedOffset = -1;
+    private boolean        running         = false;
+    private Exception      error;
+    
+    synchronized void commit(long offset) throws Exception {
+      throwError();
+      requestOffset = offset;
+      if(!running) {
+        running = true;
+        COMMIT_EXECUTOR.submit(this);
+      }
+    }
+    
+    synchronized void await() throws Exception {
+      while(running) wait();
+      throwError();
+    }
+    
+    synchronized void close() {
+      if(commitConsumer != null) commitConsumer.close();
+      commitConsumer = null;
+    }
+    
+    void throwError() throws Exception {
+      if(error == null) return;
+      Exception ex = error;
+      error = null;
+      throw new Exception("Cannot commit the offset " + requestOffset + " of the partition " + getPartition(), ex);
+    }
+    
+    @Override
+    public void run() {
+      while(true) {
+        long offset;
+        synchronized(this) {
+          if(requestOffset == committedOffset) {
+            running = false;
+            notifyAll();
+            return;
+          }
+          offset = requestOffset;
+        }
+        try {
+          send(offset, 5, 5000);
+          synchronized(this) {
+            committedOffset = offset;
+          }
+        } catch(Exception ex) {
+          synchronized(this) {
+            error = ex;
+            //the next commit request retries with its offset
+            committedOffset = requestOffset;
+            running = false;
+            notifyAll();
+          }
+          return;
+        }
+      }
+    }
+    
+    void send(long offset, int retry, long retryDelay) throws Exception {
+      Exception lastError = null;
+      for(int i = 0; i < retry; i++) {
+        try {
+          if(lastError != null) Thread.sleep(retryDelay);
+          Short errorCode = new CommitOperation(getCommitConsumer(lastError != null), offset, (short) 0).execute();
+          if(errorCode == null || errorCode.shortValue() == 0) return;
+          lastError = new Exception("Kafka error code = " + errorCode + ", Partition " + getPartition());
+        } catch(Exception ex) {
+          lastError = ex;
+        }
+      }
+      throw new Exception("Cannot commit the offset after retry = " + retry + ", retry delay = " + retryDelay, lastError);
+    }
+    
+    synchronized SimpleConsumer getCommitConsumer(boolean reconnect) throws Exception {
+      PartitionMetadata pMetadata = partitionMetadata;
+      //the reader has found a new leader
+      if(!reconnect && commitConsumer != null && !isLeader(pMetadata.leader(), commitConsumer)) reconnect = true;
+      if(reconnect && commitConsumer != null) {
+        commitConsumer.close();
+        commitConsumer = null;
+      }
+      if(commitConsumer == null) {
+        if(reconnect) pMetadata = kafkaClient.findPartitionMetadata(topic, getPartition());
+        Broker broker = pMetadata.leader();
+        if(broker == null) throw new Exception("No leader for the partition " + getPartition());
+        commitConsumer = new SimpleConsumer(broker.host(), broker.port(), 60000, 64 * 1024, name + "-commit");
+      }
+      return commitConsumer;
+    }
+    
+    boolean isLeader(Broker broker, SimpleConsumer consumer) {
+      return broker != null && broker.host().equals(consumer.host()) && broker.port() == consumer.port();
+    }
+  }
+
   class FetchMessageOperation implements Operation<List<MessageAndOffset>> {
     int fetchSize;
     int maxRead;
@@ -55,6 +55,12 @@ abstract public class AbstractKafkaWriter implements KafkaWriter {
     send(topic, -1, keyBytes, messageBytes, null, timeout);
   }
   
+  @Override
+  public void send(String topic, byte[] data, long timeout) throws Exception {
+    byte[] keyBytes = nextKey(-1).getBytes(UTF8);
+    send(topic, -1, keyBytes, data, null, timeout);
+  }
+  
   public <T> void send(String topic, String key, T obj, long timeout) throws Exception {
     byte[] keyBytes     = key.getBytes(UTF8);
     byte[] messageBytes = JSONSerializer.INSTANCE.toBytes(obj);
@@ -114,6 +114,19 @@ public class AckKafkaWriter extends AbstractKafkaWriter {
     waittingAckBuffer.waitForEmptyBuffer(maxCommitTimeout);
   }
   
+  /**
+   * @return the id of the last sent record, the records that are sent later have a greater id
+   */
+  public long getLastSendId() { return idTracker.get(); }
+  
+  /**
+   * Wait for the acks of the records that are sent up to the given send id, the records that are sent after are
+   * not waited for.
+   */
+  public void commit(long sendId) throws Exception {
+    waittingAckBuffer.waitForAcks(sendId, maxCommitTimeout);
+  }
+  
   public void close() throws InterruptedException { 
     if(resendThread != null && resendThread.isAlive()) {
       resendThread.waitForTermination(maxCommitTimeout);
@@ -19,6 +19,8 @@ public interface KafkaWriter {
   public void send(String topic, int partition, String key, String data, Callback callback, long timeout) throws Exception ;
   
   public <T> void send(String topic, T obj, long timeout) throws Exception ;
+  
+  public void send(String topic, byte[] data, long timeout) throws Exception ;
 
   public <T> void send(String topic, String key, T obj, long timeout) throws Exception ;
   
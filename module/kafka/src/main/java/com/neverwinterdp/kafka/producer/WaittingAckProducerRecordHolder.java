@@ -57,6 +57,27 @@ public class WaittingAckProducerRecordHolder<K, V> {
     }
   }
 
+  /**
+   * Wait until there is no record with an id up to the given id. The records are added in the id order, so 
+   * the first record of the buffer has the smallest id.
+   */
+  synchronized void waitForAcks(long id, long waitTime) throws Exception {
+    long startTime = System.currentTimeMillis();
+    while(hasRecordUpTo(id)) {
+      long remainTime = waitTime - (System.currentTimeMillis() - startTime);
+      if(remainTime <= 0) break;
+      wait(remainTime);
+    }
+    if(hasRecordUpTo(id)) { 
+      throw new Exception("Not all messages up to " + id + " are sent and ack after " + waitTime + "ms");
+    }
+  }
+  
+  private boolean hasRecordUpTo(long id) {
+    if(buffer.size() == 0) return false;
+    return buffer.keySet().iterator().next() <= id;
+  }
+  
   synchronized void notifyForAvailableBuffer() {
     notifyAll();
   }
@@ -64,6 +64,80 @@ public class KafkaPartitionReaderUnitTest {
     kafkaClient.close();
   }
 
+  @Test
+  public void testPartitionReaderAsyncCommit() throws Exception {
+    String NAME = "test";
+    DefaultKafkaWriter writer = new DefaultKafkaWriter(NAME, cluster.getKafkaConnect());
+    for(int i = 0; i < 100; i++) {
+      writer.send("hello", 0, "key-" + i, "Hello " + i, 5000);
+    }
+    writer.close();
+    KafkaTool kafkaClient = new KafkaTool(NAME, cluster.getZKConnect());
+    TopicMetadata topicMetadata = kafkaClient.findTopicMetadata("hello");
+    PartitionMetadata partitionMetadata = findPartition(topicMetadata.partitionsMetadata(), 0);
+    KafkaPartitionReader partitionReader = new KafkaPartitionReader(NAME, kafkaClient, "hello", partitionMetadata);
+    //the commits do not wait for the broker, the commits in flight are coalesced
+    for(int i = 0; i < 10; i++) {
+      Assert.assertEquals(5, partitionReader.next(5, 1000).size());
+      partitionReader.commitAsync(partitionReader.getCurrentOffset());
+    }
+    partitionReader.next(5, 1000);
+    partitionReader.rollback();
+    Assert.assertEquals(50, partitionReader.getCurrentOffset());
+    partitionReader.close();
+    
+    partitionReader = new KafkaPartitionReader(NAME, kafkaClient, "hello", partitionMetadata);
+    Assert.assertEquals(50, partitionReader.getCurrentOffset());
+    partitionReader.close();
+    kafkaClient.close();
+  }
+
+  @Test
+  public void testPartitionReaderBatchRead() throws Exception {
+    String NAME = "test";
+    DefaultKafkaWriter writer = new DefaultKafkaWriter(NAME, cluster.getKafkaConnect());
+    for(int i = 0; i < 25; i++) {
+      writer.send("hello", 0, "key-" + i, "Hello " + i, 5000);
+    }
+    writer.close();
+    KafkaTool kafkaClient = new KafkaTool(NAME, cluster.getZKConnect());
+    TopicMetadata topicMetadata = kafkaClient.findTopicMetadata("hello");
+    PartitionMetadata partitionMetadata = findPartition(topicMetadata.partitionsMetadata(), 0);
+    KafkaPartitionReader partitionReader = new KafkaPartitionReader(NAME, kafkaClient, "hello", partitionMetadata);
+    
+    //a batch never exceeds the requested size
+    List<byte[]> batch = partitionReader.next(10, 1000);
+    Assert.assertEquals(10, batch.size());
+    Assert.assertEquals("Hello 0", new String(batch.get(0)));
+    partitionReader.commit();
+    
+    //the rolled back records are read again
+    List<byte[]> uncommitted = partitionReader.next(10, 1000);
+    partitionReader.rollback();
+    List<byte[]> reread = partitionReader.next(10, 1000);
+    Assert.assertEquals(uncommitted.size(), reread.size());
+    for(int i = 0; i < reread.size(); i++) {
+      Assert.assertEquals(new String(uncommitted.get(i)), new String(reread.get(i)));
+    }
+    Assert.assertEquals("Hello 10", new String(reread.get(0)));
+    
+    int count = batch.size() + reread.size();
+    while(count < 25) {
+      batch = partitionReader.next(10, 1000);
+      Assert.assertTrue(batch.size() > 0 && batch.size() <= 10);
+      count += batch.size();
+    }
+    Assert.assertEquals(25, count);
+    
+    //there is no data, the batch waits once for max wait and returns empty
+    long start = System.currentTimeMillis();
+    Assert.assertEquals(0, partitionReader.next(10, 1000).size());
+    long duration = System.currentTimeMillis() - start;
+    Assert.assertTrue("duration = " + duration, duration < 2000);
+    partitionReader.close();
+    kafkaClient.close();
+  }
+
   @Test
   public void testReader() throws Exception {
     String NAME = "test";
@@ -2,19 +2,39 @@ package com.neverwinterdp.registry;
 
 import java.text.DecimalFormat;
 
+/**
+ * Allocate the unique int ids with the version of a registry node, each setData call increments the version.
+ * <p/>
+ * With a block size greater than 1, a setData call reserves a block of ids and the ids are handed out locally
+ * until the block is used up, the version v reserves the ids from (v - 1) * blockSize + 1 to v * blockSize. The
+ * ids are unique but not dense, the ids that are left in the block of a closed tracker are never used. All the
+ * trackers of a path must use the same block size. A path can move from the block size 1 to a greater block size
+ * since the blocks are always above the ids that are allocated by the version, but never decrease its block size.
+ */
 public class SequenceIdTracker {
   final static public byte[] EMPTY_DATA = new byte[0] ;
   static DecimalFormat SEQ_ID_FORMATER = new DecimalFormat("0000000000");
 
   private Registry registry ;
   private String   path;
+  private int      blockSize = 1;
+  private int      nextBlockId ;
+  private int      maxBlockId = -1;
   
   public SequenceIdTracker(Registry registry, String path, boolean init) throws RegistryException {
+    this(registry, path, 1, init);
+  }
+  
+  public SequenceIdTracker(Registry registry, String path, int blockSize, boolean init) throws RegistryException {
+    if(blockSize < 1) throw new IllegalArgumentException("The block size must be greater than 0, block size = " + blockSize);
     this.registry = registry;
     this.path = path ;
+    this.blockSize = blockSize;
     if(init) initRegistry();
   }
   
+  public int getBlockSize() { return blockSize; }
+  
   public void initRegistry() throws RegistryException {
     registry.createIfNotExist(path);
   }
@@ -23,19 +43,32 @@ public class SequenceIdTracker {
     transaction.create(path, null, NodeCreateMode.PERSISTENT);
   }
   
+  /**
+   * @return the highest id that is allocated or reserved by all the trackers of the path
+   */
   public int currentInt() throws RegistryException {
     NodeInfo nodeInfo = registry.getInfo(path);
-    return nodeInfo.getVersion();
+    return nodeInfo.getVersion() * blockSize;
   }
   
   public int nextInt() throws RegistryException {
-    NodeInfo nodeInfo = registry.setData(path, EMPTY_DATA);
-    return nodeInfo.getVersion();
+    if(blockSize == 1) {
+      NodeInfo nodeInfo = registry.setData(path, EMPTY_DATA);
+      return nodeInfo.getVersion();
+    }
+    return nextBlockInt();
   }
   
   public String nextSeqId() throws RegistryException {
-    NodeInfo nodeInfo = registry.setData(path, EMPTY_DATA);
-    int id = nodeInfo.getVersion();
-    return SEQ_ID_FORMATER.format(id) ;
+    return SEQ_ID_FORMATER.format(nextInt()) ;
+  }
+  
+  synchronized int nextBlockInt() throws RegistryException {
+    if(nextBlockId > maxBlockId) {
+      NodeInfo nodeInfo = registry.setData(path, EMPTY_DATA);
+      maxBlockId  = nodeInfo.getVersion() * blockSize;
+      nextBlockId = maxBlockId - blockSize + 1;
+    }
+    return nextBlockId++;
   }
 }
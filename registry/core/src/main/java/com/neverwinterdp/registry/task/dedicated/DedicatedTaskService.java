@@ -12,6 +12,7 @@ final public class DedicatedTaskService<T> {
   private DedicatedTaskRegistry<T>   taskRegistry;
   private TaskExecutorService<T>     taskExecutorService;
   private TaskSlotExecutorFactory<T> taskSlotExecutorFactory;
+  private AddRemoveNodeChildrenWatcher<T> availableTaskWatcher;
 
   public DedicatedTaskService(DedicatedTaskRegistry<T> taskRegistry, TaskSlotExecutorFactory<T> taskSlotExecutorFactory) throws RegistryException {
     this.taskRegistry = taskRegistry;
@@ -21,6 +22,7 @@ final public class DedicatedTaskService<T> {
   
   @PreDestroy
   public void onDestroy() throws InterruptedException {
+    if(availableTaskWatcher != null) availableTaskWatcher.setComplete();
     taskExecutorService.shutdown();
   } 
   
@@ -56,6 +58,15 @@ final public class DedicatedTaskService<T> {
     taskRegistry.addTaskExecutor(executorDescriptor);
     TaskExecutor<T> executor = new TaskExecutor<T>(executorDescriptor.getId(), this, taskSlots) ;
     taskExecutorService.add(executor);
+    if(availableTaskWatcher == null) {
+      //wake up the executors with a free slot as soon as a task is offered or released by another executor
+      availableTaskWatcher = new AddRemoveNodeChildrenWatcher<T>(taskRegistry.getRegistry(), taskRegistry.getTaskAvailableNode()) {
+        @Override
+        public void onAddChild(String taskId) {
+          taskExecutorService.onTaskAvailable();
+        }
+      };
+    }
   }
   
   public void activeExecutor(TaskExecutorDescriptor executor) throws RegistryException {
@@ -1,21 +1,43 @@
 package com.neverwinterdp.registry.task.dedicated;
 
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import com.neverwinterdp.registry.task.TaskExecutorDescriptor;
 import com.neverwinterdp.registry.task.TaskStatus;
 
+/**
+ * Run the task slots that are taken by an executor. By default the slots run round robin on the executor thread. 
+ * When the task service has a slot pool, each slot runs on the shared pool on its own and the executor thread only 
+ * takes the tasks. A slot yields by returning from executeSlot at its tick timeout, it is then submitted again 
+ * without waiting for the other slots, a slot that finishes its task releases it as soon as it returns.
+ * <p/>
+ * When a round, or a run of a slot on the pool, takes less than the minimum round time, the next round or run waits 
+ * for the rest of the round time or until a slot, the task service or the shutdown wakes it up, instead of sleeping 
+ * a fixed time. The task service wakes up the executors that have a free slot when a task becomes available, a slot 
+ * wakes up its executor, or only itself on the pool, when its input has data.
+ */
 final public class TaskExecutor<T> implements Runnable {
-  private DedicatedTaskService<T>   taskService;
-  private TaskExecutorDescriptor    executor;
-  private int                       numOfTaskSlot;
-  private List<TaskSlotExecutor<T>> taskSlotExecutors = new ArrayList<>();
-  private TaskSlotExecutor<T>       currentRunningTaskSlotExecutor;
-  private boolean                   shutdown          = false;
-  private boolean                   simulateKill      = false;
-  private Throwable                 error;
+  final static long MIN_ROUND_TIME = 1000;
+  
+  private DedicatedTaskService<T>           taskService;
+  private TaskExecutorDescriptor            executor;
+  private int                               numOfTaskSlot;
+  private List<TaskSlotExecutor<T>>         taskSlotExecutors = new CopyOnWriteArrayList<>();
+  private Map<TaskSlotExecutor<T>, SlotRun> slotRuns          = new ConcurrentHashMap<>();
+  private ScheduledExecutorService          slotPool;
+  private int                               numOfSlotRuns     = 0;
+  private TaskSlotExecutor<T>               currentRunningTaskSlotExecutor;
+  private volatile boolean                  shutdown          = false;
+  private volatile boolean                  simulateKill      = false;
+  private Throwable                         error;
+  private volatile Throwable                slotError;
+  private boolean                           wakeup            = false;
 
   public TaskExecutor(String id, DedicatedTaskService<T> taskService, int numOfTaskSlot) {
     executor = new TaskExecutorDescriptor(id, "NA");
@@ -28,6 +50,7 @@ final public class TaskExecutor<T> implements Runnable {
   public List<TaskSlotExecutor<T>> getTaskSlotExecutors() { return taskSlotExecutors; }
   
   public void add(TaskSlotExecutor<T> taskSlotExecutor) {
+    taskSlotExecutor.setTaskExecutor(this);
     taskSlotExecutors.add(taskSlotExecutor);
   }
   
@@ -38,15 +61,12 @@ final public class TaskExecutor<T> implements Runnable {
     }
   }
   
-  public void setTickTime(long time) {
-    Iterator<TaskSlotExecutor<T>> executorItr = taskSlotExecutors.iterator();
-    while(executorItr.hasNext()) {
-      executorItr.next().setTickTime(time);;
-    }
+  public void shutdown() { 
+    shutdown = true; 
+    wakeupSlotRuns();
+    wakeup();
   }
   
-  public void shutdown() { shutdown = true; }
-  
   public Throwable getError() { return error ; }
   
   public void simulateKill() {
@@ -54,21 +74,71 @@ final public class TaskExecutor<T> implements Runnable {
     for(TaskSlotExecutor<T> sel : taskSlotExecutors) {
       sel.simulateKill();
     }
+    wakeupSlotRuns();
+    wakeup();
+  }
+  
+  /**
+   * Wake up the executor if it waits for the rest of a round or for a task, so the slots run again immediately. 
+   */
+  synchronized public void wakeup() {
+    wakeup = true;
+    notifyAll();
+  }
+  
+  /**
+   * Wake up the slot if it runs on the pool, otherwise wake up the executor.
+   */
+  void wakeup(TaskSlotExecutor<T> taskSlotExecutor) {
+    SlotRun slotRun = slotRuns.get(taskSlotExecutor);
+    if(slotRun != null) slotRun.wakeup();
+    else wakeup();
+  }
+  
+  void wakeupSlotRuns() {
+    for(SlotRun slotRun : slotRuns.values()) slotRun.wakeup();
+  }
+  
+  /**
+   * Wake up the executor when it has a free slot to take the available task.
+   */
+  void onTaskAvailable() {
+    //the slot list is updated by the executor thread and the slot runs, a stale size only costs a spurious or a late wakeup
+    if(taskSlotExecutors.size() < numOfTaskSlot) wakeup();
+  }
+  
+  synchronized void waitForWakeup(long maxWaitTime) throws InterruptedException {
+    long stopTime = System.currentTimeMillis() + maxWaitTime;
+    long waitTime = maxWaitTime;
+    while(!wakeup && waitTime > 0) {
+      wait(waitTime);
+      waitTime = stopTime - System.currentTimeMillis();
+    }
+    wakeup = false;
   }
   
   public void run() {
+    slotPool = taskService.getTaskExecutorService().getSlotPool();
     try {
       while(!shutdown) {
         if(simulateKill) return;
+        checkSlotError();
         updateTaskSlotExecutors();
         if(taskSlotExecutors.size() == 0) {
           taskService.idleExecutor(executor);
-          Thread.sleep(1000);
+          waitForWakeup(MIN_ROUND_TIME);
+        } else if(slotPool != null) {
+          taskService.activeExecutor(executor);
+          waitForWakeup(MIN_ROUND_TIME);
         } else {
           taskService.activeExecutor(executor);
           runTaskExecutors();
         }
       }
+      //the slots must not run on the pool while they are shut down
+      waitForSlotRuns();
+      if(simulateKill) return;
+      checkSlotError();
       for(TaskSlotExecutor<T> taskSlotExecutor : taskSlotExecutors) {
         taskSlotExecutor.onShutdown();
       }
@@ -87,26 +157,114 @@ final public class TaskExecutor<T> implements Runnable {
       for(int j = 0; j < contexts.size(); j++) {
         TaskSlotExecutor<T> taskSlotExecutor = taskService.getTaskSlotExecutorFactory().create(contexts.get(j));
         add(taskSlotExecutor);
+        if(slotPool != null) startSlotRun(taskSlotExecutor);
       }
     }
   }
   
   void runTaskExecutors() throws InterruptedException, Exception {
-    Iterator<TaskSlotExecutor<T>> executorItr = taskSlotExecutors.iterator();
-    long totalRuntime = 0;
-    while(executorItr.hasNext()) {
+    long startTime = System.currentTimeMillis();
+    for(TaskSlotExecutor<T> taskSlotExecutor : taskSlotExecutors) {
       if(simulateKill) return;
-      currentRunningTaskSlotExecutor = executorItr.next();
-      currentRunningTaskSlotExecutor.setTickTimeout(System.currentTimeMillis() + 10000);;
-      currentRunningTaskSlotExecutor.onPreExecuteSlot();
-      totalRuntime += currentRunningTaskSlotExecutor.executeSlot();
-      currentRunningTaskSlotExecutor.onPostExecuteSlot();
+      currentRunningTaskSlotExecutor = taskSlotExecutor;
+      runTaskSlot(currentRunningTaskSlotExecutor);
       DedicatedTaskContext<T> context = currentRunningTaskSlotExecutor.getTaskContext();
       if(context.isComplete()) {
-        executorItr.remove();
+        taskSlotExecutors.remove(currentRunningTaskSlotExecutor);
         taskService.finish(executor, context.getTaskId(), TaskStatus.TERMINATED);
       }
     }
-    if(totalRuntime <  1000) Thread.sleep(1000);
+    long roundTime = System.currentTimeMillis() - startTime;
+    if(roundTime < MIN_ROUND_TIME) waitForWakeup(MIN_ROUND_TIME - roundTime);
+  }
+  
+  synchronized void startSlotRun(TaskSlotExecutor<T> taskSlotExecutor) {
+    SlotRun slotRun = new SlotRun(taskSlotExecutor);
+    slotRuns.put(taskSlotExecutor, slotRun);
+    numOfSlotRuns++;
+    slotPool.execute(slotRun);
+  }
+  
+  synchronized void onSlotRunExit(TaskSlotExecutor<T> taskSlotExecutor) {
+    slotRuns.remove(taskSlotExecutor);
+    numOfSlotRuns--;
+    notifyAll();
+  }
+  
+  synchronized void waitForSlotRuns() throws InterruptedException {
+    while(numOfSlotRuns > 0) wait();
+  }
+  
+  void checkSlotError() throws Exception {
+    Throwable t = slotError;
+    if(t == null) return;
+    if(t instanceof Exception) throw (Exception) t;
+    throw (Error) t;
+  }
+  
+  long runTaskSlot(TaskSlotExecutor<T> taskSlotExecutor) throws InterruptedException, Exception {
+    taskSlotExecutor.setTickTimeout(System.currentTimeMillis() + 10000);;
+    taskSlotExecutor.onPreExecuteSlot();
+    long runtime = taskSlotExecutor.executeSlot();
+    taskSlotExecutor.onPostExecuteSlot();
+    return runtime;
+  }
+  
+  /**
+   * The continuation of a slot on the pool. A run executes the slot once, then the slot is submitted again right 
+   * away if it has been woken up or has used the round time, otherwise it is scheduled for the rest of the round time.
+   * The slot stops running when its task is complete, on shutdown, on simulate kill or when a slot fails.
+   */
+  class SlotRun implements Runnable {
+    private TaskSlotExecutor<T> taskSlotExecutor;
+    private ScheduledFuture<?>  parked;
+    private boolean             wakeup = false;
+    
+    SlotRun(TaskSlotExecutor<T> taskSlotExecutor) {
+      this.taskSlotExecutor = taskSlotExecutor;
+    }
+    
+    @Override
+    public void run() {
+      synchronized(this) {
+        parked = null;
+        wakeup = false;
+      }
+      boolean next = false;
+      try {
+        if(shutdown || simulateKill || slotError != null) return;
+        long startTime = System.currentTimeMillis();
+        runTaskSlot(taskSlotExecutor);
+        DedicatedTaskContext<T> context = taskSlotExecutor.getTaskContext();
+        if(context.isComplete()) {
+          taskSlotExecutors.remove(taskSlotExecutor);
+          taskService.finish(executor, context.getTaskId(), TaskStatus.TERMINATED);
+          //the executor has a free slot to take a task
+          TaskExecutor.this.wakeup();
+          return;
+        }
+        if(shutdown || simulateKill) return;
+        next(MIN_ROUND_TIME - (System.currentTimeMillis() - startTime));
+        next = true;
+      } catch(Throwable t) {
+        slotError = t;
+        TaskExecutor.this.wakeup();
+      } finally {
+        if(!next) onSlotRunExit(taskSlotExecutor);
+      }
+    }
+    
+    synchronized void next(long waitTime) {
+      if(wakeup || waitTime <= 0) slotPool.execute(this);
+      else parked = slotPool.schedule(this, waitTime, TimeUnit.MILLISECONDS);
+    }
+    
+    synchronized void wakeup() {
+      wakeup = true;
+      if(parked != null && parked.cancel(false)) {
+        parked = null;
+        slotPool.execute(this);
+      }
+    }
   }
-}
\ No newline at end of file
+}
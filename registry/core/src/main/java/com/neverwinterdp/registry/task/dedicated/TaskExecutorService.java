@@ -3,15 +3,40 @@ package com.neverwinterdp.registry.task.dedicated;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TaskExecutorService<T> {
   private List<TaskExecutor<T>>    taskExecutors = new ArrayList<TaskExecutor<T>>();
   private List<TaskExecutorThread> taskExecutorsThreads = new ArrayList<>();
   
-  private TaskSlotTimerThread taskSlotTimer ;
+  private ScheduledExecutorService slotPool;
   
   public  List<TaskExecutor<T>> getTaskExecutors() { return taskExecutors; }
   
+  /**
+   * Run the task slots of all the executors on a shared pool with the given number of threads instead of round robin
+   * on each executor thread. 0 or less keeps the round robin execution. The slots block on the input reads and the 
+   * commits, so the pool is a plain fixed pool, a slot that yields is queued behind the slots that are ready to run.
+   */
+  public void setSlotPoolParallelism(int parallelism) {
+    if(parallelism <= 0) return;
+    final AtomicInteger threadCount = new AtomicInteger();
+    ThreadFactory threadFactory = new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "task-slot-pool-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+    slotPool = Executors.newScheduledThreadPool(parallelism, threadFactory);
+  }
+  
+  ScheduledExecutorService getSlotPool() { return slotPool; }
+  
   public void add(TaskExecutor<T> executor) {
     taskExecutors.add(executor);
   }
@@ -34,15 +59,9 @@ public class TaskExecutorService<T> {
       executorThread.start();
       if(breakIn > 0) Thread.sleep(breakIn);
     }
-    taskSlotTimer = new TaskSlotTimerThread();
-    taskSlotTimer.start();
   }
   
   public void shutdown() throws InterruptedException {
-    if(taskSlotTimer  != null) {
-      taskSlotTimer.interrupt();
-    }
-    
     if(taskExecutors.size() > 0) {
       for(TaskExecutor<T> executor : taskExecutors) {
         executor.shutdown();
@@ -52,15 +71,17 @@ public class TaskExecutorService<T> {
   
   synchronized public void awaitTermination() throws InterruptedException {
     while(taskExecutorsThreads.size() > 0) {
-      wait(3000);
       Iterator<TaskExecutorThread> i = taskExecutorsThreads.iterator();
       while(i.hasNext()) {
-        if(!i.next().isAlive()) {
+        if(i.next().terminated) {
           i.remove();
         }
       }
+      //each executor thread notifies on termination
+      if(taskExecutorsThreads.size() > 0) wait();
     }
-    taskSlotTimer.interrupt();
+    //the executors wait for their slots on the pool before they terminate
+    if(slotPool != null) slotPool.shutdown();
   }
   
   synchronized void notifyThreadTermination() {
@@ -68,38 +89,36 @@ public class TaskExecutorService<T> {
   }
   
   
-  public void simulateKill() throws InterruptedException {
-    taskSlotTimer.interrupt();
-    for(TaskExecutor<T> executor : taskExecutors) {
-      executor.simulateKill();
+  /**
+   * Wake up the executors that have a free slot, a task is available in the task registry.
+   */
+  public void onTaskAvailable() {
+    for(int i = 0; i < taskExecutors.size(); i++) {
+      taskExecutors.get(i).onTaskAvailable();
     }
   }
   
-  public class TaskSlotTimerThread extends Thread {
-    public void run() {
-      try {
-        while(true) {
-          Thread.sleep(1000);
-          long time = System.currentTimeMillis();
-          for(int i = 0; i < taskExecutors.size(); i++) {
-            taskExecutors.get(i).setTickTime(time);;
-          }
-        }
-      } catch (InterruptedException e) {
-      }
+  public void simulateKill() throws InterruptedException {
+    for(TaskExecutor<T> executor : taskExecutors) {
+      executor.simulateKill();
     }
   }
   
   public class TaskExecutorThread extends Thread {
-    TaskExecutor<T> executor;
+    TaskExecutor<T>  executor;
+    volatile boolean terminated = false;
     
     TaskExecutorThread(TaskExecutor<T> executor) {
       this.executor = executor;
     }
     
     public void run() {
-      executor.run();
-      notifyThreadTermination();
+      try {
+        executor.run();
+      } finally {
+        terminated = true;
+        notifyThreadTermination();
+      }
     }
     
     public void shutdown() {
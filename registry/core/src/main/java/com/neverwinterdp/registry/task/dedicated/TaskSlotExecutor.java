@@ -2,10 +2,10 @@ package com.neverwinterdp.registry.task.dedicated;
 
 abstract public class TaskSlotExecutor<T> {
   private DedicatedTaskContext<T> taskContext;
+  private TaskExecutor<T>         taskExecutor;
   private boolean simulateKill = false;
   
-  private long tickTime;
-  private long tickTimeout;
+  private volatile long tickTimeout;
   
   long lastInterrupt = System.currentTimeMillis();
   
@@ -15,11 +15,19 @@ abstract public class TaskSlotExecutor<T> {
 
   public DedicatedTaskContext<T> getTaskContext() { return taskContext ; }
   
-  public void setTickTime(long time) { tickTime = time; }
+  void setTaskExecutor(TaskExecutor<T> taskExecutor) { this.taskExecutor = taskExecutor; }
+  
+  /**
+   * Ask the executor to run the slot again without waiting for the rest of the round, when the slot knows that 
+   * there is more data to process.
+   */
+  public void wakeup() {
+    if(taskExecutor != null) taskExecutor.wakeup(this);
+  }
   
   public void setTickTimeout(long time) { tickTimeout = time; }
   
-  public boolean isInterrupted() { return tickTime > tickTimeout ; }
+  public boolean isInterrupted() { return System.currentTimeMillis() > tickTimeout ; }
   
   public boolean isSimulateKill() { return simulateKill ; }
   
@@ -1,5 +1,8 @@
 package com.neverwinterdp.registry;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -40,6 +43,27 @@ public class SequenceIdTrackerUnitTest {
     System.out.println("tracker2: " + tracker2.nextSeqId());
   }
   
+  @Test
+  public void testBlockSequenceIdTracker() throws Exception {
+    String SEQ_ID_TRACKER_PATH = "/block-id-tracker";
+    SequenceIdTracker tracker1 = new  SequenceIdTracker(newRegistry().connect(), SEQ_ID_TRACKER_PATH, true);
+    //the path is used with the block size 1 before
+    int lastId = tracker1.nextInt();
+    
+    SequenceIdTracker tracker2 = new  SequenceIdTracker(newRegistry().connect(), SEQ_ID_TRACKER_PATH, 10, false);
+    SequenceIdTracker tracker3 = new  SequenceIdTracker(newRegistry().connect(), SEQ_ID_TRACKER_PATH, 10, false);
+    Set<Integer> ids = new HashSet<>();
+    for(int i = 0; i < 25; i++) {
+      int id2 = tracker2.nextInt();
+      int id3 = tracker3.nextInt();
+      Assert.assertTrue(id2 > lastId && id3 > lastId);
+      Assert.assertTrue(ids.add(id2));
+      Assert.assertTrue(ids.add(id3));
+    }
+    //25 ids from each tracker reserve 3 blocks of 10 ids each
+    Assert.assertEquals((1 + 6) * 10, tracker2.currentInt());
+  }
+  
   private RegistryImpl newRegistry() {
     return new RegistryImpl(RegistryConfig.getDefault()) ;
   }
@@ -3,6 +3,7 @@ package com.neverwinterdp.registry.task.dedicated;
 import java.text.DecimalFormat;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -73,6 +74,92 @@ public class DedicatedTaskServiceUnitTest {
 
   @Test
   public void testTaskService() throws Exception {
+    runTaskService(0);
+  }
+  
+  @Test
+  public void testTaskServiceWithSlotPool() throws Exception {
+    runTaskService(4);
+  }
+  
+  @Test
+  public void testTaskPickupLatency() throws Exception {
+    final AtomicLong pickupTime = new AtomicLong();
+    TaskSlotExecutorFactory<TaskDescriptor> taskSlotExecutorFactory = new TaskSlotExecutorFactory<TaskDescriptor>() {
+      @Override
+      public TaskSlotExecutor<TaskDescriptor> create(DedicatedTaskContext<TaskDescriptor> context) {
+        pickupTime.compareAndSet(0, System.currentTimeMillis());
+        return new DummyTaskSlotExecutor(context);
+      }
+    };
+    DedicatedTaskRegistry<TaskDescriptor> dedicatedTaskRegistry = 
+        new DedicatedTaskRegistry<>(registry, TASK_SERVICE_PATH, TaskDescriptor.class);
+    dedicatedTaskRegistry.initRegistry();
+    DedicatedTaskService<TaskDescriptor> service = new DedicatedTaskService<>(dedicatedTaskRegistry, taskSlotExecutorFactory);
+    service.addExecutor(new TaskExecutorDescriptor("executor-0", "NA"), 1);
+    service.getTaskExecutorService().startExecutors();
+    //let the executor find no task and wait
+    Thread.sleep(1500);
+    long offerTime = System.currentTimeMillis();
+    service.offer("task-000", new TaskDescriptor("task-000"));
+    while(pickupTime.get() == 0 && System.currentTimeMillis() - offerTime < 5000) Thread.sleep(10);
+    long latency = pickupTime.get() - offerTime;
+    System.out.println("Task pickup latency = " + latency + "ms");
+    Assert.assertTrue("The executor should be woken up by the available task", latency < TaskExecutor.MIN_ROUND_TIME / 2);
+    service.onDestroy();
+  }
+  
+  @Test
+  public void testSlotPoolWithoutRoundBarrier() throws Exception {
+    final AtomicLong fastCompleteTime = new AtomicLong();
+    TaskSlotExecutorFactory<TaskDescriptor> taskSlotExecutorFactory = new TaskSlotExecutorFactory<TaskDescriptor>() {
+      @Override
+      public TaskSlotExecutor<TaskDescriptor> create(DedicatedTaskContext<TaskDescriptor> context) {
+        if("task-slow".equals(context.getTaskId())) {
+          return new DummyTaskSlotExecutor(context) {
+            @Override
+            public long executeSlot() throws Exception {
+              Thread.sleep(3000);
+              return 3000;
+            }
+          };
+        }
+        return new DummyTaskSlotExecutor(context) {
+          int runCount = 0;
+          
+          @Override
+          public long executeSlot() throws Exception {
+            runCount++;
+            if(runCount == 20) {
+              getTaskContext().setComplete();
+              fastCompleteTime.set(System.currentTimeMillis());
+            } else {
+              wakeup();
+            }
+            return 0;
+          }
+        };
+      }
+    };
+    DedicatedTaskRegistry<TaskDescriptor> dedicatedTaskRegistry = 
+        new DedicatedTaskRegistry<>(registry, TASK_SERVICE_PATH, TaskDescriptor.class);
+    dedicatedTaskRegistry.initRegistry();
+    DedicatedTaskService<TaskDescriptor> service = new DedicatedTaskService<>(dedicatedTaskRegistry, taskSlotExecutorFactory);
+    service.getTaskExecutorService().setSlotPoolParallelism(2);
+    service.offer("task-fast", new TaskDescriptor("task-fast"));
+    service.offer("task-slow", new TaskDescriptor("task-slow"));
+    service.addExecutor(new TaskExecutorDescriptor("executor-0", "NA"), 2);
+    long startTime = System.currentTimeMillis();
+    service.getTaskExecutorService().startExecutors();
+    while(fastCompleteTime.get() == 0 && System.currentTimeMillis() - startTime < 10000) Thread.sleep(10);
+    long duration = fastCompleteTime.get() - startTime;
+    System.out.println("The fast slot completes 20 runs in " + duration + "ms");
+    //the fast slot does not wait for the slow slot between its runs
+    Assert.assertTrue(fastCompleteTime.get() > 0 && duration < 3000);
+    service.onDestroy();
+  }
+  
+  void runTaskService(int slotPoolParallelism) throws Exception {
     TaskSlotExecutorFactory<TaskDescriptor> taskSlotExecutorFactory = new TaskSlotExecutorFactory<TaskDescriptor>() {
       @Override
       public TaskSlotExecutor<TaskDescriptor> create(DedicatedTaskContext<TaskDescriptor> context) {
@@ -84,6 +171,7 @@ public class DedicatedTaskServiceUnitTest {
         new DedicatedTaskRegistry<>(registry, TASK_SERVICE_PATH, TaskDescriptor.class);
     dedicatedTaskRegistry.initRegistry();
     DedicatedTaskService<TaskDescriptor> service = new DedicatedTaskService<>(dedicatedTaskRegistry, taskSlotExecutorFactory);
+    service.getTaskExecutorService().setSlotPoolParallelism(slotPoolParallelism);
     int NUM_OF_TASKS = 15;
     DecimalFormat seqIdFormater = new DecimalFormat("000");
     for(int i = 0; i < NUM_OF_TASKS; i++) {
@@ -110,6 +198,7 @@ public class DedicatedTaskServiceUnitTest {
     Thread.sleep(10000);
     service.getTaskRegistry().getTasksRootNode().dump(System.out);
     registry.get("/").dump(System.out);
+    Assert.assertEquals(0, service.getTaskRegistry().getTaskAvailableNode().getChildren().size());
     service.onDestroy();
   }
 }
\ No newline at end of file
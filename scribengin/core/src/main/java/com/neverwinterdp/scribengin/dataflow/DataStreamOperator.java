@@ -12,5 +12,23 @@ public abstract class DataStreamOperator {
   public void onPostCommit(DataStreamOperatorContext ctx) throws Exception {
   }
   
+  /**
+   * Called after the task is rolled back to the last commit, the messages after the last commit are read again. An
+   * operator that keeps its state in memory should reload it from its {@link KeyValueState}.
+   */
+  public void onRollback(DataStreamOperatorContext ctx) throws Exception {
+  }
+  
   abstract public void process(DataStreamOperatorContext ctx, Message record) throws Exception;
+  
+  /**
+   * Process a batch of records that are read from the input in one fetch. The default implementation
+   * calls process for each record, the operator can override this method to route or transform
+   * the whole batch at once and write the result with {@link DataStreamOperatorContext#write(String, Message[])}
+   */
+  public void processBatch(DataStreamOperatorContext ctx, Message[] records) throws Exception {
+    for(int i = 0; i < records.length; i++) {
+      process(ctx, records[i]);
+    }
+  }
 }
\ No newline at end of file
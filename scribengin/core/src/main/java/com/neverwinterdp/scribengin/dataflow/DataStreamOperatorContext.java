@@ -25,10 +25,20 @@ public interface DataStreamOperatorContext {
   
   public Set<String> getAvailableOutputs() ;
   
+  /**
+   * Get or create the keyed state of the operator with the given name, the state is restored from the last commit 
+   * of the task.
+   */
+  public KeyValueState getKeyValueState(String name) throws Exception ;
+  
   public void write(String name, Message record) throws Exception ;
   
   public void write(Message record) throws Exception ;
   
+  public void write(String name, Message[] records) throws Exception ;
+  
+  public void write(Message[] records) throws Exception ;
+  
   public void commit() throws Exception ;
   
   public void rollback() throws Exception ;
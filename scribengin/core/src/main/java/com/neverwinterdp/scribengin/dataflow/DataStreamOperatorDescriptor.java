@@ -1,6 +1,8 @@
 package com.neverwinterdp.scribengin.dataflow;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
 
 public class DataStreamOperatorDescriptor {
@@ -18,7 +20,7 @@ public class DataStreamOperatorDescriptor {
   private Set<String> outputs;
   private String      operator;
   private Set<String> interceptors;
-  
+  private List<DataStreamOperatorDescriptor> fusedOperators = new ArrayList<>();
   
   public DataStreamOperatorDescriptor() {
   }
@@ -45,4 +47,20 @@ public class DataStreamOperatorDescriptor {
   public void setInterceptors(Set<String> interceptors) {
     this.interceptors = interceptors;
   }
+  
+  /**
+   * The operators that read a fused output of this operator, they process the messages in the same task and 
+   * are committed with this operator.
+   */
+  public List<DataStreamOperatorDescriptor> getFusedOperators() { return fusedOperators; }
+  public void setFusedOperators(List<DataStreamOperatorDescriptor> fusedOperators) {
+    this.fusedOperators = fusedOperators;
+  }
+  
+  public DataStreamOperatorDescriptor getFusedOperator(String input) {
+    for(DataStreamOperatorDescriptor sel : fusedOperators) {
+      if(input.equals(sel.getInput())) return sel;
+    }
+    return null;
+  }
 }
@@ -12,6 +12,18 @@ abstract public class DataStreamOperatorInterceptor {
   
   public void postProcess(DataStreamOperatorContext ctx, Message message) throws Exception {
   }
+  
+  public void preProcess(DataStreamOperatorContext ctx, Message[] messages) throws Exception {
+    for(int i = 0; i < messages.length; i++) {
+      preProcess(ctx, messages[i]);
+    }
+  }
+  
+  public void postProcess(DataStreamOperatorContext ctx, Message[] messages) throws Exception {
+    for(int i = 0; i < messages.length; i++) {
+      postProcess(ctx, messages[i]);
+    }
+  }
 
   static public DataStreamOperatorInterceptor[] load(DataStreamOperatorContext ctx, String[] type) throws Exception {
     if(type == null || type.length == 0) {
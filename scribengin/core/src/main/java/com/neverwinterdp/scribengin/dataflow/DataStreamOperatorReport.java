@@ -91,6 +91,8 @@ public class DataStreamOperatorReport {
   
   public void incrProcessCount() { processCount++ ; }
   
+  public void incrProcessCount(int count) { processCount += count ; }
+  
   public long getAccCommitProcessCount() { return accCommitProcessCount; }
   public void setAccCommitProcessCount(long commitProcessCount) { this.accCommitProcessCount = commitProcessCount; }
   
@@ -9,6 +9,12 @@ abstract public class DataStreamSinkInterceptor {
   public void onWrite(DataStreamOperatorContext ctx, Message message) throws Exception {
   }
   
+  public void onWrite(DataStreamOperatorContext ctx, Message[] messages) throws Exception {
+    for(int i = 0; i < messages.length; i++) {
+      onWrite(ctx, messages[i]);
+    }
+  }
+  
   public void onPrepareCommit(DataStreamOperatorContext ctx) throws Exception {
   }
   
@@ -9,6 +9,12 @@ abstract public class DataStreamSourceInterceptor {
   public void onRead(DataStreamOperatorContext ctx, Message message) throws Exception {
   }
   
+  public void onRead(DataStreamOperatorContext ctx, Message[] messages) throws Exception {
+    for(int i = 0; i < messages.length; i++) {
+      onRead(ctx, messages[i]);
+    }
+  }
+  
   public void onPrepareCommit(DataStreamOperatorContext ctx) throws Exception {
   }
   
@@ -1,7 +1,9 @@
 package com.neverwinterdp.scribengin.dataflow;
 
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
 import com.neverwinterdp.storage.StorageConfig;
 import com.neverwinterdp.storage.es.ESStorageConfig;
@@ -51,6 +53,27 @@ public class Dataflow {
     return this;
   }
   
+  public Dataflow setTrackingLogSampleRate(int rate) {
+    dataflowDescriptor.setTrackingLogSampleRate(rate);
+    return this;
+  }
+  
+  public Dataflow setTrackingLogCompact(boolean compact) {
+    dataflowDescriptor.setTrackingLogCompact(compact);
+    return this;
+  }
+  
+  /**
+   * Fuse the operators that are connected by a wire data set with the matching partitioning. The wire data set is 
+   * not created, the messages are passed in memory to the next operator, in the task of the operator that writes 
+   * them, and the chain is committed or rolled back as a whole. An operator must not change a message after it
+   * writes the message to a fused output.
+   */
+  public Dataflow setOperatorFusion(boolean b) {
+    dataflowDescriptor.setOperatorFusion(b);
+    return this;
+  }
+  
   public Dataflow setDefaultParallelism(int parallelism) {
     dataflowDescriptor.getStreamConfig().setParallelism(parallelism);
     return this;
@@ -129,10 +152,13 @@ public class Dataflow {
   
   public DataflowDescriptor buildDataflowDescriptor() {
     DataflowDescriptor config = dataflowDescriptor;
+    Set<String> fusedDataSets = new HashSet<>();
+    if(config.isOperatorFusion()) fusedDataSets = planOperatorFusion();
     DataSet<?>[] dataStreams = getDataSets();
     config.getStreamConfig().clear();
     for(int i = 0; i < dataStreams.length; i++) {
       DataSet<?> sel = dataStreams[i];
+      if(fusedDataSets.contains(sel.getName())) continue;
       StorageConfig storageConfig = sel.getStorageConfig();
       if(sel.getDataStreamType() == DataStreamType.Output) {
         storageConfig.setPartitionStream(config.getStreamConfig().getParallelism());
@@ -142,8 +168,46 @@ public class Dataflow {
     Operator[] operators = getOperators();
     config.clearOperators();
     for(int i = 0; i < operators.length; i++) {
-      config.addOperator(operators[i].getOperatorDescriptor());
+      OperatorDescriptor opDescriptor = operators[i].getOperatorDescriptor();
+      Set<String> fusedOutputs = new HashSet<>();
+      for(String output : opDescriptor.getOutputs()) {
+        if(fusedDataSets.contains(output)) fusedOutputs.add(output);
+      }
+      opDescriptor.setFusedOutputs(fusedOutputs);
+      for(String input : opDescriptor.getInputs()) {
+        if(fusedDataSets.contains(input)) opDescriptor.setFused(true);
+      }
+      config.addOperator(opDescriptor);
     }
     return config ;
   }
+  
+  /**
+   * Find the wire data sets that can be replaced by an in memory hand off. The task of the partition p of an operator 
+   * writes the partition p of its outputs, so the partition p of a wire data set is written by one task only when the
+   * data set has one writer and the writer has one input. The reader of the data set must also have the data set as 
+   * its only input, the partition p of the reader then reads exactly what the task p of the writer writes.
+   */
+  Set<String> planOperatorFusion() {
+    Set<String> fusedDataSets = new HashSet<>();
+    for(DataSet<?> ds : dataSets.values()) {
+      if(ds.getDataStreamType() != DataStreamType.Wire) continue;
+      Operator writer = null, reader = null;
+      int numOfWriters = 0, numOfReaders = 0;
+      for(Operator op : operators.values()) {
+        if(op.getOutputs().contains(ds.getName())) {
+          writer = op;
+          numOfWriters++;
+        }
+        if(op.getInputs().contains(ds.getName())) {
+          reader = op;
+          numOfReaders++;
+        }
+      }
+      if(numOfWriters != 1 || numOfReaders != 1 || writer == reader) continue;
+      if(writer.getInputs().size() != 1 || reader.getInputs().size() != 1) continue;
+      fusedDataSets.add(ds.getName());
+    }
+    return fusedDataSets;
+  }
 }
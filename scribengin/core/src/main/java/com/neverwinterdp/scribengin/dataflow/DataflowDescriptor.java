@@ -10,6 +10,9 @@ public class DataflowDescriptor {
   private long    maxRunTime             = 90000;
   private int     trackingWindowSize     = 1000;
   private int     slidingWindowSize      =   15;
+  private int     trackingLogSampleRate  =    1;
+  private boolean trackingLogCompact     = false;
+  private boolean operatorFusion         = false;
  
   private MasterDescriptor master;
   private WorkerDescriptor worker;
@@ -46,6 +49,19 @@ public class DataflowDescriptor {
   public int getSlidingWindowSize() { return slidingWindowSize; }
   public void setSlidingWindowSize(int size) { this.slidingWindowSize = size; }
 
+  /**
+   * Log the tracking points of 1 in N messages, 1 to log all the messages and 0 to log none. The loss and the 
+   * duplication are still detected for all the messages.
+   */
+  public int getTrackingLogSampleRate() { return trackingLogSampleRate; }
+  public void setTrackingLogSampleRate(int rate) { this.trackingLogSampleRate = rate; }
+  
+  public boolean isTrackingLogCompact() { return trackingLogCompact; }
+  public void setTrackingLogCompact(boolean compact) { this.trackingLogCompact = compact; }
+
+  public boolean isOperatorFusion() { return operatorFusion; }
+  public void setOperatorFusion(boolean operatorFusion) { this.operatorFusion = operatorFusion; }
+
   public MasterDescriptor getMaster() { return master; }
   public void setMaster(MasterDescriptor master) { this.master = master; }
   
@@ -0,0 +1,24 @@
+package com.neverwinterdp.scribengin.dataflow;
+
+import java.util.Set;
+
+/**
+ * A keyed state of an operator task. The state is kept on the worker of the task and checkpointed with the commit 
+ * of the task, the state that is seen after a rollback or after the task is assigned to another worker is the state 
+ * of the last commit. A state is used by the task thread only.
+ */
+public interface KeyValueState {
+  public String getName() ;
+  
+  public byte[] get(String key) throws Exception ;
+  
+  public void put(String key, byte[] value) throws Exception ;
+  
+  public void remove(String key) throws Exception ;
+  
+  public boolean contains(String key) ;
+  
+  public int size() ;
+  
+  public Set<String> keys() ;
+}
@@ -0,0 +1,18 @@
+package com.neverwinterdp.scribengin.dataflow;
+
+import com.neverwinterdp.storage.StorageConfig;
+import com.neverwinterdp.storage.local.LocalStorageConfig;
+
+public class LocalDataSet<T> extends DataSet<T>{
+  private LocalStorageConfig localStorageConfig;
+  
+  public LocalDataSet(DataStreamType type, LocalStorageConfig localStorageConfig) {
+    super(localStorageConfig.getName(), type);
+    this.localStorageConfig = localStorageConfig;
+  }
+  
+  @Override
+  protected StorageConfig createStorageConfig() { 
+    return new LocalStorageConfig(localStorageConfig); 
+  }
+}
@@ -0,0 +1,21 @@
+package com.neverwinterdp.scribengin.dataflow;
+
+import com.neverwinterdp.storage.local.LocalStorageConfig;
+
+/**
+ * Create the wire data sets on the memory mapped local storage. The local segments are visible only on the node
+ * that writes them, the operators that are connected by a local wire must run on the same node.
+ */
+public class LocalWireDataSetFactory implements WireDataSetFactory {
+  private String storageDir ;
+  
+  public LocalWireDataSetFactory(String storageDir) {
+    this.storageDir = storageDir;
+  }
+  
+  @Override
+  public <T> LocalDataSet<T> createDataStream(Dataflow dfl, String name) {
+    LocalStorageConfig storageConfig = new LocalStorageConfig(dfl.getDataflowId() + "." + name, storageDir);
+    return new LocalDataSet<T>(DataStreamType.Wire, storageConfig);
+  }
+}
@@ -1,26 +1,50 @@
 package com.neverwinterdp.scribengin.dataflow;
 
 import com.neverwinterdp.message.Message;
-import com.neverwinterdp.message.MessageTrackingLog;
+import com.neverwinterdp.message.MessageTrackingLogger;
+import com.neverwinterdp.scribengin.dataflow.runtime.MTService;
 
+/**
+ * Log the pre process and the post process tracking points of the operator. The log names and the logger are
+ * created once, at the init of the operator context.
+ */
 public class MTDataStreamOperatorInterceptor extends DataStreamOperatorInterceptor {
-  
+  private String                preProcessName;
+  private String                postProcessName;
+  private MessageTrackingLogger mtLogger;
+
   @Override
-  public void preProcess(DataStreamOperatorContext ctx, Message message) throws Exception {
+  public void onInit(DataStreamOperatorContext ctx) throws Exception {
     DataStreamOperatorDescriptor descriptor = ctx.getDescriptor();
-    onMessage(descriptor.getOperatorName() + ":preProcess", ctx, message);
+    preProcessName  = descriptor.getOperatorName() + ":preProcess";
+    postProcessName = descriptor.getOperatorName() + ":postProcess";
+    mtLogger = MTService.createLogger(ctx);
+  }
+
+  @Override
+  public void preProcess(DataStreamOperatorContext ctx, Message message) throws Exception {
+    mtLogger.log(message.getMessageTracking(), preProcessName);
   }
 
   @Override
   public void postProcess(DataStreamOperatorContext ctx, Message message) throws Exception {
-    DataStreamOperatorDescriptor descriptor = ctx.getDescriptor();
-    onMessage(descriptor.getOperatorName() + ":postProcess", ctx, message);
+    mtLogger.log(message.getMessageTracking(), postProcessName);
   }
-  
-  void onMessage(String logName, DataStreamOperatorContext ctx, Message message) {
-    String[] tag = { 
-      "vm:" + ctx.getVM().getVmId(), "executor:" + ctx.getTaskExecutor().getId()
-    };
-    message.getMessageTracking().add(new MessageTrackingLog(logName, tag));
+
+  @Override
+  public void preProcess(DataStreamOperatorContext ctx, Message[] messages) throws Exception {
+    onMessages(preProcessName, messages);
+  }
+
+  @Override
+  public void postProcess(DataStreamOperatorContext ctx, Message[] messages) throws Exception {
+    onMessages(postProcessName, messages);
+  }
+
+  void onMessages(String logName, Message[] messages) {
+    if(mtLogger.getSampleRate() == 0) return;
+    for(int i = 0; i < messages.length; i++) {
+      mtLogger.log(messages[i].getMessageTracking(), logName);
+    }
   }
 }
@@ -20,6 +20,10 @@ public class Operator {
   public String getName() { return name; }
   public void setName(String name) { this.name = name; }
   
+  Set<String> getInputs() { return inputs; }
+  
+  Set<String> getOutputs() { return outputs; }
+  
   public Operator add(Class<? extends DataStreamOperatorInterceptor> type) {
     interceptors.add(type.getName());
     return this;
@@ -9,6 +9,8 @@ public class OperatorDescriptor {
   private Set<String> interceptors;
   private Set<String> inputs;
   private Set<String> outputs;
+  private Set<String> fusedOutputs;
+  private boolean     fused;
   
   public String getName() { return name; }
   public void setName(String name) { this.name = name; }
@@ -24,4 +26,17 @@ public class OperatorDescriptor {
   
   public Set<String> getOutputs() { return outputs; }
   public void        setOutputs(Set<String> outputs) { this.outputs = outputs; }
+  
+  /**
+   * The outputs that are not stored, the messages are passed in memory to the operator that reads the output 
+   * and runs in the same task.
+   */
+  public Set<String> getFusedOutputs() { return fusedOutputs; }
+  public void        setFusedOutputs(Set<String> fusedOutputs) { this.fusedOutputs = fusedOutputs; }
+  
+  /**
+   * The operator runs in the task of the operator that writes its input, it does not have its own tasks.
+   */
+  public boolean isFused() { return fused; }
+  public void    setFused(boolean fused) { this.fused = fused; }
 }
@@ -5,6 +5,10 @@ public class WorkerDescriptor {
   private int     memory                  = 512;
   private int     cpuCores                = 1;
   private int     numOfExecutor           = 2;
+  private int     readBatchSize           = 100;
+  private int     maxInFlightCommits      = 0;
+  private int     slotPoolParallelism     = 0;
+  private String  stateCheckpointDir      = "/scribengin/state";
   
   private long    taskSwitchingPeriod     = 5000;
   private long    maxWaitForRunningStatus = 60000;
@@ -27,6 +31,30 @@ public class WorkerDescriptor {
   public int getNumOfExecutor() { return numOfExecutor; }
   public void setNumOfExecutor(int numOfExecutor) { this.numOfExecutor = numOfExecutor; }
   
+  public int getReadBatchSize() { return readBatchSize; }
+  public void setReadBatchSize(int readBatchSize) { this.readBatchSize = readBatchSize; }
+  
+  /**
+   * The number of commits that can complete in the background while the task keeps processing, 0 to commit
+   * synchronously. The commit is pipelined only when the input and all the outputs support it.
+   */
+  public int getMaxInFlightCommits() { return maxInFlightCommits; }
+  public void setMaxInFlightCommits(int maxInFlightCommits) { this.maxInFlightCommits = maxInFlightCommits; }
+  
+  /**
+   * The number of threads of the pool that runs the task slots of all the executors in parallel, 0 to run the slots 
+   * of an executor round robin on the executor thread.
+   */
+  public int getSlotPoolParallelism() { return slotPoolParallelism; }
+  public void setSlotPoolParallelism(int slotPoolParallelism) { this.slotPoolParallelism = slotPoolParallelism; }
+  
+  /**
+   * The directory of the file system where the keyed states of the tasks are checkpointed, the tasks of a dataflow 
+   * checkpoint in the subdirectory of the dataflow id.
+   */
+  public String getStateCheckpointDir() { return stateCheckpointDir; }
+  public void setStateCheckpointDir(String dir) { this.stateCheckpointDir = dir; }
+  
   public long getTaskSwitchingPeriod() { return taskSwitchingPeriod;}
   public void setTaskSwitchingPeriod(long taskSwitchingPeriod) {
     this.taskSwitchingPeriod = taskSwitchingPeriod;
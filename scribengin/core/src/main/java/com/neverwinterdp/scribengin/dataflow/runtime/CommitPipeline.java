@@ -0,0 +1,94 @@
+package com.neverwinterdp.scribengin.dataflow.runtime;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Complete the sealed commits of a task in a background thread, one at a time and in the order they are sealed.
+ * The number of the commits that are sealed but not completed is bounded, the task thread waits for a free slot
+ * when the bound is reached.
+ * <p/>
+ * When a commit fails, the commits that are sealed after it are skipped since their data is committed on top of
+ * the failed one. The failure is reported to the task thread by the next submit or by drain, and it stays until
+ * the task rolls back with {@link #reset()}.
+ */
+class CommitPipeline {
+  private String          name;
+  private int             maxInFlight;
+  private Semaphore       inFlight;
+  private ExecutorService executor;
+  private volatile Exception error;
+
+  CommitPipeline(String name, int maxInFlight) {
+    this.name        = name;
+    this.maxInFlight = maxInFlight;
+    this.inFlight    = new Semaphore(maxInFlight);
+    this.executor    = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "commit-pipeline-" + CommitPipeline.this.name);
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  int getInFlight() { return maxInFlight - inFlight.availablePermits(); }
+
+  void submit(final Callable<Void> commit) throws Exception {
+    checkError();
+    inFlight.acquire();
+    Runnable runnable = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          if(error == null) commit.call();
+        } catch(Exception ex) {
+          error = ex;
+        } finally {
+          inFlight.release();
+        }
+      }
+    };
+    executor.submit(runnable);
+  }
+
+  /**
+   * Wait for all the submitted commits to complete or to be skipped.
+   */
+  void drain() throws Exception {
+    inFlight.acquire(maxInFlight);
+    inFlight.release(maxInFlight);
+    checkError();
+  }
+
+  /**
+   * Wait for the submitted commits and forget the failure, the task rolls back to the last completed commit. 
+   */
+  void reset() throws InterruptedException {
+    inFlight.acquire(maxInFlight);
+    inFlight.release(maxInFlight);
+    error = null;
+  }
+
+  void close() throws Exception {
+    try {
+      drain();
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+  }
+
+  private void checkError() throws Exception {
+    Exception ex = error;
+    if(ex != null) {
+      //the executor rolls back on a plain exception, including the registry failures of the background commit
+      throw new Exception("A pipelined commit of " + name + " failed", ex);
+    }
+  }
+}
@@ -1,25 +1,42 @@
 package com.neverwinterdp.scribengin.dataflow.runtime;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.apache.hadoop.fs.FileSystem;
 
 import com.neverwinterdp.message.Message;
+import com.neverwinterdp.message.TrackingWindow;
+import com.neverwinterdp.message.TrackingWindowStat;
 import com.neverwinterdp.registry.task.TaskExecutorDescriptor;
+import com.neverwinterdp.scribengin.dataflow.DataStreamOperator;
 import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorContext;
 import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorDescriptor;
 import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorInterceptor;
 import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorReport;
+import com.neverwinterdp.scribengin.dataflow.DataflowDescriptor;
+import com.neverwinterdp.scribengin.dataflow.KeyValueState;
 import com.neverwinterdp.scribengin.dataflow.registry.DataflowRegistry;
 import com.neverwinterdp.scribengin.dataflow.runtime.worker.WorkerService;
 import com.neverwinterdp.storage.Storage;
 import com.neverwinterdp.storage.StorageConfig;
 import com.neverwinterdp.storage.StorageService;
+import com.neverwinterdp.util.JSONSerializer;
 import com.neverwinterdp.util.text.StringUtil;
 import com.neverwinterdp.vm.VMDescriptor;
 import com.neverwinterdp.yara.Meter;
+import com.neverwinterdp.yara.MetricRegistry;
 
+/**
+ * The runtime context of a task. The context of a task also runs the operators that are fused to the task operator, 
+ * each fused operator has its own context that has no input, the messages that are written to a fused output are 
+ * processed by the fused operator in the task thread. The outputs of all the operators of the chain are committed 
+ * with the input of the task, in one commit.
+ */
 public class DataStreamOperatorRuntimeContext implements DataStreamOperatorContext {
   private String id ;
   
@@ -30,11 +47,22 @@ public class DataStreamOperatorRuntimeContext implements DataStreamOperatorConte
 
   private InputDataStreamContext               inputContext;
   private Map<String, OutputDataStreamContext> outputContexts = new HashMap<>();
+  private OutputDataStreamContext[]            outputs;
   private DataStreamOperatorInterceptor[]      interceptors;
   
+  private DataStreamOperatorRuntimeContext                      head;
+  private DataStreamOperator                                    fusedOperator;
+  private Map<String, DataStreamOperatorRuntimeContext>         fusedContexts = new HashMap<>();
+  private DataStreamOperatorRuntimeContext[]                    fused;
+  private Meter                                                 fusedRecordMeter;
+  private OutputDataStreamContext[]                             commitOutputs;
+  private DataStreamOperatorRuntimeContext[]                    commitOutputOwners;
+  
   private boolean complete = false;
   private Meter   dataflowReadMeter;
   private Meter   dataflowRecordMeter;
+  private CommitPipeline commitPipeline;
+  private KeyValueStateManager stateManager;
 
   public DataStreamOperatorRuntimeContext(WorkerService workerService, TaskExecutorDescriptor taskExecutor,
                                           DataStreamOperatorDescriptor dsOpDescriptor, 
@@ -52,20 +80,92 @@ public class DataStreamOperatorRuntimeContext implements DataStreamOperatorConte
     Storage inputStorage = storageService.getStorage(inputConfig);
     int partitionId = dsOpDescriptor.getInputPartitionId();
     inputContext = new InputDataStreamContext(this, inputStorage, partitionId);
-    for(String output : dsOpDescriptor.getOutputs()) {
+    head = this;
+    initOperator();
+    
+    List<OutputDataStreamContext> outputHolder = new ArrayList<>();
+    List<DataStreamOperatorRuntimeContext> ownerHolder = new ArrayList<>();
+    collectCommitOutputs(outputHolder, ownerHolder);
+    commitOutputs = outputHolder.toArray(new OutputDataStreamContext[outputHolder.size()]);
+    commitOutputOwners = ownerHolder.toArray(new DataStreamOperatorRuntimeContext[ownerHolder.size()]);
+    
+    dataflowReadMeter   = 
+        workerService.getMetricRegistry().getMeter("dataflow.source." + dsOpDescriptor.getInput() + ".throughput.byte", "byte") ;
+    dataflowRecordMeter = 
+        workerService.getMetricRegistry().getMeter("dataflow.source." + dsOpDescriptor.getInput() + ".throughput.record", "record") ;
+    
+    int maxInFlightCommits = dflRegistry.getConfigRegistry().getDataflowDescriptor().getWorker().getMaxInFlightCommits();
+    if(maxInFlightCommits > 0) {
+      if(isPipelinedCommitSupported()) {
+        commitPipeline = new CommitPipeline(id, maxInFlightCommits);
+      } else {
+        workerService.getLogger().warn("The input or an output of " + id + " does not support the pipelined commit, commit synchronously");
+      }
+    }
+  }
+  
+  /**
+   * Create the context of an operator that is fused to the operator of the head context. The fused operator reads
+   * the messages that are written to its input by the parent operator and writes to the same partition of its outputs.
+   */
+  private DataStreamOperatorRuntimeContext(DataStreamOperatorRuntimeContext head, DataStreamOperatorDescriptor dsOpDescriptor) throws Exception {
+    this.head          = head;
+    this.workerService = head.workerService;
+    this.taskExecutor  = head.taskExecutor;
+    this.descriptor    = dsOpDescriptor;
+    this.report        = head.report;
+    this.id = dsOpDescriptor.getOperatorName() + ":" + dsOpDescriptor.getInput() + ":" + dsOpDescriptor.getInputPartitionId();
+    
+    initOperator();
+    
+    fusedRecordMeter = 
+        workerService.getMetricRegistry().getMeter("dataflow.fused." + dsOpDescriptor.getInput() + ".throughput.record", "record") ;
+    Class<DataStreamOperator> opType = (Class<DataStreamOperator>) Class.forName(dsOpDescriptor.getOperator());
+    fusedOperator = opType.newInstance();
+    fusedOperator.onInit(this);
+  }
+  
+  private void initOperator() throws Exception {
+    DataflowRegistry dflRegistry = workerService.getDataflowRegistry();
+    StorageService storageService = workerService.getStorageService();
+    int partitionId = descriptor.getInputPartitionId();
+    for(String output : descriptor.getOutputs()) {
+      if(descriptor.getFusedOperator(output) != null) continue;
       StorageConfig outputConfig = dflRegistry.getStreamRegistry().getStream(output) ;
       Storage outputStorage = storageService.getStorage(outputConfig);
-      OutputDataStreamContext outputContext = new OutputDataStreamContext(this, outputStorage, partitionId);
+      OutputDataStreamContext outputContext = new OutputDataStreamContext(this, output, outputStorage, partitionId);
       outputContexts.put(output, outputContext);
     }
+    outputs = outputContexts.values().toArray(new OutputDataStreamContext[outputContexts.size()]);
     
-    String[] interceptorTypes =  StringUtil.toArray(dsOpDescriptor.getInterceptors()) ;
+    String[] interceptorTypes =  StringUtil.toArray(descriptor.getInterceptors()) ;
     interceptors = DataStreamOperatorInterceptor.load(this, interceptorTypes);
     
-    dataflowReadMeter   = 
-        workerService.getMetricRegistry().getMeter("dataflow.source." + dsOpDescriptor.getInput() + ".throughput.byte", "byte") ;
-    dataflowRecordMeter = 
-        workerService.getMetricRegistry().getMeter("dataflow.source." + dsOpDescriptor.getInput() + ".throughput.record", "record") ;
+    List<DataStreamOperatorDescriptor> fusedDescriptors = descriptor.getFusedOperators();
+    fused = new DataStreamOperatorRuntimeContext[fusedDescriptors.size()];
+    for(int i = 0; i < fused.length; i++) {
+      DataStreamOperatorDescriptor fusedDescriptor = fusedDescriptors.get(i);
+      fused[i] = new DataStreamOperatorRuntimeContext(head, fusedDescriptor);
+      fusedContexts.put(fusedDescriptor.getInput(), fused[i]);
+    }
+  }
+  
+  private void collectCommitOutputs(List<OutputDataStreamContext> outputHolder, List<DataStreamOperatorRuntimeContext> ownerHolder) {
+    for(int i = 0; i < outputs.length; i++) {
+      outputHolder.add(outputs[i]);
+      ownerHolder.add(this);
+    }
+    for(int i = 0; i < fused.length; i++) {
+      fused[i].collectCommitOutputs(outputHolder, ownerHolder);
+    }
+  }
+  
+  private boolean isPipelinedCommitSupported() {
+    if(!inputContext.isPipelinedCommitSupported()) return false;
+    for(int i = 0; i < commitOutputs.length; i++) {
+      if(!commitOutputs[i].isPipelinedCommitSupported()) return false;
+    }
+    return true;
   }
   
   public String getId() { return id; }
@@ -78,16 +178,34 @@ public class DataStreamOperatorRuntimeContext implements DataStreamOperatorConte
   
   public VMDescriptor getVM() { return workerService.getVMDescriptor(); }
   
+  public MetricRegistry getMetricRegistry() { return workerService.getMetricRegistry(); }
+  
   public <T> T getService(Class<T> type) {
     return workerService.getServiceContainer().getInstance(type);
   }
   
-  public boolean isComplete() { return this.complete ; }
+  public boolean isComplete() { return head.complete ; }
   
-  public void setComplete() { this.complete = true; }
+  public void setComplete() { head.complete = true; }
 
   public Set<String> getAvailableOutputs() { return descriptor.getOutputs(); }
   
+  /**
+   * The states of the operators of a task, including the fused operators, are checkpointed by the head context, 
+   * the name of a state is prefixed by the operator name.
+   */
+  public KeyValueState getKeyValueState(String name) throws Exception {
+    if(head.stateManager == null) {
+      DataflowDescriptor dflDescriptor = workerService.getDataflowRegistry().getConfigRegistry().getDataflowDescriptor();
+      String taskDir = dflDescriptor.getId() + "/" + head.descriptor.getTaskId().replace(':', '_');
+      String checkpointDir = dflDescriptor.getWorker().getStateCheckpointDir() + "/" + taskDir;
+      String localDir = System.getProperty("java.io.tmpdir") + "/scribengin-state/" + taskDir;
+      FileSystem fs = workerService.getStorageService().getFileSyztem();
+      head.stateManager = new KeyValueStateManager(fs, checkpointDir, localDir);
+    }
+    return head.stateManager.getState(descriptor.getOperatorName() + "." + name);
+  }
+  
   public InputDataStreamContext getInputDataStreamContext() { return inputContext; }
   
   public Message nextMessage(long maxWaitForDataRead) throws Exception {
@@ -102,56 +220,178 @@ public class DataStreamOperatorRuntimeContext implements DataStreamOperatorConte
     return message ;
   }
   
+  public Message[] nextMessages(int size, long maxWaitForDataRead) throws Exception {
+    Message[] messages = inputContext.nextMessages(this, size, maxWaitForDataRead);
+    if(messages.length == 0) return messages;
+    long bytes = 0;
+    for(int i = 0; i < messages.length; i++) {
+      Message message = messages[i];
+      bytes += message.getData().length + message.getKey().length();
+    }
+    for(DataStreamOperatorInterceptor sel : interceptors) {
+      sel.preProcess(this, messages);
+    }
+    dataflowReadMeter.mark(bytes);
+    dataflowRecordMeter.mark(messages.length);
+    return messages ;
+  }
+  
   public void write(String name, Message message) throws Exception {
-    OutputDataStreamContext sinkContext = outputContexts.get(name);
+    OutputDataStreamContext output = outputContexts.get(name);
+    if(output != null) write(output, message);
+    else write(getFusedContext(name), message);
+  }
+  
+  public void write(Message message) throws Exception {
+    for(int i = 0; i < outputs.length; i++) {
+      write(outputs[i], message);
+    }
+    for(int i = 0; i < fused.length; i++) {
+      write(fused[i], message);
+    }
+  }
+  
+  public void write(String name, Message[] messages) throws Exception {
+    OutputDataStreamContext output = outputContexts.get(name);
+    if(output != null) write(output, messages);
+    else write(getFusedContext(name), messages);
+  }
+  
+  public void write(Message[] messages) throws Exception {
+    for(int i = 0; i < outputs.length; i++) {
+      write(outputs[i], messages);
+    }
+    for(int i = 0; i < fused.length; i++) {
+      write(fused[i], messages);
+    }
+  }
+  
+  private DataStreamOperatorRuntimeContext getFusedContext(String name) {
+    DataStreamOperatorRuntimeContext fusedContext = fusedContexts.get(name);
+    if(fusedContext == null) {
+      throw new RuntimeException("The operator " + descriptor.getOperatorName() + " does not have the output " + name);
+    }
+    return fusedContext;
+  }
+  
+  private void write(OutputDataStreamContext output, Message message) throws Exception {
     for(DataStreamOperatorInterceptor selInterceptor : interceptors) {
       selInterceptor.postProcess(this, message);
     }
-    sinkContext.write(this, message);
-    
-    Meter meter = 
-        workerService.getMetricRegistry().getMeter("dataflow.sink." + name + ".throughput.byte", "byte") ;
-    meter.mark(message.getData().length + message.getKey().length());
-    Meter recordMetter = 
-        workerService.getMetricRegistry().getMeter("dataflow.sink." + name + ".throughput.record", "record") ;
-    recordMetter.mark(1);
+    output.write(this, message);
   }
   
-  public void write(Message message) throws Exception {
-    for(String name : outputContexts.keySet()) {
-      write(name, message);
+  private void write(OutputDataStreamContext output, Message[] messages) throws Exception {
+    if(messages.length == 0) return;
+    for(DataStreamOperatorInterceptor selInterceptor : interceptors) {
+      selInterceptor.postProcess(this, messages);
+    }
+    output.write(this, messages);
+  }
+  
+  private void write(DataStreamOperatorRuntimeContext fusedContext, Message message) throws Exception {
+    for(DataStreamOperatorInterceptor selInterceptor : interceptors) {
+      selInterceptor.postProcess(this, message);
+    }
+    fusedContext.fusedRecordMeter.mark(1);
+    for(DataStreamOperatorInterceptor sel : fusedContext.interceptors) {
+      sel.preProcess(fusedContext, message);
+    }
+    fusedContext.fusedOperator.process(fusedContext, message);
+  }
+  
+  private void write(DataStreamOperatorRuntimeContext fusedContext, Message[] messages) throws Exception {
+    if(messages.length == 0) return;
+    for(DataStreamOperatorInterceptor selInterceptor : interceptors) {
+      selInterceptor.postProcess(this, messages);
+    }
+    fusedContext.fusedRecordMeter.mark(messages.length);
+    for(DataStreamOperatorInterceptor sel : fusedContext.interceptors) {
+      sel.preProcess(fusedContext, messages);
+    }
+    fusedContext.fusedOperator.processBatch(fusedContext, messages);
+  }
+  
+  /**
+   * Call onPreCommit of the fused operators, parent first since the parent can still write to a fused operator 
+   * in its onPreCommit.
+   */
+  private void preCommitFused() throws Exception {
+    for(int i = 0; i < fused.length; i++) {
+      fused[i].fusedOperator.onPreCommit(fused[i]);
+      fused[i].preCommitFused();
+    }
+  }
+  
+  private void postCommitFused() throws Exception {
+    for(int i = 0; i < fused.length; i++) {
+      fused[i].fusedOperator.onPostCommit(fused[i]);
+      fused[i].postCommitFused();
     }
   }
   
+  private void rollbackFused() throws Exception {
+    for(int i = 0; i < fused.length; i++) {
+      fused[i].fusedOperator.onRollback(fused[i]);
+      fused[i].rollbackFused();
+    }
+  }
   
   private void prepareCommit() throws Exception {
-    Iterator<OutputDataStreamContext> i = outputContexts.values().iterator();
-    while (i.hasNext()) {
-      OutputDataStreamContext ctx = i.next();
-      ctx.prepareCommit(this);
+    preCommitFused();
+    for(int i = 0; i < commitOutputs.length; i++) {
+      commitOutputs[i].prepareCommit(commitOutputOwners[i]);
     }
     inputContext.prepareCommit(this);
   }
   
-  private void completeCommit() throws Exception {
-    Iterator<OutputDataStreamContext> i = outputContexts.values().iterator();
-    while (i.hasNext()) {
-      OutputDataStreamContext ctx = i.next();
-      ctx.completeCommit(this);
+  private List<KeyValueStateManager.Checkpoint> prepareStateCheckpoint() throws Exception {
+    if(stateManager == null) return null;
+    return stateManager.prepareCheckpoint();
+  }
+  
+  private void completeStateCheckpoint(List<KeyValueStateManager.Checkpoint> checkpoints) throws Exception {
+    if(stateManager == null) return;
+    stateManager.completeCheckpoint(checkpoints);
+  }
+  
+  private void completeCommit(List<KeyValueStateManager.Checkpoint> stateCheckpoints) throws Exception {
+    for(int i = 0; i < commitOutputs.length; i++) {
+      commitOutputs[i].completeCommit(commitOutputOwners[i]);
     }
+    completeStateCheckpoint(stateCheckpoints);
     //The source should commit after sink commit. In the case the source or sink does not support
     //2 phases commit, it will cause the data to duplicate only, not loss
     inputContext.completeCommit(this);
   }
   
+  /**
+   * In the synchronous mode, the commit returns when the data, the tracking windows and the report are saved. In
+   * the pipelined mode, the commit seals the data and returns, the sealed data, the tracking windows and a snapshot of
+   * the report are committed by the commit pipeline thread, in the seal order. The onCompleteCommit of the 
+   * interceptors is called by the commit pipeline thread. A failure of a pipelined commit is thrown by a later commit
+   * or by close, the task then rolls back to the last completed commit.
+   * <p/>
+   * The commit of a fused operator commits the whole chain of the task.
+   */
   public void commit() throws Exception {
+    if(head != this) {
+      head.commit();
+      return;
+    }
+    if(commitPipeline != null) {
+      pipelinedCommit();
+      postCommitFused();
+      return;
+    }
     //prepareCommit is a vote to make sure both sink, invalidSink, and source
     //are ready to commit data, otherwise rollback will occur
     try {
       prepareCommit();
-      completeCommit();
+      completeCommit(prepareStateCheckpoint());
       report.updateCommit();
       workerService.getDataflowRegistry().getTaskRegistry().save(descriptor, report);
+      postCommitFused();
     } catch (Exception ex) {
       report.setCommitFailCount(report.getCommitFailCount() + 1);
       workerService.getLogger().warn("DataflowTask Commit Fail");
@@ -159,24 +399,68 @@ public class DataStreamOperatorRuntimeContext implements DataStreamOperatorConte
     } 
   }
   
+  private void pipelinedCommit() throws Exception {
+    try {
+      prepareCommit();
+      final TrackingWindowStat[][] windowStats = new TrackingWindowStat[commitOutputs.length][];
+      for(int i = 0; i < commitOutputs.length; i++) {
+        windowStats[i] = commitOutputs[i].takeWindowStats();
+      }
+      final TrackingWindow[] windows = inputContext.takeWindows();
+      final List<KeyValueStateManager.Checkpoint> stateCheckpoints = prepareStateCheckpoint();
+      report.updateCommit();
+      final DataStreamOperatorReport reportSnapshot = JSONSerializer.INSTANCE.clone(report);
+      Callable<Void> sealedCommit = new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          for(int i = 0; i < commitOutputs.length; i++) {
+            commitOutputs[i].completeCommit(commitOutputOwners[i], windowStats[i]);
+          }
+          completeStateCheckpoint(stateCheckpoints);
+          //The source should commit after sink commit, the same as the synchronous commit
+          inputContext.completeCommit(DataStreamOperatorRuntimeContext.this, windows);
+          workerService.getDataflowRegistry().getTaskRegistry().save(descriptor, reportSnapshot);
+          return null;
+        }
+      };
+      commitPipeline.submit(sealedCommit);
+    } catch (Exception ex) {
+      report.setCommitFailCount(report.getCommitFailCount() + 1);
+      workerService.getLogger().warn("DataflowTask Commit Fail");
+      throw ex;
+    }
+  }
+  
   public void rollback() throws Exception {
+    if(head != this) {
+      head.rollback();
+      return;
+    }
+    //the sealed commits are completed or skipped before the data is rolled back to the last completed commit
+    if(commitPipeline != null) commitPipeline.reset();
     //TODO: implement the proper transaction
-    Iterator<OutputDataStreamContext> i = outputContexts.values().iterator();
-    while (i.hasNext()) {
-      OutputDataStreamContext ctx = i.next();
-      ctx.rollback();
+    for(int i = 0; i < commitOutputs.length; i++) {
+      commitOutputs[i].rollback();
     }
     inputContext.rollback();
+    if(stateManager != null) stateManager.rollback();
+    rollbackFused();
   }
 
+  /**
+   * The outputs of a fused operator are closed by the head context of the task.
+   */
   public void close() throws Exception {
-    //TODO: implement the proper transaction
-    Iterator<OutputDataStreamContext> i = outputContexts.values().iterator();
-    while (i.hasNext()) {
-      OutputDataStreamContext ctx = i.next();
-      ctx.close();
-      ;
+    if(head != this) return;
+    try {
+      if(commitPipeline != null) commitPipeline.close();
+    } finally {
+      //TODO: implement the proper transaction
+      for(int i = 0; i < commitOutputs.length; i++) {
+        commitOutputs[i].close();
+      }
+      inputContext.close();
+      if(stateManager != null) stateManager.close();
     }
-    inputContext.close();
   }
 }
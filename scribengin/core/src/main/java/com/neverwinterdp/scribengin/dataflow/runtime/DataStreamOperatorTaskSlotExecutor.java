@@ -12,6 +12,7 @@ import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorReport;
 import com.neverwinterdp.scribengin.dataflow.DataStreamType;
 import com.neverwinterdp.scribengin.dataflow.registry.DataflowRegistry;
 import com.neverwinterdp.scribengin.dataflow.runtime.worker.WorkerService;
+import com.neverwinterdp.storage.source.DataAvailableListener;
 
 public class DataStreamOperatorTaskSlotExecutor extends TaskSlotExecutor<DataStreamOperatorDescriptor>{
   private WorkerService                                      workerService;
@@ -19,6 +20,7 @@ public class DataStreamOperatorTaskSlotExecutor extends TaskSlotExecutor<DataStr
   private DataStreamOperatorDescriptor                       dsOperatorDescriptor;
   private DataStreamOperator                                 operator;
   private DataStreamOperatorRuntimeContext                   context;
+  private int                                                readBatchSize;
 
   private long startTime         = 0;
   private long lastFlushTime     = System.currentTimeMillis();
@@ -32,6 +34,7 @@ public class DataStreamOperatorTaskSlotExecutor extends TaskSlotExecutor<DataStr
     
     startTime = System.currentTimeMillis();
     DataflowRegistry dRegistry = workerService.getDataflowRegistry();
+    readBatchSize = dRegistry.getConfigRegistry().getDataflowDescriptor().getWorker().getReadBatchSize();
     DataStreamOperatorReport report = dRegistry.getTaskRegistry().getTaskReport(dsOperatorDescriptor);
     report.incrAssignedCount();
     dRegistry.getTaskRegistry().save(dsOperatorDescriptor, report);
@@ -42,6 +45,12 @@ public class DataStreamOperatorTaskSlotExecutor extends TaskSlotExecutor<DataStr
     Class<DataStreamOperator> opType = (Class<DataStreamOperator>) Class.forName(dsOperatorDescriptor.getOperator());
     operator = opType.newInstance();
     operator.onInit(context);
+    
+    DataAvailableListener dataAvailableListener = new DataAvailableListener() {
+      @Override
+      public void onDataAvailable() { wakeup(); }
+    };
+    context.getInputDataStreamContext().setDataAvailableListener(dataAvailableListener);
   }
   
   public DedicatedTaskContext<DataStreamOperatorDescriptor> getTaskContext() { return taskContext; }
@@ -75,12 +84,12 @@ public class DataStreamOperatorTaskSlotExecutor extends TaskSlotExecutor<DataStr
     int recCount = 0;
     try {
       while(!isInterrupted()) {
-        Message message = context.nextMessage(500);
-        if(message == null) break ;
+        Message[] messages = context.nextMessages(readBatchSize, 500);
+        if(messages.length == 0) break ;
 
-        recCount++;
-        report.incrProcessCount();
-        operator.process(context, message);
+        recCount += messages.length;
+        report.incrProcessCount(messages.length);
+        operator.processBatch(context, messages);
       } //end while
       if(isSimulateKill()) {
         System.err.println("DataStreamOperatorTaskSlotExecutor: detect simulate kill for " + dsOperatorDescriptor.getOperatorName());
@@ -102,6 +111,8 @@ public class DataStreamOperatorTaskSlotExecutor extends TaskSlotExecutor<DataStr
         operator.onPreCommit(context);
         context.commit();
         operator.onPostCommit(context);
+        //the input had data in this slot, run the next slot without waiting, the next read waits for the data
+        wakeup();
       }
       return runtime;
     } catch(InterruptedException ex) {
@@ -123,6 +134,7 @@ public class DataStreamOperatorTaskSlotExecutor extends TaskSlotExecutor<DataStr
   
   void rollback(Exception error) throws Exception {
     context.rollback();
+    operator.onRollback(context);
     DataStreamOperatorReport report = context.getReport();
     report.setAssignedHasErrorCount(report.getAssignedHasErrorCount() + 1);
     workerService.getLogger().error("DataflowTask Error", error);
@@ -2,19 +2,24 @@ package com.neverwinterdp.scribengin.dataflow.runtime;
 
 import com.neverwinterdp.message.Message;
 import com.neverwinterdp.message.MessageTracking;
-import com.neverwinterdp.message.MessageTrackingLog;
+import com.neverwinterdp.message.MessageTrackingLogger;
+import com.neverwinterdp.message.TrackingWindow;
 import com.neverwinterdp.scribengin.dataflow.DataSet;
 import com.neverwinterdp.scribengin.dataflow.DataStreamSourceInterceptor;
 import com.neverwinterdp.scribengin.dataflow.DataStreamType;
 import com.neverwinterdp.scribengin.dataflow.registry.DataflowRegistry;
+import com.neverwinterdp.storage.PipelinedCommit;
 import com.neverwinterdp.storage.Storage;
 import com.neverwinterdp.storage.StorageConfig;
+import com.neverwinterdp.storage.source.DataAvailableListener;
+import com.neverwinterdp.storage.source.DataAvailableNotifier;
 import com.neverwinterdp.storage.source.SourcePartition;
 import com.neverwinterdp.storage.source.SourcePartitionStream;
 import com.neverwinterdp.storage.source.SourcePartitionStreamReader;
 import com.neverwinterdp.util.text.StringUtil;
 
 public class InputDataStreamContext {
+  final static Message[] EMPTY_MESSAGES = new Message[0];
   
   private SourcePartition               source;
   private SourcePartitionStream         assignedPartition;
@@ -25,6 +30,7 @@ public class InputDataStreamContext {
   private boolean                       stopInput ;
   
   private MTService                     mtService ;
+  private MessageTrackingLogger         mtLogger;
   
   public InputDataStreamContext(DataStreamOperatorRuntimeContext ctx, Storage storage, int partitionId) throws Exception {
     source = storage.getSource().getLatestSourcePartition();
@@ -35,6 +41,7 @@ public class InputDataStreamContext {
     if(storageConfig.booleanAttribute(DataSet.DATAFLOW_SOURCE_INPUT, false)) {
       dataStreamType = DataStreamType.Input;
       mtService = new MTService("input", ctx.getService(DataflowRegistry.class));
+      mtLogger  = MTService.createLogger(ctx);
     }
     
     String interceptorTypes = storageConfig.attribute(DataSet.DATAFLOW_SOURCE_INTERCEPTORS);
@@ -47,6 +54,18 @@ public class InputDataStreamContext {
   
   public void stopInput() { stopInput = true; }
   
+  /**
+   * Register the listener with the partition reader if the reader can notify the data availability.
+   * @return true if the listener is registered
+   */
+  public boolean setDataAvailableListener(DataAvailableListener listener) {
+    if(!(assignedPartitionReader instanceof DataAvailableNotifier)) return false;
+    ((DataAvailableNotifier) assignedPartitionReader).setDataAvailableListener(listener);
+    return true;
+  }
+  
+  public boolean isPipelinedCommitSupported() { return assignedPartitionReader instanceof PipelinedCommit; }
+  
   public Message nextMessage(DataStreamOperatorRuntimeContext ctx, long maxWaitForDataRead) throws Exception {
     try {
     if(stopInput) return null;
@@ -59,10 +78,7 @@ public class InputDataStreamContext {
     if (message != null) {
       if(dataStreamType == DataStreamType.Input) {
         MessageTracking messageTracking = mtService.nextMessageTracking();
-        String[] tag = { 
-          "vm:" + ctx.getVM().getVmId(), "executor:" + ctx.getTaskExecutor().getId()
-        };
-        messageTracking.add(new MessageTrackingLog("input", tag));
+        mtLogger.log(messageTracking, "input");
         
         message.setMessageTracking(messageTracking);
       }
@@ -78,6 +94,37 @@ public class InputDataStreamContext {
     }
   }
   
+  /**
+   * Read the next batch of the messages. An error is not caught here, the partition reader and the message tracking
+   * already moved past the batch, so the error goes to the task slot executor that rolls back to the last commit.
+   */
+  public Message[] nextMessages(DataStreamOperatorRuntimeContext ctx, int size, long maxWaitForDataRead) throws Exception {
+    if(stopInput) return EMPTY_MESSAGES;
+
+    if(dataStreamType == DataStreamType.Input) {
+      int available = mtService.availableMessageTracking(maxWaitForDataRead);
+      if(available == 0) return EMPTY_MESSAGES;
+      //Do not read more than the current tracking window can hold
+      if(available < size) size = available;
+    }
+
+    Message[] messages = assignedPartitionReader.next(size, maxWaitForDataRead);
+    if(messages.length == 0) return messages;
+
+    if(dataStreamType == DataStreamType.Input) {
+      for(int i = 0; i < messages.length; i++) {
+        MessageTracking messageTracking = mtService.nextMessageTracking();
+        mtLogger.log(messageTracking, "input");
+        messages[i].setMessageTracking(messageTracking);
+      }
+    }
+
+    for (DataStreamSourceInterceptor sel : interceptor) {
+      sel.onRead(ctx, messages);
+    }
+    return messages;
+  }
+  
   public void prepareCommit(DataStreamOperatorRuntimeContext ctx) throws Exception {
     assignedPartitionReader.prepareCommit();
     for (DataStreamSourceInterceptor sel : interceptor) {
@@ -96,6 +143,27 @@ public class InputDataStreamContext {
       mtService.flushWindows();
     }
   }
+  
+  /**
+   * Take the tracking windows of the messages that are read so far. In the pipelined commit, the windows are taken
+   * when the data is sealed and saved when the sealed data is committed.
+   */
+  TrackingWindow[] takeWindows() {
+    if(dataStreamType != DataStreamType.Input) return null;
+    return mtService.takeWindows();
+  }
+  
+  void completeCommit(DataStreamOperatorRuntimeContext ctx, TrackingWindow[] windows) throws Exception {
+    assignedPartitionReader.completeCommit();
+    
+    for (DataStreamSourceInterceptor sel : interceptor) {
+      sel.onCompleteCommit(ctx);
+    }
+    
+    if(dataStreamType == DataStreamType.Input) {
+      mtService.saveWindows(windows);
+    }
+  }
 
   public void rollback() throws Exception {
     assignedPartitionReader.rollback();
@@ -0,0 +1,188 @@
+package com.neverwinterdp.scribengin.dataflow.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Checkpoint the key value states of a task to the file system and restore them when the task is assigned to an
+ * executor or rolled back. The checkpoints of a state are in the directory [checkpoint dir]/[state name]:
+ * <pre>
+ * [seq].full   all the entries of the state
+ * [seq].delta  the entries that are changed after the previous checkpoint
+ * </pre>
+ * The state is restored from the last full checkpoint and the deltas after it. A full checkpoint is written every
+ * full checkpoint period and the older checkpoints are then deleted.
+ * <p/>
+ * The checkpoint follows the 2 phases commit of the task. The changes are taken when the data is sealed and the
+ * checkpoint files are written at the complete commit, after the outputs and before the input, a file is written
+ * with a tmp name and renamed. A failure between the state and the input commit replays the input on the committed
+ * state, the same as the outputs, the data is duplicated but not lost.
+ */
+public class KeyValueStateManager {
+  final static public int DEFAULT_FULL_CHECKPOINT_PERIOD = 100;
+  final static DecimalFormat SEQ_FORMAT = new DecimalFormat("0000000000");
+  final static Comparator<Path> NAME_COMPARATOR = new Comparator<Path>() {
+    @Override
+    public int compare(Path p1, Path p2) { return p1.getName().compareTo(p2.getName()); }
+  };
+
+  private FileSystem                       fs;
+  private String                           checkpointDir;
+  private String                           localDir;
+  private int                              fullCheckpointPeriod = DEFAULT_FULL_CHECKPOINT_PERIOD;
+  private Map<String, MappedKeyValueState> states = new LinkedHashMap<>();
+  private Map<String, Long>                nextSeqs = new LinkedHashMap<>();
+
+  public KeyValueStateManager(FileSystem fs, String checkpointDir, String localDir) {
+    this.fs            = fs;
+    this.checkpointDir = checkpointDir;
+    this.localDir      = localDir;
+  }
+
+  public void setFullCheckpointPeriod(int period) { this.fullCheckpointPeriod = period; }
+
+  public MappedKeyValueState getState(String name) throws IOException {
+    MappedKeyValueState state = states.get(name);
+    if(state != null) return state;
+    state = new MappedKeyValueState(name, new File(localDir, name + ".dat"));
+    restore(state);
+    states.put(name, state);
+    return state;
+  }
+
+  /**
+   * Take the changes of the states when the data is sealed.
+   * @return the checkpoint files to write at the complete commit, null if no state is changed
+   */
+  public List<Checkpoint> prepareCheckpoint() throws IOException {
+    List<Checkpoint> checkpoints = null;
+    for(MappedKeyValueState state : states.values()) {
+      if(state.getChangedCount() == 0) continue;
+      long seq = nextSeqs.get(state.getName());
+      nextSeqs.put(state.getName(), seq + 1);
+      boolean full = seq % fullCheckpointPeriod == 0;
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bos);
+      if(full) state.writeAll(out);
+      else state.writeChanges(out);
+      out.close();
+      if(checkpoints == null) checkpoints = new ArrayList<>();
+      checkpoints.add(new Checkpoint(state.getName(), seq, full, bos.toByteArray()));
+    }
+    return checkpoints;
+  }
+
+  public void completeCheckpoint(List<Checkpoint> checkpoints) throws IOException {
+    if(checkpoints == null) return;
+    for(int i = 0; i < checkpoints.size(); i++) {
+      Checkpoint checkpoint = checkpoints.get(i);
+      String stateDir = checkpointDir + "/" + checkpoint.stateName;
+      String fileName = SEQ_FORMAT.format(checkpoint.seq) + (checkpoint.full ? ".full" : ".delta");
+      Path tmpPath = new Path(stateDir + "/" + fileName + ".tmp");
+      FSDataOutputStream os = fs.create(tmpPath, true);
+      os.write(checkpoint.data);
+      os.close();
+      Path path = new Path(stateDir + "/" + fileName);
+      //a failed rename on hdfs returns false, the input must not be committed without the checkpoint
+      if(!fs.rename(tmpPath, path)) {
+        throw new IOException("Cannot rename the checkpoint " + tmpPath + " to " + path);
+      }
+      if(checkpoint.full) deleteCheckpoints(stateDir, checkpoint.seq);
+    }
+  }
+
+  /**
+   * Restore the states to the last completed checkpoint.
+   */
+  public void rollback() throws IOException {
+    for(MappedKeyValueState state : states.values()) {
+      state.clear();
+      restore(state);
+    }
+  }
+
+  void restore(MappedKeyValueState state) throws IOException {
+    Path stateDir = new Path(checkpointDir + "/" + state.getName());
+    long nextSeq = 0;
+    if(fs.exists(stateDir)) {
+      List<Path> files = new ArrayList<>();
+      long fullSeq = -1;
+      for(FileStatus status : fs.listStatus(stateDir)) {
+        String name = status.getPath().getName();
+        if(name.endsWith(".tmp")) continue;
+        long seq = toSeq(name);
+        if(name.endsWith(".full") && seq > fullSeq) fullSeq = seq;
+        files.add(status.getPath());
+      }
+      //the file names are ordered by the seq
+      Collections.sort(files, NAME_COMPARATOR);
+      for(Path file : files) {
+        long seq = toSeq(file.getName());
+        if(seq < fullSeq) continue;
+        FSDataInputStream is = fs.open(file);
+        try {
+          state.apply(new DataInputStream(is));
+        } finally {
+          is.close();
+        }
+        nextSeq = seq + 1;
+      }
+    }
+    nextSeqs.put(state.getName(), nextSeq);
+  }
+
+  void deleteCheckpoints(String stateDir, long beforeSeq) throws IOException {
+    for(FileStatus status : fs.listStatus(new Path(stateDir))) {
+      String name = status.getPath().getName();
+      if(name.endsWith(".tmp")) continue;
+      if(toSeq(name) < beforeSeq) fs.delete(status.getPath(), false);
+    }
+  }
+
+  public void close() throws IOException {
+    for(MappedKeyValueState state : states.values()) {
+      state.close();
+    }
+    states.clear();
+  }
+
+  static long toSeq(String fileName) {
+    return Long.parseLong(fileName.substring(0, fileName.indexOf('.')));
+  }
+
+  static public class Checkpoint {
+    private String  stateName;
+    private long    seq;
+    private boolean full;
+    private byte[]  data;
+
+    Checkpoint(String stateName, long seq, boolean full, byte[] data) {
+      this.stateName = stateName;
+      this.seq       = seq;
+      this.full      = full;
+      this.data      = data;
+    }
+
+    public String getStateName() { return stateName; }
+
+    public long getSeq() { return seq; }
+
+    public boolean isFull() { return full; }
+  }
+}
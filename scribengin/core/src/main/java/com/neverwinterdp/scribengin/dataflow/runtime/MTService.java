@@ -4,11 +4,13 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.neverwinterdp.message.MessageTracking;
+import com.neverwinterdp.message.MessageTrackingLogger;
 import com.neverwinterdp.message.TrackingWindow;
 import com.neverwinterdp.message.TrackingWindowRegistry;
 import com.neverwinterdp.message.TrackingWindowStat;
 import com.neverwinterdp.registry.ErrorCode;
 import com.neverwinterdp.registry.RegistryException;
+import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorContext;
 import com.neverwinterdp.scribengin.dataflow.DataflowDescriptor;
 import com.neverwinterdp.scribengin.dataflow.registry.DataflowRegistry;
 
@@ -31,6 +33,23 @@ public class MTService {
     windowTrackingIdTracker = new AtomicInteger(0);
   }
   
+  /**
+   * Create the logger of a tracking point of the task, with the sampling and the format of the dataflow. In the compact
+   * format the vm and the executor of the task are registered as a tracking source of the dataflow.
+   */
+  static public MessageTrackingLogger createLogger(DataStreamOperatorContext ctx) throws RegistryException {
+    DataflowRegistry dflRegistry = ctx.getService(DataflowRegistry.class);
+    DataflowDescriptor dflDescriptor = dflRegistry.getConfigRegistry().getDataflowDescriptor();
+    String[] tag = { 
+      "vm:" + ctx.getVM().getVmId(), "executor:" + ctx.getTaskExecutor().getId()
+    };
+    int sampleRate = dflDescriptor.getTrackingLogSampleRate();
+    boolean compact = dflDescriptor.isTrackingLogCompact();
+    int source = 0;
+    if(compact && sampleRate > 0) source = dflRegistry.getMessageTrackingRegistry().registerSource(tag);
+    return new MessageTrackingLogger(sampleRate, compact, tag, source);
+  }
+  
   int nextWindowId(long maxWaitForDataRead) throws RegistryException, InterruptedException {
     return trackingRegistry.nextWindowId();
   }
@@ -52,6 +71,15 @@ public class MTService {
     return true;
   }
   
+  /**
+   * @return the number of message tracking ids that are still available in the current window, 0 if
+   *         no window can be allocated
+   */
+  public int availableMessageTracking(long maxWaitForDataRead) throws RegistryException, InterruptedException {
+    if(!hasNextMessageTracking(maxWaitForDataRead)) return 0;
+    return trackingWindowSize - windowTrackingIdTracker.get();
+  }
+  
   public MessageTracking nextMessageTracking() throws RegistryException {
     if(windowTrackingIdTracker.get() >= trackingWindowSize || currentWindowId == -1) {
       throw new RegistryException(ErrorCode.Unknown, "the tracking window id or the current window id is not in the valid state");
@@ -76,19 +104,45 @@ public class MTService {
   }
   
   public void flushWindows() throws RegistryException {
-    if(windows.size() == 0) return ;
+    saveWindows(takeWindows());
+  }
+  
+  /**
+   * Take the windows of the messages that are read so far and start a new window for the next message. 
+   * @return the windows or null if there is no window
+   */
+  public TrackingWindow[] takeWindows() {
+    if(windows.size() == 0) return null;
     TrackingWindow[] array = new TrackingWindow[windows.size()];
     windows.values().toArray(array);
     windows.clear();
-    trackingRegistry.saveWindow(array);
     currentWindowId = -1;
+    return array;
+  }
+  
+  public void saveWindows(TrackingWindow[] array) throws RegistryException {
+    if(array == null) return ;
+    trackingRegistry.saveWindow(array);
   }
   
   public void flushWindowStats() throws RegistryException {
-    if(windowStats.size() == 0) return ;
+    saveWindowStats(takeWindowStats());
+  }
+  
+  /**
+   * Take the window stats that are logged so far.
+   * @return the window stats or null if there is no stat
+   */
+  public TrackingWindowStat[] takeWindowStats() {
+    if(windowStats.size() == 0) return null;
     TrackingWindowStat[] array = new TrackingWindowStat[windowStats.size()];
     windowStats.values().toArray(array);
     windowStats.clear();
+    return array;
+  }
+  
+  public void saveWindowStats(TrackingWindowStat[] array) throws RegistryException {
+    if(array == null) return ;
     trackingRegistry.saveProgress(array);
   }
 }
\ No newline at end of file
@@ -0,0 +1,206 @@
+package com.neverwinterdp.scribengin.dataflow.runtime;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.neverwinterdp.scribengin.dataflow.KeyValueState;
+
+/**
+ * A key value state that keeps the values in a memory mapped local file and the keys with the value positions in a
+ * heap index. A value is appended [int length][bytes] to the file, the space of an overwritten or removed value is
+ * reclaimed when the file is compacted into a new file, once the dead bytes are more than the live bytes. The file
+ * is only a cache of the state of the task, the state is restored from the checkpoints and the file is deleted on
+ * close.
+ * <p/>
+ * The keys that are changed since the last checkpoint are tracked, a checkpoint writes the changed keys with their
+ * value or with the length -1 for a removed key.
+ */
+public class MappedKeyValueState implements KeyValueState {
+  final static public int INITIAL_CAPACITY = 1024 * 1024;
+
+  private String               name;
+  private File                 file;
+  private RandomAccessFile     raf;
+  private FileChannel          channel;
+  private MappedByteBuffer     buffer;
+  private int                  writePos;
+  private long                 liveBytes;
+  private Map<String, Integer> index       = new HashMap<>();
+  private Set<String>          changedKeys = new HashSet<>();
+
+  public MappedKeyValueState(String name, File file) throws IOException {
+    this.name = name;
+    this.file = file;
+    open(INITIAL_CAPACITY);
+  }
+
+  private void open(int capacity) throws IOException {
+    file.getParentFile().mkdirs();
+    if(file.exists()) file.delete();
+    raf     = new RandomAccessFile(file, "rw");
+    channel = raf.getChannel();
+    buffer  = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    writePos = 0;
+  }
+
+  public String getName() { return name; }
+
+  public byte[] get(String key) {
+    Integer pos = index.get(key);
+    if(pos == null) return null;
+    return read(pos);
+  }
+
+  public void put(String key, byte[] value) throws IOException {
+    if(value == null) {
+      remove(key);
+      return;
+    }
+    Integer oldPos = index.put(key, append(value));
+    if(oldPos != null) liveBytes -= 4 + buffer.getInt(oldPos);
+    liveBytes += 4 + value.length;
+    changedKeys.add(key);
+    if(writePos > INITIAL_CAPACITY && writePos > 2 * liveBytes) compact();
+  }
+
+  public void remove(String key) {
+    Integer oldPos = index.remove(key);
+    if(oldPos == null) return;
+    liveBytes -= 4 + buffer.getInt(oldPos);
+    changedKeys.add(key);
+  }
+
+  public boolean contains(String key) { return index.containsKey(key); }
+
+  public int size() { return index.size(); }
+
+  public Set<String> keys() { return Collections.unmodifiableSet(index.keySet()); }
+
+  public int getChangedCount() { return changedKeys.size(); }
+
+  long getFileSize() { return writePos; }
+
+  private byte[] read(int pos) {
+    int length = buffer.getInt(pos);
+    byte[] value = new byte[length];
+    buffer.position(pos + 4);
+    buffer.get(value);
+    return value;
+  }
+
+  private int append(byte[] value) throws IOException {
+    ensureCapacity(4 + value.length);
+    int pos = writePos;
+    buffer.position(pos);
+    buffer.putInt(value.length);
+    buffer.put(value);
+    writePos += 4 + value.length;
+    return pos;
+  }
+
+  private void ensureCapacity(int size) throws IOException {
+    if(buffer.capacity() - writePos >= size) return;
+    long capacity = Math.max(2L * buffer.capacity(), (long) writePos + size);
+    if(capacity > Integer.MAX_VALUE) throw new IOException("The state " + name + " is larger than 2GB");
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+  }
+
+  /**
+   * Copy the live values into a new file and drop the old file.
+   */
+  void compact() throws IOException {
+    MappedByteBuffer oldBuffer = buffer;
+    FileChannel oldChannel = channel;
+    RandomAccessFile oldRaf = raf;
+    File oldFile = new File(file.getPath() + ".old");
+    file.renameTo(oldFile);
+    open((int) Math.max(INITIAL_CAPACITY, 2 * liveBytes));
+    for(Map.Entry<String, Integer> entry : index.entrySet()) {
+      int pos = entry.getValue();
+      byte[] value = new byte[oldBuffer.getInt(pos)];
+      oldBuffer.position(pos + 4);
+      oldBuffer.get(value);
+      entry.setValue(append(value));
+    }
+    oldChannel.close();
+    oldRaf.close();
+    oldFile.delete();
+  }
+
+  /**
+   * Write the keys that are changed since the last checkpoint and start a new checkpoint.
+   */
+  void writeChanges(DataOutputStream out) throws IOException {
+    out.writeInt(changedKeys.size());
+    for(String key : changedKeys) {
+      writeEntry(out, key, get(key));
+    }
+    changedKeys.clear();
+  }
+
+  /**
+   * Write all the entries of the state and start a new checkpoint.
+   */
+  void writeAll(DataOutputStream out) throws IOException {
+    out.writeInt(index.size());
+    for(Map.Entry<String, Integer> entry : index.entrySet()) {
+      writeEntry(out, entry.getKey(), read(entry.getValue()));
+    }
+    changedKeys.clear();
+  }
+
+  /**
+   * Apply the entries of a checkpoint, the applied entries are not changes of the next checkpoint.
+   */
+  void apply(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    for(int i = 0; i < count; i++) {
+      String key = in.readUTF();
+      int length = in.readInt();
+      if(length < 0) {
+        remove(key);
+      } else {
+        byte[] value = new byte[length];
+        in.readFully(value);
+        put(key, value);
+      }
+    }
+    changedKeys.clear();
+  }
+
+  void clear() throws IOException {
+    index.clear();
+    changedKeys.clear();
+    liveBytes = 0;
+    writePos = 0;
+  }
+
+  private void writeEntry(DataOutputStream out, String key, byte[] value) throws IOException {
+    out.writeUTF(key);
+    if(value == null) {
+      out.writeInt(-1);
+    } else {
+      out.writeInt(value.length);
+      out.write(value);
+    }
+  }
+
+  public void close() throws IOException {
+    if(channel == null) return;
+    buffer = null;
+    channel.close();
+    raf.close();
+    channel = null;
+    file.delete();
+  }
+}
@@ -2,27 +2,36 @@ package com.neverwinterdp.scribengin.dataflow.runtime;
 
 import com.neverwinterdp.message.Message;
 import com.neverwinterdp.message.MessageTracking;
-import com.neverwinterdp.message.MessageTrackingLog;
+import com.neverwinterdp.message.MessageTrackingLogger;
+import com.neverwinterdp.message.TrackingWindowStat;
 import com.neverwinterdp.scribengin.dataflow.DataSet;
 import com.neverwinterdp.scribengin.dataflow.DataStreamSinkInterceptor;
 import com.neverwinterdp.scribengin.dataflow.DataStreamType;
 import com.neverwinterdp.scribengin.dataflow.registry.DataflowRegistry;
+import com.neverwinterdp.storage.PipelinedCommit;
 import com.neverwinterdp.storage.Storage;
 import com.neverwinterdp.storage.StorageConfig;
 import com.neverwinterdp.storage.sink.Sink;
 import com.neverwinterdp.storage.sink.SinkPartitionStream;
 import com.neverwinterdp.storage.sink.SinkPartitionStreamWriter;
 import com.neverwinterdp.util.text.StringUtil;
+import com.neverwinterdp.yara.Meter;
+import com.neverwinterdp.yara.MetricRegistry;
 
 public class OutputDataStreamContext {
+  private String                      name;
   private Sink                        sink;
   private SinkPartitionStream         assignedPartition;
   private SinkPartitionStreamWriter   assignedPartitionWriter;
   private DataStreamSinkInterceptor[] interceptor;
   private DataStreamType              dataStreamType = DataStreamType.Wire;
   private MTService                   mtService;
+  private MessageTrackingLogger       mtLogger;
+  private Meter                       byteMeter;
+  private Meter                       recordMeter;
 
-  public OutputDataStreamContext(DataStreamOperatorRuntimeContext ctx, Storage storage, int partitionId) throws Exception {
+  public OutputDataStreamContext(DataStreamOperatorRuntimeContext ctx, String name, Storage storage, int partitionId) throws Exception {
+    this.name = name;
     sink = storage.getSink();
     assignedPartition = sink.getPartitionStream(partitionId);
     if(assignedPartition == null) {
@@ -35,23 +44,57 @@ public class OutputDataStreamContext {
     if(storageConfig.booleanAttribute(DataSet.DATAFLOW_SINK_OUTPUT, false)) {
       dataStreamType = DataStreamType.Output;
       mtService = new MTService("output", ctx.getService(DataflowRegistry.class));
+      mtLogger  = MTService.createLogger(ctx);
     }
     
     String interceptorTypes = storageConfig.attribute(DataSet.DATAFLOW_SINK_INTERCEPTORS);
     interceptor = DataStreamSinkInterceptor.load(ctx, StringUtil.toStringArray(interceptorTypes));
+    initMeters(ctx.getMetricRegistry());
   }
   
+  private void initMeters(MetricRegistry metricRegistry) {
+    byteMeter   = metricRegistry.getMeter("dataflow.sink." + name + ".throughput.byte", "byte") ;
+    recordMeter = metricRegistry.getMeter("dataflow.sink." + name + ".throughput.record", "record") ;
+  }
+  
+  public String getName() { return name; }
+  
+  public boolean isPipelinedCommitSupported() { return assignedPartitionWriter instanceof PipelinedCommit; }
+  
   public void write(DataStreamOperatorRuntimeContext ctx, Message message) throws Exception {
     for(DataStreamSinkInterceptor sel : interceptor) sel.onWrite(ctx, message);
     assignedPartitionWriter.append(message);
+    byteMeter.mark(message.getData().length + message.getKey().length());
+    recordMeter.mark(1);
 
     if(dataStreamType == DataStreamType.Output) {
       MessageTracking messageTracking = message.getMessageTracking();
-      String[] tag = { 
-          "vm:" + ctx.getVM().getVmId(), "executor:" + ctx.getTaskExecutor().getId()
-      };
-      messageTracking.add(new MessageTrackingLog("output", tag));
-      mtService.log(messageTracking);
+      //a message that is created by an operator, such as a window aggregate, is not tracked
+      if(messageTracking != null) {
+        mtLogger.log(messageTracking, "output");
+        mtService.log(messageTracking);
+      }
+    }
+  }
+
+  public void write(DataStreamOperatorRuntimeContext ctx, Message[] messages) throws Exception {
+    for(DataStreamSinkInterceptor sel : interceptor) sel.onWrite(ctx, messages);
+    long bytes = 0;
+    for(int i = 0; i < messages.length; i++) {
+      Message message = messages[i];
+      assignedPartitionWriter.append(message);
+      bytes += message.getData().length + message.getKey().length();
+    }
+    byteMeter.mark(bytes);
+    recordMeter.mark(messages.length);
+
+    if(dataStreamType == DataStreamType.Output) {
+      for(int i = 0; i < messages.length; i++) {
+        MessageTracking messageTracking = messages[i].getMessageTracking();
+        if(messageTracking == null) continue;
+        mtLogger.log(messageTracking, "output");
+        mtService.log(messageTracking);
+      }
     }
   }
 
@@ -72,6 +115,25 @@ public class OutputDataStreamContext {
     }
   }
   
+  /**
+   * Take the tracking stats of the messages that are written so far. In the pipelined commit, the stats are taken 
+   * when the data is sealed and saved when the sealed data is committed.
+   */
+  TrackingWindowStat[] takeWindowStats() {
+    if(dataStreamType != DataStreamType.Output) return null;
+    return mtService.takeWindowStats();
+  }
+  
+  void completeCommit(DataStreamOperatorRuntimeContext ctx, TrackingWindowStat[] windowStats) throws Exception {
+    assignedPartitionWriter.completeCommit();
+    for(DataStreamSinkInterceptor sel : interceptor) {
+      sel.onCompleteCommit(ctx);
+    }
+    if(dataStreamType == DataStreamType.Output) {
+      mtService.saveWindowStats(windowStats);
+    }
+  }
+  
   public void rollback() throws Exception {
     assignedPartitionWriter.rollback();
   }
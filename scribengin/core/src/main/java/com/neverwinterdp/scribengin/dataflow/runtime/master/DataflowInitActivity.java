@@ -75,12 +75,14 @@ public class DataflowInitActivity implements DataflowMasterActivity {
     for(Map.Entry<String, OperatorDescriptor> entry : operators.entrySet()) {
       String opName = entry.getKey();
       OperatorDescriptor opDescriptor = entry.getValue();
-      createDataStreamOperator(opName, opDescriptor);
+      //a fused operator runs in the tasks of the operator that writes its input
+      if(opDescriptor.isFused()) continue;
+      createDataStreamOperator(opName, opDescriptor, operators);
     }
     dflRegistry.setRegistryReadyStatus();
   }
   
-  void createDataStreamOperator(String opName, OperatorDescriptor opDescriptor) throws RegistryException {
+  void createDataStreamOperator(String opName, OperatorDescriptor opDescriptor, Map<String, OperatorDescriptor> operators) throws RegistryException {
     DecimalFormat SEQ_ID_FORMATTER = new DecimalFormat("0000");
     StreamRegistry streamRegistry = service.getDataflowRegistry().getStreamRegistry();
     DataflowTaskRegistry taskRegistry = service.getDataflowRegistry().getTaskRegistry();
@@ -97,8 +99,29 @@ public class DataflowInitActivity implements DataflowMasterActivity {
         dsOperatorDescriptor.setOutputs(opDescriptor.getOutputs());
         dsOperatorDescriptor.setOperator(opDescriptor.getOperator());
         dsOperatorDescriptor.setInterceptors(opDescriptor.getInterceptors());
+        addFusedOperators(dsOperatorDescriptor, opDescriptor, operators);
         taskRegistry.offer(dsOperatorDescriptor);
       }
     }
   }
+  
+  void addFusedOperators(DataStreamOperatorDescriptor dsOpDescriptor, OperatorDescriptor opDescriptor, Map<String, OperatorDescriptor> operators) {
+    if(opDescriptor.getFusedOutputs() == null) return;
+    for(String output : opDescriptor.getFusedOutputs()) {
+      for(Map.Entry<String, OperatorDescriptor> entry : operators.entrySet()) {
+        OperatorDescriptor fusedOpDescriptor = entry.getValue();
+        if(!fusedOpDescriptor.getInputs().contains(output)) continue;
+        DataStreamOperatorDescriptor fusedDescriptor = new DataStreamOperatorDescriptor();
+        fusedDescriptor.setTaskId(dsOpDescriptor.getTaskId() + "/" + entry.getKey());
+        fusedDescriptor.setOperatorName(entry.getKey());
+        fusedDescriptor.setInput(output);
+        fusedDescriptor.setInputPartitionId(dsOpDescriptor.getInputPartitionId());
+        fusedDescriptor.setOutputs(fusedOpDescriptor.getOutputs());
+        fusedDescriptor.setOperator(fusedOpDescriptor.getOperator());
+        fusedDescriptor.setInterceptors(fusedOpDescriptor.getInterceptors());
+        addFusedOperators(fusedDescriptor, fusedOpDescriptor, operators);
+        dsOpDescriptor.getFusedOperators().add(fusedDescriptor);
+      }
+    }
+  }
 }
\ No newline at end of file
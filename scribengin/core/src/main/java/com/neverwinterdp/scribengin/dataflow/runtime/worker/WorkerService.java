@@ -72,6 +72,7 @@ public class WorkerService {
     
     DataflowDescriptor dflConfig = dflRegistry.getConfigRegistry().getDataflowDescriptor();
     taskService = new DedicatedTaskService<DataStreamOperatorDescriptor>(dflRegistry.getTaskRegistry(), taskSlotExecutorFactory);
+    taskService.getTaskExecutorService().setSlotPoolParallelism(dflConfig.getWorker().getSlotPoolParallelism());
     for(int i = 0; i < dflConfig.getWorker().getNumOfExecutor(); i++) {
       TaskExecutorDescriptor executor = new TaskExecutorDescriptor(vmDescriptor.getVmId() + "-executor-" + i, vmDescriptor.getVmId());
       taskService.addExecutor(executor, 2);
@@ -1,29 +1,48 @@
 package com.neverwinterdp.scribengin.dataflow.tracking;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.neverwinterdp.message.Message;
 import com.neverwinterdp.scribengin.dataflow.DataStreamOperator;
 import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorContext;
 import com.neverwinterdp.util.JSONSerializer;
 
 public class TrackingMessageSplitter extends DataStreamOperator {
+  final static String[] OUTPUTS = { "splitter-to-error", "splitter-to-warn", "splitter-to-info" };
+  
   int count = 0;
   
   @Override
   public void process(DataStreamOperatorContext ctx, Message record) throws Exception {
-    TrackingMessage tMessage = JSONSerializer.INSTANCE.fromBytes(record.getData(), TrackingMessage.class) ;
-    int remain = tMessage.getTrackId() % 3;
-    tMessage.setStartDeliveryTime(System.currentTimeMillis());
-    record.setData(JSONSerializer.INSTANCE.toBytes(tMessage));
-    if(remain == 0) {
-      ctx.write("splitter-to-error", record);
-    } else if(remain == 1) {
-      ctx.write("splitter-to-warn", record);
-    } else {
-      ctx.write("splitter-to-info", record);
-    }
+    ctx.write(OUTPUTS[split(record)], record);
     count++ ;
 //    if(count > 0 && count % 10000 == 0) {
 //      ctx.commit();
 //    }
   }
+  
+  @Override
+  public void processBatch(DataStreamOperatorContext ctx, Message[] records) throws Exception {
+    //the buffers are local, so the messages of a failed batch are not written again with the next batch
+    List<List<Message>> outputBuffers = new ArrayList<>(OUTPUTS.length);
+    for(int i = 0; i < OUTPUTS.length; i++) outputBuffers.add(new ArrayList<Message>());
+    for(int i = 0; i < records.length; i++) {
+      outputBuffers.get(split(records[i])).add(records[i]);
+    }
+    for(int i = 0; i < OUTPUTS.length; i++) {
+      List<Message> buffer = outputBuffers.get(i);
+      if(buffer.size() == 0) continue;
+      ctx.write(OUTPUTS[i], buffer.toArray(new Message[buffer.size()]));
+    }
+    count += records.length;
+  }
+  
+  int split(Message record) throws Exception {
+    TrackingMessage tMessage = JSONSerializer.INSTANCE.fromBytes(record.getData(), TrackingMessage.class) ;
+    int remain = tMessage.getTrackId() % 3;
+    tMessage.setStartDeliveryTime(System.currentTimeMillis());
+    record.setData(JSONSerializer.INSTANCE.toBytes(tMessage));
+    return remain;
+  }
 }
\ No newline at end of file
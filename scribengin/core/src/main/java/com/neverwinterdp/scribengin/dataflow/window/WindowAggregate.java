@@ -0,0 +1,91 @@
+package com.neverwinterdp.scribengin.dataflow.window;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.neverwinterdp.yara.sketch.HyperLogLog;
+import com.neverwinterdp.yara.sketch.SpaceSaving;
+
+/**
+ * The pre-aggregated row of a key in a window that is emitted once, when the window is closed.
+ */
+public class WindowAggregate {
+  private String name;
+  private String key;
+
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd/MM/yyyy HH:mm:ss")
+  private Date windowStart;
+
+  @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd/MM/yyyy HH:mm:ss")
+  private Date windowEnd;
+
+  private Map<String, Long>                      counts;
+  private Map<String, Double>                    sums;
+  private Map<String, Long>                      distincts;
+  private Map<String, List<SpaceSaving.Counter>> topKs;
+
+  public WindowAggregate() { }
+
+  public WindowAggregate(String name, long windowStart, long windowEnd, WindowPane pane, int topK) {
+    this.name        = name;
+    this.key         = pane.getKey();
+    this.windowStart = new Date(windowStart);
+    this.windowEnd   = new Date(windowEnd);
+    this.counts      = pane.getCounts();
+    this.sums        = pane.getSums();
+    if(pane.getDistincts() != null) {
+      distincts = new LinkedHashMap<>();
+      for(Map.Entry<String, HyperLogLog> entry : pane.getDistincts().entrySet()) {
+        distincts.put(entry.getKey(), entry.getValue().cardinality());
+      }
+    }
+    if(pane.getTopKs() != null) {
+      topKs = new LinkedHashMap<>();
+      for(Map.Entry<String, SpaceSaving> entry : pane.getTopKs().entrySet()) {
+        topKs.put(entry.getKey(), entry.getValue().getTopK(topK));
+      }
+    }
+  }
+
+  public String getName() { return name; }
+  public void   setName(String name) { this.name = name; }
+
+  public String getKey() { return key; }
+  public void   setKey(String key) { this.key = key; }
+
+  public Date getWindowStart() { return windowStart; }
+  public void setWindowStart(Date windowStart) { this.windowStart = windowStart; }
+
+  public Date getWindowEnd() { return windowEnd; }
+  public void setWindowEnd(Date windowEnd) { this.windowEnd = windowEnd; }
+
+  public Map<String, Long> getCounts() { return counts; }
+  public void setCounts(Map<String, Long> counts) { this.counts = counts; }
+
+  public Map<String, Double> getSums() { return sums; }
+  public void setSums(Map<String, Double> sums) { this.sums = sums; }
+
+  public Map<String, Long> getDistincts() { return distincts; }
+  public void setDistincts(Map<String, Long> distincts) { this.distincts = distincts; }
+
+  public Map<String, List<SpaceSaving.Counter>> getTopKs() { return topKs; }
+  public void setTopKs(Map<String, List<SpaceSaving.Counter>> topKs) { this.topKs = topKs; }
+
+  public long count(String metric) {
+    if(counts == null || !counts.containsKey(metric)) return 0;
+    return counts.get(metric);
+  }
+
+  public double sum(String metric) {
+    if(sums == null || !sums.containsKey(metric)) return 0d;
+    return sums.get(metric);
+  }
+
+  public long distinct(String metric) {
+    if(distincts == null || !distincts.containsKey(metric)) return 0;
+    return distincts.get(metric);
+  }
+}
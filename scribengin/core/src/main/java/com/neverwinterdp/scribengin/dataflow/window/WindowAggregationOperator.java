@@ -0,0 +1,110 @@
+package com.neverwinterdp.scribengin.dataflow.window;
+
+import java.util.List;
+
+import com.neverwinterdp.message.Message;
+import com.neverwinterdp.scribengin.dataflow.DataStreamOperator;
+import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorContext;
+import com.neverwinterdp.scribengin.dataflow.KeyValueState;
+import com.neverwinterdp.util.JSONSerializer;
+
+/**
+ * An operator that aggregates the messages in tumbling or sliding event time windows and writes one pre-aggregated
+ * row per key and window, when the window is closed. The subclass aggregates a message into the panes of its keys:
+ * <pre>
+ * WindowPane pane = pane(visit.getTimestamp(), visit.getHost());
+ * if(pane != null) pane.count("visit").distinct("visitor", visit.getVisitorId()).topK("path", visit.getPath());
+ * </pre>
+ * The closed windows are written in onPreCommit, so they are committed with the input that closed them, and the open
+ * windows are saved to the key value state of the operator with the same commit. On rollback the windows are
+ * reloaded from the state, the messages after the last commit are read and aggregated again.
+ * <p/>
+ * The aggregates are written without the message tracking, the tracking of a message ends at this operator unless
+ * the message is forwarded to the forward output, a null dev output for example.
+ */
+abstract public class WindowAggregationOperator extends DataStreamOperator {
+  final static public String STATE_NAME = "windows";
+
+  private WindowAggregator aggregator;
+  private KeyValueState    state;
+  private String           aggregateOutput;
+  private String           forwardOutput;
+
+  /**
+   * @param windowSize the window size in ms
+   * @param slideSize  the interval between the window starts in ms, the window size for the tumbling windows
+   */
+  protected WindowAggregationOperator(long windowSize, long slideSize) {
+    aggregator = new WindowAggregator(null, windowSize, slideSize);
+  }
+
+  protected WindowAggregator getAggregator() { return aggregator; }
+
+  /**
+   * @param name the output of the aggregates, all the outputs when it is not set
+   */
+  protected void setAggregateOutput(String name) { this.aggregateOutput = name; }
+
+  /**
+   * @param name the output that the aggregated messages are written to, the messages are not forwarded when it is
+   *        not set
+   */
+  protected void setForwardOutput(String name) { this.forwardOutput = name; }
+
+  @Override
+  public void onInit(DataStreamOperatorContext ctx) throws Exception {
+    aggregator.setName(ctx.getDescriptor().getOperatorName());
+    state = ctx.getKeyValueState(STATE_NAME);
+    aggregator.load(state);
+  }
+
+  @Override
+  final public void process(DataStreamOperatorContext ctx, Message message) throws Exception {
+    aggregate(ctx, message);
+    if(forwardOutput != null) ctx.write(forwardOutput, message);
+  }
+
+  @Override
+  final public void processBatch(DataStreamOperatorContext ctx, Message[] messages) throws Exception {
+    for(int i = 0; i < messages.length; i++) {
+      aggregate(ctx, messages[i]);
+    }
+    if(forwardOutput != null) ctx.write(forwardOutput, messages);
+  }
+
+  /**
+   * Aggregate the message into the panes of its keys, see {@link #pane(long, String)}.
+   */
+  abstract protected void aggregate(DataStreamOperatorContext ctx, Message message) throws Exception;
+
+  /**
+   * @return the pane of the key at the event time or null if the message is late
+   */
+  protected WindowPane pane(long timestamp, String key) {
+    return aggregator.pane(timestamp, key);
+  }
+
+  @Override
+  public void onPreCommit(DataStreamOperatorContext ctx) throws Exception {
+    List<WindowAggregate> aggregates = aggregator.closeWindows();
+    for(int i = 0; i < aggregates.size(); i++) {
+      emit(ctx, aggregates.get(i));
+    }
+    aggregator.save(state);
+  }
+
+  @Override
+  public void onRollback(DataStreamOperatorContext ctx) throws Exception {
+    aggregator.load(state);
+  }
+
+  /**
+   * Write the aggregate of a closed window as a json row, the subclass can override this method to write its own row.
+   */
+  protected void emit(DataStreamOperatorContext ctx, WindowAggregate aggregate) throws Exception {
+    String key = aggregate.getName() + ":" + aggregate.getKey() + ":" + aggregate.getWindowStart().getTime();
+    Message message = new Message(key, JSONSerializer.INSTANCE.toBytes(aggregate));
+    if(aggregateOutput != null) ctx.write(aggregateOutput, message);
+    else ctx.write(message);
+  }
+}
@@ -0,0 +1,215 @@
+package com.neverwinterdp.scribengin.dataflow.window;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.neverwinterdp.scribengin.dataflow.KeyValueState;
+import com.neverwinterdp.util.io.IOUtil;
+
+/**
+ * Aggregate the messages in the event time windows of windowSize, a window starts every slideSize. The tumbling
+ * windows have the slide size equal to the window size. The metrics are aggregated in the panes of slideSize and
+ * the panes of a window are merged when the window is closed, a message is aggregated once whatever the number of
+ * the windows it belongs to.
+ * <p/>
+ * The watermark is the max event time that is seen, a window is closed when its end is before the watermark minus
+ * the allowed lateness, a closed window is emitted once and its panes are dropped when no open window overlaps
+ * them. A message is late when all the windows of its pane are closed, a late message is counted and dropped.
+ * <p/>
+ * The panes that are changed and dropped since the last save are written to the key value state with the watermark
+ * and the next window start, so the open windows are restored after a rollback or a task reassignment.
+ */
+public class WindowAggregator {
+  final static public int DEFAULT_DISTINCT_PRECISION = 10;
+  final static public int DEFAULT_TOPK_CAPACITY      = 100;
+  final static public int DEFAULT_TOPK               = 10;
+  final static String     META_KEY                   = "meta";
+
+  private String name;
+  private long   windowSize;
+  private long   slideSize;
+  private long   allowedLateness;
+  private int    distinctPrecision = DEFAULT_DISTINCT_PRECISION;
+  private int    topKCapacity      = DEFAULT_TOPK_CAPACITY;
+  private int    topK              = DEFAULT_TOPK;
+
+  private TreeMap<Long, Map<String, WindowPane>> panes           = new TreeMap<>();
+  private Set<WindowPane>                        changedPanes    = new HashSet<>();
+  private List<String>                           droppedPanes    = new ArrayList<>();
+  private long                                   watermark       = Long.MIN_VALUE;
+  private long                                   nextWindowStart = Long.MIN_VALUE;
+  private long                                   lateCount;
+
+  public WindowAggregator(String name, long windowSize, long slideSize) {
+    if(windowSize <= 0 || slideSize <= 0 || windowSize % slideSize != 0) {
+      throw new IllegalArgumentException("The window size should be a multiple of the slide size");
+    }
+    this.name       = name;
+    this.windowSize = windowSize;
+    this.slideSize  = slideSize;
+  }
+
+  public String getName() { return name; }
+  public void setName(String name) { this.name = name; }
+
+  public long getWindowSize() { return windowSize; }
+
+  public long getSlideSize() { return slideSize; }
+
+  public long getAllowedLateness() { return allowedLateness; }
+  public void setAllowedLateness(long allowedLateness) { this.allowedLateness = allowedLateness; }
+
+  public void setDistinctPrecision(int precision) { this.distinctPrecision = precision; }
+
+  /**
+   * @param topK     the number of the top items that are emitted
+   * @param capacity the number of the items that are counted, the larger the capacity the more accurate the top k
+   */
+  public void setTopK(int topK, int capacity) {
+    this.topK         = topK;
+    this.topKCapacity = capacity;
+  }
+
+  public long getWatermark() { return watermark; }
+
+  public long getLateCount() { return lateCount; }
+
+  public int getPaneCount() { return panes.size(); }
+
+  /**
+   * Get or create the pane of the key at the event time.
+   * @return the pane or null if the message is late
+   */
+  public WindowPane pane(long timestamp, String key) {
+    if(timestamp > watermark) watermark = timestamp;
+    long paneStart = timestamp - (((timestamp % slideSize) + slideSize) % slideSize);
+    if(paneStart < nextWindowStart) {
+      lateCount++;
+      return null;
+    }
+    Map<String, WindowPane> keyPanes = panes.get(paneStart);
+    if(keyPanes == null) {
+      keyPanes = new HashMap<>();
+      panes.put(paneStart, keyPanes);
+    }
+    WindowPane pane = keyPanes.get(key);
+    if(pane == null) {
+      pane = new WindowPane(key, paneStart, distinctPrecision, topKCapacity);
+      keyPanes.put(key, pane);
+    }
+    changedPanes.add(pane);
+    return pane;
+  }
+
+  /**
+   * Close the windows that end before the watermark minus the allowed lateness, the windows without message are
+   * skipped.
+   * @return the aggregates of the keys of the closed windows
+   */
+  public List<WindowAggregate> closeWindows() {
+    List<WindowAggregate> holder = new ArrayList<>();
+    long closeTime = watermark - allowedLateness;
+    long start = nextWindowStart;
+    while(!panes.isEmpty()) {
+      long firstWindowStart = panes.firstKey() - windowSize + slideSize;
+      if(start < firstWindowStart) start = firstWindowStart;
+      if(start + windowSize > closeTime) break;
+      SortedMap<Long, Map<String, WindowPane>> windowPanes = panes.subMap(start, start + windowSize);
+      Map<String, WindowPane> merged = new LinkedHashMap<>();
+      for(Map<String, WindowPane> keyPanes : windowPanes.values()) {
+        for(WindowPane pane : keyPanes.values()) {
+          WindowPane mergedPane = merged.get(pane.getKey());
+          if(mergedPane == null) {
+            mergedPane = new WindowPane(pane.getKey(), start, distinctPrecision, topKCapacity);
+            merged.put(pane.getKey(), mergedPane);
+          }
+          mergedPane.merge(pane);
+        }
+      }
+      for(WindowPane pane : merged.values()) {
+        holder.add(new WindowAggregate(name, start, start + windowSize, pane, topK));
+      }
+      start += slideSize;
+      dropPanes(start);
+    }
+    if(start > nextWindowStart) nextWindowStart = start;
+    return holder;
+  }
+
+  /**
+   * Drop the panes that start before the next window start, no open window overlaps them.
+   */
+  void dropPanes(long nextWindowStart) {
+    while(!panes.isEmpty() && panes.firstKey() < nextWindowStart) {
+      Map<String, WindowPane> keyPanes = panes.remove(panes.firstKey());
+      for(WindowPane pane : keyPanes.values()) {
+        changedPanes.remove(pane);
+        droppedPanes.add(toStateKey(pane));
+      }
+    }
+  }
+
+  /**
+   * Write the changed and the dropped panes since the last save to the state.
+   */
+  public void save(KeyValueState state) throws Exception {
+    for(String stateKey : droppedPanes) {
+      state.remove(stateKey);
+    }
+    for(WindowPane pane : changedPanes) {
+      state.put(toStateKey(pane), IOUtil.serialize(pane));
+    }
+    droppedPanes.clear();
+    changedPanes.clear();
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bos);
+    out.writeLong(watermark);
+    out.writeLong(nextWindowStart);
+    out.writeLong(lateCount);
+    out.close();
+    state.put(META_KEY, bos.toByteArray());
+  }
+
+  /**
+   * Discard the panes in memory and load the panes of the state.
+   */
+  public void load(KeyValueState state) throws Exception {
+    panes.clear();
+    changedPanes.clear();
+    droppedPanes.clear();
+    watermark       = Long.MIN_VALUE;
+    nextWindowStart = Long.MIN_VALUE;
+    lateCount       = 0;
+    for(String stateKey : state.keys()) {
+      byte[] bytes = state.get(stateKey);
+      if(META_KEY.equals(stateKey)) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        watermark       = in.readLong();
+        nextWindowStart = in.readLong();
+        lateCount       = in.readLong();
+        continue;
+      }
+      WindowPane pane = (WindowPane) IOUtil.deserialize(bytes);
+      Map<String, WindowPane> keyPanes = panes.get(pane.getStartTime());
+      if(keyPanes == null) {
+        keyPanes = new HashMap<>();
+        panes.put(pane.getStartTime(), keyPanes);
+      }
+      keyPanes.put(pane.getKey(), pane);
+    }
+  }
+
+  static String toStateKey(WindowPane pane) { return pane.getStartTime() + "/" + pane.getKey(); }
+}
@@ -0,0 +1,117 @@
+package com.neverwinterdp.scribengin.dataflow.window;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.neverwinterdp.yara.sketch.HyperLogLog;
+import com.neverwinterdp.yara.sketch.SpaceSaving;
+
+/**
+ * The aggregated metrics of a key in a pane, the slide size interval of the time. A window is the merge of the
+ * panes of the window, a pane is shared by the windowSize/slideSize windows that overlap it. The distinct and the
+ * top-k metrics are kept in mergeable sketches, so the memory of a pane does not grow with the number of messages.
+ */
+public class WindowPane implements Serializable {
+  private String                   key;
+  private long                     startTime;
+  private int                      distinctPrecision;
+  private int                      topKCapacity;
+  private Map<String, Long>        counts;
+  private Map<String, Double>      sums;
+  private Map<String, HyperLogLog> distincts;
+  private Map<String, SpaceSaving> topKs;
+
+  public WindowPane(String key, long startTime, int distinctPrecision, int topKCapacity) {
+    this.key               = key;
+    this.startTime         = startTime;
+    this.distinctPrecision = distinctPrecision;
+    this.topKCapacity      = topKCapacity;
+  }
+
+  public String getKey() { return key; }
+
+  public long getStartTime() { return startTime; }
+
+  public Map<String, Long> getCounts() { return counts; }
+
+  public Map<String, Double> getSums() { return sums; }
+
+  public Map<String, HyperLogLog> getDistincts() { return distincts; }
+
+  public Map<String, SpaceSaving> getTopKs() { return topKs; }
+
+  public WindowPane count(String metric) { return count(metric, 1); }
+
+  public WindowPane count(String metric, long n) {
+    if(counts == null) counts = new HashMap<>();
+    Long count = counts.get(metric);
+    counts.put(metric, count == null ? n : count + n);
+    return this;
+  }
+
+  public WindowPane sum(String metric, double value) {
+    if(sums == null) sums = new HashMap<>();
+    Double sum = sums.get(metric);
+    sums.put(metric, sum == null ? value : sum + value);
+    return this;
+  }
+
+  public WindowPane distinct(String metric, String value) {
+    if(distincts == null) distincts = new HashMap<>();
+    HyperLogLog hll = distincts.get(metric);
+    if(hll == null) {
+      hll = new HyperLogLog(distinctPrecision);
+      distincts.put(metric, hll);
+    }
+    hll.offer(value);
+    return this;
+  }
+
+  public WindowPane topK(String metric, String item) { return topK(metric, item, 1); }
+
+  public WindowPane topK(String metric, String item, long n) {
+    if(topKs == null) topKs = new HashMap<>();
+    SpaceSaving topK = topKs.get(metric);
+    if(topK == null) {
+      topK = new SpaceSaving(topKCapacity);
+      topKs.put(metric, topK);
+    }
+    topK.offer(item, n);
+    return this;
+  }
+
+  /**
+   * Add the metrics of the other pane of the same key to this pane.
+   */
+  public void merge(WindowPane other) {
+    if(other.counts != null) {
+      for(Map.Entry<String, Long> entry : other.counts.entrySet()) count(entry.getKey(), entry.getValue());
+    }
+    if(other.sums != null) {
+      for(Map.Entry<String, Double> entry : other.sums.entrySet()) sum(entry.getKey(), entry.getValue());
+    }
+    if(other.distincts != null) {
+      if(distincts == null) distincts = new HashMap<>();
+      for(Map.Entry<String, HyperLogLog> entry : other.distincts.entrySet()) {
+        HyperLogLog hll = distincts.get(entry.getKey());
+        if(hll == null) {
+          hll = new HyperLogLog(distinctPrecision);
+          distincts.put(entry.getKey(), hll);
+        }
+        hll.merge(entry.getValue());
+      }
+    }
+    if(other.topKs != null) {
+      if(topKs == null) topKs = new HashMap<>();
+      for(Map.Entry<String, SpaceSaving> entry : other.topKs.entrySet()) {
+        SpaceSaving topK = topKs.get(entry.getKey());
+        if(topK == null) {
+          topK = new SpaceSaving(topKCapacity);
+          topKs.put(entry.getKey(), topK);
+        }
+        topK.merge(entry.getValue());
+      }
+    }
+  }
+}
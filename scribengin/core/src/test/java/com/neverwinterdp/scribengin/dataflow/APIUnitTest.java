@@ -1,5 +1,8 @@
 package com.neverwinterdp.scribengin.dataflow;
 
+import java.util.Map;
+
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.neverwinterdp.scribengin.dataflow.Dataflow;
@@ -7,6 +10,7 @@ import com.neverwinterdp.scribengin.dataflow.DataflowDescriptor;
 import com.neverwinterdp.scribengin.dataflow.Operator;
 import com.neverwinterdp.scribengin.dataflow.tracking.TrackingMessagePersister;
 import com.neverwinterdp.scribengin.dataflow.tracking.TrackingMessageSplitter;
+import com.neverwinterdp.storage.StorageConfig;
 import com.neverwinterdp.storage.kafka.KafkaStorageConfig;
 import com.neverwinterdp.util.JSONSerializer;
 
@@ -41,6 +45,56 @@ public class APIUnitTest {
     System.out.println(JSONSerializer.INSTANCE.toString(testDflConfig));
   }
   
+  @Test
+  public void testOperatorFusion() throws Exception {
+    Dataflow dfl = new Dataflow("dataflow");
+    dfl.useWireDataSetFactory(new KafkaWireDataSetFactory("127.0.0.1:2181")).setOperatorFusion(true);
+    KafkaDataSet<Message> inputDs = 
+      dfl.createInput(new KafkaStorageConfig("input", "127.0.0.1:2181", "input"));
+    KafkaDataSet<Message> otherInputDs = 
+      dfl.createInput(new KafkaStorageConfig("other-input", "127.0.0.1:2181", "other-input"));
+    KafkaDataSet<Message> aggregateDs = 
+      dfl.createOutput(new KafkaStorageConfig("aggregate", "127.0.0.1:2181", "aggregate"));
+   
+    Operator splitterOp = dfl.createOperator("splitter", TrackingMessageSplitter.class);
+    Operator infoOp     = dfl.createOperator("info",     TrackingMessagePersister.class);
+    Operator warnOp     = dfl.createOperator("warn",     TrackingMessagePersister.class);
+    Operator routerOp   = dfl.createOperator("router",   TrackingMessageSplitter.class);
+    Operator errorOp    = dfl.createOperator("error",    TrackingMessagePersister.class);
+
+    inputDs.connect(splitterOp);
+    splitterOp.connect(infoOp).connect(warnOp);
+    //the router has 2 inputs, the partition of its output is written by 2 tasks
+    warnOp.connect(routerOp);
+    otherInputDs.connect(routerOp);
+    routerOp.connect(errorOp);
+    
+    infoOp.connect(aggregateDs);
+    errorOp.connect(aggregateDs);
+    
+    DataflowDescriptor dflDescriptor = dfl.buildDataflowDescriptor();
+    System.out.println(JSONSerializer.INSTANCE.toString(dflDescriptor));
+    Map<String, StorageConfig> streams = dflDescriptor.getStreamConfig().getStreams();
+    Assert.assertFalse(streams.containsKey("splitter-to-info"));
+    Assert.assertFalse(streams.containsKey("splitter-to-warn"));
+    Assert.assertTrue(streams.containsKey("warn-to-router"));
+    Assert.assertTrue(streams.containsKey("router-to-error"));
+    
+    Map<String, OperatorDescriptor> operators = dflDescriptor.getOperators();
+    Assert.assertEquals(2, operators.get("splitter").getFusedOutputs().size());
+    Assert.assertFalse(operators.get("splitter").isFused());
+    Assert.assertTrue(operators.get("info").isFused());
+    Assert.assertTrue(operators.get("warn").isFused());
+    Assert.assertFalse(operators.get("router").isFused());
+    Assert.assertEquals(0, operators.get("router").getFusedOutputs().size());
+    Assert.assertFalse(operators.get("error").isFused());
+    
+    dfl.setOperatorFusion(false);
+    dflDescriptor = dfl.buildDataflowDescriptor();
+    Assert.assertTrue(dflDescriptor.getStreamConfig().getStreams().containsKey("splitter-to-info"));
+    Assert.assertFalse(dflDescriptor.getOperators().get("info").isFused());
+  }
+  
   static public class Message {
     private int    id;
     private String message;
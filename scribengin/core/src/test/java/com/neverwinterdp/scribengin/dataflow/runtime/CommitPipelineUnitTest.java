@@ -0,0 +1,71 @@
+package com.neverwinterdp.scribengin.dataflow.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CommitPipelineUnitTest {
+
+  @Test
+  public void testCommitOrder() throws Exception {
+    CommitPipeline pipeline = new CommitPipeline("test", 2);
+    List<Integer> committed = new ArrayList<>();
+    for(int i = 0; i < 100; i++) {
+      pipeline.submit(new RecordCommit(committed, i, false));
+    }
+    pipeline.close();
+    Assert.assertEquals(100, committed.size());
+    for(int i = 0; i < committed.size(); i++) {
+      Assert.assertEquals(i, committed.get(i).intValue());
+    }
+  }
+
+  @Test
+  public void testCommitFailure() throws Exception {
+    CommitPipeline pipeline = new CommitPipeline("test", 3);
+    List<Integer> committed = new ArrayList<>();
+    pipeline.submit(new RecordCommit(committed, 0, false));
+    pipeline.submit(new RecordCommit(committed, 1, true));
+    pipeline.submit(new RecordCommit(committed, 2, false));
+    try {
+      pipeline.drain();
+      Assert.fail("Expect the failure of the commit 1");
+    } catch(Exception ex) {
+    }
+    //the commit after the failed commit is skipped
+    Assert.assertEquals(1, committed.size());
+    try {
+      pipeline.submit(new RecordCommit(committed, 3, false));
+      Assert.fail("Expect the failure until the pipeline is reset");
+    } catch(Exception ex) {
+    }
+    pipeline.reset();
+    pipeline.submit(new RecordCommit(committed, 4, false));
+    pipeline.close();
+    Assert.assertEquals(2, committed.size());
+    Assert.assertEquals(4, committed.get(1).intValue());
+  }
+
+  static class RecordCommit implements Callable<Void> {
+    private List<Integer> committed;
+    private int           id;
+    private boolean       fail;
+
+    RecordCommit(List<Integer> committed, int id, boolean fail) {
+      this.committed = committed;
+      this.id        = id;
+      this.fail      = fail;
+    }
+
+    @Override
+    public Void call() throws Exception {
+      Thread.sleep(1);
+      if(fail) throw new Exception("Commit " + id + " fail");
+      synchronized(committed) { committed.add(id); }
+      return null;
+    }
+  }
+}
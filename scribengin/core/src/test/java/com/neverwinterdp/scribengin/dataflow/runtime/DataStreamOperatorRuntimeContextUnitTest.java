@@ -0,0 +1,174 @@
+package com.neverwinterdp.scribengin.dataflow.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.neverwinterdp.message.Message;
+import com.neverwinterdp.registry.Registry;
+import com.neverwinterdp.registry.RegistryConfig;
+import com.neverwinterdp.scribengin.dataflow.DataStreamOperator;
+import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorContext;
+import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorDescriptor;
+import com.neverwinterdp.scribengin.dataflow.DataflowDescriptor;
+import com.neverwinterdp.storage.Storage;
+import com.neverwinterdp.storage.local.LocalStorageConfig;
+import com.neverwinterdp.storage.sink.SinkPartitionStreamWriter;
+import com.neverwinterdp.storage.source.SourcePartitionStreamReader;
+import com.neverwinterdp.util.io.FileUtil;
+import com.neverwinterdp.util.log.LoggerFactory;
+import com.neverwinterdp.zookeeper.tool.server.EmbededZKServerSet;
+
+/**
+ * Run a splitter operator with a fused persister operator on the local storage, the way the task slot executor does,
+ * and fail the fused operator once in the middle of a batch.
+ */
+public class DataStreamOperatorRuntimeContextUnitTest {
+  final static String WORKING_DIR     = "build/working";
+  final static int    NUM_OF_RECORDS  = 100;
+  final static int    READ_BATCH_SIZE = 10;
+  final static String FAIL_KEY        = "key-55";
+
+  private EmbededZKServerSet zkCluster;
+  private Registry           registry;
+  private LocalWorkerService workerService;
+
+  @BeforeClass
+  static public void beforeClass() throws Exception {
+    LoggerFactory.log4jUseConsoleOutputConfig("WARN");
+  }
+
+  @Before
+  public void setup() throws Exception {
+    FileUtil.removeIfExist(WORKING_DIR, false);
+    zkCluster = new EmbededZKServerSet(WORKING_DIR + "/zookeeper", 2181, 1);
+    zkCluster.start();
+    registry = RegistryConfig.getDefault().newInstance().connect();
+    workerService = new LocalWorkerService(registry, new DataflowDescriptor("fused", "fused"));
+    PersisterOperator.reset();
+  }
+
+  @After
+  public void teardown() throws Exception {
+    registry.shutdown();
+    zkCluster.shutdown();
+  }
+
+  @Test
+  public void testFusedRollback() throws Exception {
+    Storage input = createLocalStream("input");
+    Storage splitterOutput = createLocalStream("splitter-output");
+    Storage persisterOutput = createLocalStream("persister-output");
+    SinkPartitionStreamWriter writer = input.getSink().getPartitionStream(0).getWriter();
+    for(int i = 0; i < NUM_OF_RECORDS; i++) {
+      writer.append(Message.create("key-" + i, ("record " + i).getBytes()));
+    }
+    writer.commit();
+    writer.close();
+
+    DataStreamOperatorDescriptor descriptor =
+      LocalWorkerService.newDescriptor("splitter:input-0000", "splitter", SplitterOperator.class, "input", "splitter-output", "persist");
+    DataStreamOperatorDescriptor fusedDescriptor =
+      LocalWorkerService.newDescriptor("splitter:input-0000/persister", "persister", PersisterOperator.class, "persist", "persister-output");
+    descriptor.getFusedOperators().add(fusedDescriptor);
+    DataStreamOperatorRuntimeContext context = workerService.createContext(descriptor);
+    SplitterOperator splitter = new SplitterOperator();
+    splitter.onInit(context);
+
+    int readCount = 0, rollbackCount = 0;
+    while(true) {
+      Message[] messages = context.nextMessages(READ_BATCH_SIZE, 100);
+      if(messages.length == 0) break;
+      readCount += messages.length;
+      try {
+        splitter.processBatch(context, messages);
+        context.commit();
+      } catch(Exception ex) {
+        context.rollback();
+        splitter.onRollback(context);
+        rollbackCount++;
+      }
+    }
+    context.close();
+
+    Assert.assertEquals(1, rollbackCount);
+    Assert.assertEquals(1, PersisterOperator.rollbackCount);
+    Assert.assertEquals(NUM_OF_RECORDS / READ_BATCH_SIZE, PersisterOperator.postCommitCount);
+    //the batch of the failed record is read again from the last commit
+    Assert.assertEquals(NUM_OF_RECORDS + READ_BATCH_SIZE, readCount);
+    //key-50 to key-55 are processed by the fused operator before the failure
+    Assert.assertEquals(NUM_OF_RECORDS + 6, PersisterOperator.processCount);
+
+    //the records of the failed batch that are written before the failure are rolled back in both outputs
+    assertKeys(splitterOutput);
+    assertKeys(persisterOutput);
+  }
+
+  Storage createLocalStream(String name) throws Exception {
+    LocalStorageConfig storageConfig = new LocalStorageConfig(name, WORKING_DIR + "/storage");
+    storageConfig.setPartitionStream(1);
+    return workerService.createStream(name, storageConfig);
+  }
+
+  void assertKeys(Storage storage) throws Exception {
+    SourcePartitionStreamReader reader =
+      storage.getSource().getLatestSourcePartition().getPartitionStream(0).getReader("verify");
+    List<String> keys = new ArrayList<>();
+    Message message = null;
+    while((message = reader.next(1000)) != null) {
+      keys.add(message.getKey());
+    }
+    reader.close();
+    Assert.assertEquals(NUM_OF_RECORDS, keys.size());
+    for(int i = 0; i < NUM_OF_RECORDS; i++) {
+      Assert.assertEquals("key-" + i, keys.get(i));
+    }
+  }
+
+  static public class SplitterOperator extends DataStreamOperator {
+    @Override
+    public void process(DataStreamOperatorContext ctx, Message record) throws Exception {
+      ctx.write("splitter-output", record);
+      ctx.write("persist", record);
+    }
+  }
+
+  static public class PersisterOperator extends DataStreamOperator {
+    static int     processCount;
+    static int     postCommitCount;
+    static int     rollbackCount;
+    static boolean failed;
+
+    static void reset() {
+      processCount = 0;
+      postCommitCount = 0;
+      rollbackCount = 0;
+      failed = false;
+    }
+
+    @Override
+    public void onPostCommit(DataStreamOperatorContext ctx) throws Exception {
+      postCommitCount++;
+    }
+
+    @Override
+    public void onRollback(DataStreamOperatorContext ctx) throws Exception {
+      rollbackCount++;
+    }
+
+    @Override
+    public void process(DataStreamOperatorContext ctx, Message record) throws Exception {
+      processCount++;
+      if(!failed && FAIL_KEY.equals(record.getKey())) {
+        failed = true;
+        throw new Exception("Simulate a failure of the fused operator at " + record.getKey());
+      }
+      ctx.write("persister-output", record);
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package com.neverwinterdp.scribengin.dataflow.runtime;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.neverwinterdp.util.io.FileUtil;
+
+public class KeyValueStateManagerUnitTest {
+  final static String WORKING_DIR    = "build/working";
+  final static String CHECKPOINT_DIR = WORKING_DIR + "/checkpoint";
+
+  private FileSystem fs;
+
+  @Before
+  public void setup() throws Exception {
+    FileUtil.removeIfExist(WORKING_DIR, false);
+    fs = FileSystem.getLocal(new Configuration()).getRaw();
+  }
+
+  @Test
+  public void testCheckpointAndRestore() throws Exception {
+    KeyValueStateManager manager = createManager("worker-1");
+    MappedKeyValueState state = manager.getState("counter");
+    for(int i = 0; i < 10; i++) {
+      commit(manager, state, i);
+    }
+    Assert.assertEquals(10, state.size());
+    Assert.assertEquals(45, count(state, "key-0"));
+
+    //the changes after the last commit are discarded by the rollback
+    state.put("key-0", toBytes(1000));
+    state.put("key-uncommitted", toBytes(1));
+    state.remove("key-1");
+    manager.rollback();
+    Assert.assertEquals(10, state.size());
+    Assert.assertEquals(45, count(state, "key-0"));
+    Assert.assertFalse(state.contains("key-uncommitted"));
+    Assert.assertTrue(state.contains("key-1"));
+
+    //a committed remove
+    state.remove("key-9");
+    manager.completeCheckpoint(manager.prepareCheckpoint());
+
+    //the task is assigned to another worker
+    manager.close();
+    KeyValueStateManager otherManager = createManager("worker-2");
+    MappedKeyValueState restoredState = otherManager.getState("counter");
+    Assert.assertEquals(9, restoredState.size());
+    Assert.assertEquals(45, count(restoredState, "key-0"));
+    Assert.assertFalse(restoredState.contains("key-9"));
+    commit(otherManager, restoredState, 10);
+    Assert.assertEquals(55, count(restoredState, "key-0"));
+    otherManager.close();
+  }
+
+  @Test
+  public void testFullCheckpoint() throws Exception {
+    KeyValueStateManager manager = createManager("worker-1");
+    manager.setFullCheckpointPeriod(5);
+    MappedKeyValueState state = manager.getState("counter");
+    for(int i = 0; i < 12; i++) {
+      commit(manager, state, i);
+    }
+    //the full checkpoint 10 and the deltas 11
+    Assert.assertEquals(2, fs.listStatus(new Path(CHECKPOINT_DIR + "/counter")).length);
+    manager.close();
+
+    KeyValueStateManager otherManager = createManager("worker-2");
+    MappedKeyValueState restoredState = otherManager.getState("counter");
+    Assert.assertEquals(66, count(restoredState, "key-0"));
+    otherManager.close();
+  }
+
+  @Test
+  public void testLocalCompaction() throws Exception {
+    KeyValueStateManager manager = createManager("worker-1");
+    MappedKeyValueState state = manager.getState("large");
+    byte[] value = new byte[1024];
+    for(int i = 0; i < 10000; i++) {
+      value[0] = (byte) i;
+      state.put("key-" + (i % 100), value);
+    }
+    Assert.assertEquals(100, state.size());
+    Assert.assertTrue(state.getFileSize() < 3 * MappedKeyValueState.INITIAL_CAPACITY);
+    Assert.assertEquals((byte) 9999, state.get("key-99")[0]);
+    List<KeyValueStateManager.Checkpoint> checkpoints = manager.prepareCheckpoint();
+    Assert.assertEquals(1, checkpoints.size());
+    manager.close();
+  }
+
+  @Test
+  public void testFailedRename() throws Exception {
+    //a failed rename on hdfs returns false without an error
+    FileSystem failedRenameFs = new FilterFileSystem(fs) {
+      @Override
+      public boolean rename(Path src, Path dst) { return false; }
+    };
+    KeyValueStateManager manager = new KeyValueStateManager(failedRenameFs, CHECKPOINT_DIR, WORKING_DIR + "/worker-1");
+    MappedKeyValueState state = manager.getState("counter");
+    state.put("key-0", toBytes(1));
+    try {
+      manager.completeCheckpoint(manager.prepareCheckpoint());
+      Assert.fail("the checkpoint should fail");
+    } catch(IOException e) {
+    }
+    manager.close();
+  }
+
+  KeyValueStateManager createManager(String worker) {
+    return new KeyValueStateManager(fs, CHECKPOINT_DIR, WORKING_DIR + "/" + worker);
+  }
+
+  void commit(KeyValueStateManager manager, MappedKeyValueState state, int round) throws Exception {
+    for(int k = 0; k <= round; k++) {
+      String key = "key-" + k;
+      int current = state.contains(key) ? count(state, key) : 0;
+      state.put(key, toBytes(current + (k == 0 ? round : 1)));
+    }
+    manager.completeCheckpoint(manager.prepareCheckpoint());
+  }
+
+  int count(MappedKeyValueState state, String key) {
+    byte[] bytes = state.get(key);
+    return ((bytes[0] & 0xff) << 24) | ((bytes[1] & 0xff) << 16) | ((bytes[2] & 0xff) << 8) | (bytes[3] & 0xff);
+  }
+
+  byte[] toBytes(int value) {
+    return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value };
+  }
+}
@@ -0,0 +1,108 @@
+package com.neverwinterdp.scribengin.dataflow.runtime;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.neverwinterdp.registry.Registry;
+import com.neverwinterdp.registry.task.TaskExecutorDescriptor;
+import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorDescriptor;
+import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorReport;
+import com.neverwinterdp.scribengin.dataflow.DataflowDescriptor;
+import com.neverwinterdp.scribengin.dataflow.registry.DataflowRegistry;
+import com.neverwinterdp.scribengin.dataflow.runtime.worker.WorkerService;
+import com.neverwinterdp.storage.Storage;
+import com.neverwinterdp.storage.StorageConfig;
+import com.neverwinterdp.storage.StorageService;
+import com.neverwinterdp.storage.local.LocalStorage;
+import com.neverwinterdp.storage.nulldev.NullDevStorage;
+import com.neverwinterdp.yara.MetricRegistry;
+
+/**
+ * A worker service without the vm and the task executors, the dataflow registry is created on the given registry and
+ * the streams are on the local or null dev storage. It is used to create the runtime context of a task in a test.
+ */
+public class LocalWorkerService extends WorkerService {
+  private Logger                 logger         = LoggerFactory.getLogger(LocalWorkerService.class);
+  private DataflowRegistry       dflRegistry;
+  private LocalStorageService    storageService;
+  private MetricRegistry         metricRegistry = new MetricRegistry();
+  private TaskExecutorDescriptor taskExecutor   = new TaskExecutorDescriptor("local-executor", "local-worker");
+
+  public LocalWorkerService(Registry registry, DataflowDescriptor dflDescriptor) throws Exception {
+    dflRegistry = new DataflowRegistry(registry, dflDescriptor);
+    dflRegistry.initRegistry();
+    storageService = new LocalStorageService(registry);
+  }
+
+  @Override
+  public Logger getLogger() { return logger; }
+
+  @Override
+  public DataflowRegistry getDataflowRegistry() { return dflRegistry; }
+
+  @Override
+  public StorageService getStorageService() { return storageService; }
+
+  @Override
+  public MetricRegistry getMetricRegistry() { return metricRegistry; }
+
+  /**
+   * Create the storage of the stream if it does not exist and register the stream, the same as the dataflow master.
+   */
+  public Storage createStream(String name, StorageConfig storageConfig) throws Exception {
+    Storage storage = storageService.getStorage(storageConfig);
+    if(!storage.exists()) storage.create();
+    dflRegistry.getStreamRegistry().create(name, storageConfig, storage.getSink().getPartitionStreamConfigs());
+    return storage;
+  }
+
+  /**
+   * Offer the task to the task registry and create the runtime context of the task and of its fused operators.
+   */
+  public DataStreamOperatorRuntimeContext createContext(DataStreamOperatorDescriptor descriptor) throws Exception {
+    dflRegistry.getTaskRegistry().offer(descriptor);
+    DataStreamOperatorReport report = new DataStreamOperatorReport(descriptor.getTaskId(), descriptor.getOperatorName());
+    return new DataStreamOperatorRuntimeContext(this, taskExecutor, descriptor, report);
+  }
+
+  static public DataStreamOperatorDescriptor newDescriptor(String taskId, String opName, Class<?> opType, String input, String ... outputs) {
+    DataStreamOperatorDescriptor descriptor = new DataStreamOperatorDescriptor();
+    descriptor.setTaskId(taskId);
+    descriptor.setOperatorName(opName);
+    descriptor.setOperator(opType.getName());
+    descriptor.setInput(input);
+    descriptor.setInputPartitionId(0);
+    descriptor.setOutputs(new HashSet<String>());
+    for(String output : outputs) descriptor.getOutputs().add(output);
+    descriptor.setInterceptors(new HashSet<String>());
+    return descriptor;
+  }
+
+  static public class LocalStorageService extends StorageService {
+    private Registry                  registry;
+    private Map<String, LocalStorage> cacheLocalStorage = new HashMap<>();
+
+    public LocalStorageService(Registry registry) {
+      this.registry = registry;
+    }
+
+    @Override
+    synchronized public Storage getStorage(StorageConfig storageConfig) throws Exception {
+      if("local".equalsIgnoreCase(storageConfig.getType())) {
+        LocalStorage storage = cacheLocalStorage.get(storageConfig.getLocation());
+        if(storage == null) {
+          storage = new LocalStorage(registry, storageConfig);
+          cacheLocalStorage.put(storageConfig.getLocation(), storage);
+        }
+        return storage;
+      } else if("nulldev".equalsIgnoreCase(storageConfig.getType())) {
+        return new NullDevStorage(storageConfig);
+      }
+      throw new Exception("Unknown storage type " + storageConfig.getType());
+    }
+  }
+}
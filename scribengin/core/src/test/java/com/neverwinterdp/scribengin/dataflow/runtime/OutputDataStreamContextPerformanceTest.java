@@ -0,0 +1,119 @@
+package com.neverwinterdp.scribengin.dataflow.runtime;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.neverwinterdp.message.Message;
+import com.neverwinterdp.registry.Registry;
+import com.neverwinterdp.registry.RegistryConfig;
+import com.neverwinterdp.scribengin.dataflow.DataStreamOperator;
+import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorContext;
+import com.neverwinterdp.scribengin.dataflow.DataflowDescriptor;
+import com.neverwinterdp.storage.StorageConfig;
+import com.neverwinterdp.storage.local.LocalStorageConfig;
+import com.neverwinterdp.storage.nulldev.sink.NullDevSinkPartitionStreamWriter;
+import com.neverwinterdp.storage.sink.SinkPartitionStreamWriter;
+import com.neverwinterdp.util.io.FileUtil;
+import com.neverwinterdp.yara.Meter;
+import com.neverwinterdp.yara.MetricRegistry;
+import com.neverwinterdp.zookeeper.tool.server.EmbededZKServerSet;
+
+/**
+ * Measure the records/sec of the operator output path with N null dev outputs. The lookup path resolves the
+ * output by name and the sink meters by a concatenated name for every record, the way the runtime context
+ * did before the meters were resolved by the output context. The resolved path writes through the runtime context of
+ * a task with N null dev outputs.
+ */
+public class OutputDataStreamContextPerformanceTest {
+  final static String WORKING_DIR    = "build/working";
+  final static int    NUM_OF_RECORDS = 1000000;
+  final static int    MAX_OUTPUTS    = 5;
+
+  private EmbededZKServerSet zkCluster;
+  private Registry           registry;
+  private LocalWorkerService workerService;
+  private int                taskCount = 0;
+
+  @Before
+  public void setup() throws Exception {
+    FileUtil.removeIfExist(WORKING_DIR, false);
+    zkCluster = new EmbededZKServerSet(WORKING_DIR + "/zookeeper", 2181, 1);
+    zkCluster.start();
+    registry = RegistryConfig.getDefault().newInstance().connect();
+    workerService = new LocalWorkerService(registry, new DataflowDescriptor("perf", "perf"));
+    LocalStorageConfig inputConfig = new LocalStorageConfig("input", WORKING_DIR + "/storage");
+    inputConfig.setPartitionStream(1);
+    workerService.createStream("input", inputConfig);
+    for(int i = 0; i < MAX_OUTPUTS; i++) {
+      workerService.createStream("output-" + i, new StorageConfig("nulldev"));
+    }
+  }
+
+  @After
+  public void teardown() throws Exception {
+    registry.shutdown();
+    zkCluster.shutdown();
+  }
+
+  @Test
+  public void testWritePerformance() throws Exception {
+    Message message = Message.create("key", new byte[128]);
+    for(int round = 0; round < 2; round++) {
+      for(int numOfOutputs : new int[] { 1, 3, 5 }) {
+        runLookupPath(numOfOutputs, message);
+        runResolvedPath(numOfOutputs, message);
+      }
+    }
+  }
+
+  void runLookupPath(int numOfOutputs, Message message) throws Exception {
+    MetricRegistry metricRegistry = new MetricRegistry();
+    Map<String, SinkPartitionStreamWriter> writers = new HashMap<>();
+    for(int i = 0; i < numOfOutputs; i++) {
+      writers.put("output-" + i, new NullDevSinkPartitionStreamWriter(null, null));
+    }
+    long start = System.nanoTime();
+    for(int i = 0; i < NUM_OF_RECORDS; i++) {
+      for(String name : writers.keySet()) {
+        writers.get(name).append(message);
+        Meter meter = metricRegistry.getMeter("dataflow.sink." + name + ".throughput.byte", "byte") ;
+        meter.mark(message.getData().length + message.getKey().length());
+        Meter recordMetter = metricRegistry.getMeter("dataflow.sink." + name + ".throughput.record", "record") ;
+        recordMetter.mark(1);
+      }
+    }
+    report("lookup  ", numOfOutputs, System.nanoTime() - start);
+  }
+
+  void runResolvedPath(int numOfOutputs, Message message) throws Exception {
+    String[] outputs = new String[numOfOutputs];
+    for(int i = 0; i < numOfOutputs; i++) {
+      outputs[i] = "output-" + i;
+    }
+    //the input reader is registered by the operator name, each context has its own operator
+    String opName = "resolved-" + (taskCount++);
+    DataStreamOperatorRuntimeContext ctx = 
+      workerService.createContext(LocalWorkerService.newDescriptor(opName + ":input-0000", opName, NoopOperator.class, "input", outputs));
+    long start = System.nanoTime();
+    for(int i = 0; i < NUM_OF_RECORDS; i++) {
+      ctx.write(message);
+    }
+    report("resolved", numOfOutputs, System.nanoTime() - start);
+    ctx.close();
+  }
+
+  void report(String label, int numOfOutputs, long duration) {
+    long recordsPerSec = (long)(NUM_OF_RECORDS * 1000000000d / duration);
+    System.out.println(label + " outputs = " + numOfOutputs + ", records/sec = " + recordsPerSec);
+  }
+
+  static public class NoopOperator extends DataStreamOperator {
+    @Override
+    public void process(DataStreamOperatorContext ctx, Message record) throws Exception {
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.neverwinterdp.scribengin.dataflow.window;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.neverwinterdp.scribengin.dataflow.KeyValueState;
+
+public class WindowAggregatorUnitTest {
+  @Test
+  public void testTumblingWindow() throws Exception {
+    WindowAggregator aggregator = new WindowAggregator("visit", 1000, 1000);
+    for(int i = 0; i < 2500; i++) {
+      visit(aggregator, i, "www.website-" + (i % 2) + ".com", "visitor-" + (i % 100), "/page-" + (i % 3));
+    }
+    //the window [2000, 3000) is still open
+    List<WindowAggregate> aggregates = aggregator.closeWindows();
+    Assert.assertEquals(4, aggregates.size());
+    for(WindowAggregate aggregate : aggregates) {
+      Assert.assertEquals(500, aggregate.count("visit"));
+      Assert.assertEquals(1000, aggregate.getWindowEnd().getTime() - aggregate.getWindowStart().getTime());
+      Assert.assertTrue(Math.abs(aggregate.distinct("visitor") - 50) <= 2);
+      Assert.assertEquals(3, aggregate.getTopKs().get("path").size());
+    }
+    Assert.assertEquals(1, aggregator.getPaneCount());
+    //the closed windows are emitted once
+    Assert.assertEquals(0, aggregator.closeWindows().size());
+
+    //the messages of a closed window are late
+    Assert.assertNull(aggregator.pane(500, "www.website-0.com"));
+    Assert.assertEquals(1, aggregator.getLateCount());
+  }
+
+  @Test
+  public void testSlidingWindow() throws Exception {
+    WindowAggregator aggregator = new WindowAggregator("visit", 1000, 250);
+    for(int i = 0; i < 2000; i++) {
+      visit(aggregator, i, "www.website.com", "visitor-" + i, "/");
+    }
+    List<WindowAggregate> aggregates = aggregator.closeWindows();
+    //the windows that start at -750, -500, -250, 0, 250, 500 and 750 are closed
+    Assert.assertEquals(7, aggregates.size());
+    Assert.assertEquals(-750, aggregates.get(0).getWindowStart().getTime());
+    Assert.assertEquals(250, aggregates.get(0).count("visit"));
+    Assert.assertEquals(1000, aggregates.get(3).count("visit"));
+    Assert.assertEquals(1000, aggregates.get(6).count("visit"));
+    Assert.assertEquals(999 * 1000 / 2, aggregates.get(3).sum("spentTime"), 0.1);
+  }
+
+  @Test
+  public void testAllowedLateness() throws Exception {
+    WindowAggregator aggregator = new WindowAggregator("visit", 1000, 1000);
+    aggregator.setAllowedLateness(500);
+    visit(aggregator, 100, "host", "visitor-1", "/");
+    visit(aggregator, 1400, "host", "visitor-1", "/");
+    Assert.assertEquals(0, aggregator.closeWindows().size());
+    //the late message is in the allowed lateness
+    visit(aggregator, 200, "host", "visitor-2", "/");
+    visit(aggregator, 1600, "host", "visitor-1", "/");
+    List<WindowAggregate> aggregates = aggregator.closeWindows();
+    Assert.assertEquals(1, aggregates.size());
+    Assert.assertEquals(2, aggregates.get(0).count("visit"));
+    Assert.assertEquals(2, aggregates.get(0).distinct("visitor"));
+  }
+
+  @Test
+  public void testSaveAndLoad() throws Exception {
+    MemoryKeyValueState state = new MemoryKeyValueState();
+    WindowAggregator aggregator = new WindowAggregator("visit", 1000, 1000);
+    for(int i = 0; i < 1500; i++) {
+      visit(aggregator, i, "host", "visitor-" + i, "/");
+    }
+    Assert.assertEquals(1, aggregator.closeWindows().size());
+    aggregator.save(state);
+    //the closed pane is dropped from the state
+    Assert.assertEquals(2, state.size());
+
+    //the messages after the save are discarded by the load
+    for(int i = 1500; i < 3000; i++) {
+      visit(aggregator, i, "host", "visitor-" + i, "/");
+    }
+    aggregator.load(state);
+    Assert.assertEquals(1, aggregator.getPaneCount());
+    Assert.assertEquals(1499, aggregator.getWatermark());
+    Assert.assertNull(aggregator.pane(999, "host"));
+
+    for(int i = 1500; i < 2000; i++) {
+      visit(aggregator, i, "host", "visitor-" + i, "/");
+    }
+    visit(aggregator, 2000, "host", "visitor-2000", "/");
+    List<WindowAggregate> aggregates = aggregator.closeWindows();
+    Assert.assertEquals(1, aggregates.size());
+    Assert.assertEquals(1000, aggregates.get(0).count("visit"));
+    Assert.assertEquals(1000, aggregates.get(0).getWindowStart().getTime());
+  }
+
+  void visit(WindowAggregator aggregator, long timestamp, String host, String visitor, String path) {
+    WindowPane pane = aggregator.pane(timestamp, host);
+    if(pane == null) return;
+    pane.count("visit").sum("spentTime", timestamp % 1000).distinct("visitor", visitor).topK("path", path);
+  }
+
+  static public class MemoryKeyValueState implements KeyValueState {
+    private Map<String, byte[]> entries = new HashMap<>();
+
+    public String getName() { return "memory"; }
+
+    public byte[] get(String key) { return entries.get(key); }
+
+    public void put(String key, byte[] value) { entries.put(key, value); }
+
+    public void remove(String key) { entries.remove(key); }
+
+    public boolean contains(String key) { return entries.containsKey(key); }
+
+    public int size() { return entries.size(); }
+
+    public Set<String> keys() { return entries.keySet(); }
+  }
+}
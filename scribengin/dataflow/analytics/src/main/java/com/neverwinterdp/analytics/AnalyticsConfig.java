@@ -66,6 +66,9 @@ public class AnalyticsConfig {
   @Parameter(names = "--dataflow-num-of-executor-per-worker", description="")
   public int    dataflowNumOfExecutorPerWorker = 6;
   
+  @Parameter(names = "--dataflow-web-visit-aggregate", description="Write the webpage visits aggregated per host and minute instead of every visit")
+  public boolean dataflowWebVisitAggregate = false;
+  
   @Parameter(names = "--dataflow-ads-input-topic", description="")
   public String dataflowADSInputTopic = "ads.input";
   
@@ -10,6 +10,7 @@ import com.neverwinterdp.analytics.web.WebEvent;
 import com.neverwinterdp.analytics.web.WebEventJunkOperator;
 import com.neverwinterdp.analytics.web.WebEventOperator;
 import com.neverwinterdp.analytics.web.WebpageVisit;
+import com.neverwinterdp.analytics.web.WebpageVisitAggregateOperator;
 import com.neverwinterdp.message.TrackingWindowReport;
 import com.neverwinterdp.scribengin.ScribenginClient;
 import com.neverwinterdp.scribengin.dataflow.DataSet;
@@ -21,6 +22,7 @@ import com.neverwinterdp.scribengin.dataflow.KafkaDataSet;
 import com.neverwinterdp.scribengin.dataflow.KafkaWireDataSetFactory;
 import com.neverwinterdp.scribengin.dataflow.Operator;
 import com.neverwinterdp.scribengin.dataflow.registry.DataflowRegistry;
+import com.neverwinterdp.scribengin.dataflow.window.WindowAggregate;
 import com.neverwinterdp.scribengin.shell.ScribenginShell;
 import com.neverwinterdp.storage.es.ESStorageConfig;
 import com.neverwinterdp.storage.kafka.KafkaStorageConfig;
@@ -69,8 +71,15 @@ public class AanalyticsDataflowBuilder {
         new ESStorageConfig("odyssey.mouse-move", "analytics-odyssey-mouse-move", config.esAddresses, MouseMoveEvent.class);
     DataSet<WebEvent> esMouseMoveEventOutputDs = dfl.createOutput(esOdysseyMouseMoveEventOutputStorageConfig);
     
-    DataSet<WebEvent> esWebVisitDS = 
-      dfl.createOutput(new ESStorageConfig("web.visit", "analytics-webpage-visit", config.esAddresses, WebpageVisit.class));
+    DataSet<WebEvent> esWebVisitDS = null;
+    if(config.dataflowWebVisitAggregate) {
+      ESStorageConfig esWebVisitAggregateStorageConfig = 
+        new ESStorageConfig("web.visit.aggregate", "analytics-webpage-visit-aggregate", config.esAddresses, WindowAggregate.class);
+      esWebVisitDS = dfl.createOutput(esWebVisitAggregateStorageConfig);
+    } else {
+      esWebVisitDS = 
+        dfl.createOutput(new ESStorageConfig("web.visit", "analytics-webpage-visit", config.esAddresses, WebpageVisit.class));
+    }
     
     ESStorageConfig esADSOutputStorageConfig = 
         new ESStorageConfig("ads.output", "analytics-ads-unique-visitor", config.esAddresses, ADSEvent.class);
@@ -93,7 +102,14 @@ public class AanalyticsDataflowBuilder {
       connect(odysseyEventOp);
     
     webEventJunkOp.connect(nullDevDs);
-    webEventOp.connect(esWebVisitDS);
+    if(config.dataflowWebVisitAggregate) {
+      Operator webVisitAggregateOp = dfl.createOperator("web.aggregate", WebpageVisitAggregateOperator.class);
+      webEventOp.connect(webVisitAggregateOp);
+      webVisitAggregateOp.connect(esWebVisitDS);
+      webVisitAggregateOp.connect(nullDevDs);
+    } else {
+      webEventOp.connect(esWebVisitDS);
+    }
     
     adsStatisticOp.connect(esADSOutputDs);
     
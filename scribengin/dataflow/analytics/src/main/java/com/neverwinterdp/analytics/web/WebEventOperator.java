@@ -10,12 +10,22 @@ import com.neverwinterdp.scribengin.dataflow.DataStreamOperator;
 import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorContext;
 import com.neverwinterdp.util.JSONSerializer;
 import com.neverwinterdp.util.UrlParser;
+import com.neverwinterdp.yara.Cardinality;
+import com.neverwinterdp.yara.MetricRegistry;
+import com.neverwinterdp.yara.TopK;
 
 public class WebEventOperator extends DataStreamOperator {
   private MessageDigest md5Digest ;
   private HexBinaryAdapter hexBinaryAdapter = new HexBinaryAdapter();
+  private Cardinality uniqueVisitors ;
+  private TopK        topPages ;
+  
   public void onInit(DataStreamOperatorContext ctx) throws Exception {
     md5Digest = MessageDigest.getInstance("MD5");
+    //the worker metrics are merged across the workers in the dataflow info report
+    MetricRegistry mRegistry = ctx.getService(MetricRegistry.class);
+    uniqueVisitors = mRegistry.cardinality("analytics", "web", "unique-visitor");
+    topPages = mRegistry.topK("analytics", "web", "top-page");
   }
   
   public void onPostCommit(DataStreamOperatorContext ctx) throws Exception {
@@ -44,6 +54,8 @@ public class WebEventOperator extends DataStreamOperator {
     //wVisit.setVisitId(hexBinaryAdapter.marshal(bytes));
     wVisit.setVisitId(urlParser.getUrl() + "#" + wVisit.getVisitorId());
     
+    if(wVisit.getVisitorId() != null) uniqueVisitors.offer(wVisit.getVisitorId());
+    topPages.offer(wVisit.getHost() + wVisit.getPath());
     wVisit.logSpentTime(webEvent.getClientInfo().webpage.endVisitTime - webEvent.getClientInfo().webpage.startVisitTime);
     mesg.setData(JSONSerializer.INSTANCE.toBytes(wVisit));
     ctx.write(mesg);
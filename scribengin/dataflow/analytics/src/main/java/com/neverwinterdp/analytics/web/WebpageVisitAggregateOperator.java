@@ -0,0 +1,35 @@
+package com.neverwinterdp.analytics.web;
+
+import com.neverwinterdp.message.Message;
+import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorContext;
+import com.neverwinterdp.scribengin.dataflow.window.WindowAggregationOperator;
+import com.neverwinterdp.scribengin.dataflow.window.WindowPane;
+import com.neverwinterdp.util.JSONSerializer;
+
+/**
+ * Aggregate the webpage visits of a host per minute: the number of visits, the spent time, the unique visitors and
+ * the top visited paths. The visits are forwarded to the null dev output, so their tracking is completed.
+ */
+public class WebpageVisitAggregateOperator extends WindowAggregationOperator {
+  final static public long WINDOW_SIZE      = 60 * 1000l;
+  final static public long ALLOWED_LATENESS = 10 * 1000l;
+
+  public WebpageVisitAggregateOperator() {
+    super(WINDOW_SIZE, WINDOW_SIZE);
+    getAggregator().setAllowedLateness(ALLOWED_LATENESS);
+    setAggregateOutput("web.visit.aggregate");
+    setForwardOutput("nulldev");
+  }
+
+  @Override
+  protected void aggregate(DataStreamOperatorContext ctx, Message mesg) throws Exception {
+    WebpageVisit wVisit = JSONSerializer.INSTANCE.fromBytes(mesg.getData(), WebpageVisit.class);
+    WindowPane pane = pane(wVisit.getTimestamp().getTime(), wVisit.getHost());
+    if(pane == null) return;
+    pane.
+      count("visit").
+      sum("spentTime", wVisit.getSpentTime()).
+      distinct("visitor", wVisit.getVisitorId()).
+      topK("path", wVisit.getPath());
+  }
+}
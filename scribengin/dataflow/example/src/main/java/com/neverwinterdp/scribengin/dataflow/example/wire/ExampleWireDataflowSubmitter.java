@@ -19,6 +19,7 @@ public class ExampleWireDataflowSubmitter {
   private String dataflowID;
   private int defaultReplication;
   private int defaultParallelism;
+  private boolean operatorFusion;
   
   private int numOfWorker;
   private int numOfExecutorPerWorker;
@@ -52,6 +53,8 @@ public class ExampleWireDataflowSubmitter {
     defaultReplication = Integer.parseInt(props.getProperty("dataflow.replication", "1"));
     //The number of DataStreams to deploy 
     defaultParallelism = Integer.parseInt(props.getProperty("dataflow.parallelism", "2"));
+    //Run the odd and even operators in the tasks of the splitter, without the wire topics between them
+    operatorFusion = Boolean.parseBoolean(props.getProperty("dataflow.operatorFusion", "false"));
     
     //The number of workers to deploy (i.e. YARN containers)
     numOfWorker                = Integer.parseInt(props.getProperty("dataflow.numWorker", "5"));
@@ -120,6 +123,7 @@ public class ExampleWireDataflowSubmitter {
     dfl.
       setDefaultParallelism(defaultParallelism).
       setDefaultReplication(defaultReplication).
+      setOperatorFusion(operatorFusion).
       useWireDataSetFactory(new KafkaWireDataSetFactory(kafkaZkConnect));
     
     dfl.getWorkerDescriptor().setNumOfInstances(numOfWorker);
@@ -1,19 +1,42 @@
 package com.neverwinterdp.scribengin.dataflow.sample;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.neverwinterdp.message.Message;
 import com.neverwinterdp.scribengin.dataflow.DataStreamOperator;
 import com.neverwinterdp.scribengin.dataflow.DataStreamOperatorContext;
 import com.neverwinterdp.util.JSONSerializer;
 
 public class WebEventRouterOperator extends DataStreamOperator {
-  
   @Override
   public void process(DataStreamOperatorContext ctx, Message mesg) throws Exception {
-    WebEvent webEvent = JSONSerializer.INSTANCE.fromBytes(mesg.getData(), WebEvent.class) ;
-    if("Crawler".equals(webEvent.getAttributes().attribute("browser.family"))) {
+    if(isJunk(mesg)) {
       ctx.write("router-to-junk", mesg);
     } else {
       ctx.write("router-to-archive", mesg);
     }
   }
+  
+  @Override
+  public void processBatch(DataStreamOperatorContext ctx, Message[] mesgs) throws Exception {
+    List<Message> junkBuffer    = new ArrayList<>();
+    List<Message> archiveBuffer = new ArrayList<>();
+    for(int i = 0; i < mesgs.length; i++) {
+      if(isJunk(mesgs[i])) junkBuffer.add(mesgs[i]);
+      else archiveBuffer.add(mesgs[i]);
+    }
+    flush(ctx, "router-to-junk", junkBuffer);
+    flush(ctx, "router-to-archive", archiveBuffer);
+  }
+  
+  boolean isJunk(Message mesg) throws Exception {
+    WebEvent webEvent = JSONSerializer.INSTANCE.fromBytes(mesg.getData(), WebEvent.class) ;
+    return "Crawler".equals(webEvent.getAttributes().attribute("browser.family"));
+  }
+  
+  void flush(DataStreamOperatorContext ctx, String output, List<Message> buffer) throws Exception {
+    if(buffer.size() == 0) return;
+    ctx.write(output, buffer.toArray(new Message[buffer.size()]));
+  }
 }
\ No newline at end of file
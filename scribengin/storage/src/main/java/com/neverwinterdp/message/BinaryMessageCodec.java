@@ -0,0 +1,153 @@
+package com.neverwinterdp.message;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Length prefixed binary format of the message:
+ * <pre>
+ * magic(byte) version(byte)
+ * key(string) type(byte) data(int length, bytes)
+ * hasTracking(byte) [timestamp(long) windowId(int) trackingId(int) logs(int count, log...)]
+ * log = timestamp(long) name(string) source(int) tag(int count, string...)
+ * </pre>
+ * A string is an int length followed by the utf-8 bytes. A length or count of -1 and a type of -1 mean null.
+ * The magic byte is not a valid first byte of a json document, so the binary and the json messages can be mixed
+ * in the same stream. The version 1 log does not have the source.
+ */
+public class BinaryMessageCodec extends MessageCodec {
+  final static public byte    MAGIC   = (byte) 0xB5;
+  final static public byte    VERSION = 2;
+  final static private Charset UTF8   = Charset.forName("UTF-8");
+
+  final static private MessageType[] TYPES = MessageType.values();
+
+  @Override
+  public String getName() { return "binary"; }
+
+  @Override
+  public byte[] toBytes(Message message) throws IOException {
+    byte[] data = message.getData();
+    int estimateSize = 64 + (data != null ? data.length : 0);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(estimateSize);
+    DataOutputStream out = new DataOutputStream(bos);
+    out.writeByte(MAGIC);
+    out.writeByte(VERSION);
+    writeString(out, message.getKey());
+    MessageType type = message.getType();
+    out.writeByte(type != null ? type.ordinal() : -1);
+    if(data != null) {
+      out.writeInt(data.length);
+      out.write(data);
+    } else {
+      out.writeInt(-1);
+    }
+    MessageTracking tracking = message.getMessageTracking();
+    if(tracking != null) {
+      out.writeByte(1);
+      out.writeLong(tracking.getTimestamp());
+      out.writeInt(tracking.getWindowId());
+      out.writeInt(tracking.getTrackingId());
+      List<MessageTrackingLog> logs = tracking.getLogs();
+      if(logs != null) {
+        out.writeInt(logs.size());
+        for(int i = 0; i < logs.size(); i++) {
+          MessageTrackingLog log = logs.get(i);
+          out.writeLong(log.getTimestamp());
+          writeString(out, log.getName());
+          out.writeInt(log.getSource());
+          String[] tag = log.getTag();
+          if(tag != null) {
+            out.writeInt(tag.length);
+            for(int j = 0; j < tag.length; j++) writeString(out, tag[j]);
+          } else {
+            out.writeInt(-1);
+          }
+        }
+      } else {
+        out.writeInt(-1);
+      }
+    } else {
+      out.writeByte(0);
+    }
+    out.flush();
+    return bos.toByteArray();
+  }
+
+  @Override
+  public Message fromBytes(byte[] bytes) throws IOException {
+    if(!isBinary(bytes)) throw new IOException("The data is not in the binary message format");
+    ByteBuffer buf = ByteBuffer.wrap(bytes);
+    try {
+      buf.get(); //magic
+      byte version = buf.get();
+      if(version != VERSION && version != 1) throw new IOException("Unsupported binary message version " + version);
+      Message message = new Message();
+      message.setKey(readString(buf));
+      byte type = buf.get();
+      if(type >= 0) message.setType(TYPES[type]);
+      int dataLength = buf.getInt();
+      if(dataLength >= 0) {
+        byte[] data = new byte[dataLength];
+        buf.get(data);
+        message.setData(data);
+      }
+      if(buf.get() == 1) {
+        MessageTracking tracking = new MessageTracking();
+        tracking.setTimestamp(buf.getLong());
+        tracking.setWindowId(buf.getInt());
+        tracking.setTrackingId(buf.getInt());
+        int logCount = buf.getInt();
+        if(logCount >= 0) {
+          List<MessageTrackingLog> logs = new ArrayList<>(logCount);
+          for(int i = 0; i < logCount; i++) {
+            MessageTrackingLog log = new MessageTrackingLog();
+            log.setTimestamp(buf.getLong());
+            log.setName(readString(buf));
+            if(version > 1) log.setSource(buf.getInt());
+            int tagCount = buf.getInt();
+            if(tagCount >= 0) {
+              String[] tag = new String[tagCount];
+              for(int j = 0; j < tagCount; j++) tag[j] = readString(buf);
+              log.setTag(tag);
+            }
+            logs.add(log);
+          }
+          tracking.setLogs(logs);
+        }
+        message.setMessageTracking(tracking);
+      }
+      return message;
+    } catch(BufferUnderflowException | IndexOutOfBoundsException ex) {
+      throw new IOException("Corrupted binary message", ex);
+    }
+  }
+
+  static public boolean isBinary(byte[] bytes) {
+    return bytes != null && bytes.length > 1 && bytes[0] == MAGIC;
+  }
+
+  static void writeString(DataOutputStream out, String value) throws IOException {
+    if(value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(UTF8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  static String readString(ByteBuffer buf) {
+    int length = buf.getInt();
+    if(length < 0) return null;
+    String value = new String(buf.array(), buf.arrayOffset() + buf.position(), length, UTF8);
+    buf.position(buf.position() + length);
+    return value;
+  }
+}
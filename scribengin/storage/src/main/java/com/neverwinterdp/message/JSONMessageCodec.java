@@ -0,0 +1,19 @@
+package com.neverwinterdp.message;
+
+import com.neverwinterdp.util.JSONSerializer;
+
+public class JSONMessageCodec extends MessageCodec {
+
+  @Override
+  public String getName() { return "json"; }
+
+  @Override
+  public byte[] toBytes(Message message) {
+    return JSONSerializer.INSTANCE.toBytes(message);
+  }
+
+  @Override
+  public Message fromBytes(byte[] bytes) {
+    return JSONSerializer.INSTANCE.fromBytes(bytes, Message.class);
+  }
+}
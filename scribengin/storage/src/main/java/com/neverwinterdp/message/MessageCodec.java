@@ -0,0 +1,31 @@
+package com.neverwinterdp.message;
+
+import java.io.IOException;
+
+/**
+ * Encode and decode the {@link Message} for the storage and the wire. The codec is selected per stream
+ * with the {@link com.neverwinterdp.storage.StorageConfig#MESSAGE_CODEC} attribute. The reader does not
+ * need to know which codec was used, {@link #decode(byte[])} detects the binary format by its magic byte
+ * and fall back to json for the data that is written before the codec option is available.
+ */
+abstract public class MessageCodec {
+  final static public MessageCodec JSON   = new JSONMessageCodec();
+  final static public MessageCodec BINARY = new BinaryMessageCodec();
+
+  abstract public String getName() ;
+
+  abstract public byte[] toBytes(Message message) throws IOException ;
+
+  abstract public Message fromBytes(byte[] bytes) throws IOException ;
+
+  static public MessageCodec getCodec(String name) {
+    if(name == null || JSON.getName().equals(name)) return JSON;
+    if(BINARY.getName().equals(name)) return BINARY;
+    throw new IllegalArgumentException("Unknown message codec " + name);
+  }
+
+  static public Message decode(byte[] bytes) throws IOException {
+    if(BinaryMessageCodec.isBinary(bytes)) return BINARY.fromBytes(bytes);
+    return JSON.fromBytes(bytes);
+  }
+}
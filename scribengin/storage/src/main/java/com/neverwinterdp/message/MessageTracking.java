@@ -15,7 +15,6 @@ public class MessageTracking {
     this.timestamp  = System.currentTimeMillis();
     this.windowId    = windowId;
     this.trackingId = trackingId;
-    this.logs       = new ArrayList<>();
   }
   
   public long getTimestamp() { return timestamp; }
@@ -32,7 +31,11 @@ public class MessageTracking {
     this.logs = logs;
   }
   
+  /**
+   * The log list is created with the first log, most of the messages do not have a log when the logs are sampled.
+   */
   public void add(MessageTrackingLog tag) {
+    if(logs == null) logs = new ArrayList<>(4);
     logs.add(tag);
   }
 }
@@ -4,6 +4,7 @@ public class MessageTrackingLog {
   private long     timestamp;
   private String   name;
   private String[] tag;
+  private int      source;
 
   public MessageTrackingLog() { }
   
@@ -13,6 +14,15 @@ public class MessageTrackingLog {
     this.tag       = tag;
   }
   
+  /**
+   * Create a compact log that identifies the vm and the executor by a numeric id instead of the tag.
+   */
+  public MessageTrackingLog(String name, int source) {
+    this.timestamp = System.currentTimeMillis();
+    this.name      = name;
+    this.source    = source;
+  }
+  
   public long getTimestamp() { return timestamp; }
   public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
   
@@ -21,4 +31,7 @@ public class MessageTrackingLog {
 
   public String[] getTag() { return tag; }
   public void setTag(String[] tag) { this.tag = tag; }
+  
+  public int  getSource() { return source; }
+  public void setSource(int source) { this.source = source; }
 }
\ No newline at end of file
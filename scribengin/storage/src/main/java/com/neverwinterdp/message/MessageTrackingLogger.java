@@ -0,0 +1,44 @@
+package com.neverwinterdp.message;
+
+/**
+ * Add the tracking logs of a tracking point to the messages. The loss and the duplication are detected from the 
+ * window and tracking ids of every message, the logs only measure the delivery time, so they can be sampled. A 
+ * message is sampled when its tracking id is a multiple of the sample rate, every tracking point samples the same 
+ * messages and a sampled message has the logs of all the points it goes through. 
+ * <p/>
+ * In the compact mode, the log has a numeric source id instead of the string tag, the id is allocated by the 
+ * {@link TrackingWindowRegistry} of the dataflow, which keeps the tag of the id.
+ */
+public class MessageTrackingLogger {
+  private int      sampleRate;
+  private boolean  compact;
+  private String[] tag;
+  private int      source;
+  
+  /**
+   * @param sampleRate log 1 in sampleRate messages, 1 to log all the messages, 0 to log no message
+   * @param compact    log the numeric source id instead of the tag
+   * @param source     the id of the tag that is registered with {@link TrackingWindowRegistry#registerSource(String[])}
+   */
+  public MessageTrackingLogger(int sampleRate, boolean compact, String[] tag, int source) {
+    this.sampleRate = sampleRate;
+    this.compact    = compact;
+    this.tag        = tag;
+    this.source     = source;
+  }
+  
+  public int getSampleRate() { return sampleRate; }
+  
+  public int getSource() { return source; }
+  
+  public boolean isSampled(MessageTracking mTracking) {
+    if(sampleRate <= 0 || mTracking == null) return false;
+    return sampleRate == 1 || mTracking.getTrackingId() % sampleRate == 0;
+  }
+  
+  public void log(MessageTracking mTracking, String name) {
+    if(!isSampled(mTracking)) return;
+    if(compact) mTracking.add(new MessageTrackingLog(name, source));
+    else mTracking.add(new MessageTrackingLog(name, tag));
+  }
+}
@@ -1,5 +1,6 @@
 package com.neverwinterdp.message;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -18,6 +19,12 @@ public class TrackingWindowRegistry {
   final static public String FINISHED  = "finished";
   final static public String PROGRESS  = "progress";
   
+  /**
+   * The number of window ids that are reserved by one registry write. The ids of a worker interleave with the ids 
+   * of the other workers and the unused ids of a stopped worker leave a gap in the finished window report.
+   */
+  final static public int    WINDOW_ID_BLOCK_SIZE = 10;
+  
   private Registry           registry;
   private String             registryPath;
 
@@ -28,6 +35,9 @@ public class TrackingWindowRegistry {
   private Node               trackingProgressMergeNode;
   private Node               trackingProgressSaveNode;
   private Node               trackingFinishedNode;
+  private Node               trackingSourcesNode;
+  private SequenceIdTracker  sourceIdTracker;
+  private Map<String, Integer> sourceIds = new HashMap<>();
 
   private Node               windowNode;
   private Node               windowCommitsNode;
@@ -43,10 +53,12 @@ public class TrackingWindowRegistry {
     trackingProgressSaveNode  = trackingProgressNode.getChild("save");
     trackingProgressMergeNode = trackingProgressNode.getChild("merge");
     trackingFinishedNode      = trackingNode.getChild(FINISHED);
+    trackingSourcesNode       = trackingNode.getChild("sources");
+    sourceIdTracker = new SequenceIdTracker(registry, trackingNode.getPath() + "/source-id-tracker", false);
     
     windowNode        = rootNode.getChild("window");
     windowCommitsNode = windowNode.getChild("commits");
-    windowIdTracker= new SequenceIdTracker(registry, windowNode.getPath() + "/id-tracker", false);
+    windowIdTracker= new SequenceIdTracker(registry, windowNode.getPath() + "/id-tracker", WINDOW_ID_BLOCK_SIZE, false);
   }
   
   public void initRegistry() throws RegistryException {
@@ -63,6 +75,8 @@ public class TrackingWindowRegistry {
     transaction.create(trackingProgressSaveNode, null, NodeCreateMode.PERSISTENT);
     transaction.create(trackingProgressMergeNode, null, NodeCreateMode.PERSISTENT);
     transaction.create(trackingFinishedNode, new  TrackingWindowReport("tracking"), NodeCreateMode.PERSISTENT);
+    transaction.create(trackingSourcesNode, null, NodeCreateMode.PERSISTENT);
+    sourceIdTracker.initRegistry(transaction);
     
     transaction.create(windowNode, null, NodeCreateMode.PERSISTENT);
     transaction.create(windowCommitsNode, null, NodeCreateMode.PERSISTENT);
@@ -71,6 +85,29 @@ public class TrackingWindowRegistry {
   
   public int nextWindowId() throws RegistryException { return windowIdTracker.nextInt(); }
   
+  /**
+   * Allocate the numeric id of the tracking source with the tag, the vm and the executor of a tracking point, for the
+   * compact tracking logs. The id is unique in the dataflow, the tag of the id is saved so the id can be resolved 
+   * with {@link #getSourceTag(int)}. The same tag gets the same id in this registry instance.
+   */
+  synchronized public int registerSource(String[] tag) throws RegistryException {
+    String key = Arrays.toString(tag);
+    Integer source = sourceIds.get(key);
+    if(source == null) {
+      source = sourceIdTracker.nextInt();
+      trackingSourcesNode.createChild(Integer.toString(source), tag, NodeCreateMode.PERSISTENT);
+      sourceIds.put(key, source);
+    }
+    return source;
+  }
+  
+  /**
+   * @return the tag of the tracking source id or null if the id is not registered
+   */
+  public String[] getSourceTag(int source) throws RegistryException {
+    return trackingSourcesNode.getChild(Integer.toString(source)).getDataAsWithDefault(String[].class, null);
+  }
+  
   public List<String> getProgressCommitWindowIds() throws RegistryException {
     return windowCommitsNode.getChildren();
   }
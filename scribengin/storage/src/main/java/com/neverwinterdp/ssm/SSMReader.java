@@ -6,12 +6,33 @@ import java.util.List;
 import com.neverwinterdp.registry.ErrorCode;
 import com.neverwinterdp.registry.RegistryException;
 import com.neverwinterdp.registry.Transaction;
+import com.neverwinterdp.registry.event.NodeEvent;
+import com.neverwinterdp.registry.event.NodeWatcher;
+import com.neverwinterdp.storage.source.DataAvailableListener;
 
+/**
+ * Read the records of the segments in order. The reader watches the segments node and the descriptors of the
+ * segments that it reads, a new segment or a commit of the writer wakes up the reader that waits in
+ * {@link #nextRecord(long)} and the registry is read only when a watch fires. The registry is also read once
+ * every {@link #WATCH_REFRESH_PERIOD} ms of waiting, in case a watch is lost with the registry session.
+ */
 abstract public class SSMReader {
+  final static public long WATCH_REFRESH_PERIOD = 30000;
+  
   protected SSMRegistry           registry;
   protected SSMReaderDescriptor   readerDescriptor;
   private   SegmentReaderIterator segmentReaderIterator;
   
+  private   SegmentsWatcher         segmentsWatcher      = new SegmentsWatcher();
+  private   volatile boolean        segmentsModified     = true;
+  private   long                    dataAvailableVersion = 0;
+  private   long                    lastRefreshTime      = System.currentTimeMillis();
+  private   DataAvailableListener   dataAvailableListener;
+  private   DataAvailableListener   segmentModifiedListener = new DataAvailableListener() {
+    @Override
+    public void onDataAvailable() { notifyDataAvailable(); }
+  };
+  
   protected void init(String clientId, SSMRegistry registry) throws RegistryException, IOException {
     this.registry    = registry;
     readerDescriptor = registry.getOrCreateReader(clientId);
@@ -22,7 +43,7 @@ abstract public class SSMReader {
       for(int i = 0; i < currentReadSegments.size(); i++) {
         SegmentReadDescriptor segRead = registry.getSegmentReadDescriptor(readerDescriptor, currentReadSegments.get(i));
         SegmentDescriptor segment = registry.getSegmentBySegmentId(segRead.getSegmentId());
-        segmentReaderIterator.add(createSegmentReader(segment, segRead));
+        addSegmentReader(createSegmentReader(segment, segRead));
       }
     } else {
       List<String> segments = registry.getSegments() ;
@@ -30,7 +51,7 @@ abstract public class SSMReader {
         String segmentId = segments.get(0);
         SegmentDescriptor segment = registry.getSegmentBySegmentId(segmentId);
         SegmentReadDescriptor segRead = registry.createSegmentReadDescriptor(readerDescriptor, segment);
-        segmentReaderIterator.add(createSegmentReader(segment, segRead));
+        addSegmentReader(createSegmentReader(segment, segRead));
       }
     }
   }
@@ -50,18 +71,47 @@ abstract public class SSMReader {
       while(idx < recordPos && segmentReader.nextRecord() != null) {
         idx++;
       }
-      segmentReaderIterator.add(segmentReader);
+      addSegmentReader(segmentReader);
     }
   }
   
+  /**
+   * The listener is notified, from the registry event thread, when a new segment is created or a segment that
+   * is read by this reader is modified.
+   */
+  public void setDataAvailableListener(DataAvailableListener listener) {
+    this.dataAvailableListener = listener;
+  }
+  
   public byte[] nextRecord(long maxWait) throws IOException, RegistryException, InterruptedException {
     byte[] record = segmentReaderIterator.nextRecord();
     if(record != null) return record;
     
     long stopTime = System.currentTimeMillis() + maxWait;
-    long checkPeriod = 500;
-    if(maxWait < checkPeriod) checkPeriod = maxWait;
-    while(System.currentTimeMillis() < stopTime) {
+    while(true) {
+      long version = getDataAvailableVersion();
+      if(System.currentTimeMillis() - lastRefreshTime > WATCH_REFRESH_PERIOD) {
+        segmentsModified = true;
+        segmentReaderIterator.setSegmentModified();
+        lastRefreshTime = System.currentTimeMillis();
+      }
+      if(segmentsModified) addNewSegmentReaders();
+      record = segmentReaderIterator.nextRecord();
+      if(record != null) return record;
+      long waitTime = stopTime - System.currentTimeMillis();
+      if(waitTime <= 0) return null;
+      waitForDataAvailable(version, waitTime);
+    }
+  }
+  
+  /**
+   * Set the watch on the segments node before looking for the new segments, so a segment that is created after
+   * the lookup is not missed.
+   */
+  void addNewSegmentReaders() throws RegistryException, IOException {
+    segmentsModified = false;
+    registry.watchSegments(segmentsWatcher);
+    while(true) {
       String lastReadSegment = readerDescriptor.getLastReadSegmentId();
       SegmentDescriptor nextSegment = null;
       if(lastReadSegment != null) {
@@ -71,15 +121,30 @@ abstract public class SSMReader {
         List<String> segments = registry.getSegments() ; 
         if(segments.size() > 0) nextSegment = registry.getSegmentBySegmentId(segments.get(0));
       }
-      if(nextSegment != null) {
-        SegmentReadDescriptor nextSegmentRead = registry.createSegmentReadDescriptor(readerDescriptor, nextSegment);
-        segmentReaderIterator.add(createSegmentReader(nextSegment, nextSegmentRead));
-      }
-      record = segmentReaderIterator.nextRecord();
-      if(record != null) return record;
-      Thread.sleep(checkPeriod);
+      if(nextSegment == null) return;
+      SegmentReadDescriptor nextSegmentRead = registry.createSegmentReadDescriptor(readerDescriptor, nextSegment);
+      addSegmentReader(createSegmentReader(nextSegment, nextSegmentRead));
+    }
+  }
+  
+  void addSegmentReader(SegmentReader segmentReader) throws IOException, RegistryException {
+    segmentReader.setSegmentModifiedListener(segmentModifiedListener);
+    segmentReaderIterator.add(segmentReader);
+  }
+  
+  synchronized long getDataAvailableVersion() { return dataAvailableVersion; }
+  
+  synchronized void waitForDataAvailable(long version, long waitTime) throws InterruptedException {
+    if(dataAvailableVersion == version) wait(waitTime);
+  }
+  
+  void notifyDataAvailable() {
+    synchronized(this) {
+      dataAvailableVersion++;
+      notifyAll();
     }
-    return null;
+    DataAvailableListener listener = dataAvailableListener;
+    if(listener != null) listener.onDataAvailable();
   }
   
   public void prepareCommit() throws IOException, RegistryException {
@@ -101,13 +166,24 @@ abstract public class SSMReader {
   }
   
   public void close() throws IOException, RegistryException {
+    segmentsWatcher.setComplete();
     segmentReaderIterator.close();
   }
   
   public void closeAndRemove() throws IOException, RegistryException {
+    segmentsWatcher.setComplete();
     segmentReaderIterator.close();
     registry.removeReader(readerDescriptor);
   }
   
   abstract protected SegmentReader createSegmentReader(SegmentDescriptor segment, SegmentReadDescriptor segReadDescriptor) throws RegistryException, IOException ;
-}
\ No newline at end of file
+  
+  class SegmentsWatcher extends NodeWatcher {
+    @Override
+    public void onEvent(NodeEvent event) throws Exception {
+      if(isComplete()) return;
+      segmentsModified = true;
+      notifyDataAvailable();
+    }
+  }
+}
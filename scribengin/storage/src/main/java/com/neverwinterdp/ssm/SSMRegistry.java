@@ -13,6 +13,7 @@ import com.neverwinterdp.registry.Registry;
 import com.neverwinterdp.registry.RegistryException;
 import com.neverwinterdp.registry.SequenceIdTracker;
 import com.neverwinterdp.registry.Transaction;
+import com.neverwinterdp.registry.event.NodeWatcher;
 import com.neverwinterdp.registry.lock.Lock;
 
 public class SSMRegistry {
@@ -29,6 +30,9 @@ public class SSMRegistry {
   final static public String WRITERS_HEARTBEAT = WRITERS + "/heartbeat";
   final static public String WRITERS_HISTORY   = WRITERS + "/history";
   
+  /** The number of writer ids that are reserved by one registry write, the writer ids need not be dense */
+  final static public int    WRITER_ID_BLOCK_SIZE = 10;
+  
   private Registry registry;
   private String   registryPath;
 
@@ -68,9 +72,11 @@ public class SSMRegistry {
     writersActiveNode    = registryNode.getDescendant(WRITERS_ACTIVE);
     writersHeartbeatNode = registryNode.getDescendant(WRITERS_HEARTBEAT);
     writersHistoryNode   = registryNode.getDescendant(WRITERS_HISTORY);
-    writerIdTracker      = new SequenceIdTracker(registry, writersNode.getPath() + "/id-tracker", false);
+    writerIdTracker      = new SequenceIdTracker(registry, writersNode.getPath() + "/id-tracker", WRITER_ID_BLOCK_SIZE, false);
     
     lockNode           = registryNode.getChild("lock");
+    //The reader walks the segments by id + 1 and the cleanup compares the segment ids, so the segment ids must be
+    //dense and in the creation order. They cannot be reserved in blocks
     segmentIdTracker   = new SequenceIdTracker(registry, registryPath + "/segment-id-tracker", false);
   }
   
@@ -129,6 +135,20 @@ public class SSMRegistry {
     return segmentsNode.getChild(name).getDataAs(SegmentDescriptor.class);
   }
   
+  /**
+   * Set a one time watch on the segments node, the watcher is notified when a segment is created or deleted.
+   */
+  public void watchSegments(NodeWatcher watcher) throws RegistryException {
+    segmentsNode.watchChildren(watcher);
+  }
+  
+  /**
+   * Set a one time watch on the segment descriptor, the watcher is notified on the next commit or finish of the writer.
+   */
+  public void watchSegment(String segmentId, NodeWatcher watcher) throws RegistryException {
+    segmentsNode.getChild(segmentId).watchModify(watcher);
+  }
+  
   public SegmentDescriptor getNextSegmentDescriptor(int segmentId) throws RegistryException {
     Node nextSegmentNode = segmentsNode.getChild(SegmentDescriptor.toSegmentId(segmentId + 1));
     try {
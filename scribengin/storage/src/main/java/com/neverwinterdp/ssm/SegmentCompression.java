@@ -0,0 +1,143 @@
+package com.neverwinterdp.ssm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import org.xerial.snappy.Snappy;
+
+/**
+ * The block compression of a data segment. The writer compresses the records of a block, the block
+ * boundaries are aligned with the commit points, and records the compression name in the
+ * {@link SegmentDescriptor} so the reader can pick the same compression. A segment without a compression
+ * name is written in the plain record format.
+ */
+abstract public class SegmentCompression {
+  final static public SegmentCompression NONE    = new NoneCompression();
+  final static public SegmentCompression DEFLATE = new DeflateCompression();
+  final static public SegmentCompression SNAPPY  = new SnappyCompression();
+  final static public SegmentCompression LZ4     = new LZ4Compression();
+
+  abstract public String getName() ;
+
+  abstract public byte[] compress(byte[] data, int offset, int length) throws IOException ;
+
+  abstract public byte[] decompress(byte[] data, int offset, int length, int rawLength) throws IOException ;
+
+  static public SegmentCompression getCompression(String name) {
+    if(name == null || NONE.getName().equals(name)) return NONE;
+    if(DEFLATE.getName().equals(name)) return DEFLATE;
+    if(SNAPPY.getName().equals(name))  return SNAPPY;
+    if(LZ4.getName().equals(name))     return LZ4;
+    throw new IllegalArgumentException("Unknown segment compression " + name);
+  }
+
+  static public class NoneCompression extends SegmentCompression {
+    @Override
+    public String getName() { return "none"; }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) {
+      return Arrays.copyOfRange(data, offset, offset + length);
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int rawLength) {
+      return Arrays.copyOfRange(data, offset, offset + length);
+    }
+  }
+
+  static public class DeflateCompression extends SegmentCompression {
+    @Override
+    public String getName() { return "deflate"; }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) {
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try {
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(length / 2 + 64);
+        byte[] buf = new byte[64 * 1024];
+        while(!deflater.finished()) {
+          int count = deflater.deflate(buf);
+          bos.write(buf, 0, count);
+        }
+        return bos.toByteArray();
+      } finally {
+        deflater.end();
+      }
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int rawLength) throws IOException {
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(data, offset, length);
+        byte[] raw = new byte[rawLength];
+        int read = 0;
+        while(read < rawLength) {
+          int count = inflater.inflate(raw, read, rawLength - read);
+          if(count == 0 && (inflater.finished() || inflater.needsInput())) break;
+          read += count;
+        }
+        if(read != rawLength) throw new IOException("Expect " + rawLength + " bytes, inflate " + read + " bytes");
+        return raw;
+      } catch (DataFormatException e) {
+        throw new IOException(e);
+      } finally {
+        inflater.end();
+      }
+    }
+  }
+
+  static public class SnappyCompression extends SegmentCompression {
+    @Override
+    public String getName() { return "snappy"; }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) throws IOException {
+      byte[] buf = new byte[Snappy.maxCompressedLength(length)];
+      int compressedLength = Snappy.rawCompress(data, offset, length, buf, 0);
+      return Arrays.copyOf(buf, compressedLength);
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int rawLength) throws IOException {
+      byte[] raw = new byte[rawLength];
+      int read = Snappy.uncompress(data, offset, length, raw, 0);
+      if(read != rawLength) throw new IOException("Expect " + rawLength + " bytes, uncompress " + read + " bytes");
+      return raw;
+    }
+  }
+
+  static public class LZ4Compression extends SegmentCompression {
+    private LZ4Compressor       compressor   = LZ4Factory.fastestInstance().fastCompressor();
+    private LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    @Override
+    public String getName() { return "lz4"; }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) {
+      byte[] buf = new byte[compressor.maxCompressedLength(length)];
+      int compressedLength = compressor.compress(data, offset, length, buf, 0, buf.length);
+      return Arrays.copyOf(buf, compressedLength);
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int rawLength) throws IOException {
+      byte[] raw = new byte[rawLength];
+      int read = decompressor.decompress(data, offset, raw, 0, rawLength);
+      if(read != length) throw new IOException("Expect " + length + " compressed bytes, read " + read + " bytes");
+      return raw;
+    }
+  }
+}
@@ -23,6 +23,7 @@ public class SegmentDescriptor {
   private long   dataSegmentNumOfRecords;
   private long   dataSegmentLastCommitPos;
   private int    dataSegmentCommitCount;
+  private String compression;
   
   public SegmentDescriptor() {}
   
@@ -74,6 +75,12 @@ public class SegmentDescriptor {
     this.dataSegmentCommitCount = dataSegmentCommitCount;
   }
 
+  /**
+   * The name of the {@link SegmentCompression} of the data segment, null for the plain record format.
+   */
+  public String getCompression() { return compression; }
+  public void setCompression(String compression) { this.compression = compression; }
+
   public String toString() {
     StringBuilder b = new StringBuilder();
     b.append(segmentId).append(": {");
@@ -87,6 +94,7 @@ public class SegmentDescriptor {
     b.append("dataSegmentNumOfRecords=").append(dataSegmentNumOfRecords).append(", ");
     b.append("dataSegmentLastCommitPos=").append(dataSegmentLastCommitPos).append(", ");
     b.append("dataSegmentCommitCount=").append(dataSegmentCommitCount);
+    if(compression != null) b.append(", compression=").append(compression);
     b.append("}");
     return b.toString();
   }
@@ -8,6 +8,7 @@ public class SegmentReadDescriptor {
   private String segmentId;
   private long   commitReadRecordIndex;
   private long   commitReadDataPosition;
+  private int    commitReadBlockOffset;
 
   private List<String> logs;
   
@@ -30,6 +31,15 @@ public class SegmentReadDescriptor {
     this.commitReadDataPosition = position;
   }
   
+  /**
+   * The number of the records that are already read in the compressed block that starts at the commit read
+   * data position, always 0 for the plain record format.
+   */
+  public int getCommitReadBlockOffset() { return commitReadBlockOffset; }
+  public void setCommitReadBlockOffset(int offset) {
+    this.commitReadBlockOffset = offset;
+  }
+  
   public List<String> getLogs() { return logs; }
   public void setLogs(List<String> logs) {  this.logs = logs; }
   public void addLog(String log) {
@@ -42,6 +52,7 @@ public class SegmentReadDescriptor {
     b.append(segmentId).append(": {");
     b.append("commitReadRecordIndex=").append(commitReadRecordIndex).append(", ");
     b.append("commitReadDataPosition=").append(commitReadDataPosition);
+    if(commitReadBlockOffset > 0) b.append(", commitReadBlockOffset=").append(commitReadBlockOffset);
     b.append("}");
     return b.toString();
   }
@@ -4,7 +4,10 @@ import java.io.IOException;
 
 import com.neverwinterdp.registry.RegistryException;
 import com.neverwinterdp.registry.Transaction;
+import com.neverwinterdp.registry.event.NodeEvent;
+import com.neverwinterdp.registry.event.NodeWatcher;
 import com.neverwinterdp.ssm.SegmentDescriptor.Status;
+import com.neverwinterdp.storage.source.DataAvailableListener;
 
 abstract public class SegmentReader {
   static public enum DataAvailability { YES, WAITING, EOS }
@@ -16,6 +19,10 @@ abstract public class SegmentReader {
   protected boolean               complete = false;
   protected long                  readRecordIndex;
   
+  private volatile boolean        segmentModified = true;
+  private SegmentWatcher          segmentWatcher  = new SegmentWatcher();
+  private DataAvailableListener   segmentModifiedListener;
+  
   public SegmentReader(SSMRegistry registry,SSMReaderDescriptor readerDescriptor, SegmentDescriptor segment, SegmentReadDescriptor segmentReadDescriptor) {
     this.registry              = registry;
     this.readerDescriptor      = readerDescriptor;
@@ -32,12 +39,32 @@ abstract public class SegmentReader {
   
   public boolean isComplete() { return this.complete ; }
   
+  /**
+   * The listener is notified when the segment descriptor is modified by a commit or the finish of the writer.
+   */
+  public void setSegmentModifiedListener(DataAvailableListener listener) {
+    this.segmentModifiedListener = listener;
+  }
+  
+  /**
+   * Force the next {@link #updateAndGetSegmentDescriptor()} to read the segment descriptor and set the watch again.
+   */
+  public void setSegmentModified() { segmentModified = true; }
+  
   public boolean hasAvailableData() {
     return getCurrentReadPosition() < segment.getDataSegmentLastCommitPos();
   }
   
+  /**
+   * Read the segment descriptor only if the segment is modified since the last read. The watch is set before the
+   * read, so a commit that happens after the read is not missed.
+   */
   public DataAvailability updateAndGetSegmentDescriptor() throws RegistryException, IOException {
-    segment = registry.getSegmentBySegmentId(segment.getSegmentId());
+    if(segmentModified) {
+      segmentModified = false;
+      registry.watchSegment(segment.getSegmentId(), segmentWatcher);
+      segment = registry.getSegmentBySegmentId(segment.getSegmentId());
+    }
     return getDataAvailability();
   }
   
@@ -66,6 +93,7 @@ abstract public class SegmentReader {
   public void prepareCommit(Transaction trans) throws IOException, RegistryException {
     segmentReadDescriptor.setCommitReadDataPosition(readRecordIndex);
     segmentReadDescriptor.setCommitReadDataPosition(getCurrentReadPosition());
+    segmentReadDescriptor.setCommitReadBlockOffset(getCurrentBlockOffset());
     if(segment.getStatus() == SegmentDescriptor.Status.WritingComplete || 
        segment.getStatus() == SegmentDescriptor.Status.Complete) {
       if(segment.getDataSegmentLastCommitPos() == segmentReadDescriptor.getCommitReadDataPosition()) {
@@ -84,6 +112,7 @@ abstract public class SegmentReader {
   }
   
   public void close() throws RegistryException, IOException {
+    segmentWatcher.setComplete();
     doClose();
   }
   
@@ -91,6 +120,12 @@ abstract public class SegmentReader {
   
   abstract protected long getCurrentReadPosition() ;
   
+  /**
+   * The number of the records that are read in the block at the current read position, for the readers that
+   * read the data segment in blocks and can only seek to the start of a block.
+   */
+  protected int getCurrentBlockOffset() { return 0; }
+  
   abstract protected void doClose() throws IOException;
   
   public String toString() { 
@@ -101,4 +136,13 @@ abstract public class SegmentReader {
       append("  ").append(segmentReadDescriptor.toString());
     return b.toString();
   }
-}
\ No newline at end of file
+  
+  class SegmentWatcher extends NodeWatcher {
+    @Override
+    public void onEvent(NodeEvent event) throws Exception {
+      if(isComplete()) return;
+      segmentModified = true;
+      if(segmentModifiedListener != null) segmentModifiedListener.onDataAvailable();
+    }
+  }
+}
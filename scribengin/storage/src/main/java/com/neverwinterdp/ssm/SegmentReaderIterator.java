@@ -66,6 +66,15 @@ public class SegmentReaderIterator {
     }
   }
   
+  /**
+   * Force the next refresh to read the descriptors of the active segments.
+   */
+  void setSegmentModified() {
+    for(int i = 0; i < activeSegmentReaders.size(); i++) {
+      activeSegmentReaders.get(i).setSegmentModified();
+    }
+  }
+  
   public void prepareCommit(Transaction transaction) throws IOException, RegistryException {
     Iterator<SegmentReader> i = allSegmentReaders.iterator();
     while(i.hasNext()) {
@@ -93,7 +102,7 @@ public class SegmentReaderIterator {
       SegmentReader reader = i.next();
       reader.rollback(transaction);
       DataAvailability availability  = reader.getDataAvailability() ;
-      if(availability == DataAvailability.YES || availability == DataAvailability.YES) {
+      if(availability == DataAvailability.YES || availability == DataAvailability.WAITING) {
         activeSegmentReaders.add(reader);
       }
     }
@@ -16,6 +16,8 @@ import com.neverwinterdp.vm.environment.yarn.HDFSUtil;
 public class HdfsSSM extends SSM {
   private FileSystem fs;
   private String     storageLocation;
+  private String     compression;
+  private int        readAheadSize = HdfsSegmentReader.DEFAULT_READ_AHEAD_SIZE;
 
   public HdfsSSM(FileSystem fs, String storageLoc, Registry registry, String regPath) throws RegistryException, IOException {
     this.fs              = fs;
@@ -44,18 +46,39 @@ public class HdfsSSM extends SSM {
     init(ssmRegistry);
   }
   
+  public String getCompression() { return compression; }
+  
+  /**
+   * The {@link com.neverwinterdp.ssm.SegmentCompression} of the segments that are created by the writers of this
+   * storage, the readers pick the compression of a segment from its descriptor.
+   */
+  public HdfsSSM setCompression(String compression) {
+    this.compression = compression;
+    return this;
+  }
+  
+  public int getReadAheadSize() { return readAheadSize; }
+  
+  /**
+   * The initial size of the read ahead buffer of the segment readers, the buffer grows to hold a larger record or block.
+   */
+  public HdfsSSM setReadAheadSize(int size) {
+    this.readAheadSize = size;
+    return this;
+  }
+  
   protected SSMWriter createWriter(String clientId, SSMRegistry registry) throws RegistryException{
-    return new HdfsSSMWriter(clientId, registry, fs, storageLocation);
+    return new HdfsSSMWriter(clientId, registry, fs, storageLocation, compression);
   }
 
   @Override
   protected HdfsSSMReader createReader(String clientId, SSMRegistry registry) throws RegistryException, IOException {
-    return new HdfsSSMReader(clientId, registry, fs, storageLocation);
+    return new HdfsSSMReader(clientId, registry, fs, storageLocation, readAheadSize);
   }
   
   @Override
   protected HdfsSSMReader createReader(String clientId, SSMRegistry registry, int startFromSegmentId, long recordPos) throws RegistryException, IOException {
-    return new HdfsSSMReader(clientId, registry, fs, storageLocation, startFromSegmentId, recordPos);
+    return new HdfsSSMReader(clientId, registry, fs, storageLocation, startFromSegmentId, recordPos, readAheadSize);
   }
 
   @Override
@@ -13,25 +13,41 @@ import com.neverwinterdp.ssm.SegmentReadDescriptor;
 public class HdfsSSMReader extends SSMReader {
   private FileSystem fs;
   private String     storageLocation;
+  private int        readAheadSize = HdfsSegmentReader.DEFAULT_READ_AHEAD_SIZE;
   
   public HdfsSSMReader(String clientId, SSMRegistry registry, 
                        FileSystem fs, String storageLoc) throws RegistryException, IOException {
+    this(clientId, registry, fs, storageLoc, HdfsSegmentReader.DEFAULT_READ_AHEAD_SIZE);
+  }
+  
+  public HdfsSSMReader(String clientId, SSMRegistry registry, 
+                       FileSystem fs, String storageLoc, int readAheadSize) throws RegistryException, IOException {
     this.fs              = fs;
     this.storageLocation = storageLoc;
+    this.readAheadSize   = readAheadSize;
     init(clientId, registry);
   }
   
   public HdfsSSMReader(String clientId, SSMRegistry registry, 
                        FileSystem fs, String storageLoc, 
                        int startFromSegmentId, long recordPos) throws RegistryException, IOException {
+    this(clientId, registry, fs, storageLoc, startFromSegmentId, recordPos, HdfsSegmentReader.DEFAULT_READ_AHEAD_SIZE);
+  }
+  
+  public HdfsSSMReader(String clientId, SSMRegistry registry, 
+                       FileSystem fs, String storageLoc, 
+                       int startFromSegmentId, long recordPos, int readAheadSize) throws RegistryException, IOException {
     this.fs              = fs;
     this.storageLocation = storageLoc;
+    this.readAheadSize   = readAheadSize;
     init(clientId, registry, startFromSegmentId, recordPos);
   }
 
   
   @Override
   protected HdfsSegmentReader createSegmentReader(SegmentDescriptor segment, SegmentReadDescriptor segRead) throws RegistryException, IOException {
-    return new HdfsSegmentReader(registry, readerDescriptor, segment, segRead, fs, storageLocation);
+    HdfsSegmentReader segReader = new HdfsSegmentReader(registry, readerDescriptor, segment, segRead, fs, storageLocation);
+    segReader.setReadAheadSize(readAheadSize);
+    return segReader;
   }
 }
@@ -13,15 +13,21 @@ import com.neverwinterdp.ssm.SegmentDescriptor;
 public class HdfsSSMWriter extends SSMWriter {
   private FileSystem fs;
   private String     storageLocation;
+  private String     compression;
   
   public HdfsSSMWriter(String clientId, SSMRegistry registry, FileSystem fs, String storageLoc) throws RegistryException {
+    this(clientId, registry, fs, storageLoc, null);
+  }
+  
+  public HdfsSSMWriter(String clientId, SSMRegistry registry, FileSystem fs, String storageLoc, String compression) throws RegistryException {
     super(clientId, registry);
     this.fs              = fs;
     this.storageLocation = storageLoc;
+    this.compression     = compression;
   }
 
   @Override
   protected HdfsSegmentWriter createSegmentWriter(SSMWriterDescriptor writer, SegmentDescriptor segment) throws RegistryException, IOException {
-    return new HdfsSegmentWriter(registry, writer, segment, fs, storageLocation);
+    return new HdfsSegmentWriter(registry, writer, segment, fs, storageLocation, compression);
   }
 }
@@ -9,43 +9,83 @@ import org.apache.hadoop.fs.Path;
 
 import com.neverwinterdp.ssm.SSMReaderDescriptor;
 import com.neverwinterdp.ssm.SSMRegistry;
+import com.neverwinterdp.ssm.SegmentCompression;
 import com.neverwinterdp.ssm.SegmentDescriptor;
 import com.neverwinterdp.ssm.SegmentReadDescriptor;
 import com.neverwinterdp.ssm.SegmentReader;
 
+/**
+ * Read the records that are written by the {@link HdfsSegmentWriter}. A compressed segment is read a block at a
+ * time, the read position stays at the start of the block until all the records of the block are read and the
+ * number of the records read in the block is committed as the block offset, so a rollback seeks to the block
+ * and skips the records that are already read.
+ * <p/>
+ * The data is read ahead into a buffer with the positioned reads, up to the last commit position of the segment,
+ * and the records are decoded from the buffer. The positioned reads do not depend on the stream position, a
+ * rollback only drops the buffer and the stream is reopened only when it does not see the committed data yet.
+ */
 public class HdfsSegmentReader extends SegmentReader {
-  private FileSystem        fs;
-  private String            storageLocation;
-  private String            segmentFullPath;
-  private FSDataInputStream dataIs;
-  private long              currentReadPos = 0;
-  
-  public HdfsSegmentReader(SSMRegistry registry, SSMReaderDescriptor readerDescriptor, 
-                           SegmentDescriptor segment, SegmentReadDescriptor segmentReadDescriptor, 
+  final static public int DEFAULT_READ_AHEAD_SIZE = 512 * 1024;
+
+  private FileSystem         fs;
+  private String             storageLocation;
+  private String             segmentFullPath;
+  private FSDataInputStream  dataIs;
+  private long               currentReadPos = 0;
+
+  private int                readAheadSize = DEFAULT_READ_AHEAD_SIZE;
+  private byte[]             readAheadBuffer;
+  private int                readAheadBufferPos;
+  private int                readAheadBufferLimit;
+  private long               readAheadPos;
+
+  private SegmentCompression compression;
+  private byte[]             block;
+  private int                blockReadPos;
+  private int                blockOffset;
+  private long               blockEndPos;
+  private int                skipBlockRecords;
+
+  public HdfsSegmentReader(SSMRegistry registry, SSMReaderDescriptor readerDescriptor,
+                           SegmentDescriptor segment, SegmentReadDescriptor segmentReadDescriptor,
                            FileSystem fs, String storageLoc) throws IllegalArgumentException, IOException {
     super(registry, readerDescriptor, segment, segmentReadDescriptor);
-    
+
     this.fs = fs;
     this.storageLocation = storageLoc;
-    
+
     segmentFullPath = storageLocation + "/" + segment.getSegmentId() + ".dat";
-    
-    
+
+
     if(segmentReadDescriptor.getCommitReadDataPosition() > 0) {
       currentReadPos = segmentReadDescriptor.getCommitReadDataPosition();
     }
+    readAheadPos     = currentReadPos;
+    skipBlockRecords = segmentReadDescriptor.getCommitReadBlockOffset();
   }
 
+  public void setReadAheadSize(int size) { this.readAheadSize = size; }
+
   void openDataInputStream() throws IOException {
+    //the segment descriptor of the reader is refreshed after the first commit of the writer, before there is data to read
+    if(compression == null) compression = SegmentCompression.getCompression(segment.getCompression());
+    if(readAheadBuffer == null) readAheadBuffer = new byte[readAheadSize];
     dataIs  = fs.open(new Path(segmentFullPath)) ;
-    if(currentReadPos > 0) dataIs.seek(currentReadPos);
   }
-  
+
   @Override
   protected byte[] dataNextRecord() throws IOException {
     try {
       if(dataIs == null) openDataInputStream();
-      return dataNextRecordWithRetry();
+      if(compression != SegmentCompression.NONE) return blockNextRecord();
+      ensureReadAhead(4);
+      int size = readInt(readAheadBuffer, readAheadBufferPos);
+      ensureReadAhead(4 + size);
+      byte[] data = new byte[size];
+      System.arraycopy(readAheadBuffer, readAheadBufferPos + 4, data, 0, size);
+      consumeReadAhead(4 + size);
+      currentReadPos = readAheadPos;
+      return data;
     } catch(IOException ex) {
       System.err.println("dataNextRecord() currentReadPos = " + currentReadPos + ", commit pos = " + segment.getDataSegmentLastCommitPos());
       ex.printStackTrace();
@@ -53,34 +93,110 @@ public class HdfsSegmentReader extends SegmentReader {
     }
   }
 
-  byte[] dataNextRecordWithRetry() throws IOException {
-    try {
-      int size    = dataIs.readInt();
-      byte[] data = new byte[size];
-      dataIs.readFully(data);
-      currentReadPos += 4 + data.length;
-      return data;
-    } catch(EOFException ex) {
-      dataIs.close();
-      openDataInputStream();
+  byte[] blockNextRecord() throws IOException {
+    if(block == null || blockReadPos == block.length) {
+      if(block != null) currentReadPos = blockEndPos;
+      readBlock();
+      for(int i = 0; i < skipBlockRecords; i++) {
+        blockReadPos += 4 + readInt(block, blockReadPos);
+      }
+      blockOffset = skipBlockRecords;
+      skipBlockRecords = 0;
     }
-    int size    = dataIs.readInt();
+    int size = readInt(block, blockReadPos);
     byte[] data = new byte[size];
-    dataIs.readFully(data);
-    currentReadPos += 4 + data.length;
+    System.arraycopy(block, blockReadPos + 4, data, 0, size);
+    blockReadPos += 4 + size;
+    blockOffset++;
     return data;
   }
-  
+
+  void readBlock() throws IOException {
+    ensureReadAhead(8);
+    int rawLength        = readInt(readAheadBuffer, readAheadBufferPos);
+    int compressedLength = readInt(readAheadBuffer, readAheadBufferPos + 4);
+    ensureReadAhead(8 + compressedLength);
+    block        = compression.decompress(readAheadBuffer, readAheadBufferPos + 8, compressedLength, rawLength);
+    blockReadPos = 0;
+    consumeReadAhead(8 + compressedLength);
+    blockEndPos  = readAheadPos;
+  }
+
+  /**
+   * Make sure the read ahead buffer has at least the given number of bytes. The buffer is compacted or grown
+   * when there is not enough room and filled with the positioned reads up to the last commit position.
+   */
+  void ensureReadAhead(int size) throws IOException {
+    int available = readAheadBufferLimit - readAheadBufferPos;
+    if(available >= size) return;
+    if(size > readAheadBuffer.length) {
+      byte[] newBuffer = new byte[Math.max(size, readAheadBuffer.length * 2)];
+      System.arraycopy(readAheadBuffer, readAheadBufferPos, newBuffer, 0, available);
+      readAheadBuffer = newBuffer;
+    } else if(readAheadBufferPos > 0) {
+      System.arraycopy(readAheadBuffer, readAheadBufferPos, readAheadBuffer, 0, available);
+    }
+    readAheadBufferPos   = 0;
+    readAheadBufferLimit = available;
+    long fillPos = readAheadPos + available;
+    long commitPos = segment.getDataSegmentLastCommitPos();
+    boolean reopen = false;
+    while(readAheadBufferLimit < size) {
+      int length = (int) Math.min(readAheadBuffer.length - readAheadBufferLimit, commitPos - fillPos);
+      if(length <= 0) {
+        throw new EOFException("Cannot read " + size + " bytes at " + readAheadPos + ", last commit pos = " + commitPos);
+      }
+      int read = dataIs.read(fillPos, readAheadBuffer, readAheadBufferLimit, length);
+      if(read < 0) {
+        //the stream is opened before the last commit and does not see the new data
+        if(reopen) throw new EOFException("Cannot read the committed data at " + fillPos + ", last commit pos = " + commitPos);
+        dataIs.close();
+        dataIs = fs.open(new Path(segmentFullPath));
+        reopen = true;
+        continue;
+      }
+      readAheadBufferLimit += read;
+      fillPos += read;
+    }
+  }
+
+  void consumeReadAhead(int size) {
+    readAheadBufferPos += size;
+    readAheadPos += size;
+  }
+
   protected void rollback(long readRecordIndex, long pos) throws IOException {
-    dataIs.seek(pos);
     currentReadPos = pos;
+    readAheadPos = pos;
+    readAheadBufferPos = 0;
+    readAheadBufferLimit = 0;
+    block = null;
+    blockOffset = 0;
+    skipBlockRecords = segmentReadDescriptor.getCommitReadBlockOffset();
   }
-  
+
+  /**
+   * The read position is the start of the current block until all the records of the block are read.
+   */
+  @Override
+  protected long getCurrentReadPosition() {
+    if(block != null && blockReadPos == block.length) return blockEndPos;
+    return currentReadPos;
+  }
+
   @Override
-  protected long getCurrentReadPosition() { return currentReadPos; }
-  
+  protected int getCurrentBlockOffset() {
+    if(block == null) return skipBlockRecords;
+    if(blockReadPos == block.length) return 0;
+    return blockOffset;
+  }
+
   protected void doClose() throws IOException {
     if(dataIs == null) return;
     dataIs.close();
   }
-}
\ No newline at end of file
+
+  static int readInt(byte[] buf, int pos) {
+    return ((buf[pos] & 0xff) << 24) | ((buf[pos + 1] & 0xff) << 16) | ((buf[pos + 2] & 0xff) << 8) | (buf[pos + 3] & 0xff);
+  }
+}
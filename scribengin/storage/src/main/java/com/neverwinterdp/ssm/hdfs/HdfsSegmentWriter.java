@@ -9,42 +9,77 @@ import org.apache.hadoop.fs.Path;
 import com.neverwinterdp.registry.RegistryException;
 import com.neverwinterdp.ssm.SSMRegistry;
 import com.neverwinterdp.ssm.SSMWriterDescriptor;
+import com.neverwinterdp.ssm.SegmentCompression;
 import com.neverwinterdp.ssm.SegmentDescriptor;
 import com.neverwinterdp.ssm.SegmentWriter;
 
+/**
+ * Write the records in the plain format [int length][bytes] or, when a compression is set, in the compressed
+ * blocks [int raw length][int compressed length][compressed bytes]. The records of a block are buffered in
+ * memory and a block is written when it reaches the block size or at the prepare commit, so a commit always
+ * ends a block and the last commit position of the segment is a block boundary.
+ */
 public class HdfsSegmentWriter extends SegmentWriter {
+  final static public int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
   private FileSystem            fs;
   private String                storageLocation;
   private String                segFullPath ;
   private FSDataOutputStream    bufferingOs;
   private long                  currentSegmentSize;
   private long                  uncommitBufferSize;
-  
-  public HdfsSegmentWriter(SSMRegistry registry, SSMWriterDescriptor writer, SegmentDescriptor segment, 
+
+  private SegmentCompression    compression;
+  private int                   blockSize = DEFAULT_BLOCK_SIZE;
+  private byte[]                blockBuffer;
+  private int                   blockBufferSize;
+
+  public HdfsSegmentWriter(SSMRegistry registry, SSMWriterDescriptor writer, SegmentDescriptor segment,
                            FileSystem fs, String storageLoc) throws RegistryException, IOException {
+    this(registry, writer, segment, fs, storageLoc, null);
+  }
+
+  public HdfsSegmentWriter(SSMRegistry registry, SSMWriterDescriptor writer, SegmentDescriptor segment,
+                           FileSystem fs, String storageLoc, String compressionName) throws RegistryException, IOException {
     super(registry, writer, segment);
     this.fs = fs;
     this.storageLocation = storageLoc;
     this.segFullPath = storageLocation + "/" + segment.getSegmentId() + ".dat";
+    if(compressionName != null && !SegmentCompression.NONE.getName().equals(compressionName)) {
+      compression = SegmentCompression.getCompression(compressionName);
+      segment.setCompression(compression.getName());
+      blockBuffer = new byte[1024];
+    }
     bufferingOs  = fs.create(new Path(segFullPath)) ;
   }
 
+  public void setBlockSize(int size) { this.blockSize = size; }
+
   @Override
   protected long bufferGetSegmentSize() { return currentSegmentSize ; }
 
   @Override
   protected long bufferGetUncommitSize() { return uncommitBufferSize; }
-  
+
   @Override
   protected void bufferWrite(byte[] data) throws IOException, RegistryException {
-    bufferingOs.writeInt(data.length);
-    bufferingOs.write(data);
-    currentSegmentSize += 4 + data.length;
+    if(compression == null) {
+      bufferingOs.writeInt(data.length);
+      bufferingOs.write(data);
+      currentSegmentSize += 4 + data.length;
+    } else {
+      ensureBlockBufferCapacity(blockBufferSize + 4 + data.length);
+      writeInt(blockBuffer, blockBufferSize, data.length);
+      System.arraycopy(data, 0, blockBuffer, blockBufferSize + 4, data.length);
+      blockBufferSize += 4 + data.length;
+      if(blockBufferSize >= blockSize) writeBlock();
+    }
     uncommitBufferSize += 4 + data.length;
   }
 
   @Override
   protected void bufferPrepareCommit() throws IOException {
+    if(compression != null) writeBlock();
     bufferingOs.hsync();
   }
 
@@ -56,13 +91,13 @@ public class HdfsSegmentWriter extends SegmentWriter {
   @Override
   protected void bufferRollback() throws IOException {
     if(bufferingOs != null) {
-      segment.getDataSegmentLastCommitPos();
       bufferingOs.close();
       Path hdfsSegFullPath = new Path(segFullPath);
       fs.truncate(hdfsSegFullPath, segment.getDataSegmentLastCommitPos());
       bufferingOs = fs.append(hdfsSegFullPath);
       currentSegmentSize = segment.getDataSegmentLastCommitPos();
       uncommitBufferSize = 0;
+      blockBufferSize = 0;
     }
   }
 
@@ -72,4 +107,29 @@ public class HdfsSegmentWriter extends SegmentWriter {
     bufferingOs.close();
     bufferingOs = null;
   }
-}
\ No newline at end of file
+
+  void writeBlock() throws IOException {
+    if(blockBufferSize == 0) return;
+    byte[] compressed = compression.compress(blockBuffer, 0, blockBufferSize);
+    bufferingOs.writeInt(blockBufferSize);
+    bufferingOs.writeInt(compressed.length);
+    bufferingOs.write(compressed);
+    currentSegmentSize += 8 + compressed.length;
+    blockBufferSize = 0;
+  }
+
+  void ensureBlockBufferCapacity(int capacity) {
+    if(capacity <= blockBuffer.length) return;
+    int newLength = Math.max(blockBuffer.length * 2, capacity);
+    byte[] newBuffer = new byte[newLength];
+    System.arraycopy(blockBuffer, 0, newBuffer, 0, blockBufferSize);
+    blockBuffer = newBuffer;
+  }
+
+  static void writeInt(byte[] buf, int pos, int value) {
+    buf[pos]     = (byte) (value >>> 24);
+    buf[pos + 1] = (byte) (value >>> 16);
+    buf[pos + 2] = (byte) (value >>> 8);
+    buf[pos + 3] = (byte) value;
+  }
+}
@@ -0,0 +1,102 @@
+package com.neverwinterdp.ssm.local;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.neverwinterdp.registry.Registry;
+import com.neverwinterdp.registry.RegistryException;
+import com.neverwinterdp.ssm.SSM;
+import com.neverwinterdp.ssm.SSMRegistry;
+import com.neverwinterdp.ssm.SSMRegistryPrinter;
+import com.neverwinterdp.ssm.SSMWriter;
+
+/**
+ * The segments are memory mapped files on the local disk, the commit and the reader bookkeeping are in the same
+ * {@link SSMRegistry} as the hdfs segments. The writers and the readers must run on the same node, it is meant
+ * for the streams between the operators of a dataflow that are on the same node.
+ */
+public class LocalSSM extends SSM {
+  private String  storageLocation;
+  private int     mapSize = LocalSegmentWriter.DEFAULT_MAP_SIZE;
+  private boolean forceOnCommit = false;
+
+  public LocalSSM(String storageLoc, Registry registry, String regPath) throws RegistryException, IOException {
+    this.storageLocation = storageLoc;
+    SSMRegistry segStorageReg = new SSMRegistry(registry, regPath);
+    if(!registry.exists(regPath)) {
+      segStorageReg.initRegistry();
+    }
+    init(segStorageReg);
+    mkdirs(storageLoc);
+  }
+  
+  public LocalSSM(String storageLoc, SSMRegistry ssmRegistry) throws RegistryException, IOException {
+    this.storageLocation = storageLoc;
+    mkdirs(storageLoc);
+    if(!ssmRegistry.exists()) ssmRegistry.initRegistry();
+    init(ssmRegistry);
+  }
+  
+  public int getMapSize() { return mapSize; }
+  
+  public LocalSSM setMapSize(int size) {
+    this.mapSize = size;
+    return this;
+  }
+  
+  public boolean isForceOnCommit() { return forceOnCommit; }
+  
+  /**
+   * Force the mapped data to the disk on commit. The committed data survives a crash of the writer process
+   * without it, but not a crash of the node.
+   */
+  public LocalSSM setForceOnCommit(boolean b) {
+    this.forceOnCommit = b;
+    return this;
+  }
+  
+  protected SSMWriter createWriter(String clientId, SSMRegistry registry) throws RegistryException {
+    return new LocalSSMWriter(clientId, registry, storageLocation, mapSize, forceOnCommit);
+  }
+
+  @Override
+  protected LocalSSMReader createReader(String clientId, SSMRegistry registry) throws RegistryException, IOException {
+    return new LocalSSMReader(clientId, registry, storageLocation, mapSize);
+  }
+  
+  @Override
+  protected LocalSSMReader createReader(String clientId, SSMRegistry registry, int startFromSegmentId, long recordPos) throws RegistryException, IOException {
+    return new LocalSSMReader(clientId, registry, storageLocation, mapSize, startFromSegmentId, recordPos);
+  }
+
+  @Override
+  protected void doDeleteSegment(String segmentId) throws IOException {
+    File file = new File(storageLocation + "/" + segmentId + ".dat");
+    if(file.exists() && !file.delete()) {
+      throw new IOException("Cannot delete the segment file " + file.getAbsolutePath());
+    }
+  }
+  
+  @Override
+  public LocalSSMConsistencyVerifier getSegmentConsistencyVerifier() {
+    return new LocalSSMConsistencyVerifier(registry, storageLocation);
+  }
+  
+  public void dump() throws RegistryException, IOException {
+    SSMRegistryPrinter rPrinter = new SSMRegistryPrinter(System.out, registry);
+    rPrinter.print();
+    File[] files = new File(storageLocation).listFiles();
+    if(files == null) return;
+    System.out.println(storageLocation);
+    for(File file : files) {
+      System.out.println("  " + file.getName() + " (" + file.length() + ")");
+    }
+  }
+  
+  static void mkdirs(String storageLoc) throws IOException {
+    File dir = new File(storageLoc);
+    if(!dir.exists() && !dir.mkdirs()) {
+      throw new IOException("Cannot create the storage directory " + storageLoc);
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.neverwinterdp.ssm.local;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.neverwinterdp.ssm.SSMConsistencyVerifier;
+import com.neverwinterdp.ssm.SSMRegistry;
+import com.neverwinterdp.ssm.SegmentDescriptor;
+
+public class LocalSSMConsistencyVerifier extends SSMConsistencyVerifier {
+  private String storageLocation;
+  
+  public LocalSSMConsistencyVerifier(SSMRegistry segReg, String storageLoc) {
+    super(segReg);
+    this.storageLocation = storageLoc;
+  }
+  
+  /**
+   * The file of a segment that is being written is extended by a whole map region, the length of the data is
+   * known only after the writer truncates the file on close.
+   */
+  @Override
+  protected long getDataSegmentLength(SegmentDescriptor segment) throws IOException {
+    File file = new File(storageLocation + "/" + segment.getSegmentId() + ".dat");
+    if(segment.getStatus() == SegmentDescriptor.Status.Writing) {
+      return Math.min(file.length(), segment.getDataSegmentLastCommitPos());
+    }
+    return file.length();
+  }
+}
@@ -0,0 +1,34 @@
+package com.neverwinterdp.ssm.local;
+
+import java.io.IOException;
+
+import com.neverwinterdp.registry.RegistryException;
+import com.neverwinterdp.ssm.SSMReader;
+import com.neverwinterdp.ssm.SSMRegistry;
+import com.neverwinterdp.ssm.SegmentDescriptor;
+import com.neverwinterdp.ssm.SegmentReadDescriptor;
+
+public class LocalSSMReader extends SSMReader {
+  private String storageLocation;
+  private int    mapSize;
+  
+  public LocalSSMReader(String clientId, SSMRegistry registry, String storageLoc, int mapSize) throws RegistryException, IOException {
+    this.storageLocation = storageLoc;
+    this.mapSize         = mapSize;
+    init(clientId, registry);
+  }
+  
+  public LocalSSMReader(String clientId, SSMRegistry registry, String storageLoc, int mapSize,
+                        int startFromSegmentId, long recordPos) throws RegistryException, IOException {
+    this.storageLocation = storageLoc;
+    this.mapSize         = mapSize;
+    init(clientId, registry, startFromSegmentId, recordPos);
+  }
+  
+  @Override
+  protected LocalSegmentReader createSegmentReader(SegmentDescriptor segment, SegmentReadDescriptor segRead) throws RegistryException, IOException {
+    LocalSegmentReader segReader = new LocalSegmentReader(registry, readerDescriptor, segment, segRead, storageLocation);
+    segReader.setMapSize(mapSize);
+    return segReader;
+  }
+}
@@ -0,0 +1,30 @@
+package com.neverwinterdp.ssm.local;
+
+import java.io.IOException;
+
+import com.neverwinterdp.registry.RegistryException;
+import com.neverwinterdp.ssm.SSMRegistry;
+import com.neverwinterdp.ssm.SSMWriter;
+import com.neverwinterdp.ssm.SSMWriterDescriptor;
+import com.neverwinterdp.ssm.SegmentDescriptor;
+
+public class LocalSSMWriter extends SSMWriter {
+  private String  storageLocation;
+  private int     mapSize;
+  private boolean forceOnCommit;
+  
+  public LocalSSMWriter(String clientId, SSMRegistry registry, String storageLoc, int mapSize, boolean forceOnCommit) throws RegistryException {
+    super(clientId, registry);
+    this.storageLocation = storageLoc;
+    this.mapSize         = mapSize;
+    this.forceOnCommit   = forceOnCommit;
+  }
+
+  @Override
+  protected LocalSegmentWriter createSegmentWriter(SSMWriterDescriptor writer, SegmentDescriptor segment) throws RegistryException, IOException {
+    LocalSegmentWriter segWriter = new LocalSegmentWriter(registry, writer, segment, storageLocation);
+    segWriter.setMapSize(mapSize);
+    segWriter.setForceOnCommit(forceOnCommit);
+    return segWriter;
+  }
+}
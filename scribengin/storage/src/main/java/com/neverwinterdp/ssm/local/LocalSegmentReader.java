@@ -0,0 +1,91 @@
+package com.neverwinterdp.ssm.local;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.neverwinterdp.ssm.SSMReaderDescriptor;
+import com.neverwinterdp.ssm.SSMRegistry;
+import com.neverwinterdp.ssm.SegmentDescriptor;
+import com.neverwinterdp.ssm.SegmentReadDescriptor;
+import com.neverwinterdp.ssm.SegmentReader;
+
+/**
+ * Read the records that are written by the {@link LocalSegmentWriter} from a read only mapping of the segment file.
+ * The records are copied straight from the page cache into the record array, there is no read call and no
+ * intermediate buffer. A region is mapped at the read position and mapped again when a record is past its end,
+ * the region never goes past the file length, the data after the last commit position is never read.
+ */
+public class LocalSegmentReader extends SegmentReader {
+  private String           segmentFullPath;
+  private RandomAccessFile file;
+  private FileChannel      channel;
+  private MappedByteBuffer region;
+  private long             regionStartPos;
+  private int              mapSize = LocalSegmentWriter.DEFAULT_MAP_SIZE;
+  private long             currentReadPos = 0;
+
+  public LocalSegmentReader(SSMRegistry registry, SSMReaderDescriptor readerDescriptor,
+                            SegmentDescriptor segment, SegmentReadDescriptor segmentReadDescriptor,
+                            String storageLoc) throws IOException {
+    super(registry, readerDescriptor, segment, segmentReadDescriptor);
+    segmentFullPath = storageLoc + "/" + segment.getSegmentId() + ".dat";
+    if(segmentReadDescriptor.getCommitReadDataPosition() > 0) {
+      currentReadPos = segmentReadDescriptor.getCommitReadDataPosition();
+    }
+  }
+
+  public void setMapSize(int size) { this.mapSize = size; }
+
+  @Override
+  protected byte[] dataNextRecord() throws IOException {
+    if(channel == null) {
+      file    = new RandomAccessFile(segmentFullPath, "r");
+      channel = file.getChannel();
+    }
+    ensureMapped(4);
+    int size = region.getInt(region.position());
+    ensureMapped(4 + size);
+    byte[] data = new byte[size];
+    region.position(region.position() + 4);
+    region.get(data);
+    currentReadPos += 4 + size;
+    return data;
+  }
+
+  /**
+   * Make sure the bytes from the read position to the read position + size are in the mapped region.
+   */
+  void ensureMapped(int size) throws IOException {
+    if(region != null && region.remaining() >= size) return;
+    long commitPos = segment.getDataSegmentLastCommitPos();
+    if(currentReadPos + size > commitPos) {
+      throw new EOFException("Cannot read " + size + " bytes at " + currentReadPos + ", last commit pos = " + commitPos);
+    }
+    long mapLength = Math.min(Math.max(mapSize, size), channel.size() - currentReadPos);
+    regionStartPos = currentReadPos;
+    region = channel.map(FileChannel.MapMode.READ_ONLY, currentReadPos, mapLength);
+  }
+
+  protected void rollback(long readRecordIndex, long pos) throws IOException {
+    currentReadPos = pos;
+    if(region != null && pos >= regionStartPos && pos <= regionStartPos + region.limit()) {
+      region.position((int)(pos - regionStartPos));
+    } else {
+      region = null;
+    }
+  }
+
+  @Override
+  protected long getCurrentReadPosition() { return currentReadPos; }
+
+  protected void doClose() throws IOException {
+    region = null;
+    if(channel == null) return;
+    channel.close();
+    file.close();
+    channel = null;
+  }
+}
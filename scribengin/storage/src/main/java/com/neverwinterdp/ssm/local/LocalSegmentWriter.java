@@ -0,0 +1,100 @@
+package com.neverwinterdp.ssm.local;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.neverwinterdp.registry.RegistryException;
+import com.neverwinterdp.ssm.SSMRegistry;
+import com.neverwinterdp.ssm.SSMWriterDescriptor;
+import com.neverwinterdp.ssm.SegmentDescriptor;
+import com.neverwinterdp.ssm.SegmentWriter;
+
+/**
+ * Write the records [int length][bytes] into a memory mapped segment file. The file is mapped in regions of the
+ * map size, a new region is mapped at the current position when a record does not fit in the current region,
+ * so a record never crosses a region. The readers on the same node see the committed records through the page
+ * cache, the mapped data is forced to the disk on commit only when force on commit is set. The file is
+ * truncated to the segment size on close.
+ */
+public class LocalSegmentWriter extends SegmentWriter {
+  final static public int DEFAULT_MAP_SIZE = 32 * 1024 * 1024;
+
+  private String           segFullPath;
+  private RandomAccessFile file;
+  private FileChannel      channel;
+  private MappedByteBuffer region;
+  private long             regionStartPos;
+  private int              mapSize = DEFAULT_MAP_SIZE;
+  private boolean          forceOnCommit = false;
+  private long             currentSegmentSize;
+  private long             uncommitBufferSize;
+
+  public LocalSegmentWriter(SSMRegistry registry, SSMWriterDescriptor writer, SegmentDescriptor segment,
+                            String storageLoc) throws RegistryException, IOException {
+    super(registry, writer, segment);
+    this.segFullPath = storageLoc + "/" + segment.getSegmentId() + ".dat";
+    file    = new RandomAccessFile(segFullPath, "rw");
+    channel = file.getChannel();
+  }
+
+  public void setMapSize(int size) { this.mapSize = size; }
+
+  public void setForceOnCommit(boolean b) { this.forceOnCommit = b; }
+
+  @Override
+  protected long bufferGetSegmentSize() { return currentSegmentSize ; }
+
+  @Override
+  protected long bufferGetUncommitSize() { return uncommitBufferSize; }
+
+  @Override
+  protected void bufferWrite(byte[] data) throws IOException, RegistryException {
+    int recordSize = 4 + data.length;
+    if(region == null || region.remaining() < recordSize) map(currentSegmentSize, recordSize);
+    region.putInt(data.length);
+    region.put(data);
+    currentSegmentSize += recordSize;
+    uncommitBufferSize += recordSize;
+  }
+
+  @Override
+  protected void bufferPrepareCommit() throws IOException {
+    if(forceOnCommit && region != null) region.force();
+  }
+
+  @Override
+  protected void bufferCompleteCommit() throws IOException {
+    uncommitBufferSize = 0;
+  }
+
+  @Override
+  protected void bufferRollback() throws IOException {
+    long lastCommitPos = segment.getDataSegmentLastCommitPos();
+    if(region != null && lastCommitPos >= regionStartPos) {
+      region.position((int)(lastCommitPos - regionStartPos));
+    } else {
+      region = null;
+    }
+    currentSegmentSize = lastCommitPos;
+    uncommitBufferSize = 0;
+  }
+
+  @Override
+  protected void bufferClose() throws IOException {
+    if(channel == null) return;
+    if(region != null) region.force();
+    region = null;
+    channel.truncate(currentSegmentSize);
+    channel.close();
+    file.close();
+    channel = null;
+  }
+
+  void map(long position, int minSize) throws IOException {
+    if(region != null && forceOnCommit) region.force();
+    regionStartPos = position;
+    region = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(mapSize, minSize));
+  }
+}
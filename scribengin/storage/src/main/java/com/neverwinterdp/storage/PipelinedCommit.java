@@ -0,0 +1,13 @@
+package com.neverwinterdp.storage;
+
+/**
+ * Mark a {@link com.neverwinterdp.storage.source.SourcePartitionStreamReader} or a 
+ * {@link com.neverwinterdp.storage.sink.SinkPartitionStreamWriter} whose commit can be pipelined. The prepareCommit
+ * call seals the data that is read or written so far. After prepareCommit returns, the caller keeps reading or
+ * writing while completeCommit, called from another thread, commits only the sealed data.
+ * <p/>
+ * The caller calls completeCommit in the order of the prepareCommit calls, and never calls rollback or close while
+ * a completeCommit is running. A rollback goes back to the last completed commit.
+ */
+public interface PipelinedCommit {
+}
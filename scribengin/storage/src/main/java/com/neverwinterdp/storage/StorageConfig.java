@@ -11,6 +11,7 @@ public class StorageConfig extends HashMap<String, String> {
   final static public String LOCATION         = "location";
   final static public String PARTITION_STREAM = "partition-stream";
   final static public String REPLICATION      = "replication";
+  final static public String MESSAGE_CODEC    = "message.codec";
 
   public StorageConfig() { }
   
@@ -47,6 +48,12 @@ public class StorageConfig extends HashMap<String, String> {
     attribute(REPLICATION, replication);
   }
   
+  @JsonIgnore
+  public String getMessageCodec() { return get(MESSAGE_CODEC); }
+  public void   setMessageCodec(String codec) { 
+    put(MESSAGE_CODEC, codec);
+  }
+  
   public String attribute(String name) { return get(name); }
   public void attribute(String name, String value) { put(name, value); }
 
@@ -14,6 +14,7 @@ import com.neverwinterdp.storage.es.ESStorageConfig;
 import com.neverwinterdp.storage.hdfs.HDFSStorage;
 import com.neverwinterdp.storage.kafka.KafkaStorage;
 import com.neverwinterdp.storage.kafka.KafkaStorageConfig;
+import com.neverwinterdp.storage.local.LocalStorage;
 import com.neverwinterdp.storage.nulldev.NullDevStorage;
 import com.neverwinterdp.storage.s3.S3Client;
 import com.neverwinterdp.storage.s3.S3Storage;
@@ -37,6 +38,7 @@ public class StorageService {
   private Map<String, HDFSStorage>       cacheHDFSStorage       = new HashMap<>();
   private Map<String, SimpleHDFSStorage> cacheSimpleHDFSStorage = new HashMap<>();
   private Map<String, S3Storage>         cacheS3Storage         = new HashMap<>();
+  private Map<String, LocalStorage>      cacheLocalStorage      = new HashMap<>();
   
   public StorageService() {
   }
@@ -64,6 +66,15 @@ public class StorageService {
         cacheHDFSStorage.put(key, storage);
       }
       return storage;
+    } else if("local".equalsIgnoreCase(storageConfig.getType())) {
+      String location  = storageConfig.getLocation();
+      String key = "local:" + location;
+      LocalStorage storage = cacheLocalStorage.get(key);
+      if(storage == null) {
+        storage = new LocalStorage(registry, storageConfig);
+        cacheLocalStorage.put(key, storage);
+      }
+      return storage;
     } else if("simplehdfs".equalsIgnoreCase(storageConfig.getType())) {
       String location  = storageConfig.getLocation();
       String key = "simplehdfs:" + location;
@@ -10,6 +10,10 @@ public class ESStorageConfig extends StorageConfig {
   final static public String MAPPING_TYPE = "mappingType";
   final static public String ADDRESSES    = "addresses";
   
+  final static public String BULK_ACTIONS       = "bulkActions";
+  final static public String BULK_SIZE          = "bulkSize";
+  final static public String MAX_INFLIGHT_BULKS = "maxInFlightBulks";
+  
   public ESStorageConfig() { 
     setType("es");
   }
@@ -48,4 +52,13 @@ public class ESStorageConfig extends StorageConfig {
   public String getMappingType() { return attribute(MAPPING_TYPE); }
   public void   setMappingType(String mappingType) { attribute(MAPPING_TYPE, mappingType); }
   
+  public int  getBulkActions() { return intAttribute(BULK_ACTIONS, 1000); }
+  public void setBulkActions(int actions) { attribute(BULK_ACTIONS, actions); }
+  
+  public int  getBulkSize() { return intAttribute(BULK_SIZE, 5 * 1024 * 1024); }
+  public void setBulkSize(int size) { attribute(BULK_SIZE, size); }
+  
+  public int  getMaxInFlightBulks() { return intAttribute(MAX_INFLIGHT_BULKS, 2); }
+  public void setMaxInFlightBulks(int bulks) { attribute(MAX_INFLIGHT_BULKS, bulks); }
+  
 }
@@ -1,47 +1,65 @@
 package com.neverwinterdp.storage.es.sink;
 
+import com.neverwinterdp.es.ESBulkWriter;
 import com.neverwinterdp.es.ESObjectClient;
 import com.neverwinterdp.message.Message;
 import com.neverwinterdp.storage.PartitionStreamConfig;
 import com.neverwinterdp.storage.es.ESStorage;
+import com.neverwinterdp.storage.es.ESStorageConfig;
 import com.neverwinterdp.storage.sink.SinkPartitionStreamWriter;
-import com.neverwinterdp.util.JSONSerializer;
 
+/**
+ * Buffer the message data, the json of the mapping type, in bulk requests that are executed asynchronously. 
+ * prepareCommit executes the buffered documents and waits for all the bulks, so the commit fails if a document 
+ * of the commit is not indexed. The documents are indexed by the message key, so the documents that are indexed
+ * again after a rollback replace the previous ones.
+ */
 public class ESStreamWriter implements SinkPartitionStreamWriter {
+  final static long MAX_COMMIT_TIME = 60000;
+  
   private ESStorage              storage;
   private PartitionStreamConfig  partitionConfig;
   private ESObjectClient<Object> esObjClient;
-  private Class<?>               mappingTypeClass ;
+  private ESBulkWriter           bulkWriter;
   
   public ESStreamWriter(ESStorage esStorage, PartitionStreamConfig pConfig) throws Exception {
     this.storage = esStorage;
     this.partitionConfig = pConfig;
-    mappingTypeClass = esStorage.getMappingTypeClass();
     esObjClient = storage.getESObjectClient();
+    ESStorageConfig esStorageConfig = storage.getESStorageConfig();
+    bulkWriter = 
+      esObjClient.newBulkWriter(esStorageConfig.getBulkActions(), esStorageConfig.getBulkSize(), esStorageConfig.getMaxInFlightBulks());
   }
   
   @Override
   public void append(Message message) throws Exception {
-    Object obj = JSONSerializer.INSTANCE.fromBytes(message.getData(), mappingTypeClass);
-    esObjClient.put(obj, message.getKey());
+    bulkWriter.add(message.getKey(), message.getData());
   }
 
 
   @Override
   public void close() throws Exception {
-    esObjClient.close();
+    try {
+      bulkWriter.flush(MAX_COMMIT_TIME);
+    } finally {
+      esObjClient.close();
+    }
   }
 
   @Override
   public void rollback() throws Exception {
+    bulkWriter.discard(MAX_COMMIT_TIME);
   }
 
   @Override
   public void commit() throws Exception {
+    prepareCommit();
+    completeCommit();
   }
 
   @Override
-  public void prepareCommit() {
+  public void prepareCommit() throws Exception {
+    bulkWriter.flush(MAX_COMMIT_TIME);
   }
 
   @Override
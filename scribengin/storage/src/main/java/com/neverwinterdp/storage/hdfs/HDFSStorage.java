@@ -65,7 +65,7 @@ public class HDFSStorage extends Storage {
     StorageConfig sConfig = getStorageConfig();
     String pLocation = sConfig.getLocation() + "/partition-" + partitionId;
     SSMRegistry pRegistry = storageRegistry.getPartitionRegistry(partitionId);
-    return new HdfsSSM(fs, pLocation, pRegistry);
+    return new HdfsSSM(fs, pLocation, pRegistry).setCompression(sConfig.attribute(HDFSStorageConfig.COMPRESSION));
   }
   
   public HdfsSSM[] getPartitions() throws RegistryException, IOException {
@@ -75,7 +75,7 @@ public class HDFSStorage extends Storage {
     for(int i = 0; i < numOfPartitionStream; i++) {
       String pLocation = sConfig.getLocation() + "/partition-" + i;
       SSMRegistry pRegistry = storageRegistry.getPartitionRegistry(i);
-      partitions[i] = new HdfsSSM(fs, pLocation, pRegistry);
+      partitions[i] = new HdfsSSM(fs, pLocation, pRegistry).setCompression(sConfig.attribute(HDFSStorageConfig.COMPRESSION));
     }
     return partitions;
   }
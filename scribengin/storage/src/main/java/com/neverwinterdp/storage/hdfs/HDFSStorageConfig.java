@@ -1,5 +1,6 @@
 package com.neverwinterdp.storage.hdfs;
 
+import com.neverwinterdp.ssm.hdfs.HdfsSegmentReader;
 import com.neverwinterdp.storage.StorageConfig;
 
 @SuppressWarnings("serial")
@@ -7,6 +8,8 @@ public class HDFSStorageConfig extends StorageConfig {
   final static public String NAME          = "name";
   final static public String REGISTRY_PATH = "registry.path" ;
   final static public String LOCATION      = "location" ;
+  final static public String COMPRESSION   = "segment.compression" ;
+  final static public String READ_AHEAD    = "segment.read-ahead-size" ;
   
 
   public HDFSStorageConfig() { 
@@ -32,5 +35,14 @@ public class HDFSStorageConfig extends StorageConfig {
  
   public String getLocation() { return attribute(LOCATION); }
   public void   setLocation(String location) { attribute(LOCATION, location); }
+  
+  /**
+   * The block compression of the segments, none, deflate, snappy or lz4. The segments are not compressed by default.
+   */
+  public String getCompression() { return attribute(COMPRESSION); }
+  public void   setCompression(String compression) { attribute(COMPRESSION, compression); }
+  
+  public int  getReadAheadSize() { return intAttribute(READ_AHEAD, HdfsSegmentReader.DEFAULT_READ_AHEAD_SIZE); }
+  public void setReadAheadSize(int size) { attribute(READ_AHEAD, size); }
  
 }
@@ -11,6 +11,7 @@ import com.neverwinterdp.ssm.SSMRegistry;
 import com.neverwinterdp.ssm.hdfs.HdfsSSM;
 import com.neverwinterdp.storage.PartitionStreamConfig;
 import com.neverwinterdp.storage.StorageConfig;
+import com.neverwinterdp.storage.hdfs.HDFSStorageConfig;
 import com.neverwinterdp.storage.hdfs.HDFSStorageRegistry;
 import com.neverwinterdp.storage.sink.Sink;
 
@@ -43,7 +44,7 @@ public class HDFSSink implements Sink {
     StorageConfig sConfig = getStorageConfig();
     String pLocation = sConfig.getLocation() + "/partition-" + pConfig.getPartitionStreamId();
     SSMRegistry pRegistry = storageRegistry.getPartitionRegistry(pConfig.getPartitionStreamId());
-    HdfsSSM pStorage = new HdfsSSM(fs, pLocation, pRegistry);
+    HdfsSSM pStorage = new HdfsSSM(fs, pLocation, pRegistry).setCompression(sConfig.attribute(HDFSStorageConfig.COMPRESSION));
     return new HDFSSinkPartitionStream(pStorage, sConfig, pConfig);
   }
 
@@ -3,17 +3,17 @@ package com.neverwinterdp.storage.hdfs.sink;
 import java.io.IOException;
 
 import com.neverwinterdp.registry.RegistryException;
-import com.neverwinterdp.ssm.hdfs.HdfsSSM;
+import com.neverwinterdp.ssm.SSM;
 import com.neverwinterdp.storage.PartitionStreamConfig;
 import com.neverwinterdp.storage.StorageConfig;
 import com.neverwinterdp.storage.sink.SinkPartitionStream;
 
 public class HDFSSinkPartitionStream implements SinkPartitionStream {
-  private HdfsSSM                partitionStorage;
+  private SSM                    partitionStorage;
   private StorageConfig          storageConfig;
   private PartitionStreamConfig  partitionConfig;
   
-  public HDFSSinkPartitionStream(HdfsSSM pStorage, StorageConfig sConfig, PartitionStreamConfig pConfig) throws IOException {
+  public HDFSSinkPartitionStream(SSM pStorage, StorageConfig sConfig, PartitionStreamConfig pConfig) throws IOException {
     this.partitionStorage  = pStorage;
     this.storageConfig     = sConfig;
     this.partitionConfig   = pConfig;
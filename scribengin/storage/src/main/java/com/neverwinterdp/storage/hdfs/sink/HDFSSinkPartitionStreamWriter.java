@@ -3,34 +3,36 @@ package com.neverwinterdp.storage.hdfs.sink;
 import java.io.IOException;
 
 import com.neverwinterdp.message.Message;
+import com.neverwinterdp.message.MessageCodec;
 import com.neverwinterdp.registry.RegistryException;
+import com.neverwinterdp.ssm.SSM;
 import com.neverwinterdp.ssm.SSMWriter;
-import com.neverwinterdp.ssm.hdfs.HdfsSSM;
 import com.neverwinterdp.storage.PartitionStreamConfig;
 import com.neverwinterdp.storage.StorageConfig;
 import com.neverwinterdp.storage.sink.SinkPartitionStreamWriter;
-import com.neverwinterdp.util.JSONSerializer;
 
 public class HDFSSinkPartitionStreamWriter implements SinkPartitionStreamWriter {
   private String                name;
-  private HdfsSSM               partitionStorage;
+  private SSM                   partitionStorage;
   private StorageConfig         storageConfig;
   private PartitionStreamConfig partitionConfig;
   private SSMWriter             writer;
+  private MessageCodec          codec;
   
-  public HDFSSinkPartitionStreamWriter(String name, HdfsSSM pStorage, StorageConfig sConfig, PartitionStreamConfig pConfig) throws IOException, RegistryException {
+  public HDFSSinkPartitionStreamWriter(String name, SSM pStorage, StorageConfig sConfig, PartitionStreamConfig pConfig) throws IOException, RegistryException {
     this.name = name;
     this.partitionStorage = pStorage;
     this.storageConfig    = sConfig;
     this.partitionConfig  = pConfig ;
     writer = partitionStorage.getWriter(name);
+    codec  = MessageCodec.getCodec(sConfig.getMessageCodec());
   }
   
   public PartitionStreamConfig getPartitionConfig() { return partitionConfig; }
 
   @Override
   public void append(Message record) throws Exception {
-    writer.write(JSONSerializer.INSTANCE.toBytes(record));
+    writer.write(codec.toBytes(record));
   }
 
   @Override
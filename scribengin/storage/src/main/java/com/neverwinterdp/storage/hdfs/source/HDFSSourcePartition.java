@@ -6,6 +6,7 @@ import com.neverwinterdp.ssm.SSMRegistry;
 import com.neverwinterdp.ssm.hdfs.HdfsSSM;
 import com.neverwinterdp.storage.PartitionStreamConfig;
 import com.neverwinterdp.storage.StorageConfig;
+import com.neverwinterdp.storage.hdfs.HDFSStorageConfig;
 import com.neverwinterdp.storage.hdfs.HDFSStorageRegistry;
 import com.neverwinterdp.storage.source.SourcePartition;
 
@@ -41,6 +42,7 @@ public class HDFSSourcePartition implements SourcePartition {
     String pLocation = sConfig.getLocation() + "/partition-" + pConfig.getPartitionStreamId();
     SSMRegistry pRegistry = storageRegistry.getPartitionRegistry(pConfig.getPartitionStreamId());
     HdfsSSM pStorage = new HdfsSSM(fs, pLocation, pRegistry);
+    pStorage.setReadAheadSize(new HDFSStorageConfig(sConfig).getReadAheadSize());
     return new HDFSSourcePartitionStream(pStorage, sConfig, pConfig);
   }
 
@@ -1,24 +1,28 @@
 package com.neverwinterdp.storage.hdfs.source;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.neverwinterdp.message.Message;
+import com.neverwinterdp.message.MessageCodec;
 import com.neverwinterdp.registry.RegistryException;
-import com.neverwinterdp.ssm.hdfs.HdfsSSMReader;
+import com.neverwinterdp.ssm.SSMReader;
 import com.neverwinterdp.storage.PartitionStreamConfig;
 import com.neverwinterdp.storage.source.CommitPoint;
+import com.neverwinterdp.storage.source.DataAvailableListener;
+import com.neverwinterdp.storage.source.DataAvailableNotifier;
 import com.neverwinterdp.storage.source.SourcePartitionStreamReader;
-import com.neverwinterdp.util.JSONSerializer;
 
 /**
  * @author Tuan Nguyen
  */
-public class HDFSSourcePartitionStreamReader implements SourcePartitionStreamReader {
+public class HDFSSourcePartitionStreamReader implements SourcePartitionStreamReader, DataAvailableNotifier {
   private String                name;
   private PartitionStreamConfig partitionConfig;
-  private HdfsSSMReader         partitionReader;
+  private SSMReader             partitionReader;
 
-  public HDFSSourcePartitionStreamReader(String name, HdfsSSMReader partitionReader, PartitionStreamConfig pConfig) throws RegistryException, IOException {
+  public HDFSSourcePartitionStreamReader(String name, SSMReader partitionReader, PartitionStreamConfig pConfig) throws RegistryException, IOException {
     this.name             = name;
     this.partitionConfig  = pConfig ;
     this.partitionReader  = partitionReader;
@@ -29,18 +33,31 @@ public class HDFSSourcePartitionStreamReader implements SourcePartitionStreamRea
   
   public PartitionStreamConfig getPartitionStreamConfig() { return partitionConfig; }
   
+  @Override
+  public void setDataAvailableListener(DataAvailableListener listener) {
+    partitionReader.setDataAvailableListener(listener);
+  }
+  
   @Override
   public Message next(long maxWait) throws Exception {
     byte[] data = partitionReader.nextRecord(maxWait);
     if(data == null) {
       return null;
     }
-    return JSONSerializer.INSTANCE.fromBytes(data, Message.class);
+    return MessageCodec.decode(data);
   }
 
   @Override
   public Message[] next(int size, long maxWait) throws Exception {
-    throw new Exception("TODO: implement this method");
+    List<Message> holder = new ArrayList<>();
+    //Only wait for the first record, the rest of the batch is drained from the data that is already available
+    byte[] data = partitionReader.nextRecord(maxWait);
+    while(data != null) {
+      holder.add(MessageCodec.decode(data));
+      if(holder.size() == size) break;
+      data = partitionReader.nextRecord(0);
+    }
+    return holder.toArray(new Message[holder.size()]);
   }
 
   @Override
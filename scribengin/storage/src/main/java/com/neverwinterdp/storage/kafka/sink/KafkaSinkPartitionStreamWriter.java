@@ -1,28 +1,34 @@
 package com.neverwinterdp.storage.kafka.sink;
 
+import java.util.concurrent.ConcurrentLinkedQueue;
+
 import com.neverwinterdp.kafka.producer.AckKafkaWriter;
-import com.neverwinterdp.kafka.producer.KafkaWriter;
 import com.neverwinterdp.message.Message;
+import com.neverwinterdp.message.MessageCodec;
 import com.neverwinterdp.storage.PartitionStreamConfig;
+import com.neverwinterdp.storage.PipelinedCommit;
 import com.neverwinterdp.storage.StorageConfig;
 import com.neverwinterdp.storage.sink.SinkPartitionStreamWriter;
 
 //TODO: Allow the writer write to the assigned partition and configure the send time out
-public class KafkaSinkPartitionStreamWriter implements SinkPartitionStreamWriter {
+public class KafkaSinkPartitionStreamWriter implements SinkPartitionStreamWriter, PipelinedCommit {
   private StorageConfig         storageConfig;
   private PartitionStreamConfig partitionStreamConfig;
-  private KafkaWriter writer ;
+  private AckKafkaWriter writer ;
+  private ConcurrentLinkedQueue<Long> sealedSendIds = new ConcurrentLinkedQueue<>();
   private String topic;
+  private MessageCodec codec;
   
   public KafkaSinkPartitionStreamWriter(StorageConfig storageConfig, PartitionStreamConfig partitionStreamConfig) {
     this.partitionStreamConfig = partitionStreamConfig;
     this.writer = new AckKafkaWriter(storageConfig.attribute("name"), storageConfig.attribute("broker.list")) ;
     this.topic = storageConfig.attribute("topic");
+    this.codec = MessageCodec.getCodec(storageConfig.getMessageCodec());
   }
   
   @Override
   public void append(Message record) throws Exception {
-    writer.send(topic, record, 5000);
+    writer.send(topic, codec.toBytes(record), 5000);
   }
 
 
@@ -33,6 +39,7 @@ public class KafkaSinkPartitionStreamWriter implements SinkPartitionStreamWriter
 
   @Override
   public void rollback() throws Exception {
+    sealedSendIds.clear();
   }
 
   @Override
@@ -43,10 +50,14 @@ public class KafkaSinkPartitionStreamWriter implements SinkPartitionStreamWriter
 
   @Override
   public void prepareCommit() throws Exception {
-    writer.commit();
+    sealedSendIds.add(writer.getLastSendId());
   }
 
   @Override
-  public void completeCommit() {
+  public void completeCommit() throws Exception {
+    //wait for the acks of the sealed messages only, the messages that are sent after prepareCommit belong to the next commit
+    Long sendId = sealedSendIds.poll();
+    if(sendId == null) return;
+    writer.commit(sendId);
   }
 }
@@ -1,18 +1,24 @@
 package com.neverwinterdp.storage.kafka.source;
 
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import kafka.javaapi.PartitionMetadata;
+
 import com.neverwinterdp.kafka.KafkaTool;
 import com.neverwinterdp.kafka.consumer.KafkaPartitionReader;
 import com.neverwinterdp.message.Message;
+import com.neverwinterdp.message.MessageCodec;
 import com.neverwinterdp.storage.PartitionStreamConfig;
+import com.neverwinterdp.storage.PipelinedCommit;
 import com.neverwinterdp.storage.source.CommitPoint;
 import com.neverwinterdp.storage.source.SourcePartitionStreamReader;
 
-import kafka.javaapi.PartitionMetadata;
-
-public class KafkaSourceStreamReader implements SourcePartitionStreamReader {
+public class KafkaSourceStreamReader implements SourcePartitionStreamReader, PipelinedCommit {
   private PartitionStreamConfig partitionConfig;
   private KafkaPartitionReader partitionReader ;
   private CommitPoint lastCommitInfo ;
+  private ConcurrentLinkedQueue<Long> sealedOffsets = new ConcurrentLinkedQueue<>();
   
   public KafkaSourceStreamReader(String readerName, KafkaTool kafkaTool, PartitionStreamConfig pConfig, PartitionMetadata pmd) throws Exception {
     this.partitionConfig = pConfig;
@@ -24,30 +30,41 @@ public class KafkaSourceStreamReader implements SourcePartitionStreamReader {
 
   @Override
   public Message next(long maxWait) throws Exception {
-    return partitionReader.nextAs(Message.class, maxWait);
+    byte[] data = partitionReader.next(maxWait);
+    if(data == null) return null;
+    return MessageCodec.decode(data);
   }
 
   @Override
   public Message[] next(int size, long maxWait) throws Exception {
-    throw new Exception("To implement") ;
+    List<byte[]> holder = partitionReader.next(size, maxWait);
+    Message[] messages = new Message[holder.size()];
+    for(int i = 0; i < messages.length; i++) {
+      messages[i] = MessageCodec.decode(holder.get(i));
+    }
+    return messages;
   }
 
   public boolean isEndOfDataStream() { return false; }
   
   @Override
   public void rollback() throws Exception {
+    sealedOffsets.clear();
     partitionReader.rollback();
   }
 
   @Override
   public void prepareCommit() throws Exception {
-    //TODO: implement 2 phases commit correctly
+    //seal the offset, the reader can read ahead while the sealed offset is committed
+    sealedOffsets.add(partitionReader.getCurrentOffset());
   }
 
   @Override
   public void completeCommit() throws Exception {
-    //TODO: implement 2 phases commit correctly
-    partitionReader.commit();
+    Long offset = sealedOffsets.poll();
+    if(offset == null) return;
+    //the offset is sent in the background, the consecutive commits are coalesced into one request
+    partitionReader.commitAsync(offset);
   }
   
   @Override
@@ -1,6 +1,8 @@
 package com.neverwinterdp.storage.kafka.source;
 
 import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import kafka.javaapi.PartitionMetadata;
 import kafka.message.MessageAndOffset;
@@ -9,13 +11,15 @@ import com.neverwinterdp.kafka.KafkaTool;
 import com.neverwinterdp.kafka.consumer.KafkaPartitionReader;
 import com.neverwinterdp.message.Message;
 import com.neverwinterdp.storage.PartitionStreamConfig;
+import com.neverwinterdp.storage.PipelinedCommit;
 import com.neverwinterdp.storage.source.CommitPoint;
 import com.neverwinterdp.storage.source.SourcePartitionStreamReader;
 
-public class RawKafkaSourceStreamReader implements SourcePartitionStreamReader {
+public class RawKafkaSourceStreamReader implements SourcePartitionStreamReader, PipelinedCommit {
   private PartitionStreamConfig partitionConfig;
   private KafkaPartitionReader partitionReader ;
   private CommitPoint lastCommitInfo ;
+  private ConcurrentLinkedQueue<Long> sealedOffsets = new ConcurrentLinkedQueue<>();
   
   public RawKafkaSourceStreamReader(String readerName, KafkaTool kafkaTool, PartitionStreamConfig pConfig, PartitionMetadata pmd) throws Exception {
     partitionConfig = pConfig;
@@ -29,6 +33,20 @@ public class RawKafkaSourceStreamReader implements SourcePartitionStreamReader {
   public Message next(long maxWait) throws Exception {
     MessageAndOffset messageAndOffSet = partitionReader.nextMessageAndOffset(maxWait) ;
     if(messageAndOffSet == null) return null ;
+    return toMessage(messageAndOffSet);
+  }
+
+  @Override
+  public Message[] next(int size, long maxWait) throws Exception {
+    List<MessageAndOffset> holder = partitionReader.nextMessageAndOffset(size, maxWait) ;
+    Message[] messages = new Message[holder.size()];
+    for(int i = 0; i < messages.length; i++) {
+      messages[i] = toMessage(holder.get(i));
+    }
+    return messages;
+  }
+  
+  private Message toMessage(MessageAndOffset messageAndOffSet) {
     kafka.message.Message message = messageAndOffSet.message();
     ByteBuffer payload = message.payload();
     byte[] messageBytes = new byte[payload.limit()];
@@ -40,28 +58,27 @@ public class RawKafkaSourceStreamReader implements SourcePartitionStreamReader {
     Message dataflowMessage = new Message(new String(keyBytes), messageBytes) ;
     return dataflowMessage;
   }
-
-  @Override
-  public Message[] next(int size, long maxWait) throws Exception {
-    throw new Exception("To implement") ;
-  }
   
   public boolean isEndOfDataStream() { return false; }
 
   @Override
   public void rollback() throws Exception {
+    sealedOffsets.clear();
     partitionReader.rollback();
   }
 
   @Override
   public void prepareCommit() throws Exception {
-    //TODO: implement 2 phases commit correctly
+    //seal the offset, the reader can read ahead while the sealed offset is committed
+    sealedOffsets.add(partitionReader.getCurrentOffset());
   }
 
   @Override
   public void completeCommit() throws Exception {
-    //TODO: implement 2 phases commit correctly
-    partitionReader.commit();
+    Long offset = sealedOffsets.poll();
+    if(offset == null) return;
+    //the offset is sent in the background, the consecutive commits are coalesced into one request
+    partitionReader.commitAsync(offset);
   }
   
   @Override
@@ -0,0 +1,81 @@
+package com.neverwinterdp.storage.local;
+
+import java.io.IOException;
+
+import com.neverwinterdp.registry.ErrorCode;
+import com.neverwinterdp.registry.Registry;
+import com.neverwinterdp.registry.RegistryException;
+import com.neverwinterdp.ssm.SSMRegistry;
+import com.neverwinterdp.ssm.local.LocalSSM;
+import com.neverwinterdp.storage.Storage;
+import com.neverwinterdp.storage.StorageConfig;
+import com.neverwinterdp.storage.hdfs.HDFSStorageRegistry;
+import com.neverwinterdp.storage.local.sink.LocalSink;
+import com.neverwinterdp.storage.local.source.LocalSource;
+
+/**
+ * A partitioned storage of the memory mapped {@link LocalSSM} segments. The registry layout is the same as the
+ * hdfs storage, only the segment data is on the local disk, so the sink and the source must run on the same node.
+ */
+public class LocalStorage extends Storage {
+  final static public String LOCAL_REGISTRY = "/storage/local";
+  
+  private HDFSStorageRegistry storageRegistry;
+
+  public LocalStorage(Registry registry, StorageConfig storageConfig) throws RegistryException {
+    super(storageConfig);
+    storageRegistry = new HDFSStorageRegistry(registry, storageConfig);
+    setStorageConfig(storageRegistry.getStorageConfig());
+  }
+
+  public HDFSStorageRegistry getRegistry() { return storageRegistry; }
+  
+  @Override
+  public void refresh() throws Exception {
+  }
+
+  @Override
+  public boolean exists() throws Exception {
+    return storageRegistry.exists();
+  }
+
+  @Override
+  public void drop() throws RegistryException {
+    storageRegistry.drop();
+  }
+
+  @Override
+  public void create() throws Exception {
+    if(storageRegistry.exists()) {
+      throw new RegistryException(ErrorCode.NodeExists, "The storage is already initialized");
+    }
+    storageRegistry.create();
+  }
+
+  @Override
+  public LocalSink getSink() throws Exception { return new LocalSink(storageRegistry); }
+
+  @Override
+  public LocalSource getSource() throws Exception { return new LocalSource(storageRegistry); }
+  
+  public LocalSSM getPartition(int partitionId) throws RegistryException, IOException {
+    return getPartition(storageRegistry, partitionId);
+  }
+  
+  static public LocalSSM getPartition(HDFSStorageRegistry storageRegistry, int partitionId) throws RegistryException, IOException {
+    LocalStorageConfig sConfig = new LocalStorageConfig(storageRegistry.getStorageConfig());
+    String pLocation = sConfig.getLocation() + "/partition-" + partitionId;
+    SSMRegistry pRegistry = storageRegistry.getPartitionRegistry(partitionId);
+    LocalSSM partition = new LocalSSM(pLocation, pRegistry);
+    partition.setMapSize(sConfig.getMapSize());
+    partition.setForceOnCommit(sConfig.getForceOnCommit());
+    return partition;
+  }
+  
+  public void cleanReadDataByActiveReader() throws RegistryException, IOException {
+    int numOfPartitionStream = getStorageConfig().getPartitionStream();
+    for(int i = 0; i < numOfPartitionStream; i++) {
+      getPartition(i).cleanReadSegmentByActiveReader();
+    }
+  }
+}
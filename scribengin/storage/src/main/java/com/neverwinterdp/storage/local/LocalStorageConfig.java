@@ -0,0 +1,36 @@
+package com.neverwinterdp.storage.local;
+
+import com.neverwinterdp.ssm.local.LocalSegmentWriter;
+import com.neverwinterdp.storage.StorageConfig;
+import com.neverwinterdp.storage.hdfs.HDFSStorageConfig;
+
+/**
+ * The same name, registry path and location attributes as the hdfs storage, the location is a directory on the
+ * local disk of the node.
+ */
+@SuppressWarnings("serial")
+public class LocalStorageConfig extends HDFSStorageConfig {
+  final static public String MAP_SIZE        = "segment.map-size" ;
+  final static public String FORCE_ON_COMMIT = "segment.force-on-commit" ;
+  
+  public LocalStorageConfig() { 
+    setType("local");
+  }
+  
+  public LocalStorageConfig(StorageConfig config) { 
+    putAll(config);
+  }
+  
+  public LocalStorageConfig(String name, String storageDir) { 
+    setType("local");
+    setName(name);
+    setRegistryPath(LocalStorage.LOCAL_REGISTRY + "/" + name);
+    setLocation(storageDir + "/" + name);
+  }
+  
+  public int  getMapSize() { return intAttribute(MAP_SIZE, LocalSegmentWriter.DEFAULT_MAP_SIZE); }
+  public void setMapSize(int size) { attribute(MAP_SIZE, size); }
+  
+  public boolean getForceOnCommit() { return booleanAttribute(FORCE_ON_COMMIT, false); }
+  public void    setForceOnCommit(boolean b) { attribute(FORCE_ON_COMMIT, b); }
+}
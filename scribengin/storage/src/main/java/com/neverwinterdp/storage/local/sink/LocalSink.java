@@ -0,0 +1,58 @@
+package com.neverwinterdp.storage.local.sink;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.neverwinterdp.registry.RegistryException;
+import com.neverwinterdp.storage.PartitionStreamConfig;
+import com.neverwinterdp.storage.StorageConfig;
+import com.neverwinterdp.storage.hdfs.HDFSStorageRegistry;
+import com.neverwinterdp.storage.hdfs.sink.HDFSSinkPartitionStream;
+import com.neverwinterdp.storage.local.LocalStorage;
+import com.neverwinterdp.storage.sink.Sink;
+
+public class LocalSink implements Sink {
+  private HDFSStorageRegistry storageRegistry ;
+  
+  public LocalSink(HDFSStorageRegistry storageRegistry) {
+    this.storageRegistry = storageRegistry;
+  }
+  
+  @Override
+  public StorageConfig getStorageConfig() { return storageRegistry.getStorageConfig(); }
+
+  @Override
+  public List<PartitionStreamConfig> getPartitionStreamConfigs() throws Exception {
+    int numOfPartitionStream = getStorageConfig().getPartitionStream();
+    List<PartitionStreamConfig> holder = new ArrayList<>();
+    for(int i = 0; i < numOfPartitionStream; i++) {
+      holder.add(new PartitionStreamConfig(i, null));
+    }
+    return holder;
+  }
+
+  @Override
+  public HDFSSinkPartitionStream getPartitionStream(PartitionStreamConfig pConfig) throws RegistryException, IOException {
+    return new HDFSSinkPartitionStream(LocalStorage.getPartition(storageRegistry, pConfig.getPartitionStreamId()), getStorageConfig(), pConfig);
+  }
+
+  @Override
+  public HDFSSinkPartitionStream getPartitionStream(int partitionId) throws RegistryException, IOException {
+    return getPartitionStream(new PartitionStreamConfig(partitionId, null)) ;
+  }
+
+  @Override
+  public HDFSSinkPartitionStream[] getPartitionStreams() throws RegistryException, IOException {
+    int numOfPartitionStream = getStorageConfig().getPartitionStream();
+    HDFSSinkPartitionStream[] stream = new HDFSSinkPartitionStream[numOfPartitionStream];
+    for(int i = 0; i < numOfPartitionStream; i++) {
+      stream[i] = getPartitionStream(i);
+    }
+    return stream;
+  }
+
+  @Override
+  public void close() throws RegistryException, IOException {
+  }
+}
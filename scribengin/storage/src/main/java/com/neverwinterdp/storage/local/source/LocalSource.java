@@ -0,0 +1,33 @@
+package com.neverwinterdp.storage.local.source;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.neverwinterdp.storage.StorageConfig;
+import com.neverwinterdp.storage.hdfs.HDFSStorageRegistry;
+import com.neverwinterdp.storage.source.Source;
+
+public class LocalSource implements Source {
+  private HDFSStorageRegistry  storageRegistry ;
+  private LocalSourcePartition partition;
+  
+  public LocalSource(HDFSStorageRegistry storageRegistry) {
+    this.storageRegistry = storageRegistry;
+    partition = new LocalSourcePartition(storageRegistry);
+  }
+  
+  @Override
+  public StorageConfig getStorageConfig() { return storageRegistry.getStorageConfig(); }
+
+  @Override
+  public LocalSourcePartition getLatestSourcePartition() throws Exception {
+    return partition;
+  }
+
+  @Override
+  public List<LocalSourcePartition> getSourcePartitions() throws Exception {
+    List<LocalSourcePartition> holder = new ArrayList<>();
+    holder.add(partition);
+    return holder;
+  }
+}
@@ -0,0 +1,44 @@
+package com.neverwinterdp.storage.local.source;
+
+import com.neverwinterdp.storage.PartitionStreamConfig;
+import com.neverwinterdp.storage.StorageConfig;
+import com.neverwinterdp.storage.hdfs.HDFSStorageRegistry;
+import com.neverwinterdp.storage.hdfs.source.HDFSSourcePartitionStream;
+import com.neverwinterdp.storage.local.LocalStorage;
+import com.neverwinterdp.storage.source.SourcePartition;
+
+public class LocalSourcePartition implements SourcePartition {
+  private HDFSStorageRegistry storageRegistry ;
+  
+  public LocalSourcePartition(HDFSStorageRegistry storageRegistry) {
+    this.storageRegistry = storageRegistry;
+  }
+  
+  public StorageConfig getStorageConfig() { 
+    return storageRegistry.getStorageConfig(); 
+  }
+
+  @Override
+  public HDFSSourcePartitionStream getPartitionStream(int partitionId) throws Exception {
+    return getPartitionStream(new PartitionStreamConfig(partitionId, null)) ;
+  }
+
+  @Override
+  public HDFSSourcePartitionStream getPartitionStream(PartitionStreamConfig pConfig) throws Exception {
+    return new HDFSSourcePartitionStream(LocalStorage.getPartition(storageRegistry, pConfig.getPartitionStreamId()), getStorageConfig(), pConfig);
+  }
+
+  @Override
+  public HDFSSourcePartitionStream[] getPartitionStreams() throws Exception {
+    int numOfPartitionStream = getStorageConfig().getPartitionStream();
+    HDFSSourcePartitionStream[] stream = new HDFSSourcePartitionStream[numOfPartitionStream];
+    for(int i = 0; i < numOfPartitionStream; i++) {
+      stream[i] = getPartitionStream(i);
+    }
+    return stream;
+  }
+  
+  @Override
+  public void close() throws Exception {
+  }
+}
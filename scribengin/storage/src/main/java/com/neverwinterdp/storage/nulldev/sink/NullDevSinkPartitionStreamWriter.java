@@ -2,10 +2,11 @@ package com.neverwinterdp.storage.nulldev.sink;
 
 import com.neverwinterdp.message.Message;
 import com.neverwinterdp.storage.PartitionStreamConfig;
+import com.neverwinterdp.storage.PipelinedCommit;
 import com.neverwinterdp.storage.StorageConfig;
 import com.neverwinterdp.storage.sink.SinkPartitionStreamWriter;
 
-public class NullDevSinkPartitionStreamWriter implements SinkPartitionStreamWriter {
+public class NullDevSinkPartitionStreamWriter implements SinkPartitionStreamWriter, PipelinedCommit {
   private StorageConfig         storageConfig;
   private PartitionStreamConfig partitionStreamConfig;
   
@@ -51,6 +51,10 @@ public class S3Client {
     s3Client.setRegion(region);
   }
   
+  public S3Client(AmazonS3Client s3Client) {
+    this.s3Client = s3Client;
+  }
+  
   @PreDestroy
   public void onDestroy() {
     s3Client.shutdown();
@@ -98,6 +98,10 @@ public class S3Folder {
     return writer;
   }
   
+  public S3MultipartObjectWriter createMultipartObjectWriter(String name, ObjectMetadata metadata, int partSize, int maxInFlightParts) throws IOException {
+    return new S3MultipartObjectWriter(s3Client, bucketName, toKey(name), metadata, partSize, maxInFlightParts);
+  }
+  
   public S3Object getS3Object(String name) {
     S3Object object = s3Client.getAmazonS3Client().getObject(new GetObjectRequest(bucketName, toKey(name)));
     return object;
@@ -0,0 +1,210 @@
+package com.neverwinterdp.storage.s3;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+
+/**
+ * Stream the object to s3 with a multipart upload instead of buffering the whole object in memory. The records are
+ * written in the same format as the S3ObjectWriter. A part is uploaded in the background as soon as it is full, at 
+ * most maxInFlightParts parts are uploaded at the same time and write waits for a free part buffer when the limit is
+ * reached. The part buffers are pooled and reused by the next parts and objects. 
+ * <p/>
+ * waitAndClose uploads the last part, waits for the parts and completes the upload, forceClose aborts the upload.
+ * The object metadata is set when the upload is initiated, the num-of-records is added to the metadata on 
+ * waitAndClose and saved with the next metadata update, the same as the transaction state. S3 requires a part size 
+ * of 5MB at least, except for the last part.
+ */
+public class S3MultipartObjectWriter extends S3ObjectWriter {
+  final static public int MIN_PART_SIZE = 5 * 1024 * 1024;
+  
+  final static private ArrayBlockingQueue<byte[]> PART_BUFFER_POOL = new ArrayBlockingQueue<>(16);
+  
+  final static private ExecutorService UPLOAD_EXECUTOR = Executors.newFixedThreadPool(8, new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "s3-multipart-upload");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+  
+  private String            uploadId;
+  private int               maxInFlightParts;
+  private Semaphore         inFlightParts;
+  private List<PartETag>    partETags = new ArrayList<>();
+  private volatile Throwable uploadError;
+  private boolean           complete = false;
+
+  S3MultipartObjectWriter(S3Client s3Client, String bucketName, String key, ObjectMetadata metadata, int partSize, int maxInFlightParts) throws IOException {
+    this(s3Client, bucketName, key, metadata, new PartOutputStream(partSize), maxInFlightParts);
+  }
+  
+  private S3MultipartObjectWriter(S3Client s3Client, String bucketName, String key, ObjectMetadata metadata, PartOutputStream out, int maxInFlightParts) throws IOException {
+    super(s3Client, bucketName, key, metadata, out);
+    this.maxInFlightParts = maxInFlightParts;
+    this.inFlightParts    = new Semaphore(maxInFlightParts);
+    InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(bucketName, key, metadata);
+    uploadId = s3Client.getAmazonS3Client().initiateMultipartUpload(request).getUploadId();
+    out.writer = this;
+  }
+
+  public String getUploadId() { return uploadId; }
+  
+  @Override
+  public void waitAndClose(long timeout) throws Exception, IOException, InterruptedException {
+    if(complete) return;
+    objOs.close();
+    waitForParts(timeout);
+    if(uploadError != null) throw new IOException("Cannot upload the parts of " + key, uploadError);
+    List<PartETag> sortedPartETags = new ArrayList<>(partETags);
+    Collections.sort(sortedPartETags, PART_NUMBER_COMPARATOR);
+    CompleteMultipartUploadRequest request = new CompleteMultipartUploadRequest(bucketName, key, uploadId, sortedPartETags);
+    s3Client.getAmazonS3Client().completeMultipartUpload(request);
+    metadata.addUserMetadata("num-of-records", Integer.toString(numOfRecords));
+    complete = true;
+  }
+  
+  @Override
+  public void forceClose() throws IOException, InterruptedException {
+    abort(60 * 1000);
+  }
+  
+  /**
+   * Abort the upload, the abort is sent even if the uploads in flight do not finish in the timeout, so s3 does not 
+   * keep the parts of an incomplete upload.
+   */
+  void abort(long timeout) throws IOException, InterruptedException {
+    if(complete) return;
+    try {
+      //the uploads in flight can recreate the parts after the abort
+      waitForParts(timeout);
+    } finally {
+      s3Client.getAmazonS3Client().abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+      complete = true;
+    }
+  }
+  
+  void waitForParts(long timeout) throws IOException, InterruptedException {
+    if(!inFlightParts.tryAcquire(maxInFlightParts, timeout, TimeUnit.MILLISECONDS)) {
+      throw new IOException("Cannot upload the parts of " + key + " in " + timeout + "ms");
+    }
+    inFlightParts.release(maxInFlightParts);
+  }
+  
+  void uploadPart(final int partNumber, final byte[] buffer, final int length) throws IOException {
+    if(uploadError != null) {
+      releaseBuffer(buffer);
+      throw new IOException("Cannot upload the parts of " + key, uploadError);
+    }
+    try {
+      inFlightParts.acquire();
+    } catch (InterruptedException e) {
+      releaseBuffer(buffer);
+      throw new IOException("Interrupted while waiting for a part upload", e);
+    }
+    Runnable upload = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          UploadPartRequest request = new UploadPartRequest().
+            withBucketName(bucketName).withKey(key).withUploadId(uploadId).
+            withPartNumber(partNumber).withPartSize(length).
+            withInputStream(new ByteArrayInputStream(buffer, 0, length));
+          AmazonS3Client client = s3Client.getAmazonS3Client();
+          PartETag partETag = client.uploadPart(request).getPartETag();
+          synchronized(partETags) { partETags.add(partETag); }
+        } catch(Throwable t) {
+          uploadError = t;
+        } finally {
+          releaseBuffer(buffer);
+          inFlightParts.release();
+        }
+      }
+    };
+    UPLOAD_EXECUTOR.submit(upload);
+  }
+  
+  static byte[] takeBuffer(int size) {
+    byte[] buffer = PART_BUFFER_POOL.poll();
+    if(buffer == null || buffer.length != size) buffer = new byte[size];
+    return buffer;
+  }
+  
+  static void releaseBuffer(byte[] buffer) {
+    PART_BUFFER_POOL.offer(buffer);
+  }
+  
+  final static Comparator<PartETag> PART_NUMBER_COMPARATOR = new Comparator<PartETag>() {
+    @Override
+    public int compare(PartETag p1, PartETag p2) { return p1.getPartNumber() - p2.getPartNumber(); }
+  };
+  
+  /**
+   * Cut the object stream in parts of the part size, the last part is uploaded on close.
+   */
+  static class PartOutputStream extends OutputStream {
+    private S3MultipartObjectWriter writer;
+    private int    partSize;
+    private byte[] buffer;
+    private int    position;
+    private int    partNumber = 0;
+    
+    PartOutputStream(int partSize) {
+      this.partSize = partSize;
+    }
+    
+    @Override
+    public void write(int b) throws IOException {
+      if(buffer == null) buffer = takeBuffer(partSize);
+      buffer[position++] = (byte) b;
+      if(position == partSize) uploadBuffer();
+    }
+    
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      while(len > 0) {
+        if(buffer == null) buffer = takeBuffer(partSize);
+        int length = Math.min(len, partSize - position);
+        System.arraycopy(b, off, buffer, position, length);
+        position += length;
+        off += length;
+        len -= length;
+        if(position == partSize) uploadBuffer();
+      }
+    }
+    
+    @Override
+    public void close() throws IOException {
+      //a multipart upload needs one part at least
+      if(position > 0 || partNumber == 0) {
+        if(buffer == null) buffer = takeBuffer(partSize);
+        uploadBuffer();
+      }
+    }
+    
+    private void uploadBuffer() throws IOException {
+      writer.uploadPart(++partNumber, buffer, position);
+      buffer = null;
+      position = 0;
+    }
+  }
+}
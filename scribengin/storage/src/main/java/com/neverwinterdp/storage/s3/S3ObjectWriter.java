@@ -4,6 +4,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
@@ -15,13 +16,13 @@ import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectResult;
 
 public class S3ObjectWriter {
-  private S3Client s3Client;
-  private String bucketName;
-  private String key;
-  private ObjectMetadata metadata ;
+  protected S3Client s3Client;
+  protected String bucketName;
+  protected String key;
+  protected ObjectMetadata metadata ;
   private ByteArrayOutputStream bos ;
-  private ObjectOutputStream    objOs;
-  private int numOfRecords = 0;
+  protected ObjectOutputStream  objOs;
+  protected int numOfRecords = 0;
   
   public S3ObjectWriter(S3Client s3Client, String bucketName, String key, ObjectMetadata metadata) throws IOException {
     this.s3Client   = s3Client;
@@ -31,6 +32,17 @@ public class S3ObjectWriter {
     this.bos        = new ByteArrayOutputStream(4 * 1024 * 1024) ;
     this.objOs      = new ObjectOutputStream(bos);
   }
+  
+  /**
+   * Write the records to the given stream instead of the in memory buffer.
+   */
+  protected S3ObjectWriter(S3Client s3Client, String bucketName, String key, ObjectMetadata metadata, OutputStream out) throws IOException {
+    this.s3Client   = s3Client;
+    this.bucketName = bucketName;
+    this.key        = key;
+    this.metadata   = metadata;
+    this.objOs      = new ObjectOutputStream(out);
+  }
 
   public ObjectMetadata getObjectMetadata() { return metadata; }
 
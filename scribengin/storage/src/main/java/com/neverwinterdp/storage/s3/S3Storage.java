@@ -10,6 +10,10 @@ public class S3Storage extends Storage {
   final static public String BUCKET_NAME   = "s3.bucket.name";
   final static public String STORAGE_PATH  = "s3.storage.path";
   
+  /** The part size of the multipart upload of the sink segments, 5MB at least, 0 to upload a segment in one put */
+  final static public String MULTIPART_PART_SIZE          = "s3.multipart.part-size";
+  final static public String MULTIPART_MAX_INFLIGHT_PARTS = "s3.multipart.max-inflight-parts";
+  
   private String bucketName ;
   private String storageFolder ;
   
@@ -6,15 +6,16 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.neverwinterdp.message.Message;
+import com.neverwinterdp.message.MessageCodec;
 import com.neverwinterdp.storage.PartitionStreamConfig;
 import com.neverwinterdp.storage.StorageConfig;
 import com.neverwinterdp.storage.s3.S3Client;
 import com.neverwinterdp.storage.s3.S3Folder;
+import com.neverwinterdp.storage.s3.S3MultipartObjectWriter;
 import com.neverwinterdp.storage.s3.S3ObjectWriter;
 import com.neverwinterdp.storage.s3.S3Storage;
 import com.neverwinterdp.storage.s3.S3StoragePartitioner;
 import com.neverwinterdp.storage.sink.SinkPartitionStreamWriter;
-import com.neverwinterdp.util.JSONSerializer;
 
 public class S3SinkPartitionStreamWriter implements SinkPartitionStreamWriter {
   static final private String WORKER_ID = UUID.randomUUID().toString();
@@ -48,7 +49,19 @@ public class S3SinkPartitionStreamWriter implements SinkPartitionStreamWriter {
         s3Client.createS3Folder(bucketName, partitionPath);
       }
       String streamPath = partitionPath + "/partition-stream-" + partitionStreamId;
-      currentWriter = new SegmentWriter(s3Client, bucketName, streamPath);
+      MessageCodec codec = MessageCodec.getCodec(storageConfig.getMessageCodec());
+      currentWriter = new SegmentWriter(s3Client, bucketName, streamPath, codec);
+      int partSize = storageConfig.intAttribute(S3Storage.MULTIPART_PART_SIZE, 0);
+      if(partSize > 0) {
+        if(partSize < S3MultipartObjectWriter.MIN_PART_SIZE) {
+          String msg = 
+            S3Storage.MULTIPART_PART_SIZE + " = " + partSize + " is less than the s3 min part size " + 
+            S3MultipartObjectWriter.MIN_PART_SIZE;
+          throw new IllegalArgumentException(msg);
+        }
+        int maxInFlightParts = storageConfig.intAttribute(S3Storage.MULTIPART_MAX_INFLIGHT_PARTS, 2);
+        currentWriter.setMultipartUpload(partSize, maxInFlightParts);
+      }
     }
     currentWriter.append(dataflowMessage);
   }
@@ -103,8 +116,12 @@ public class S3SinkPartitionStreamWriter implements SinkPartitionStreamWriter {
     private String         currentSegmentName;
     private S3ObjectWriter currentWriter ;
     private S3Folder       streamS3Folder ;
+    private MessageCodec   codec ;
+    private int            multipartPartSize = 0;
+    private int            maxInFlightParts;
     
-    public SegmentWriter(S3Client s3Client, String bucketName, String folder) throws IOException {
+    public SegmentWriter(S3Client s3Client, String bucketName, String folder, MessageCodec codec) throws IOException {
+      this.codec = codec;
       if(!s3Client.hasKey(bucketName, folder)) {
         streamS3Folder = s3Client.createS3Folder(bucketName, folder);
       } else {
@@ -112,14 +129,27 @@ public class S3SinkPartitionStreamWriter implements SinkPartitionStreamWriter {
       }
     }
     
+    /**
+     * Stream the segment with a multipart upload, the parts are uploaded in the background as they fill, the upload
+     * is completed on prepareCommit and aborted on rollback.
+     */
+    public void setMultipartUpload(int partSize, int maxInFlightParts) {
+      this.multipartPartSize = partSize;
+      this.maxInFlightParts  = maxInFlightParts;
+    }
+    
     public void append(Message record) throws Exception {
       if(currentWriter == null) {
         ObjectMetadata metadata = new ObjectMetadata();
         metadata.addUserMetadata("transaction", "prepare");
         currentSegmentName = "segment-" + WORKER_ID + "-" + SEGMENT_ID_TRACKER.incrementAndGet();
-        currentWriter      = streamS3Folder.createObjectWriter(currentSegmentName, metadata);
+        if(multipartPartSize > 0) {
+          currentWriter = streamS3Folder.createMultipartObjectWriter(currentSegmentName, metadata, multipartPartSize, maxInFlightParts);
+        } else {
+          currentWriter = streamS3Folder.createObjectWriter(currentSegmentName, metadata);
+        }
       }
-      byte[] bytes = JSONSerializer.INSTANCE.toBytes(record);
+      byte[] bytes = codec.toBytes(record);
       currentWriter.write(bytes);
     }
 
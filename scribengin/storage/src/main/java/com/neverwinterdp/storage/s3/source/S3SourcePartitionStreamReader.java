@@ -6,6 +6,7 @@ import java.util.List;
 
 import com.amazonaws.services.s3.model.S3Object;
 import com.neverwinterdp.message.Message;
+import com.neverwinterdp.message.MessageCodec;
 import com.neverwinterdp.storage.PartitionStreamConfig;
 import com.neverwinterdp.storage.StorageConfig;
 import com.neverwinterdp.storage.s3.S3Client;
@@ -14,7 +15,6 @@ import com.neverwinterdp.storage.s3.S3ObjectReader;
 import com.neverwinterdp.storage.s3.S3Storage;
 import com.neverwinterdp.storage.source.CommitPoint;
 import com.neverwinterdp.storage.source.SourcePartitionStreamReader;
-import com.neverwinterdp.util.JSONSerializer;
 
 public class S3SourcePartitionStreamReader implements SourcePartitionStreamReader {
   private String                name;
@@ -65,7 +65,7 @@ public class S3SourcePartitionStreamReader implements SourcePartitionStreamReade
     
     if(currentSegmenttReader.hasNext()) {
       byte[] data = currentSegmenttReader.next();
-      return JSONSerializer.INSTANCE.fromBytes(data, Message.class);
+      return MessageCodec.decode(data);
     } else {
       currentSegmenttReader.close();
       currentSegmenttReader = null ;
@@ -75,10 +75,11 @@ public class S3SourcePartitionStreamReader implements SourcePartitionStreamReade
 
   public Message[] next(int size, long maxWait) throws Exception {
     List<Message> holder = new ArrayList<Message>();
-    for (int i = 0; i < size; i++) {
-      Message record = next(maxWait);
-      if (record != null) holder.add(record);
-      else break;
+    Message record = next(maxWait);
+    while(record != null) {
+      holder.add(record);
+      if(holder.size() == size) break;
+      record = next(0);
     }
     Message[] array = new Message[holder.size()];
     holder.toArray(array);
@@ -0,0 +1,197 @@
+package com.neverwinterdp.storage.simplehdfs;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.neverwinterdp.yara.Counter;
+import com.neverwinterdp.yara.MetricRegistry;
+import com.neverwinterdp.yara.Timer;
+
+/**
+ * Run the segment merges of the storage partitions in a thread pool. A merge task is scheduled for every segment
+ * type of every partition, the merges of the different types and partitions run concurrently while the merges of
+ * the same type in the same partition run one at a time, in the other processes too since they use the lock of
+ * the type. A task keeps merging until there are not enough segments of its type to fill a larger segment.
+ * <p/>
+ * The metrics are:
+ * <ul>
+ *   <li>simplehdfs.merge.count, simplehdfs.merge.byte: the number of the merges and the bytes merged</li>
+ *   <li>simplehdfs.merge.latency: the time of a merge</li>
+ *   <li>simplehdfs.merge.error: the number of the merge tasks that fail, the failed merge is resumed by the next
+ *   scheduled merge of the same type</li>
+ *   <li>the backlog, the bytes of the segments that are not merged into a large segment yet, see {@link #getBacklog()}</li>
+ * </ul>
+ */
+public class SegmentCompactionScheduler {
+  final static public Segment.Type[] MERGE_TYPES = { Segment.Type.buffer, Segment.Type.small, Segment.Type.medium };
+
+  private List<SegmentStorage<?>> storages      = new CopyOnWriteArrayList<>();
+  private Logger                  logger        = LoggerFactory.getLogger(SegmentCompactionScheduler.class);
+  private Set<String>             runningMerges = new HashSet<>();
+  private ExecutorService         mergeExecutor;
+  private ScheduleThread          scheduleThread;
+  private long                    maxLockTime   = 15 * 60 * 1000;
+
+  private Counter                 mergeCounter;
+  private Counter                 mergeByteCounter;
+  private Counter                 mergeErrorCounter;
+  private Timer                   mergeTimer;
+
+  public SegmentCompactionScheduler(int numOfMergeThreads, MetricRegistry mRegistry) {
+    mergeExecutor     = Executors.newFixedThreadPool(numOfMergeThreads);
+    mergeCounter      = mRegistry.counter("simplehdfs", "merge", "count");
+    mergeByteCounter  = mRegistry.counter("simplehdfs", "merge", "byte");
+    mergeErrorCounter = mRegistry.counter("simplehdfs", "merge", "error");
+    mergeTimer        = mRegistry.timer("simplehdfs", "merge", "latency");
+  }
+  
+  /**
+   * The max time a merge can hold the lock of its segment type, the lock of a merge that runs longer is considered
+   * dead and the merge is resumed by the next scheduled merge of the same type.
+   */
+  public void setMaxLockTime(long maxLockTime) { this.maxLockTime = maxLockTime; }
+  
+  public void add(SegmentStorage<?> storage) { storages.add(storage); }
+  
+  public void remove(SegmentStorage<?> storage) { storages.remove(storage); }
+  
+  public long getMergeCount() { return mergeCounter.getCount(); }
+  
+  public long getMergeBytes() { return mergeByteCounter.getCount(); }
+  
+  public long getMergeErrorCount() { return mergeErrorCounter.getCount(); }
+  
+  public Timer getMergeTimer() { return mergeTimer; }
+  
+  synchronized public int getNumOfRunningMerges() { return runningMerges.size(); }
+  
+  /**
+   * The bytes of the buffer, small and medium segments as of the last refresh of the storages.
+   */
+  public long getBacklog() {
+    long backlog = 0;
+    for(SegmentStorage<?> storage : storages) {
+      for(Segment.Type type : MERGE_TYPES) {
+        backlog += storage.getSegmentByType(type).dataSize();
+      }
+    }
+    return backlog;
+  }
+  
+  /**
+   * Schedule a merge for every segment type of every storage that does not have a merge running.
+   */
+  public void schedule() {
+    for(SegmentStorage<?> storage : storages) {
+      for(Segment.Type type : MERGE_TYPES) {
+        schedule(storage, type);
+      }
+    }
+  }
+  
+  synchronized boolean schedule(SegmentStorage<?> storage, Segment.Type type) {
+    String key = storage.getLocation() + ":" + type;
+    if(!runningMerges.add(key)) return false;
+    mergeExecutor.submit(new MergeTask(key, storage, type));
+    return true;
+  }
+  
+  public void start(long period) {
+    scheduleThread = new ScheduleThread(period);
+    scheduleThread.start();
+  }
+  
+  public boolean shutdown(long maxWaitTime) throws InterruptedException {
+    if(scheduleThread != null) {
+      scheduleThread.terminate(maxWaitTime);
+      scheduleThread = null;
+    }
+    mergeExecutor.shutdown();
+    return mergeExecutor.awaitTermination(maxWaitTime, TimeUnit.MILLISECONDS);
+  }
+  
+  boolean merge(SegmentStorage<?> storage, Segment.Type type) throws Exception {
+    SegmentOperationConfig opConfig = SegmentMergeOperation.createOperationConfig(storage, type, maxLockTime);
+    long startTime = System.nanoTime();
+    boolean executed = storage.execute(opConfig, 1000, 250);
+    SegmentSet sources = opConfig.attribute("sources", SegmentSet.class);
+    if(!executed || sources == null) return false;
+    mergeTimer.update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    mergeCounter.incr();
+    mergeByteCounter.incr(sources.dataSize());
+    return true;
+  }
+  
+  public class MergeTask implements Runnable {
+    private String            key;
+    private SegmentStorage<?> storage;
+    private Segment.Type      type;
+    
+    MergeTask(String key, SegmentStorage<?> storage, Segment.Type type) {
+      this.key     = key;
+      this.storage = storage;
+      this.type    = type;
+    }
+    
+    @Override
+    public void run() {
+      try {
+        while(merge(storage, type)) {
+        }
+      } catch (Exception e) {
+        mergeErrorCounter.incr();
+        logger.error("The merge of the " + type + " segments of " + storage.getLocation() + " is failed", e);
+      } finally {
+        synchronized(SegmentCompactionScheduler.this) {
+          runningMerges.remove(key);
+        }
+      }
+    }
+  }
+  
+  public class ScheduleThread extends Thread {
+    private long    period;
+    private boolean interrupted = false;
+    private boolean terminated  = false;
+    
+    ScheduleThread(long period) {
+      this.period = period;
+      setName("segment-compaction-scheduler");
+      setDaemon(true);
+    }
+
+    public void run() {
+      while (!interrupted) {
+        try {
+          schedule();
+          if(interrupted) break;
+          Thread.sleep(period);
+        } catch (InterruptedException e) {
+        }
+      }
+      synchronized (this) {
+        terminated = true;
+        notifyAll();
+      }
+    }
+
+    synchronized boolean terminate(long maxWaitTime) throws InterruptedException {
+      interrupted = true;
+      if(getState() == State.TIMED_WAITING) {
+        interrupt();
+      }
+      if (!terminated) {
+        wait(maxWaitTime);
+      }
+      return terminated;
+    }
+  }
+}
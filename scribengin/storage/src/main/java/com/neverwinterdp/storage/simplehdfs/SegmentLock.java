@@ -1,12 +1,16 @@
 package com.neverwinterdp.storage.simplehdfs;
 
 import java.io.IOException;
+import java.util.UUID;
 
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
 import com.neverwinterdp.util.JSONSerializer;
+import com.neverwinterdp.util.io.IOUtil;
 
 public class SegmentLock {
   private FileSystem             fs;
@@ -77,9 +81,35 @@ public class SegmentLock {
     return deleted;
   }
   
-  synchronized void discardDeathLock() throws IOException {
-    if(fs.exists(lockPath)) {
+  /**
+   * Discard the lock when its owner holds it longer than the max lock time of its operation, the owner is considered
+   * dead. The lock is renamed before it is deleted, so only one of the processes that find the dead lock discards it.
+   * 
+   * @return the operation config of the dead owner, null if there is no dead lock or another process discards it.
+   */
+  synchronized SegmentOperationConfig discardDeathLock() throws IOException {
+    if(!fs.exists(lockPath)) return null;
+    FileStatus status = fs.getFileStatus(lockPath);
+    SegmentOperationConfig deathConfig = null;
+    long expiredTime = status.getModificationTime() + operationConfig.getMaxLockTime();
+    try {
+      FSDataInputStream is = fs.open(lockPath);
+      byte[] bytes = IOUtil.getStreamContentAsBytes(is);
+      is.close();
+      if(bytes.length > 0) {
+        deathConfig = JSONSerializer.INSTANCE.fromBytes(bytes, SegmentOperationConfig.class);
+        expiredTime = deathConfig.getStartTime() + deathConfig.getMaxLockTime();
+      }
+    } catch(Exception ex) {
+      //the owner dies while writing the lock, use the modification time of the lock
     }
+    if(expiredTime > System.currentTimeMillis()) return null;
+    
+    Path discardPath = new Path(lockPath.getParent(), lockPath.getName() + "-" + UUID.randomUUID() + ".discard");
+    if(!fs.rename(lockPath, discardPath)) return null;
+    fs.delete(discardPath, false);
+    if(deathConfig == null) deathConfig = new SegmentOperationConfig();
+    return deathConfig;
   }
   
   void checkOwner() throws IOException {
@@ -4,11 +4,21 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
-import com.neverwinterdp.vm.environment.yarn.HDFSUtil;
-
+/**
+ * Merge the segments of a type into a segment of the next larger type. The merge goes through the steps:
+ * <ul>
+ *   <li>merge: the sources are copied into the buffering destination, renamed to complete when done</li>
+ *   <li>commit: the complete destination is renamed to data, then the sources are deleted</li>
+ * </ul>
+ * The step is recorded in the lock, so the operation can be resumed when the owner of the lock dies. The sources are
+ * copied instead of concatenated, the hdfs concat moves the source blocks into the hidden buffering file. The sources
+ * stay visible until the destination is visible, a reader may see the records twice in between but never miss them.
+ */
 public class SegmentMergeOperation<T> implements SegmentOperationExecutor<T> {
   
   @Override
@@ -24,7 +34,30 @@ public class SegmentMergeOperation<T> implements SegmentOperationExecutor<T> {
     commit(storage,lock, config);
   }
 
+  @Override
   public void resume(SegmentStorage<T> storage, SegmentLock lock, SegmentOperationConfig config) throws Exception {
+    String step = config.getAttribute("step");
+    if(step == null) return;
+    
+    if("merge".equals(step)) {
+      Segment destSegment = config.attribute("destination", Segment.class);
+      Path bufferingPath = new Path(destSegment.toBufferingPath(storage.getLocation()));
+      Path completePath  = new Path(destSegment.toCompletePath(storage.getLocation()));
+      SegmentSet segSet  = config.attribute("sources", SegmentSet.class);
+      Path[] srcPath     = segSet.toHDFSDataPath(storage);
+      FileSystem fs = storage.getFileSystem();
+      if(!fs.exists(completePath)) {
+        if(!exists(fs, srcPath)) {
+          throw new IOException("Cannot resume the merge, the sources of " + bufferingPath + " are missing");
+        }
+        //the sources are intact, discard the partial destination and let the next merge start over
+        if(fs.exists(bufferingPath)) fs.delete(bufferingPath, false);
+        return;
+      }
+      config.withAttribute("step", "commit");
+      lock.update(config);
+    }
+    commit(storage, lock, config);
   }
   
   boolean init(SegmentStorage<T> storage, SegmentLock lock, SegmentOperationConfig config) throws Exception {
@@ -63,29 +96,57 @@ public class SegmentMergeOperation<T> implements SegmentOperationExecutor<T> {
     Path[] srcPath  = segSet.toHDFSDataPath(storage);
     
     FileSystem fs = storage.getFileSystem();
-    HDFSUtil.concat(fs, bufferingPath, srcPath);
-    fs.rename(bufferingPath, completePath);
+    //keep the sources in place until the commit, the readers keep reading them while the destination is hidden
+    copy(fs, bufferingPath, srcPath);
+    if(!fs.rename(bufferingPath, completePath)) {
+      throw new IOException("Cannot rename " + bufferingPath + " to " + completePath);
+    }
   }
   
   void commit(SegmentStorage<T> storage, SegmentLock lock, SegmentOperationConfig config) throws Exception {
     FileSystem fs = storage.getFileSystem();
-//    SegmentSet segSet = config.attribute("sources", SegmentSet.class);
-//    Path[] srcPath  = segSet.toHDFSDataPath(storage);
-//    for(int i = 0; i < srcPath.length; i++) {
-//      boolean deleted = fs.delete(srcPath[i], false);
-//      if(!deleted) {
-//        throw new IOException("Cannot delete " + srcPath[i]) ;
-//      }
-//    }
-    
     Segment destSegment = config.attribute("destination", Segment.class);
     Path completePath = new Path(destSegment.toCompletePath(storage.getLocation()));
     Path dataPath = new Path(destSegment.toDataPath(storage.getLocation()));
-    fs.rename(completePath, dataPath);
+    if(fs.exists(completePath)) {
+      fs.rename(completePath, dataPath);
+    }
+    
+    SegmentSet segSet = config.attribute("sources", SegmentSet.class);
+    Path[] srcPath  = segSet.toHDFSDataPath(storage);
+    for(int i = 0; i < srcPath.length; i++) {
+      if(!fs.exists(srcPath[i])) continue;
+      boolean deleted = fs.delete(srcPath[i], false);
+      if(!deleted) {
+        throw new IOException("Cannot delete " + srcPath[i]) ;
+      }
+    }
+  }
+  
+  static boolean exists(FileSystem fs, Path[] path) throws IOException {
+    for(int i = 0; i < path.length; i++) {
+      if(!fs.exists(path[i])) return false;
+    }
+    return true;
+  }
+  
+  static void copy(FileSystem fs, Path dest, Path[] src) throws IOException {
+    FSDataOutputStream output = fs.create(dest, true) ;
+    byte[] buffer = new byte[64 * 1024];
+    for(int i = 0; i < src.length; i++) {
+      FSDataInputStream is = fs.open(src[i]);
+      int read = -1;
+      while ((read = is.read(buffer)) > -1) {
+        output.write(buffer, 0, read);
+      }
+      is.close();
+    }
+    output.hflush();
+    output.close();
   }
   
   static public SegmentOperationConfig createOperationConfig(SegmentStorage<?> storage, Segment.Type segType, long maxLockTime) {
-    SegmentOperationConfig opConfig = new SegmentOperationConfig("merge-buffer", maxLockTime);
+    SegmentOperationConfig opConfig = new SegmentOperationConfig("merge-" + segType, maxLockTime);
     opConfig.
       withExecutor(SegmentMergeOperation.class).
       withAttribute("segment.type", segType);
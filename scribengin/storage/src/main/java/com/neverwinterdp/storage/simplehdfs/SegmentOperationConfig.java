@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.neverwinterdp.util.JSONSerializer;
 import com.neverwinterdp.util.text.StringUtil;
 
@@ -101,6 +102,7 @@ public class SegmentOperationConfig {
     return this;
   }
   
+  @JsonIgnore
   public String getDestination() { return attributes.get("destination") ;}
   
   public SegmentOperationConfig withDestination(String value) {
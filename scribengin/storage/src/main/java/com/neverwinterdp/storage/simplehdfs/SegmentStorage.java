@@ -14,7 +14,7 @@ public class SegmentStorage<T> {
   private FileSystem    fs;
   private String        location;
   private Class<T>      type;
-  private LinkedHashMap<String, Segment> segments;
+  private volatile LinkedHashMap<String, Segment> segments;
   
   public SegmentStorage(FileSystem fs, String location, Class<T> type) throws IOException {
     this.fs       = fs;
@@ -90,15 +90,41 @@ public class SegmentStorage<T> {
   }
   
   
-  public void execute(SegmentOperationConfig config, long maxWaitTime, long tryPeriod) throws Exception {
-    Path lockPath = new Path(location + "/lock");
+  /**
+   * Execute the operation under the lock of the operation name, so the operations with the different names, such
+   * as the merges of the different segment types, can run concurrently. When the lock cannot be acquired and its
+   * owner is dead, the operation of the dead owner is resumed.
+   * 
+   * @return true if the operation is executed
+   */
+  public boolean execute(SegmentOperationConfig config, long maxWaitTime, long tryPeriod) throws Exception {
+    Path lockPath = new Path(location + "/lock-" + config.getName());
     SegmentLock lock = new SegmentLock(fs, lockPath, config) ;
-    if(lock.tryLock(maxWaitTime, tryPeriod)) {
-      Class<? extends SegmentOperationExecutor> opClass = 
-        (Class<? extends SegmentOperationExecutor>) Class.forName(config.getExecutor()) ;
-      SegmentOperationExecutor op = opClass.newInstance();
-      op.execute(this, lock, config);
-      lock.unlock();
+    if(!lock.tryLock(maxWaitTime, tryPeriod)) {
+      resume(lockPath, config);
+      return false;
     }
+    SegmentOperationExecutor<T> op = createExecutor(config);
+    op.execute(this, lock, config);
+    lock.unlock();
+    return true;
   }
-}
\ No newline at end of file
+  
+  void resume(Path lockPath, SegmentOperationConfig config) throws Exception {
+    SegmentOperationConfig deathConfig = new SegmentLock(fs, lockPath, config).discardDeathLock();
+    if(deathConfig == null || deathConfig.getExecutor() == null) return;
+    deathConfig.setStartTime(System.currentTimeMillis());
+    SegmentLock lock = new SegmentLock(fs, lockPath, deathConfig) ;
+    if(!lock.lock()) return;
+    SegmentOperationExecutor<T> op = createExecutor(deathConfig);
+    op.resume(this, lock, deathConfig);
+    lock.unlock();
+  }
+  
+  @SuppressWarnings("unchecked")
+  SegmentOperationExecutor<T> createExecutor(SegmentOperationConfig config) throws Exception {
+    Class<? extends SegmentOperationExecutor<T>> opClass = 
+      (Class<? extends SegmentOperationExecutor<T>>) Class.forName(config.getExecutor()) ;
+    return opClass.newInstance();
+  }
+}
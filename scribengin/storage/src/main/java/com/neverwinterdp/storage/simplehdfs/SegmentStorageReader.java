@@ -30,6 +30,8 @@ public class SegmentStorageReader<T> {
   private int commitPoint;
   private int currPosition;
   private CommitPoint lastCommitInfo;
+  private int  commitDataPathPos    = -1;
+  private long commitDataPathOffset = 0;
 
   public SegmentStorageReader(String name, FileSystem fs, String location, Class<T> type) throws FileNotFoundException, IllegalArgumentException, IOException {
     this.name = name;
@@ -62,27 +64,37 @@ public class SegmentStorageReader<T> {
     int recordSize = currentDataPathInputStream.readInt();
     byte[] data = new byte[recordSize];
     currentDataPathInputStream.readFully(data);
+    currPosition++;
     return JSONSerializer.INSTANCE.fromBytes(data, type);
   }
 
   public Message[] next(int size, long maxWait) throws IOException {
-    List<T> holder = new ArrayList<>();
-    Message[] array = new Message[holder.size()];
-    for (int i = 0; i < size; i++) {
-      T record = next(maxWait);
-      if (record != null)
-        holder.add(record);
-      else
-        break;
+    List<Message> holder = new ArrayList<>();
+    T record = next(maxWait);
+    while(record != null) {
+      holder.add((Message) record);
+      if(holder.size() == size) break;
+      record = next(0);
     }
+    Message[] array = new Message[holder.size()];
     holder.toArray(array);
     return array;
   }
 
   public boolean isEndOfDataStream() { return endOfStream; }
   
+  /**
+   * Go back to the data path and the offset of the last commit, the records after the commit are read again.
+   */
   public void rollback() throws Exception {
-    System.err.println("This method is not implemented");
+    if(currentDataPathInputStream != null) currentDataPathInputStream.close();
+    currentDataPathInputStream = null;
+    currentDataPathPos = commitDataPathPos;
+    endOfStream = false;
+    if(commitDataPathPos >= 0 && commitDataPathPos < dataPaths.size()) {
+      currentDataPathInputStream = fs.open(dataPaths.get(commitDataPathPos));
+      currentDataPathInputStream.seek(commitDataPathOffset);
+    }
     currPosition = commitPoint;
   }
 
@@ -94,9 +106,10 @@ public class SegmentStorageReader<T> {
   }
 
   public void commit() throws IOException {
-    System.err.println("This method is not implemented");
     lastCommitInfo = new CommitPoint(name, commitPoint, currPosition);
     this.commitPoint = currPosition;
+    commitDataPathPos    = currentDataPathPos;
+    commitDataPathOffset = currentDataPathInputStream != null ? currentDataPathInputStream.getPos() : 0;
   }
 
   public CommitPoint getLastCommitInfo() {
@@ -0,0 +1,9 @@
+package com.neverwinterdp.storage.source;
+
+/**
+ * Notified by a source stream reader when new data is available to read, so the task that waits for the data 
+ * can run immediately.
+ */
+public interface DataAvailableListener {
+  public void onDataAvailable() ;
+}
@@ -0,0 +1,9 @@
+package com.neverwinterdp.storage.source;
+
+/**
+ * Implemented by the source stream readers that know when new data is available, for example from a registry
+ * watch, instead of finding it by polling in next(maxWait).
+ */
+public interface DataAvailableNotifier {
+  public void setDataAvailableListener(DataAvailableListener listener) ;
+}
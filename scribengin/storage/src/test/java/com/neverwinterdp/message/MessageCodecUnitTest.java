@@ -0,0 +1,80 @@
+package com.neverwinterdp.message;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.neverwinterdp.util.JSONSerializer;
+
+public class MessageCodecUnitTest {
+
+  @Test
+  public void testBinaryCodec() throws Exception {
+    Message message = createMessage("key-1", "hello binary codec");
+    byte[] bytes = MessageCodec.BINARY.toBytes(message);
+    Assert.assertTrue(BinaryMessageCodec.isBinary(bytes));
+    assertMessage(message, MessageCodec.decode(bytes));
+
+    Message emptyMessage = new Message();
+    assertMessage(emptyMessage, MessageCodec.decode(MessageCodec.BINARY.toBytes(emptyMessage)));
+  }
+
+  @Test
+  public void testJSONCompatibility() throws Exception {
+    Message message = createMessage("key-1", "hello json");
+    //the segments that are written before the codec is available
+    byte[] jsonBytes = JSONSerializer.INSTANCE.toBytes(message);
+    Assert.assertFalse(BinaryMessageCodec.isBinary(jsonBytes));
+    assertMessage(message, MessageCodec.decode(jsonBytes));
+
+    byte[] binaryBytes = MessageCodec.BINARY.toBytes(message);
+    System.out.println("json size = " + jsonBytes.length + ", binary size = " + binaryBytes.length);
+    Assert.assertTrue(binaryBytes.length < jsonBytes.length);
+  }
+
+  @Test
+  public void testPerformance() throws Exception {
+    Message message = createMessage("key-1", new String(new char[512]).replace('\0', 'a'));
+    int NUM_OF_MESSAGES = 100000;
+    for(MessageCodec codec : new MessageCodec[] { MessageCodec.JSON, MessageCodec.BINARY, MessageCodec.JSON, MessageCodec.BINARY }) {
+      long start = System.currentTimeMillis();
+      for(int i = 0; i < NUM_OF_MESSAGES; i++) {
+        MessageCodec.decode(codec.toBytes(message));
+      }
+      System.out.println(codec.getName() + " encode/decode " + NUM_OF_MESSAGES + " messages in " + (System.currentTimeMillis() - start) + "ms");
+    }
+  }
+
+  Message createMessage(String key, String text) {
+    Message message = Message.create(key, text);
+    MessageTracking tracking = new MessageTracking(3, 10);
+    tracking.add(new MessageTrackingLog("input", new String[] { "vm:vm-1", "executor:vm-1-executor-0" }));
+    tracking.add(new MessageTrackingLog("output", null));
+    tracking.add(new MessageTrackingLog("compact", 12345));
+    message.setMessageTracking(tracking);
+    return message;
+  }
+
+  void assertMessage(Message expect, Message message) {
+    Assert.assertEquals(expect.getKey(), message.getKey());
+    Assert.assertEquals(expect.getType(), message.getType());
+    Assert.assertArrayEquals(expect.getData(), message.getData());
+    MessageTracking expectTracking = expect.getMessageTracking();
+    MessageTracking tracking = message.getMessageTracking();
+    if(expectTracking == null) {
+      Assert.assertNull(tracking);
+      return;
+    }
+    Assert.assertEquals(expectTracking.getTimestamp(), tracking.getTimestamp());
+    Assert.assertEquals(expectTracking.getWindowId(), tracking.getWindowId());
+    Assert.assertEquals(expectTracking.getTrackingId(), tracking.getTrackingId());
+    Assert.assertEquals(expectTracking.getLogs().size(), tracking.getLogs().size());
+    for(int i = 0; i < expectTracking.getLogs().size(); i++) {
+      MessageTrackingLog expectLog = expectTracking.getLogs().get(i);
+      MessageTrackingLog log = tracking.getLogs().get(i);
+      Assert.assertEquals(expectLog.getTimestamp(), log.getTimestamp());
+      Assert.assertEquals(expectLog.getName(), log.getName());
+      Assert.assertArrayEquals(expectLog.getTag(), log.getTag());
+      Assert.assertEquals(expectLog.getSource(), log.getSource());
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.neverwinterdp.message;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MessageTrackingLoggerUnitTest {
+  final static String[] TAG = { "vm:vm-1", "executor:vm-1-executor-0" };
+  
+  @Test
+  public void testSampling() throws Exception {
+    MessageTrackingLogger inputLogger  = new MessageTrackingLogger(10, true, TAG, 1);
+    MessageTrackingLogger outputLogger = new MessageTrackingLogger(10, true, TAG, 1);
+    TrackingWindowStat windowStat = new TrackingWindowStat("output", 1, 1000);
+    for(int i = 0; i < 1000; i++) {
+      //the message 500 is lost
+      if(i == 500) continue;
+      MessageTracking mTracking = new MessageTracking(1, i);
+      inputLogger.log(mTracking, "input");
+      outputLogger.log(mTracking, "output");
+      if(i % 10 == 0) {
+        Assert.assertEquals(2, mTracking.getLogs().size());
+        Assert.assertEquals(inputLogger.getSource(), mTracking.getLogs().get(0).getSource());
+        Assert.assertNull(mTracking.getLogs().get(0).getTag());
+      } else {
+        Assert.assertNull(mTracking.getLogs());
+      }
+      windowStat.log(mTracking);
+      //the message 700 is duplicated
+      if(i == 700) windowStat.log(mTracking);
+    }
+    windowStat.update();
+    Assert.assertEquals(999, windowStat.getTrackingCount());
+    Assert.assertEquals(1, windowStat.getTrackingLostCount());
+    Assert.assertEquals(500, windowStat.getTrackingNoLostTo());
+    Assert.assertEquals(1, windowStat.getTrackingDuplicatedCount());
+    Assert.assertEquals(99, windowStat.getLogStats().get("input").getCount());
+    Assert.assertEquals(99, windowStat.getLogStats().get("output").getCount());
+    
+    MessageTrackingLogger noLogger = new MessageTrackingLogger(0, false, TAG, 0);
+    MessageTracking mTracking = new MessageTracking(1, 0);
+    noLogger.log(mTracking, "input");
+    Assert.assertNull(mTracking.getLogs());
+  }
+  
+  @Test
+  public void testMessageSize() throws Exception {
+    int[]     sampleRates = { 1, 1, 10, 0 };
+    boolean[] compacts    = { false, true, true, true };
+    for(int k = 0; k < sampleRates.length; k++) {
+      MessageTrackingLogger logger = new MessageTrackingLogger(sampleRates[k], compacts[k], TAG, 1);
+      long size = 0;
+      long start = System.nanoTime();
+      for(int i = 0; i < 100000; i++) {
+        Message message = Message.create("key-" + i, "a message of about fifty bytes of data............");
+        MessageTracking mTracking = new MessageTracking(1, i % 1000);
+        message.setMessageTracking(mTracking);
+        logger.log(mTracking, "input");
+        logger.log(mTracking, "splitter:preProcess");
+        logger.log(mTracking, "splitter:postProcess");
+        logger.log(mTracking, "output");
+        size += MessageCodec.BINARY.toBytes(message).length;
+      }
+      long duration = (System.nanoTime() - start) / 1000000;
+      System.out.println(
+        "sample rate = " + sampleRates[k] + ", compact = " + compacts[k] + 
+        ", avg message size = " + (size / 100000) + ", encode time = " + duration + "ms");
+    }
+  }
+}
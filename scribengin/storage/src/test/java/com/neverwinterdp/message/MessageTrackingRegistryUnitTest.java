@@ -5,6 +5,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -41,6 +42,25 @@ final static public String WORKING_DIR = "build/working";
     zkCluster.shutdown();
   }
   
+  @Test
+  public void testRegisterSource() throws Exception {
+    TrackingWindowRegistry tRegistry = new TrackingWindowRegistry(registry, "/tracking-message");
+    tRegistry.initRegistry();
+    //the registry of another worker
+    TrackingWindowRegistry otherRegistry = new TrackingWindowRegistry(registry, "/tracking-message");
+    
+    String[] tag1 = { "vm:vm-1", "executor:vm-1-executor-0" };
+    String[] tag2 = { "vm:vm-2", "executor:vm-2-executor-0" };
+    int source1 = tRegistry.registerSource(tag1);
+    int source2 = otherRegistry.registerSource(tag2);
+    Assert.assertTrue(source1 > 0);
+    Assert.assertNotEquals(source1, source2);
+    Assert.assertEquals(source1, tRegistry.registerSource(tag1));
+    Assert.assertArrayEquals(tag1, otherRegistry.getSourceTag(source1));
+    Assert.assertArrayEquals(tag2, tRegistry.getSourceTag(source2));
+    Assert.assertNull(tRegistry.getSourceTag(source2 + 100));
+  }
+  
   @Test
   public void testMessageTrackingRegistry() throws Exception {
     int MAX_WINDOW_SIZE  = 10000;
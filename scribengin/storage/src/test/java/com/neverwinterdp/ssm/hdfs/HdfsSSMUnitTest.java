@@ -124,6 +124,85 @@ public class HdfsSSMUnitTest {
   }
   
 
+  @Test
+  public void testCompression() throws Exception {
+    for(String compression : new String[] { "none", "deflate", "snappy", "lz4" }) {
+      HdfsSSM storage = new HdfsSSM(fs, WORKING_DIR + "/seg-storage-" + compression, registry, "/seg-storage-" + compression);
+      storage.setCompression(compression);
+      SSMWriter writer = storage.getWriter("writer");
+      int NUM_OF_COMMIT = 10, NUM_OF_RECORD_PER_COMMIT = 100;
+      for(int j = 0; j < NUM_OF_COMMIT; j++) {
+        for(int i = 0; i < NUM_OF_RECORD_PER_COMMIT; i++) {
+          writer.write(("record " + (j * NUM_OF_RECORD_PER_COMMIT + i) + ", compression " + compression).getBytes());
+        }
+        writer.commit();
+        for(int i = 0; i < NUM_OF_RECORD_PER_COMMIT / 2; i++) {
+          writer.write(("rollback record " + i).getBytes());
+        }
+        writer.rollback();
+      }
+      writer.close();
+      SSMConsistencyVerifier scVerifier = storage.getSegmentConsistencyVerifier();
+      scVerifier.verify();
+      Assert.assertEquals(SegmentConsistency.Consistency.GOOD, scVerifier.getMinCommitConsistency());
+
+      //commit and rollback in the middle of the compressed blocks
+      SSMReader reader = storage.getReader("reader");
+      int count = 0;
+      byte[] data = null;
+      while((data = reader.nextRecord(1000)) != null) {
+        Assert.assertEquals("record " + count + ", compression " + compression, new String(data));
+        count++;
+        if(count % 150 == 0) {
+          reader.prepareCommit();
+          reader.completeCommit();
+          for(int i = 0; i < 30 && reader.nextRecord(1000) != null; i++) {
+          }
+          reader.rollback();
+        }
+      }
+      Assert.assertEquals(NUM_OF_COMMIT * NUM_OF_RECORD_PER_COMMIT, count);
+      reader.closeAndRemove();
+      System.out.println(compression + ": " + scVerifier.getSegmentDescriptorTextReport());
+    }
+  }
+
+  @Test
+  public void testReadLatency() throws Exception {
+    HdfsSSM storage = new HdfsSSM(fs, WORKING_DIR + "/seg-storage", registry, "/seg-storage");
+    final SSMReader reader = storage.getReader("reader");
+    final long[] readTime = new long[1];
+    Thread readerThread = new Thread() {
+      public void run() {
+        try {
+          for(int i = 0; i < 2; i++) {
+            reader.nextRecord(10000);
+            readTime[0] = System.currentTimeMillis();
+          }
+        } catch(Exception e) {
+          e.printStackTrace();
+        }
+      }
+    };
+    readerThread.start();
+    Thread.sleep(1000);
+    
+    SSMWriter writer = storage.getWriter("writer");
+    //the first commit creates a new segment, the second commit modifies the segment
+    for(int i = 0; i < 2; i++) {
+      writer.write(("record " + i).getBytes());
+      long commitTime = System.currentTimeMillis();
+      writer.commit();
+      Thread.sleep(1000);
+      long latency = readTime[0] - commitTime;
+      System.out.println("commit " + i + ", read latency = " + latency + "ms");
+      Assert.assertTrue("read latency = " + latency + "ms", latency >= 0 && latency < 250);
+    }
+    readerThread.join();
+    writer.closeAndRemove();
+    reader.closeAndRemove();
+  }
+  
   @Test
   public void testConcurrentReadWrite() throws Exception {
     final int NUM_OF_COMMIT = 10;
@@ -0,0 +1,85 @@
+package com.neverwinterdp.ssm.hdfs;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.neverwinterdp.ssm.SSMReaderDescriptor;
+import com.neverwinterdp.ssm.SegmentDescriptor;
+import com.neverwinterdp.ssm.SegmentReadDescriptor;
+import com.neverwinterdp.util.io.FileUtil;
+
+/**
+ * Measure the records/sec of reading a segment on the local hadoop file system. The stream path reads a record
+ * with a readInt and a readFully on the input stream, the way the segment reader did before the read ahead
+ * buffer. The read ahead path decodes the records from the positioned reads of the segment reader.
+ */
+public class HdfsSegmentReaderPerformanceTest {
+  final static public String WORKING_DIR    = "build/working";
+  final static int           NUM_OF_RECORDS = 1000000;
+  final static int           RECORD_SIZE    = 128;
+
+  private FileSystem fs;
+  private SegmentDescriptor segment;
+
+  @Before
+  public void setup() throws Exception {
+    FileUtil.removeIfExist(WORKING_DIR, false);
+    fs = FileSystem.getLocal(new Configuration()).getRaw();
+    segment = new SegmentDescriptor(1);
+    FSDataOutputStream os = fs.create(new Path(WORKING_DIR + "/seg-storage/" + segment.getSegmentId() + ".dat"));
+    byte[] record = new byte[RECORD_SIZE];
+    for(int i = 0; i < NUM_OF_RECORDS; i++) {
+      os.writeInt(record.length);
+      os.write(record);
+    }
+    os.close();
+    segment.setDataSegmentNumOfRecords(NUM_OF_RECORDS);
+    segment.setDataSegmentLastCommitPos((long)NUM_OF_RECORDS * (4 + RECORD_SIZE));
+  }
+
+  @Test
+  public void testReadPerformance() throws Exception {
+    for(int round = 0; round < 2; round++) {
+      runStreamPath();
+      for(int readAheadSize : new int[] { 64 * 1024, 512 * 1024, 4 * 1024 * 1024 }) {
+        runReadAheadPath(readAheadSize);
+      }
+    }
+  }
+
+  void runStreamPath() throws Exception {
+    long start = System.nanoTime();
+    FSDataInputStream is = fs.open(new Path(WORKING_DIR + "/seg-storage/" + segment.getSegmentId() + ".dat"));
+    for(int i = 0; i < NUM_OF_RECORDS; i++) {
+      int size = is.readInt();
+      byte[] data = new byte[size];
+      is.readFully(data);
+    }
+    is.close();
+    report("stream                    ", System.nanoTime() - start);
+  }
+
+  void runReadAheadPath(int readAheadSize) throws Exception {
+    long start = System.nanoTime();
+    HdfsSegmentReader reader =
+      new HdfsSegmentReader(null, new SSMReaderDescriptor(), segment, new SegmentReadDescriptor(segment.getSegmentId()), fs, WORKING_DIR + "/seg-storage");
+    reader.setReadAheadSize(readAheadSize);
+    for(int i = 0; i < NUM_OF_RECORDS; i++) {
+      Assert.assertEquals(RECORD_SIZE, reader.dataNextRecord().length);
+    }
+    Assert.assertEquals(segment.getDataSegmentLastCommitPos(), reader.getCurrentReadPosition());
+    reader.close();
+    report("read ahead " + (readAheadSize / 1024) + "KB", System.nanoTime() - start);
+  }
+
+  void report(String label, long duration) {
+    long recordsPerSec = (long)(NUM_OF_RECORDS * 1000000000d / duration);
+    System.out.println(label + " records/sec = " + recordsPerSec);
+  }
+}
@@ -0,0 +1,178 @@
+package com.neverwinterdp.ssm.local;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.neverwinterdp.registry.Registry;
+import com.neverwinterdp.registry.RegistryConfig;
+import com.neverwinterdp.ssm.SSMConsistencyVerifier;
+import com.neverwinterdp.ssm.SSMReader;
+import com.neverwinterdp.ssm.SSMWriter;
+import com.neverwinterdp.ssm.SegmentConsistency;
+import com.neverwinterdp.ssm.test.TrackingRecordGenerator;
+import com.neverwinterdp.ssm.test.TrackingRecordValidator;
+import com.neverwinterdp.util.io.FileUtil;
+import com.neverwinterdp.util.log.LoggerFactory;
+import com.neverwinterdp.zookeeper.tool.server.EmbededZKServerSet;
+
+public class LocalSSMUnitTest {
+  final static public String WORKING_DIR  = "build/working";
+  
+  private EmbededZKServerSet zkCluster;
+  private Registry           registry;
+  
+  @BeforeClass
+  static public void beforeClass() throws Exception {
+    LoggerFactory.log4jUseConsoleOutputConfig("WARN");
+  }
+  
+  @Before
+  public void setup() throws Exception {
+    FileUtil.removeIfExist(WORKING_DIR, false);
+    zkCluster = new EmbededZKServerSet(WORKING_DIR + "/zookeeper", 2181, 1);
+    zkCluster.start();
+    registry = RegistryConfig.getDefault().newInstance().connect();
+  }
+  
+  @After
+  public void teardown() throws Exception {
+    registry.shutdown();
+    zkCluster.shutdown();
+  }
+  
+  @Test
+  public void testCommit() throws Exception {
+    int NUM_OF_COMMIT = 1;
+    int NUM_OF_RECORD_PER_COMMIT = 1000;
+    int NUM_OF_RECORDS = NUM_OF_COMMIT * NUM_OF_RECORD_PER_COMMIT;
+    LocalSSM storage = new LocalSSM(WORKING_DIR + "/seg-storage", registry, "/seg-storage");
+    TrackingRecordGenerator storageWriter = 
+      new TrackingRecordGenerator(storage.getWriter("test"), NUM_OF_COMMIT, NUM_OF_RECORD_PER_COMMIT);
+    storageWriter.writeWithCommit();
+    storage.getRegistry().doManagement();
+    storageWriter.writerCloseAndRemove();
+    
+    SSMConsistencyVerifier scVerifier = storage.getSegmentConsistencyVerifier();
+    scVerifier.verify();
+    System.out.println(scVerifier.getSegmentDescriptorTextReport());
+    System.out.println(scVerifier.getSegmentConsistencyTextReport());
+    Assert.assertEquals(SegmentConsistency.Consistency.GOOD, scVerifier.getMinCommitConsistency());
+    
+    SSMReader reader = storage.getReader("reader");
+    TrackingRecordValidator validator = new TrackingRecordValidator(reader, NUM_OF_RECORDS, 500).setRandomRollbackRatio(0);
+    validator.run();
+    validator.report();
+    reader.closeAndRemove();
+    storage.cleanReadSegmentByActiveReader();
+    storage.dump();
+  }
+  
+  @Test
+  public void testRollback() throws Exception {
+    int NUM_OF_COMMIT = 1;
+    int NUM_OF_RECORD_PER_COMMIT = 1000;
+    int NUM_OF_RECORDS = NUM_OF_COMMIT * NUM_OF_RECORD_PER_COMMIT;
+    
+    LocalSSM storage = new LocalSSM(WORKING_DIR + "/seg-storage", registry, "/seg-storage");
+    TrackingRecordGenerator storageWriter = 
+      new TrackingRecordGenerator(storage.getWriter("test"), NUM_OF_COMMIT, NUM_OF_RECORD_PER_COMMIT);
+    storageWriter.writeWithCommit();
+    storageWriter.writeWithRollback();
+    storageWriter.writerCloseAndRemove();
+    
+    SSMConsistencyVerifier scVerifier = storage.getSegmentConsistencyVerifier();
+    scVerifier.verify();
+    System.out.println(scVerifier.getSegmentDescriptorTextReport());
+    System.out.println(scVerifier.getSegmentConsistencyTextReport());
+    Assert.assertEquals(SegmentConsistency.Consistency.GOOD, scVerifier.getMinCommitConsistency());
+    
+    SSMReader reader = storage.getReader("reader");
+    TrackingRecordValidator validator = new TrackingRecordValidator(reader, NUM_OF_RECORDS, 100);
+    validator.run();
+    validator.report();
+    storage.dump();
+  }
+  
+  @Test
+  public void testSmallMapSize() throws Exception {
+    //a map size smaller than a record, every record is written and read in a new region 
+    LocalSSM storage = new LocalSSM(WORKING_DIR + "/seg-storage", registry, "/seg-storage");
+    storage.setMapSize(16).setForceOnCommit(true);
+    SSMWriter writer = storage.getWriter("writer");
+    for(int i = 0; i < 100; i++) {
+      writer.write(("record " + i + " with the data that is bigger than the map size").getBytes());
+      if(i % 10 == 9) writer.commit();
+    }
+    writer.write("rollback record".getBytes());
+    writer.rollback();
+    writer.closeAndRemove();
+    
+    SSMReader reader = storage.getReader("reader");
+    int count = 0;
+    byte[] data = null;
+    while((data = reader.nextRecord(1000)) != null) {
+      Assert.assertEquals("record " + count + " with the data that is bigger than the map size", new String(data));
+      count++;
+    }
+    Assert.assertEquals(100, count);
+    reader.closeAndRemove();
+  }
+  
+  @Test
+  public void testConcurrentMultipleReadWrite() throws Exception {
+    int NUM_OF_WRITERS = 3;
+    int NUM_OF_COMMIT  = 100;
+    int NUM_RECORD_PER_COMMIT = 1000;
+    int NUM_OF_RECORDS_PER_WRITER = NUM_OF_COMMIT * NUM_RECORD_PER_COMMIT;
+    
+    int NUM_OF_READERS = 3;
+    
+    LocalSSM storage = new LocalSSM(WORKING_DIR + "/seg-storage", registry, "/seg-storage");
+    storage.setMapSize(256 * 1024);
+    
+    ExecutorService writerService = Executors.newFixedThreadPool(NUM_OF_WRITERS);
+    for(int i = 0; i < NUM_OF_WRITERS; i++) {
+      SSMWriter writer = storage.getWriter("writer" + (i + 1));
+      TrackingRecordGenerator dataGenerator = 
+          new TrackingRecordGenerator(writer, NUM_OF_COMMIT, NUM_RECORD_PER_COMMIT);
+      dataGenerator.set1MBMaxSegmentSize();
+      dataGenerator.setRandomRollbackRatio(0.25);
+      writerService.submit(dataGenerator);
+    }
+    writerService.shutdown();
+    Thread.sleep(500);
+    
+    ExecutorService readerService = Executors.newFixedThreadPool(NUM_OF_READERS);
+    TrackingRecordValidator[] validator = new TrackingRecordValidator[NUM_OF_READERS];
+    for(int i = 0; i < NUM_OF_READERS; i++) {
+      SSMReader reader = storage.getReader("reader-" + (i + 1));
+      validator[i] = new TrackingRecordValidator(reader, NUM_OF_RECORDS_PER_WRITER, 500);
+      validator[i].setRandomRollbackRatio(0.25);
+      readerService.submit(validator[i]);
+    }
+    readerService.shutdown();
+    
+    while(!writerService.awaitTermination(3, TimeUnit.SECONDS)) {
+      storage.cleanReadSegmentByActiveReader();
+    }
+    SSMConsistencyVerifier scVerifier = storage.getSegmentConsistencyVerifier();
+    scVerifier.verify();
+    
+    while(!readerService.awaitTermination(3, TimeUnit.SECONDS)) {
+      storage.cleanReadSegmentByActiveReader();
+    }
+    for(int i = 0; i < NUM_OF_READERS; i++) {
+      validator[i].report();
+    }
+    System.out.println(scVerifier.getSegmentDescriptorTextReport());
+    System.out.println(scVerifier.getSegmentConsistencyTextReport());
+    Assert.assertEquals(SegmentConsistency.Consistency.GOOD, scVerifier.getMinCommitConsistency());
+  }
+}
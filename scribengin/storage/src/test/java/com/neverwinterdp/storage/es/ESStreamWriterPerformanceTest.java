@@ -0,0 +1,88 @@
+package com.neverwinterdp.storage.es;
+
+import java.util.HashMap;
+
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.neverwinterdp.es.ESObjectClient;
+import com.neverwinterdp.es.tool.server.EmbededElasticSearchServerSet;
+import com.neverwinterdp.message.Message;
+import com.neverwinterdp.storage.es.sink.ESSink;
+import com.neverwinterdp.storage.sink.SinkPartitionStreamWriter;
+import com.neverwinterdp.util.JSONSerializer;
+import com.neverwinterdp.util.io.FileUtil;
+import com.neverwinterdp.util.log.Log4jRecord;
+import com.neverwinterdp.util.log.LoggerFactory;
+
+/**
+ * Compare the records/sec of the one document bulk per record, the way the es sink indexed before, with the 
+ * buffered bulk writer of the es sink.
+ */
+public class ESStreamWriterPerformanceTest {
+  final static int NUM_OF_RECORDS = 10000;
+  
+  EmbededElasticSearchServerSet serverSet ;
+  
+  @Before
+  public void setup() throws Exception {
+    LoggerFactory.log4jUseConsoleOutputConfig("WARN");
+    FileUtil.removeIfExist("build/elasticsearch", false);
+    serverSet = new EmbededElasticSearchServerSet("build/elasticsearch", 9300, 1, new HashMap<String, String>()) ;
+    serverSet.start();
+    Thread.sleep(10000); //wait to make sure that the server is launched
+  }
+  
+  @After
+  public void teardown() throws Exception {
+    serverSet.shutdown();
+  }
+  
+  @Test
+  public void testWritePerformance() throws Exception {
+    ESStorageConfig perRecordConfig = new ESStorageConfig("per-record", "per-record", new String[] { "127.0.0.1:9300" }, Log4jRecord.class);
+    ESStorage perRecordStorage = new ESStorage(perRecordConfig);
+    ESObjectClient<Object> client = perRecordStorage.getESObjectClient();
+    long start = System.currentTimeMillis();
+    for(int i = 0; i < NUM_OF_RECORDS; i++) {
+      Message message = createMessage(i);
+      Object obj = JSONSerializer.INSTANCE.fromBytes(message.getData(), Log4jRecord.class);
+      client.put(obj, message.getKey());
+    }
+    report("per record", System.currentTimeMillis() - start);
+    client.close();
+    
+    ESStorageConfig bulkConfig = new ESStorageConfig("bulk", "bulk", new String[] { "127.0.0.1:9300" }, Log4jRecord.class);
+    ESStorage bulkStorage = new ESStorage(bulkConfig);
+    ESSink sink = bulkStorage.getSink() ;
+    SinkPartitionStreamWriter writer = sink.getPartitionStream(0).getWriter();
+    start = System.currentTimeMillis();
+    for(int i = 0; i < NUM_OF_RECORDS; i++) {
+      writer.append(createMessage(i));
+      if((i + 1) % 5000 == 0) writer.commit();
+    }
+    writer.commit();
+    report("bulk      ", System.currentTimeMillis() - start);
+    writer.close();
+    
+    Thread.sleep(2000); //wait for the index refresh
+    client = bulkStorage.getESObjectClient();
+    Assert.assertEquals(NUM_OF_RECORDS, client.count(QueryBuilders.matchAllQuery()));
+    client.close();
+  }
+  
+  Message createMessage(int idx) {
+    Log4jRecord log4jRec = new Log4jRecord() ;
+    log4jRec.withTimestamp(System.currentTimeMillis());
+    log4jRec.setLevel("INFO");
+    log4jRec.setMessage("message " + idx);
+    return new Message("key-" + idx, JSONSerializer.INSTANCE.toBytes(log4jRec));
+  }
+  
+  void report(String label, long duration) {
+    System.out.println(label + " records = " + NUM_OF_RECORDS + ", duration = " + duration + "ms, records/sec = " + (NUM_OF_RECORDS * 1000l / duration));
+  }
+}
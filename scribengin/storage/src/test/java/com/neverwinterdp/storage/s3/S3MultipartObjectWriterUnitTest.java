@@ -0,0 +1,161 @@
+package com.neverwinterdp.storage.s3;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+public class S3MultipartObjectWriterUnitTest {
+  
+  @Test
+  public void testMultipartUpload() throws Exception {
+    InMemoryMultipartS3Client amazonS3Client = new InMemoryMultipartS3Client();
+    S3Folder folder = new S3Folder(new S3Client(amazonS3Client), "bucket", "folder");
+    ObjectMetadata metadata = new ObjectMetadata();
+    metadata.addUserMetadata("transaction", "prepare");
+    S3ObjectWriter writer = folder.createMultipartObjectWriter("segment-1", metadata, 1024, 2);
+    int NUM_OF_RECORDS = 1000;
+    for(int i = 0; i < NUM_OF_RECORDS; i++) {
+      writer.write(("record " + i).getBytes());
+    }
+    writer.waitAndClose(10000);
+    Assert.assertTrue(amazonS3Client.numOfParts > 1);
+    Assert.assertNotNull(amazonS3Client.content);
+    Assert.assertEquals(Integer.toString(NUM_OF_RECORDS), metadata.getUserMetaDataOf("num-of-records"));
+    
+    //the object can be read by the reader of the single put objects
+    S3Object s3Object = new S3Object();
+    s3Object.setObjectMetadata(metadata);
+    s3Object.setObjectContent(new ByteArrayInputStream(amazonS3Client.content));
+    S3ObjectReader reader = new S3ObjectReader(s3Object);
+    int count = 0;
+    while(reader.hasNext()) {
+      Assert.assertEquals("record " + count, new String(reader.next()));
+      count++;
+    }
+    Assert.assertEquals(NUM_OF_RECORDS, count);
+  }
+  
+  @Test
+  public void testAbort() throws Exception {
+    InMemoryMultipartS3Client amazonS3Client = new InMemoryMultipartS3Client();
+    S3Folder folder = new S3Folder(new S3Client(amazonS3Client), "bucket", "folder");
+    S3ObjectWriter writer = folder.createMultipartObjectWriter("segment-1", new ObjectMetadata(), 1024, 2);
+    for(int i = 0; i < 1000; i++) {
+      writer.write(("record " + i).getBytes());
+    }
+    writer.forceClose();
+    Assert.assertTrue(amazonS3Client.aborted);
+    Assert.assertNull(amazonS3Client.content);
+  }
+  
+  @Test
+  public void testAbortAfterWaitTimeout() throws Exception {
+    final CountDownLatch uploadLatch = new CountDownLatch(1);
+    InMemoryMultipartS3Client amazonS3Client = new InMemoryMultipartS3Client() {
+      @Override
+      public UploadPartResult uploadPart(UploadPartRequest request) {
+        try {
+          uploadLatch.await();
+        } catch(InterruptedException e) {
+          throw new AmazonClientException(e.getMessage(), e);
+        }
+        return super.uploadPart(request);
+      }
+    };
+    S3Folder folder = new S3Folder(new S3Client(amazonS3Client), "bucket", "folder");
+    S3MultipartObjectWriter writer = folder.createMultipartObjectWriter("segment-1", new ObjectMetadata(), 1024, 2);
+    for(int i = 0; i < 200; i++) {
+      writer.write(("record " + i).getBytes());
+    }
+    //the part uploads are stuck, the wait times out but the upload is aborted
+    try {
+      writer.abort(100);
+      Assert.fail("the wait for the parts should time out");
+    } catch(IOException e) {
+    }
+    Assert.assertTrue(amazonS3Client.aborted);
+    uploadLatch.countDown();
+  }
+  
+  static class InMemoryMultipartS3Client extends AmazonS3Client {
+    private Map<Integer, byte[]> parts = new TreeMap<>();
+    private int     numOfParts;
+    private byte[]  content;
+    private boolean aborted;
+    
+    InMemoryMultipartS3Client() {
+      super(new BasicAWSCredentials("access-key", "secret-key"));
+    }
+    
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+      InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+      result.setUploadId("upload-1");
+      return result;
+    }
+    
+    @Override
+    synchronized public UploadPartResult uploadPart(UploadPartRequest request) {
+      byte[] data = read(request.getInputStream());
+      Assert.assertEquals(request.getPartSize(), data.length);
+      parts.put(request.getPartNumber(), data);
+      numOfParts++;
+      UploadPartResult result = new UploadPartResult();
+      result.setPartNumber(request.getPartNumber());
+      result.setETag("etag-" + request.getPartNumber());
+      return result;
+    }
+    
+    @Override
+    synchronized public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      int expectPartNumber = 1;
+      for(PartETag sel : request.getPartETags()) {
+        Assert.assertEquals(expectPartNumber++, sel.getPartNumber());
+        byte[] data = parts.get(sel.getPartNumber());
+        bos.write(data, 0, data.length);
+      }
+      content = bos.toByteArray();
+      return new CompleteMultipartUploadResult();
+    }
+    
+    @Override
+    synchronized public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+      parts.clear();
+      aborted = true;
+    }
+    
+    byte[] read(InputStream is) {
+      try {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int read;
+        while((read = is.read(buf)) > 0) bos.write(buf, 0, read);
+        return bos.toByteArray();
+      } catch(IOException ex) {
+        throw new AmazonClientException(ex.getMessage(), ex);
+      }
+    }
+  }
+}
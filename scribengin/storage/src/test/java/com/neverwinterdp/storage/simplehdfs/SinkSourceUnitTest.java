@@ -98,6 +98,56 @@ public class SinkSourceUnitTest {
     HDFSUtil.dump(fs, DATA_DIRECTORY);
   }
   
+  @Test
+  public void testSourceBatchRead() throws Exception {
+    StorageConfig storageConfig = new StorageConfig("HDFS", DATA_DIRECTORY);
+    storageConfig.setPartitionStream(1);
+    SimpleHDFSStorage hdfsStorage = new SimpleHDFSStorage(fs, storageConfig);
+    SinkPartitionStreamWriter writer = hdfsStorage.getSink().getPartitionStream(0).getWriter();
+    for(int i = 0; i < 5; i++) {
+      for(int j = 0; j < 500; j ++) {
+        writer.append(Message.create("key-" + (i * 500 + j), "record " + j));
+      }
+      writer.commit();
+    }
+    writer.close();
+    
+    HDFSSourcePartition sourcePartition = hdfsStorage.getSource().getLatestSourcePartition();
+    SourcePartitionStreamReader reader = sourcePartition.getPartitionStreams()[0].getReader("test");
+    //a batch never exceeds the requested size
+    Message[] batch = reader.next(300, 1000);
+    Assert.assertEquals(300, batch.length);
+    reader.commit();
+    
+    //the rolled back records are read again
+    Message[] uncommitted = reader.next(300, 1000);
+    reader.rollback();
+    Message[] reread = reader.next(300, 1000);
+    Assert.assertEquals(uncommitted.length, reread.length);
+    for(int i = 0; i < reread.length; i++) {
+      Assert.assertEquals(uncommitted[i].getKey(), reread[i].getKey());
+    }
+    
+    int count = batch.length + reread.length;
+    while((batch = reader.next(300, 1000)).length > 0) {
+      Assert.assertTrue(batch.length <= 300);
+      count += batch.length;
+    }
+    Assert.assertEquals(2500, count);
+    
+    //there is no more data, the batch waits at most once and returns empty
+    long start = System.currentTimeMillis();
+    Assert.assertEquals(0, reader.next(300, 1000).length);
+    Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+    
+    //a rollback past the end of the stream reads the records after the last commit again
+    reader.rollback();
+    count = 0;
+    while((batch = reader.next(300, 1000)).length > 0) count += batch.length;
+    Assert.assertEquals(2200, count);
+    reader.close();
+  }
+  
   @Test
   public void testMultiThread() throws Exception {
     int NUM_OF_WRITER = 2;
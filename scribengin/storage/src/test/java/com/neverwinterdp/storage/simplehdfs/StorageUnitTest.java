@@ -1,5 +1,6 @@
 package com.neverwinterdp.storage.simplehdfs;
 
+import java.io.IOException;
 import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -7,8 +8,12 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.util.Progressable;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -19,6 +24,7 @@ import com.neverwinterdp.storage.simplehdfs.SegmentStorage;
 import com.neverwinterdp.storage.simplehdfs.SegmentStorageReader;
 import com.neverwinterdp.storage.simplehdfs.SegmentStorageWriter;
 import com.neverwinterdp.util.io.FileUtil;
+import com.neverwinterdp.yara.MetricRegistry;
 import com.neverwinterdp.vm.environment.yarn.HDFSUtil;
 
 public class StorageUnitTest {
@@ -69,8 +75,119 @@ public class StorageUnitTest {
     System.out.println("Storage Count: " + count);
   }
 
+  @Test
+  public void testCompactionScheduler() throws Exception {
+    int NUM_OF_PARTITION          = 3;
+    int NUM_OF_SEG_PER_WRITER     = 20;
+    int NUM_OF_RECORD_PER_SEGMENT = 1000;
+    Segment.SMALL_DATASIZE_THRESHOLD  = 2 * 1024 * 1024;
+    Segment.MEDIUM_DATASIZE_THRESHOLD = 4 * Segment.SMALL_DATASIZE_THRESHOLD;
+    Segment.LARGE_DATASIZE_THRESHOLD  = 4 * Segment.MEDIUM_DATASIZE_THRESHOLD;
+    
+    SegmentCompactionScheduler scheduler = new SegmentCompactionScheduler(4, new MetricRegistry());
+    scheduler.start(100);
+    ExecutorService writerService = Executors.newFixedThreadPool(NUM_OF_PARTITION);
+    for(int i = 0; i < NUM_OF_PARTITION; i++) {
+      SegmentStorage<Record> storage = new SegmentStorage<>(fs, STORAGE_DIR + "/partition-" + i, Record.class);
+      scheduler.add(storage);
+      final SegmentStorageWriter<Record> writer = storage.getStorageWriter();
+      final int segments = NUM_OF_SEG_PER_WRITER, records = NUM_OF_RECORD_PER_SEGMENT;
+      writerService.submit(new Runnable() {
+        public void run() {
+          try {
+            for(int i = 0; i < segments * records; i++) {
+              writer.append(new Record(i, new byte[512]));
+              if(i % records == records - 1) writer.commit();
+            }
+          } catch (Exception e) {
+            e.printStackTrace();
+          }
+        }
+      });
+    }
+    writerService.shutdown();
+    writerService.awaitTermination(60, TimeUnit.SECONDS);
+    Thread.sleep(1000);
+    scheduler.shutdown(30000);
+    HDFSUtil.dump(fs, STORAGE_DIR);
+    
+    for(int i = 0; i < NUM_OF_PARTITION; i++) {
+      String location = STORAGE_DIR + "/partition-" + i;
+      Assert.assertEquals(NUM_OF_SEG_PER_WRITER * NUM_OF_RECORD_PER_SEGMENT, countStorage(location));
+      Assert.assertTrue(new SegmentStorage<>(fs, location, Record.class).getMediumSegments().getSegments().size() > 0);
+    }
+    System.out.println("merge count = " + scheduler.getMergeCount() + ", merge bytes = " + scheduler.getMergeBytes());
+    System.out.println("merge latency mean = " + scheduler.getMergeTimer().getHistogram().getMean() / 1000000 + "ms");
+    System.out.println("backlog = " + scheduler.getBacklog());
+    Assert.assertTrue(scheduler.getMergeCount() > 0);
+  }
+  
+  @Test
+  public void testMergeError() throws Exception {
+    Segment.SMALL_DATASIZE_THRESHOLD = 1024 * 1024;
+    SegmentStorage<Record> storage = new SegmentStorage<>(fs, STORAGE_DIR, Record.class);
+    SegmentStorageWriter<Record> writer = storage.getStorageWriter();
+    for(int i = 0; i < 5000; i++) {
+      writer.append(new Record(i, new byte[512]));
+      if(i % 1000 == 999) writer.commit();
+    }
+    
+    //the merge cannot create its destination
+    FileSystem failFs = new FilterFileSystem(fs) {
+      @Override
+      public FSDataOutputStream create(Path f, FsPermission permission, boolean overwrite, int bufferSize, 
+                                       short replication, long blockSize, Progressable progress) throws IOException {
+        if(f.getName().contains("buffering")) throw new IOException("Simulate a failure to create " + f);
+        return super.create(f, permission, overwrite, bufferSize, replication, blockSize, progress);
+      }
+    };
+    SegmentStorage<Record> failStorage = new SegmentStorage<>(failFs, STORAGE_DIR, Record.class);
+    SegmentCompactionScheduler scheduler = new SegmentCompactionScheduler(1, new MetricRegistry());
+    Assert.assertTrue(scheduler.schedule(failStorage, Segment.Type.buffer));
+    Assert.assertTrue(scheduler.shutdown(30000));
+    Assert.assertEquals(1, scheduler.getMergeErrorCount());
+    Assert.assertEquals(0, scheduler.getMergeCount());
+    Assert.assertEquals(0, scheduler.getNumOfRunningMerges());
+    Assert.assertEquals(5000, countStorage(STORAGE_DIR));
+  }
+  
+  @Test
+  public void testResumeMerge() throws Exception {
+    Segment.SMALL_DATASIZE_THRESHOLD = 1024 * 1024;
+    SegmentStorage<Record> storage = new SegmentStorage<>(fs, STORAGE_DIR, Record.class);
+    SegmentStorageWriter<Record> writer = storage.getStorageWriter();
+    for(int i = 0; i < 5000; i++) {
+      writer.append(new Record(i, new byte[512]));
+      if(i % 1000 == 999) writer.commit();
+    }
+    
+    //the merge dies after the merge step, before the commit step
+    SegmentOperationConfig opConfig = SegmentMergeOperation.createOperationConfig(storage, Segment.Type.buffer, 1);
+    SegmentLock lock = new SegmentLock(fs, new Path(STORAGE_DIR + "/lock-" + opConfig.getName()), opConfig);
+    Assert.assertTrue(lock.lock());
+    SegmentMergeOperation<Record> op = new SegmentMergeOperation<>();
+    Assert.assertTrue(op.init(storage, lock, opConfig));
+    opConfig.withAttribute("step", "merge");
+    lock.update(opConfig);
+    op.merge(storage, lock, opConfig);
+    //the sources stay visible until the commit step
+    Assert.assertEquals(5000, countStorage(STORAGE_DIR));
+    Thread.sleep(100);
+    
+    SegmentOperationConfig resumeConfig = SegmentMergeOperation.createOperationConfig(storage, Segment.Type.buffer, 1);
+    Assert.assertFalse(storage.execute(resumeConfig, 100, 50));
+    Assert.assertFalse(fs.exists(new Path(STORAGE_DIR + "/lock-" + opConfig.getName())));
+    storage.refresh();
+    Assert.assertEquals(1, storage.getSmallSegments().getSegments().size());
+    Assert.assertEquals(5000, countStorage(STORAGE_DIR));
+  }
+  
   int countStorage() throws Exception {
-    SegmentStorageReader<Record> reader = new SegmentStorageReader<>("test", fs, STORAGE_DIR, Record.class);
+    return countStorage(STORAGE_DIR);
+  }
+  
+  int countStorage(String location) throws Exception {
+    SegmentStorageReader<Record> reader = new SegmentStorageReader<>("test", fs, location, Record.class);
     Record record = null ;
     int count = 0 ;
     while((record = reader.next(1000)) != null) {